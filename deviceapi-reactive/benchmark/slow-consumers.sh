@@ -0,0 +1,57 @@
+#!/usr/bin/env bash
+#
+# Compares the servlet and the reactive list endpoints under many slow, long-lived consumers.
+#
+# Usage: benchmark/slow-consumers.sh [consumers] [rate]
+#   consumers - concurrent clients per stack (default 500)
+#   rate      - download rate of every client, as accepted by curl --limit-rate (default 2k)
+#
+# Both applications must be running against the same database:
+#   servlet:  SERVLET_URL  (default http://localhost:8080), SERVLET_PID  to sample its threads
+#   reactive: REACTIVE_URL (default http://localhost:8081), REACTIVE_PID to sample its threads
+
+set -uo pipefail
+
+CONSUMERS="${1:-500}"
+RATE="${2:-2k}"
+SERVLET_URL="${SERVLET_URL:-http://localhost:8080}"
+REACTIVE_URL="${REACTIVE_URL:-http://localhost:8081}"
+
+threads() {
+  if [ -n "${1:-}" ] && [ -r "/proc/$1/status" ]; then
+    awk '/^Threads:/ { print $2 }' "/proc/$1/status"
+  else
+    echo "n/a"
+  fi
+}
+
+run() {
+  local name="$1" url="$2" accept="$3" pid="${4:-}"
+  local start failures=0 peak=0 current
+  local pids=()
+
+  start=$(date +%s%N)
+
+  for _ in $(seq 1 "$CONSUMERS"); do
+    curl -s -f -o /dev/null --limit-rate "$RATE" -H "Accept: $accept" "$url/api/v1/devices" &
+    pids+=($!)
+  done
+
+  while [ "$(jobs -rp | wc -l)" -gt 0 ]; do
+    current=$(threads "$pid")
+    if [ "$current" != "n/a" ] && [ "$current" -gt "$peak" ]; then
+      peak=$current
+    fi
+    sleep 0.5
+  done
+
+  for p in "${pids[@]}"; do
+    wait "$p" || failures=$((failures + 1))
+  done
+
+  echo "$name: $CONSUMERS consumers at $RATE/s in $(( ($(date +%s%N) - start) / 1000000 )) ms," \
+       "$failures failed, peak server threads ${peak/#0/n/a}"
+}
+
+run "servlet " "$SERVLET_URL" "application/json" "${SERVLET_PID:-}"
+run "reactive" "$REACTIVE_URL" "application/x-ndjson" "${REACTIVE_PID:-}"
@@ -0,0 +1,13 @@
+package com.francisco.deviceapi.reactive;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+@SpringBootApplication
+public class ReactiveDeviceApiApplication {
+
+	public static void main(String[] args) {
+		SpringApplication.run(ReactiveDeviceApiApplication.class, args);
+	}
+
+}
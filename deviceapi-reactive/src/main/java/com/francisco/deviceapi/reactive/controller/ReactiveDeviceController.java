@@ -0,0 +1,52 @@
+package com.francisco.deviceapi.reactive.controller;
+
+import com.francisco.deviceapi.domain.enums.DeviceState;
+import com.francisco.deviceapi.dto.DeviceDTO;
+import com.francisco.deviceapi.reactive.service.ReactiveDeviceService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking read endpoints, mirroring the reads of the servlet DeviceController.
+ */
+@RestController
+@RequestMapping("/api/v1/devices")
+@RequiredArgsConstructor
+public class ReactiveDeviceController {
+
+    private final ReactiveDeviceService reactiveDeviceService;
+
+    /**
+     * Retrieves a device by ID.
+     *
+     * @param id - the ID of the device to be retrieved.
+     * @return a {@link Mono} with the device.
+     */
+    @GetMapping("/{id}")
+    public Mono<DeviceDTO> getDevice(@PathVariable(name = "id") Long id) {
+        return reactiveDeviceService.getDevice(id);
+    }
+
+    /**
+     * Retrieves the devices by Brand and/or State or all if query params are not present.
+     * <p>
+     * With {@code Accept: application/x-ndjson} every device is written as soon as it's read, one per line, at
+     * the pace of the client. Otherwise the devices are written as a JSON array.
+     *
+     * @param brand - the Brand of the devices to be retrieved.
+     * @param state - Available, In use, or Inactive.
+     * @return a {@link Flux} with the matching devices.
+     */
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<DeviceDTO> getDevices(@RequestParam(name = "brand", required = false) String brand,
+                                      @RequestParam(name = "state", required = false) DeviceState state) {
+        return reactiveDeviceService.getDevices(brand, state);
+    }
+}
@@ -0,0 +1,20 @@
+package com.francisco.deviceapi.reactive.exception;
+
+import com.francisco.deviceapi.dto.CustomErrorMessageDTO;
+import com.francisco.deviceapi.exception.NotFoundException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ControllerAdvice
+public class ReactiveExceptionHandler {
+
+    @ExceptionHandler(NotFoundException.class)
+    @ResponseStatus(HttpStatus.NOT_FOUND)
+    @ResponseBody
+    public CustomErrorMessageDTO handleNotFoundException(NotFoundException e) {
+        return new CustomErrorMessageDTO(e.getMessage());
+    }
+}
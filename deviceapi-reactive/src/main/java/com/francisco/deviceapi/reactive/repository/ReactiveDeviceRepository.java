@@ -0,0 +1,90 @@
+package com.francisco.deviceapi.reactive.repository;
+
+import com.francisco.deviceapi.domain.enums.DeviceState;
+import com.francisco.deviceapi.dto.DeviceDTO;
+import io.r2dbc.spi.Readable;
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Non-blocking reads of the {@code devices} and {@code devices_archive} tables, whose schema is managed by the
+ * deviceapi module.
+ * <p>
+ * Rows are emitted as they are fetched, so a slow subscriber holds back the fetching instead of buffering the
+ * whole result.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ReactiveDeviceRepository {
+
+    private static final String COLUMNS = "id, name, brand, state, creation_time";
+
+    private final DatabaseClient databaseClient;
+
+    /**
+     * Finds a device by ID in the hot table or in the archive, with a single query.
+     *
+     * @param id the ID of the device.
+     * @return a {@link Mono} with the device, or an empty {@link Mono}.
+     */
+    public Mono<DeviceDTO> findById(Long id) {
+        return databaseClient.sql("SELECT " + COLUMNS + " FROM devices WHERE id = :id " +
+                        "UNION ALL SELECT " + COLUMNS + " FROM devices_archive WHERE id = :id")
+                .bind("id", id)
+                .map(ReactiveDeviceRepository::toDeviceDTO)
+                .first();
+    }
+
+    /**
+     * Finds all devices by a Brand and/or State (if present) or all devices.
+     *
+     * @param brand - the Brand of the devices, or null for any Brand.
+     * @param state - Available, In use, or Inactive, or null for any State.
+     * @param includeArchive - whether the archived devices are read as well.
+     * @return a {@link Flux} with the matching devices.
+     */
+    public Flux<DeviceDTO> findByBrandAndState(String brand, DeviceState state, boolean includeArchive) {
+        List<String> conditions = new ArrayList<>();
+        Map<String, Object> bindings = new LinkedHashMap<>();
+
+        if (brand != null) {
+            conditions.add("brand = :brand");
+            bindings.put("brand", brand);
+        }
+
+        if (state != null) {
+            conditions.add("state = :state");
+            bindings.put("state", state.name());
+        }
+
+        String where = conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+        String sql = "SELECT " + COLUMNS + " FROM devices" + where;
+
+        if (includeArchive) {
+            sql += " UNION ALL SELECT " + COLUMNS + " FROM devices_archive" + where;
+        }
+
+        return databaseClient.sql(sql)
+                .bindValues(bindings)
+                .map(ReactiveDeviceRepository::toDeviceDTO)
+                .all();
+    }
+
+    private static DeviceDTO toDeviceDTO(Readable row) {
+        return new DeviceDTO(
+                row.get("id", Long.class),
+                row.get("name", String.class),
+                row.get("brand", String.class),
+                DeviceState.valueOf(row.get("state", String.class)),
+                row.get("creation_time", LocalDate.class));
+    }
+}
@@ -0,0 +1,47 @@
+package com.francisco.deviceapi.reactive.service;
+
+import com.francisco.deviceapi.domain.enums.DeviceState;
+import com.francisco.deviceapi.dto.DeviceDTO;
+import com.francisco.deviceapi.exception.DeviceNotFoundException;
+import com.francisco.deviceapi.reactive.repository.ReactiveDeviceRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Service
+@RequiredArgsConstructor
+public class ReactiveDeviceService {
+
+    private final ReactiveDeviceRepository reactiveDeviceRepository;
+
+    /**
+     * Retrieves a device by ID, archived or not.
+     * <p>
+     * Signals a {@link DeviceNotFoundException} if the device doesn't exist.
+     *
+     * @param id the ID of the device to be retrieved.
+     * @return a {@link Mono} with the device.
+     */
+    public Mono<DeviceDTO> getDevice(Long id) {
+        return reactiveDeviceRepository.findById(id)
+                .switchIfEmpty(Mono.error(DeviceNotFoundException::new));
+    }
+
+    /**
+     * Retrieves the devices by Brand and/or State if one is present, else all devices.
+     * <p>
+     * The archive is only read if INACTIVE or no State is requested. Signals a {@link DeviceNotFoundException}
+     * before any device is emitted if none matches.
+     *
+     * @param brand - the Brand of the devices to be retrieved.
+     * @param state - Available, In use, or Inactive.
+     * @return a {@link Flux} with the matching devices.
+     */
+    public Flux<DeviceDTO> getDevices(String brand, DeviceState state) {
+        boolean includeArchive = state == null || state == DeviceState.INACTIVE;
+
+        return reactiveDeviceRepository.findByBrandAndState(brand, state, includeArchive)
+                .switchIfEmpty(Flux.error(DeviceNotFoundException::new));
+    }
+}
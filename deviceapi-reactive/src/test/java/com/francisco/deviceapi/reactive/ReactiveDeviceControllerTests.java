@@ -0,0 +1,100 @@
+package com.francisco.deviceapi.reactive;
+
+import com.francisco.deviceapi.domain.enums.DeviceState;
+import com.francisco.deviceapi.dto.DeviceDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureWebTestClient
+@ActiveProfiles("test")
+public class ReactiveDeviceControllerTests {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @BeforeEach
+    void setup() {
+        databaseClient.sql("DELETE FROM devices").then()
+                .then(databaseClient.sql("DELETE FROM devices_archive").then())
+                .then(insert("devices", 1L, "Device 1", "Brand 1", DeviceState.AVAILABLE))
+                .then(insert("devices", 2L, "Device 2", "Brand 1", DeviceState.IN_USE))
+                .then(insert("devices_archive", 3L, "Device 3", "Brand 1", DeviceState.INACTIVE))
+                .block();
+    }
+
+    private Mono<Void> insert(String table, Long id, String name, String brand, DeviceState state) {
+        String archivedAt = table.equals("devices_archive") ? ", archived_at" : "";
+        String archivedAtValue = table.equals("devices_archive") ? ", CURRENT_TIMESTAMP" : "";
+
+        return databaseClient.sql("INSERT INTO " + table + " (id, name, brand, state, creation_time" + archivedAt +
+                        ") VALUES (:id, :name, :brand, :state, :creationTime" + archivedAtValue + ")")
+                .bind("id", id)
+                .bind("name", name)
+                .bind("brand", brand)
+                .bind("state", state.name())
+                .bind("creationTime", LocalDate.now())
+                .then();
+    }
+
+    @Test
+    public void whenGetArchivedDeviceById_thenReturnDevice() {
+        webTestClient.get().uri("/api/v1/devices/{id}", 3L)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.name").isEqualTo("Device 3")
+                .jsonPath("$.state").isEqualTo("INACTIVE");
+    }
+
+    @Test
+    public void whenGetNonExistingDevice_thenReturnNotFound() {
+        webTestClient.get().uri("/api/v1/devices/{id}", 123L)
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectBody()
+                .json("{\"errorMessage\":\"Device not found!\"}");
+    }
+
+    @Test
+    public void whenGetAvailableDevices_thenSkipArchive() {
+        webTestClient.get().uri("/api/v1/devices?state=AVAILABLE")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(DeviceDTO.class)
+                .hasSize(1);
+    }
+
+    @Test
+    public void whenStreamDevicesByBrand_thenEmitHotAndArchivedDevicesOnDemand() {
+        Flux<DeviceDTO> devices = webTestClient.get().uri("/api/v1/devices?brand=Brand 1")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(DeviceDTO.class)
+                .getResponseBody();
+
+        StepVerifier.create(devices, 1)
+                .assertNext(device -> assertThat(device.brand()).isEqualTo("Brand 1"))
+                .thenRequest(2)
+                .expectNextCount(2)
+                .verifyComplete();
+    }
+}
@@ -0,0 +1,19 @@
+#!/usr/bin/env bash
+#
+# Compares the REST endpoints and the gRPC service of the same application on H2: creating devices one POST at a
+# time against a client-streamed BulkCreateDevices, getting devices by ID, and listing a Brand against a
+# server-streamed ListDevices.
+#
+# Usage: benchmark/grpc.sh [devices] [clients] [requests]
+#
+# The bulk create phase of gRPC reports one latency per stream, not per device.
+
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+mvn -B -q test-compile dependency:build-classpath -Dmdep.outputFile=target/benchmark-classpath.txt \
+    -Dmdep.includeScope=test
+
+java -cp "target/test-classes:target/classes:$(cat target/benchmark-classpath.txt)" \
+    com.francisco.deviceapi.grpc.DeviceGrpcBenchmark "$@"
@@ -0,0 +1,18 @@
+#!/usr/bin/env bash
+#
+# Compares the CPU time and allocation per response of writing a device list with the Jackson converter and
+# with the cached JSON of DeviceJsonHttpMessageConverter.
+#
+# Usage: benchmark/json-cache.sh [devices] [iterations]
+#
+# The body is discarded, so the allocation is only the serialization's own.
+
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+mvn -B -q test-compile dependency:build-classpath -Dmdep.outputFile=target/benchmark-classpath.txt \
+    -Dmdep.includeScope=test
+
+java -cp "target/test-classes:target/classes:$(cat target/benchmark-classpath.txt)" \
+    com.francisco.deviceapi.web.DeviceJsonCacheBenchmark "$@"
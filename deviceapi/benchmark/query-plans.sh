@@ -0,0 +1,22 @@
+#!/usr/bin/env bash
+#
+# Generates a synthetic device dataset (skewed brands, configurable state mix) and checks the plan and timing of
+# every hot-path DeviceRepository query. Exits with status 1 if any filtered query scans the whole table.
+#
+# Usage: benchmark/query-plans.sh [rows] [jdbc-url] [username] [password] [state-mix]
+#   rows      - devices to generate, default 1000000
+#   jdbc-url  - default an in-memory H2 database, e.g. jdbc:postgresql://localhost:5432/devicedb
+#   state-mix - default AVAILABLE=80,IN_USE=18,INACTIVE=2
+#
+# The schema is migrated by Flyway. Against PostgreSQL the rows are added to the existing devices, so use a
+# throwaway database. The unfiltered listing loads every device, so raise -Xmx for tens of millions of rows.
+
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+mvn -B -q test-compile dependency:build-classpath -Dmdep.outputFile=target/benchmark-classpath.txt \
+    -Dmdep.includeScope=test
+
+java ${JAVA_OPTS:--Xmx4g} -cp "target/test-classes:target/classes:$(cat target/benchmark-classpath.txt)" \
+    com.francisco.deviceapi.dataset.DeviceQueryPlanBenchmark "$@"
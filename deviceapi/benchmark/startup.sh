@@ -0,0 +1,56 @@
+#!/usr/bin/env bash
+#
+# Measures the time from launching the JVM to the first served HTTP request.
+#
+# Usage: benchmark/startup.sh [jar|cds] [runs]
+#   jar - plain executable jar:          mvn package
+#   cds - extracted jar, AOT and CDS:    mvn -Pfast-startup package
+#
+# Runs against the in-memory "embedded" profile, so no database is needed.
+
+set -euo pipefail
+
+MODE="${1:-jar}"
+RUNS="${2:-5}"
+PORT="${PORT:-18080}"
+TARGET="$(cd "$(dirname "$0")/../target" && pwd)"
+JAR="deviceapi-0.0.1-SNAPSHOT-exec.jar"
+
+case "$MODE" in
+  jar)
+    COMMAND=(java -jar "$TARGET/$JAR")
+    ;;
+  cds)
+    COMMAND=(java -XX:SharedArchiveFile="$TARGET/cds/application.jsa" -Xlog:cds=error -Dspring.aot.enabled=true
+             -jar "$TARGET/cds/$JAR")
+    ;;
+  *)
+    echo "Unknown mode: $MODE" >&2
+    exit 1
+    ;;
+esac
+
+total=0
+
+for run in $(seq 1 "$RUNS"); do
+  start=$(date +%s%N)
+  "${COMMAND[@]}" --spring.profiles.active=embedded --server.port="$PORT" > /dev/null 2>&1 &
+  pid=$!
+
+  until [ "$(curl -s -o /dev/null -w '%{http_code}' "http://localhost:$PORT/api/v1/devices")" != "000" ]; do
+    if ! kill -0 "$pid" 2> /dev/null; then
+      echo "The application exited before serving a request" >&2
+      exit 1
+    fi
+    sleep 0.01
+  done
+
+  elapsed=$(( ($(date +%s%N) - start) / 1000000 ))
+  total=$(( total + elapsed ))
+  echo "Run $run: ${elapsed} ms"
+
+  kill "$pid"
+  wait "$pid" 2> /dev/null || true
+done
+
+echo "$MODE: average time to first request $(( total / RUNS )) ms over $RUNS run(s)"
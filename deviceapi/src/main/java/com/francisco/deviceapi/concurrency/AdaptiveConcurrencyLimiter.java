@@ -0,0 +1,170 @@
+package com.francisco.deviceapi.concurrency;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Limits the number of concurrent calls to a limit that adapts to their observed latency.
+ * <p>
+ * The limit follows a gradient: the ratio between the long-term average latency and the latency of each call.
+ * While the latency stays within the tolerance of the average, the limit grows by its square root, and when calls
+ * slow down, because they queue for connections or row locks, the limit shrinks in proportion to the gradient.
+ * Calls that are dropped, because they failed with an overload error, shrink the limit multiplicatively. Calls
+ * sampled while less than half of the limit was in use don't change it, as they say nothing about the capacity
+ * above them.
+ * <p>
+ * Calls over the limit are rejected right away instead of queueing, so the calls admitted keep their latency.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private static final int WARMUP_SAMPLES = 10;
+
+    private static final double SMOOTHING = 0.2;
+
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private static final double MIN_GRADIENT = 0.5;
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final double tolerance;
+
+    private final double longRttFactor;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final LongAdder rejected = new LongAdder();
+
+    private volatile double limit;
+
+    private double longRttNanos;
+
+    private long samples;
+
+    /**
+     * @param initialLimit the limit until it adapts.
+     * @param minLimit the lowest limit.
+     * @param maxLimit the highest limit.
+     * @param tolerance how many times slower than the average a call can be before the limit shrinks.
+     * @param window the number of calls the long-term average latency is averaged over.
+     */
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double tolerance, int window) {
+        if (minLimit < 1 || minLimit > initialLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("The limits must satisfy 1 <= min <= initial <= max!");
+        }
+
+        if (tolerance < 1.0) {
+            throw new IllegalArgumentException("The tolerance must be at least 1!");
+        }
+
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.longRttFactor = 2.0 / (window + 1);
+    }
+
+    /**
+     * Admits a call if the calls in flight are under the limit.
+     *
+     * @return a {@link Permit} to be released when the call completes, or empty if the call was rejected.
+     */
+    public Optional<Permit> tryAcquire() {
+        int current;
+
+        do {
+            current = inFlight.get();
+
+            if (current >= getLimit()) {
+                rejected.increment();
+                return Optional.empty();
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+
+        return Optional.of(new Permit(System.nanoTime(), current + 1));
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    synchronized void onSample(long rttNanos, int inFlightAtStart, boolean dropped) {
+        if (dropped) {
+            limit = Math.max(minLimit, limit * BACKOFF_RATIO);
+            return;
+        }
+
+        samples++;
+        longRttNanos = samples <= WARMUP_SAMPLES
+                ? longRttNanos + (rttNanos - longRttNanos) / samples
+                : longRttNanos + (rttNanos - longRttNanos) * longRttFactor;
+
+        if (samples <= WARMUP_SAMPLES || inFlightAtStart < limit / 2) {
+            return;
+        }
+
+        double gradient = Math.clamp(tolerance * longRttNanos / Math.max(rttNanos, 1), MIN_GRADIENT, 1.0);
+        double newLimit = gradient < 1.0 ? limit * gradient : limit + Math.sqrt(limit);
+
+        limit = Math.clamp(limit * (1 - SMOOTHING) + newLimit * SMOOTHING, minLimit, maxLimit);
+    }
+
+    /**
+     * An admitted call, which must be released exactly once when it completes.
+     */
+    public final class Permit {
+
+        private final long startNanos;
+
+        private final int inFlightAtStart;
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(long startNanos, int inFlightAtStart) {
+            this.startNanos = startNanos;
+            this.inFlightAtStart = inFlightAtStart;
+        }
+
+        /**
+         * Releases the permit and adapts the limit to the latency of the call.
+         */
+        public void release() {
+            release(false);
+        }
+
+        /**
+         * Releases the permit of a call that failed with an overload error and shrinks the limit.
+         */
+        public void releaseDropped() {
+            release(true);
+        }
+
+        /**
+         * Releases the permit of a call whose outcome says nothing about the capacity, without changing the limit.
+         */
+        public void releaseIgnored() {
+            if (released.compareAndSet(false, true)) {
+                inFlight.decrementAndGet();
+            }
+        }
+
+        private void release(boolean dropped) {
+            if (released.compareAndSet(false, true)) {
+                inFlight.decrementAndGet();
+                onSample(System.nanoTime() - startNanos, inFlightAtStart, dropped);
+            }
+        }
+    }
+}
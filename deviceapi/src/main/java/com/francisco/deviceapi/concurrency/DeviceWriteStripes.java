@@ -0,0 +1,143 @@
+package com.francisco.deviceapi.concurrency;
+
+import com.francisco.deviceapi.exception.DeadlineExceededException;
+import com.francisco.deviceapi.exception.DeviceBusyException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Striped in-process locks keyed by device ID.
+ * <p>
+ * Writers of the same device queue here instead of inside the database, so at most one of them holds a pooled
+ * connection and a row lock at a time. Devices whose IDs map to the same stripe share a lock.
+ */
+@Component
+public class DeviceWriteStripes {
+
+    private final ReentrantLock[] locks;
+
+    private final long timeoutMillis;
+
+    public DeviceWriteStripes(@Value("${device.write-lock.stripes:1024}") int stripes,
+                              @Value("${device.write-lock.timeout-ms:2000}") long timeoutMillis) {
+        if (Integer.bitCount(stripes) != 1) {
+            throw new IllegalArgumentException("The number of stripes must be a power of two!");
+        }
+
+        this.locks = new ReentrantLock[stripes];
+        this.timeoutMillis = timeoutMillis;
+
+        for (int i = 0; i < stripes; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Acquires the lock of a device, waiting up to the configured timeout or the {@link RequestDeadline}, whichever
+     * comes first.
+     * <p>
+     * Throws a {@link DeviceBusyException} if the lock couldn't be acquired in time, or a
+     * {@link DeadlineExceededException} if the deadline came first.
+     *
+     * @param id the ID of the device.
+     * @return a {@link Stripe} that releases the lock when closed.
+     */
+    public Stripe lock(Long id) {
+        ReentrantLock lock = locks[stripeOf(id)];
+
+        try {
+            tryLock(lock);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DeviceBusyException("Device is busy, try again later!");
+        }
+
+        return lock::unlock;
+    }
+
+    /**
+     * Acquires the locks of several devices in ascending stripe order, so that concurrent callers can't deadlock.
+     * <p>
+     * Throws a {@link DeviceBusyException} or a {@link DeadlineExceededException} if any lock couldn't be acquired
+     * in time, after releasing the ones already acquired.
+     *
+     * @param ids the IDs of the devices.
+     * @return a {@link Stripe} that releases every lock when closed.
+     */
+    public Stripe lockAll(Collection<Long> ids) {
+        int[] stripes = ids.stream()
+                .mapToInt(this::stripeOf)
+                .distinct()
+                .sorted()
+                .toArray();
+        int acquired = 0;
+
+        try {
+            for (int stripe : stripes) {
+                tryLock(locks[stripe]);
+                acquired++;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            unlock(stripes, acquired);
+            throw new DeviceBusyException("Device is busy, try again later!");
+        } catch (RuntimeException e) {
+            unlock(stripes, acquired);
+            throw e;
+        }
+
+        return () -> unlock(stripes, stripes.length);
+    }
+
+    /**
+     * Acquires the lock of a device only if no other thread holds it, without waiting.
+     *
+     * @param id the ID of the device.
+     * @return an {@link Optional} with a {@link Stripe} that releases the lock when closed, or an empty
+     * {@link Optional} if the device is being written.
+     */
+    public Optional<Stripe> tryLockNow(Long id) {
+        ReentrantLock lock = locks[stripeOf(id)];
+        return lock.tryLock() ? Optional.of(lock::unlock) : Optional.empty();
+    }
+
+    private void tryLock(ReentrantLock lock) throws InterruptedException {
+        long remainingMillis = RequestDeadline.remainingMillis();
+
+        if (lock.tryLock(Math.min(timeoutMillis, remainingMillis), TimeUnit.MILLISECONDS)) {
+            return;
+        }
+
+        if (remainingMillis <= timeoutMillis) {
+            throw new DeadlineExceededException("Request deadline exceeded!");
+        }
+
+        throw new DeviceBusyException("Device is busy, try again later!");
+    }
+
+    private void unlock(int[] stripes, int count) {
+        for (int i = count - 1; i >= 0; i--) {
+            locks[stripes[i]].unlock();
+        }
+    }
+
+    private int stripeOf(Long id) {
+        int hash = id.hashCode();
+        return (hash ^ (hash >>> 16)) & (locks.length - 1);
+    }
+
+    /**
+     * Held locks, released when closed.
+     */
+    @FunctionalInterface
+    public interface Stripe extends AutoCloseable {
+
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,64 @@
+package com.francisco.deviceapi.concurrency;
+
+import com.francisco.deviceapi.exception.DeadlineExceededException;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The deadline of the request being handled by the current thread.
+ * <p>
+ * Work done past the deadline is wasted, because the client has already given up, so blocking calls bound their
+ * waits by the {@link #remainingMillis() remaining} time and fail with a {@link DeadlineExceededException} once
+ * it's exceeded. Without a deadline nothing is bounded.
+ */
+public final class RequestDeadline {
+
+    private static final ThreadLocal<Long> DEADLINE_NANOS = new ThreadLocal<>();
+
+    private RequestDeadline() {
+
+    }
+
+    /**
+     * Sets the deadline of the current thread, replacing any deadline already set.
+     *
+     * @param timeoutMillis the time from now until the deadline, in milliseconds.
+     */
+    public static void start(long timeoutMillis) {
+        DEADLINE_NANOS.set(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis));
+    }
+
+    /**
+     * Removes the deadline of the current thread.
+     */
+    public static void clear() {
+        DEADLINE_NANOS.remove();
+    }
+
+    public static boolean isSet() {
+        return DEADLINE_NANOS.get() != null;
+    }
+
+    /**
+     * @return the milliseconds left until the deadline, zero if it's exceeded, or {@link Long#MAX_VALUE} if no
+     * deadline is set.
+     */
+    public static long remainingMillis() {
+        Long deadlineNanos = DEADLINE_NANOS.get();
+
+        if (deadlineNanos == null) {
+            return Long.MAX_VALUE;
+        }
+
+        return Math.max(0, TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime()));
+    }
+
+    /**
+     * Throws a {@link DeadlineExceededException} if the deadline of the current thread is exceeded.
+     */
+    public static void checkNotExceeded() {
+        if (remainingMillis() == 0) {
+            throw new DeadlineExceededException("Request deadline exceeded!");
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.francisco.deviceapi.concurrency;
+
+import java.util.Collection;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free ring buffer for many producers and a single consumer.
+ * <p>
+ * Producers claim a slot by advancing the tail with a CAS and publish the element into it. The consumer takes the
+ * elements in claim order and clears their slots, and stops at a slot that is claimed but not yet published, so it
+ * never waits for a producer. A full buffer rejects elements instead of blocking.
+ * <p>
+ * {@link #drainTo(Collection, int)} must not be called concurrently.
+ *
+ * @param <E> the type of the elements.
+ */
+public class RingBuffer<E> {
+
+    private final AtomicReferenceArray<E> slots;
+
+    private final int mask;
+
+    private final AtomicLong tail = new AtomicLong();
+
+    private volatile long head;
+
+    /**
+     * @param capacity the minimum number of elements, rounded up to a power of two.
+     */
+    public RingBuffer(int capacity) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Invalid ring buffer capacity " + capacity + "!");
+        }
+
+        int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    /**
+     * Adds an element, unless the buffer is full.
+     *
+     * @param element the element, not null.
+     * @return true if the element was added.
+     */
+    public boolean offer(E element) {
+        Objects.requireNonNull(element);
+        long claimed;
+
+        do {
+            claimed = tail.get();
+
+            if (claimed - head >= slots.length()) {
+                return false;
+            }
+        } while (!tail.compareAndSet(claimed, claimed + 1));
+
+        slots.set((int) claimed & mask, element);
+        return true;
+    }
+
+    /**
+     * Moves the published elements to a collection, oldest first.
+     *
+     * @param target the collection.
+     * @param maxElements the maximum number of elements to be moved.
+     * @return the number of moved elements.
+     */
+    public int drainTo(Collection<? super E> target, int maxElements) {
+        long next = head;
+        int drained = 0;
+
+        while (drained < maxElements) {
+            int index = (int) next & mask;
+            E element = slots.get(index);
+
+            if (element == null) {
+                break;
+            }
+
+            slots.lazySet(index, null);
+            target.add(element);
+            next++;
+            drained++;
+        }
+
+        head = next;
+        return drained;
+    }
+
+    public int capacity() {
+        return slots.length();
+    }
+
+    /**
+     * @return the number of claimed slots, including the ones not yet published.
+     */
+    public int size() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+}
@@ -0,0 +1,17 @@
+package com.francisco.deviceapi.concurrency;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a method that writes a single device, identified by its first {@link Long} argument.
+ * <p>
+ * Calls to such methods are serialized per device on this node by {@link SerializedDeviceWriteAspect}, before any
+ * transaction or database connection is acquired.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface SerializedDeviceWrite {
+}
@@ -0,0 +1,41 @@
+package com.francisco.deviceapi.concurrency;
+
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+
+/**
+ * Serializes the calls to {@link SerializedDeviceWrite} methods per device.
+ * <p>
+ * Runs right after {@link com.francisco.deviceapi.web.ServerTimingAspect}, so the lock is held around the transaction
+ * instead of inside it, and the wait for it is part of the timed service call. Calls whose
+ * {@link RequestDeadline} was exceeded while waiting for the lock are not proceeded.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+@RequiredArgsConstructor
+public class SerializedDeviceWriteAspect {
+
+    private final DeviceWriteStripes deviceWriteStripes;
+
+    @Around("@annotation(com.francisco.deviceapi.concurrency.SerializedDeviceWrite)")
+    public Object serialize(ProceedingJoinPoint joinPoint) throws Throwable {
+        Long id = Arrays.stream(joinPoint.getArgs())
+                .filter(Long.class::isInstance)
+                .map(Long.class::cast)
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException(joinPoint.getSignature() + " has no device ID!"));
+
+        try (DeviceWriteStripes.Stripe ignored = deviceWriteStripes.lock(id)) {
+            RequestDeadline.checkNotExceeded();
+            return joinPoint.proceed();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.francisco.deviceapi.concurrency;
+
+import com.francisco.deviceapi.exception.DeadlineExceededException;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent calls with the same key into a single execution.
+ * <p>
+ * The first caller of a key executes the call, and the callers that arrive while it's in flight wait for it and
+ * share its result or exception, up to their {@link RequestDeadline}. Nothing is kept once the call completes, so
+ * a result is never older than the call that produced it.
+ * <p>
+ * A deadline or query timeout of the first caller is not shared, because it says more about the first caller's
+ * deadline than about the call: the waiting callers execute the call themselves, within their own deadline.
+ *
+ * @param <K> the type of the call keys.
+ * @param <V> the type of the call results.
+ */
+public class SingleFlight<K, V> {
+
+    private final Map<K, CompletableFuture<V>> calls = new ConcurrentHashMap<>();
+
+    private final LongAdder executed = new LongAdder();
+
+    private final LongAdder coalesced = new LongAdder();
+
+    /**
+     * Executes a call, or waits for the identical call already in flight.
+     *
+     * @param key the key identifying the call.
+     * @param call the call to be executed.
+     * @return the result of the call.
+     */
+    public V execute(K key, Supplier<V> call) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> inFlight = calls.putIfAbsent(key, flight);
+
+        if (inFlight != null) {
+            coalesced.increment();
+            return await(inFlight, call);
+        }
+
+        executed.increment();
+
+        try {
+            V result = call.get();
+            flight.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            calls.remove(key, flight);
+        }
+    }
+
+    public long executedCount() {
+        return executed.sum();
+    }
+
+    public long coalescedCount() {
+        return coalesced.sum();
+    }
+
+    private V await(CompletableFuture<V> inFlight, Supplier<V> call) {
+        try {
+            if (!RequestDeadline.isSet()) {
+                return inFlight.join();
+            }
+
+            return inFlight.get(RequestDeadline.remainingMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new DeadlineExceededException("Request deadline exceeded!");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DeadlineExceededException("Request deadline exceeded!");
+        } catch (ExecutionException | CompletionException e) {
+            if (e.getCause() instanceof DeadlineExceededException || e.getCause() instanceof QueryTimeoutException) {
+                RequestDeadline.checkNotExceeded();
+                executed.increment();
+                return call.get();
+            }
+
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+
+            throw new CompletionException(e.getCause());
+        }
+    }
+}
@@ -1,26 +1,55 @@
 package com.francisco.deviceapi.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.francisco.deviceapi.domain.Device;
+import com.francisco.deviceapi.domain.enums.CreationInterval;
 import com.francisco.deviceapi.domain.enums.DeviceState;
 import com.francisco.deviceapi.dto.CreateDeviceRequestDTO;
+import com.francisco.deviceapi.dto.DeviceCountDTO;
+import com.francisco.deviceapi.dto.DeviceCreationCountDTO;
 import com.francisco.deviceapi.dto.DeviceDTO;
+import com.francisco.deviceapi.dto.DeviceImportEventDTO;
+import com.francisco.deviceapi.dto.DeviceLeaseDTO;
+import com.francisco.deviceapi.dto.DeviceLookupDTO;
+import com.francisco.deviceapi.dto.DeviceLookupRequestDTO;
+import com.francisco.deviceapi.dto.DeviceOperationResultDTO;
+import com.francisco.deviceapi.dto.DeviceOperationsRequestDTO;
+import com.francisco.deviceapi.dto.DeviceStateHistoryDTO;
 import com.francisco.deviceapi.dto.PatchDeviceRequestDTO;
 import com.francisco.deviceapi.exception.DeviceInUseException;
 import com.francisco.deviceapi.mapper.DeviceMapper;
+import com.francisco.deviceapi.service.DeviceImportService;
+import com.francisco.deviceapi.service.DeviceOperationService;
 import com.francisco.deviceapi.service.DeviceService;
+import com.francisco.deviceapi.web.RequestTimeout;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.ExampleObject;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.function.Consumer;
 
 @RestController
 @RequestMapping("/api/v1/devices")
@@ -28,10 +57,18 @@ import java.util.List;
 @Slf4j
 public class DeviceController {
 
+    public static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+
     private final DeviceService deviceService;
 
     private final DeviceMapper deviceMapper;
 
+    private final DeviceImportService deviceImportService;
+
+    private final DeviceOperationService deviceOperationService;
+
+    private final ObjectMapper objectMapper;
+
     /**
      * Creates a new {@link Device} from the provided data.
      * <p>
@@ -76,6 +113,46 @@ public class DeviceController {
         return ResponseEntity.status(HttpStatus.CREATED).body(deviceDTO);
     }
 
+    /**
+     * Imports the {@link Device} of a CSV file.
+     * <p>
+     * Calls {@link DeviceImportService#importDevices(InputStream, Consumer)}. The response is streamed as
+     * newline-delimited JSON while the file is imported: an {@code error} event per rejected row, a {@code progress}
+     * event every {@code device.import.progress-rows} rows, and a final {@code summary} event, or a {@code failed}
+     * event if nothing was imported.
+     *
+     * @param file the CSV file with the {@code name}, {@code brand}, {@code state} and {@code creationTime} columns.
+     * @return {@link ResponseEntity} streaming the import events with http status 200.
+     */
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE,
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Import events.",
+                    content = @Content(mediaType ="application/x-ndjson",
+                            examples = @ExampleObject(value =
+                                    "{\"event\": \"error\", \"line\": 3, \"errorMessage\": \"Invalid state!\"}\n" +
+                                            "{\"event\": \"progress\", \"rows\": 10000, \"rejected\": 1}\n" +
+                                            "{\"event\": \"summary\", \"rows\": 12000, \"imported\": 11990, " +
+                                            "\"duplicates\": 9, \"rejected\": 1}"))
+            )
+    })
+    public ResponseEntity<StreamingResponseBody> importDevices(@RequestParam("file") MultipartFile file) {
+        StreamingResponseBody body = outputStream -> {
+            Consumer<DeviceImportEventDTO> events = event -> writeEvent(outputStream, event);
+
+            try (InputStream csv = file.getInputStream()) {
+                events.accept(deviceImportService.importDevices(csv, events));
+            } catch (RuntimeException e) {
+                log.warn("Import of {} failed", file.getOriginalFilename(), e);
+                events.accept(DeviceImportEventDTO.failed(e.getMessage()));
+            }
+        };
+
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
     /**
      * Retrieves a {@link Device} by ID.
      * <p>
@@ -118,9 +195,80 @@ public class DeviceController {
     }
 
     /**
-     * Retrieves a {@link List} of {@link Device} by Brand and/or State or all if query params are not present.
+     * Checks if a {@link Device} exists without loading it.
      * <p>
-     * Calls {@link DeviceService#getDevice(Long)}.
+     * Calls {@link DeviceService#existsDevice(Long)}.
+     *
+     * @param id - the id of the {@link Device} to be checked.
+     * @return {@link ResponseEntity} without body and a http status 200 if the {@link Device} exists, else 404.
+     */
+    @RequestMapping(value = "/{id}", method = RequestMethod.HEAD)
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Device exists."
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "Device not found."
+            )
+    })
+    public ResponseEntity<Void> headDevice(@PathVariable(name = "id") Long id) {
+        return deviceService.existsDevice(id)
+                ? ResponseEntity.ok().build()
+                : ResponseEntity.notFound().build();
+    }
+
+    /**
+     * Retrieves a page of the State transitions of a {@link Device}, newest first.
+     * <p>
+     * Calls {@link DeviceService#getStateHistory(Long, Long, int)}.
+     *
+     * @param id the id of the {@link Device}.
+     * @param beforeId - the {@code nextBeforeId} of the previous page, or none for the first page.
+     * @param size - the maximum number of transitions in the page.
+     * @return {@link ResponseEntity} containing {@link DeviceStateHistoryDTO} with the transitions and http status 200.
+     */
+    @GetMapping("/{id}/history")
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Device state history successfully fetched.",
+                    content = @Content(mediaType ="application/json",
+                            examples = @ExampleObject(value =
+                                    "{\"transitions\": [{" +
+                                            "\"id\": 87, " +
+                                            "\"deviceId\": 1234, " +
+                                            "\"oldState\": \"AVAILABLE\", " +
+                                            "\"newState\": \"IN_USE\", " +
+                                            "\"changedAt\": \"2025-03-21T10:15:30.123456Z\"" +
+                                            "}], " +
+                                            "\"nextBeforeId\": 87}"))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Bad Request.",
+                    content = @Content(mediaType ="application/json")
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "Device not found.",
+                    content = @Content(mediaType ="application/json",
+                            examples = @ExampleObject(value = "{\"errorMessage\": \"Device not found!\"}"))
+            )
+    })
+    public ResponseEntity<DeviceStateHistoryDTO> getStateHistory(
+            @PathVariable(name = "id") Long id,
+            @RequestParam(name = "beforeId", required = false) Long beforeId,
+            @RequestParam(name = "size", defaultValue = "50") @Min(1) @Max(500) int size) {
+        return ResponseEntity.ok(deviceService.getStateHistory(id, beforeId, size));
+    }
+
+    /**
+     * Retrieves a {@link List} of {@link Device} by Brand and/or State or all if query params are not present,
+     * optionally created within a date range.
+     * <p>
+     * Calls {@link DeviceService#getDevices(String, DeviceState, LocalDate, LocalDate)}.
      *
      * @return {@link ResponseEntity} containing {@link List} of {@link DeviceDTO} with the {@link Device} details if any found that
      * match the criteria and a http status 200.
@@ -160,13 +308,164 @@ public class DeviceController {
                             examples = @ExampleObject(value = "{\"errorMessage\": \"No devices found!.\"}"))
             )
     })
+    @RequestTimeout("${device.deadline.list-ms:5000}")
     public ResponseEntity<List<DeviceDTO>> getDevices(
             @RequestParam(name = "brand", required = false) String brand,
-            @RequestParam(name = "state", required = false) DeviceState state) {
-        List<DeviceDTO> deviceList = deviceService.getDevices(brand, state);
+            @RequestParam(name = "state", required = false) DeviceState state,
+            @RequestParam(name = "createdFrom", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate createdFrom,
+            @RequestParam(name = "createdTo", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate createdTo) {
+        List<DeviceDTO> deviceList = deviceService.getDevices(brand, state, createdFrom, createdTo);
         return ResponseEntity.ok(deviceList);
     }
 
+    /**
+     * Counts the {@link Device} created per day, week or month, by Brand or of all Brands, within an optional date
+     * range.
+     * <p>
+     * Calls {@link DeviceService#getCreationHistogram(String, LocalDate, LocalDate, CreationInterval, boolean)}.
+     *
+     * @return {@link ResponseEntity} containing a {@link List} of {@link DeviceCreationCountDTO} with the number of
+     * {@link Device} created in each bucket with any, ordered by bucket and Brand, and a http status 200.
+     */
+    @GetMapping("/histogram")
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Device creations successfully counted.",
+                    content = @Content(mediaType ="application/json",
+                            examples = @ExampleObject(value =
+                                    "[{\"start\": \"2025-03-17\", \"brand\": \"Brand 1\", \"count\": 42}, " +
+                                            "{\"start\": \"2025-03-24\", \"brand\": \"Brand 1\", \"count\": 7}]"))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Bad Request.",
+                    content = @Content(mediaType ="application/json",
+                            examples = @ExampleObject(value = "{\"errorMessage\": \"createdTo must not be before " +
+                                    "createdFrom!\"}"))
+            )
+    })
+    @RequestTimeout("${device.deadline.list-ms:5000}")
+    public ResponseEntity<List<DeviceCreationCountDTO>> getCreationHistogram(
+            @RequestParam(name = "brand", required = false) String brand,
+            @RequestParam(name = "createdFrom", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate createdFrom,
+            @RequestParam(name = "createdTo", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate createdTo,
+            @RequestParam(name = "interval", defaultValue = "DAY") CreationInterval interval,
+            @RequestParam(name = "perBrand", defaultValue = "false") boolean perBrand) {
+        return ResponseEntity.ok(deviceService.getCreationHistogram(brand, createdFrom, createdTo, interval, perBrand));
+    }
+
+    /**
+     * Counts the {@link Device} by Brand and/or State or all if query params are not present.
+     * <p>
+     * Calls {@link DeviceService#countDevices(String, DeviceState)}. The count is also returned in the
+     * {@value #TOTAL_COUNT_HEADER} header, so a HEAD request gets it without a body.
+     *
+     * @return {@link ResponseEntity} containing {@link DeviceCountDTO} with the number of matching {@link Device}
+     * and a http status 200.
+     */
+    @GetMapping("/count")
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Device(s) successfully counted.",
+                    content = @Content(mediaType ="application/json",
+                            examples = @ExampleObject(value = "{\"count\": 42}"))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Bad Request.",
+                    content = @Content(mediaType ="application/json")
+            )
+    })
+    public ResponseEntity<DeviceCountDTO> countDevices(
+            @RequestParam(name = "brand", required = false) String brand,
+            @RequestParam(name = "state", required = false) DeviceState state) {
+        long count = deviceService.countDevices(brand, state);
+        return ResponseEntity.ok()
+                .header(TOTAL_COUNT_HEADER, String.valueOf(count))
+                .body(new DeviceCountDTO(count));
+    }
+
+    /**
+     * Retrieves the {@link Device} with the given IDs in one request.
+     * <p>
+     * Calls {@link DeviceService#getDevicesByIds(List)}.
+     *
+     * @param ids the IDs of the {@link Device} to be retrieved.
+     * @return {@link ResponseEntity} containing {@link DeviceLookupDTO} with the found {@link Device} and the
+     * missing IDs, both in request order, and a http status 200.
+     */
+    @GetMapping(params = "ids")
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Device(s) successfully looked up.",
+                    content = @Content(mediaType ="application/json",
+                            examples = @ExampleObject(value =
+                                    "{\"devices\": [{" +
+                                            "\"id\": \"1234\", " +
+                                            "\"name\": \"Device Name 1\", " +
+                                            "\"brand\": \"Device Brand 2\", " +
+                                            "\"state\": \"AVAILABLE\", " +
+                                            "\"creationTime\": \"21-03-2025\"" +
+                                            "}], " +
+                                            "\"missingIds\": [1235]}"))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Bad Request.",
+                    content = @Content(mediaType ="application/json")
+            )
+    })
+    @RequestTimeout("${device.deadline.list-ms:5000}")
+    public ResponseEntity<DeviceLookupDTO> getDevicesByIds(
+            @RequestParam(name = "ids") @NotEmpty @Size(max = 1000) List<Long> ids) {
+        return ResponseEntity.ok(deviceService.getDevicesByIds(ids));
+    }
+
+    /**
+     * Retrieves the {@link Device} with the given IDs in one request, for lists too long for a query string.
+     * <p>
+     * Calls {@link DeviceService#getDevicesByIds(List)}.
+     *
+     * @param deviceLookupRequestDTO the request DTO containing the IDs of the {@link Device} to be retrieved.
+     * @return {@link ResponseEntity} containing {@link DeviceLookupDTO} with the found {@link Device} and the
+     * missing IDs, both in request order, and a http status 200.
+     */
+    @PostMapping("/lookup")
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Device(s) successfully looked up.",
+                    content = @Content(mediaType ="application/json",
+                            examples = @ExampleObject(value =
+                                    "{\"devices\": [{" +
+                                            "\"id\": \"1234\", " +
+                                            "\"name\": \"Device Name 1\", " +
+                                            "\"brand\": \"Device Brand 2\", " +
+                                            "\"state\": \"AVAILABLE\", " +
+                                            "\"creationTime\": \"21-03-2025\"" +
+                                            "}], " +
+                                            "\"missingIds\": [1235]}"))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Bad Request.",
+                    content = @Content(mediaType ="application/json",
+                            examples = @ExampleObject(value = "{\"ids\": \"must not be empty\"}"))
+            )
+    })
+    @RequestTimeout("${device.deadline.list-ms:5000}")
+    public ResponseEntity<DeviceLookupDTO> lookupDevices(
+            @RequestBody @Valid DeviceLookupRequestDTO deviceLookupRequestDTO) {
+        return ResponseEntity.ok(deviceService.getDevicesByIds(deviceLookupRequestDTO.ids()));
+    }
+
     /**
      * Fully updates a {@link Device}.
      *
@@ -261,6 +560,194 @@ public class DeviceController {
         return ResponseEntity.ok(deviceDTO);
     }
 
+    /**
+     * Claims up to a number of AVAILABLE {@link Device}, optionally by Brand, in a single transaction.
+     * <p>
+     * Concurrent claimers never wait for each other nor claim the same {@link Device}.
+     * <p>
+     * Calls {@link DeviceService#claimDevices(String, int, Duration)}.
+     *
+     * @param brand the Brand of the {@link Device} to be claimed, or any Brand if not present.
+     * @param count the maximum number of {@link Device} to be claimed.
+     * @param ttlSeconds how long the lease of the claimed {@link Device} lasts, in seconds, or no lease if not present.
+     * @return {@link ResponseEntity} containing {@link List} of {@link DeviceDTO} with the claimed {@link Device} and
+     * http status 200.
+     */
+    @PostMapping("/claim")
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Device(s) successfully claimed.",
+                    content = @Content(mediaType ="application/json",
+                            examples = @ExampleObject(value =
+                                    "[{" +
+                                            "\"id\": \"1234\", " +
+                                            "\"name\": \"Device Name 1\", " +
+                                            "\"brand\": \"Device Brand 2\", " +
+                                            "\"state\": \"IN_USE\", " +
+                                            "\"creationTime\": \"21-03-2025\"" +
+                                            "}" +
+                                            "]"))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Bad Request.",
+                    content = @Content(mediaType ="application/json")
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "No available devices found.",
+                    content = @Content(mediaType ="application/json",
+                            examples = @ExampleObject(value = "{\"errorMessage\": \"Device not found!\"}"))
+            )
+    })
+    public ResponseEntity<List<DeviceDTO>> claimDevices(
+            @RequestParam(name = "brand", required = false) String brand,
+            @RequestParam(name = "count", defaultValue = "1") @Min(1) @Max(100) int count,
+            @RequestParam(name = "ttlSeconds", required = false) @Min(1) @Max(86400) Long ttlSeconds) {
+        Duration ttl = ttlSeconds != null ? Duration.ofSeconds(ttlSeconds) : null;
+        List<DeviceDTO> deviceList = deviceService.claimDevices(brand, count, ttl).stream()
+                .map(deviceMapper::deviceToDeviceDTO)
+                .toList();
+        return ResponseEntity.ok(deviceList);
+    }
+
+    /**
+     * Applies a batch of create, update, patch and delete operations, in one transaction or in atomic chunks.
+     * <p>
+     * Calls {@link DeviceOperationService#applyOperations(List, Integer)}.
+     *
+     * @param deviceOperationsRequestDTO the request DTO containing the operations and the chunk size.
+     * @return {@link ResponseEntity} containing {@link List} of {@link DeviceOperationResultDTO} with the status of
+     * every operation, in request order, and http status 200.
+     */
+    @PostMapping("/operations")
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Operations applied, each with its own status.",
+                    content = @Content(mediaType ="application/json",
+                            examples = @ExampleObject(value =
+                                    "[{" +
+                                            "\"index\": 0, " +
+                                            "\"op\": \"CREATE\", " +
+                                            "\"id\": 1234, " +
+                                            "\"status\": 201, " +
+                                            "\"device\": {" +
+                                            "\"id\": \"1234\", " +
+                                            "\"name\": \"Device Name\", " +
+                                            "\"brand\": \"Device Brand\", " +
+                                            "\"state\": \"AVAILABLE\", " +
+                                            "\"creationTime\": \"21-03-2025\"" +
+                                            "}}, {" +
+                                            "\"index\": 1, " +
+                                            "\"op\": \"DELETE\", " +
+                                            "\"id\": 1235, " +
+                                            "\"status\": 204" +
+                                            "}]"))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Bad Request.",
+                    content = @Content(mediaType ="application/json",
+                            examples = @ExampleObject(value = "{\"operations\": \"must not be empty\"}"))
+            )
+    })
+    @RequestTimeout("${device.deadline.operations-ms:10000}")
+    public ResponseEntity<List<DeviceOperationResultDTO>> applyOperations(
+            @RequestBody @Valid DeviceOperationsRequestDTO deviceOperationsRequestDTO) {
+        return ResponseEntity.ok(deviceOperationService.applyOperations(deviceOperationsRequestDTO.operations(),
+                deviceOperationsRequestDTO.chunkSize()));
+    }
+
+    /**
+     * Checks out an AVAILABLE {@link Device} for a limited time.
+     * <p>
+     * Calls {@link DeviceService#checkoutDevice(Long, Duration)}.
+     *
+     * @param id the id of the {@link Device} to be checked out.
+     * @param ttlSeconds how long the lease lasts, in seconds.
+     * @return {@link ResponseEntity} containing {@link DeviceLeaseDTO} with the lease expiry and http status 200.
+     */
+    @PostMapping("/{id}/checkout")
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Device successfully checked out.",
+                    content = @Content(mediaType ="application/json",
+                            examples = @ExampleObject(value =
+                                    "{" +
+                                            "\"id\": \"1234\", " +
+                                            "\"leaseExpiresAt\": \"2025-03-21T10:15:30Z\"" +
+                                            "}"))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Bad Request.",
+                    content = @Content(mediaType ="application/json")
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "Device not found.",
+                    content = @Content(mediaType ="application/json",
+                            examples = @ExampleObject(value = "{\"errorMessage\": \"Device not found!\"}"))
+            ),
+            @ApiResponse(
+                    responseCode = "409",
+                    description = "Device is not AVAILABLE.",
+                    content = @Content(mediaType ="application/json",
+                            examples = @ExampleObject(value = "{\"errorMessage\": \"Device is already IN USE!\"}"))
+            )
+    })
+    public ResponseEntity<DeviceLeaseDTO> checkoutDevice(
+            @PathVariable(name = "id") Long id,
+            @RequestParam(name = "ttlSeconds", defaultValue = "300") @Min(1) @Max(86400) long ttlSeconds) {
+        Device device = deviceService.checkoutDevice(id, Duration.ofSeconds(ttlSeconds));
+        return ResponseEntity.ok(new DeviceLeaseDTO(device.getId(), device.getLeaseExpiresAt()));
+    }
+
+    /**
+     * Checks in an IN USE {@link Device}, releasing its lease.
+     * <p>
+     * Calls {@link DeviceService#checkinDevice(Long)}.
+     *
+     * @param id the id of the {@link Device} to be checked in.
+     * @return {@link ResponseEntity} containing {@link DeviceDTO} with the {@link Device} details and http status 200.
+     */
+    @PostMapping("/{id}/checkin")
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Device successfully checked in.",
+                    content = @Content(mediaType ="application/json",
+                            examples = @ExampleObject(value =
+                                    "{" +
+                                            "\"id\": \"1234\", " +
+                                            "\"name\": \"Device Name\", " +
+                                            "\"brand\": \"Device brand\", " +
+                                            "\"state\": \"AVAILABLE\", " +
+                                            "\"creationTime\": \"21-03-2025\"" +
+                                            "}"))
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "Device not found.",
+                    content = @Content(mediaType ="application/json",
+                            examples = @ExampleObject(value = "{\"errorMessage\": \"Device not found!\"}"))
+            ),
+            @ApiResponse(
+                    responseCode = "409",
+                    description = "Device is not IN USE.",
+                    content = @Content(mediaType ="application/json",
+                            examples = @ExampleObject(value = "{\"errorMessage\": \"Device is not IN USE and " +
+                                    "cannot be checked in!\"}"))
+            )
+    })
+    public ResponseEntity<DeviceDTO> checkinDevice(@PathVariable(name = "id") Long id) {
+        DeviceDTO deviceDTO = deviceMapper.deviceToDeviceDTO(deviceService.checkinDevice(id));
+        return ResponseEntity.ok(deviceDTO);
+    }
+
     /**
      * Deletes a {@link Device} by its id
      * <p>
@@ -299,4 +786,14 @@ public class DeviceController {
         deviceService.deleteDevice(id);
         return ResponseEntity.noContent().build();
     }
+
+    private void writeEvent(OutputStream outputStream, DeviceImportEventDTO event) {
+        try {
+            outputStream.write(objectMapper.writeValueAsBytes(event));
+            outputStream.write('\n');
+            outputStream.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 }
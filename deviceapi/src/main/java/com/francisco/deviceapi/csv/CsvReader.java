@@ -0,0 +1,124 @@
+package com.francisco.deviceapi.csv;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads RFC 4180 CSV records one at a time, so a file of any size is read in constant memory.
+ * <p>
+ * Quoted fields may contain commas, line breaks and doubled quotes. Characters of a field past
+ * {@value #MAX_FIELD_LENGTH} are dropped, which bounds the memory of a malformed file without hiding that the
+ * field is too long.
+ */
+public class CsvReader implements Closeable {
+
+    public static final int MAX_FIELD_LENGTH = 1024;
+
+    private static final int BYTE_ORDER_MARK = '\uFEFF';
+
+    private final Reader reader;
+
+    private long line = 1;
+
+    private long recordLine;
+
+    private boolean started;
+
+    public CsvReader(Reader reader) {
+        this.reader = new BufferedReader(reader);
+    }
+
+    /**
+     * Reads the next record.
+     *
+     * @return the fields of the record, or null at the end of the input.
+     * @throws IOException if the input can't be read.
+     */
+    public List<String> next() throws IOException {
+        int c = read();
+
+        if (!started) {
+            started = true;
+
+            if (c == BYTE_ORDER_MARK) {
+                c = read();
+            }
+        }
+
+        if (c == -1) {
+            return null;
+        }
+
+        recordLine = line;
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+
+        while (true) {
+            if (quoted) {
+                if (c == -1) {
+                    fields.add(field.toString());
+                    return fields;
+                }
+
+                if (c == '"') {
+                    c = read();
+
+                    if (c != '"') {
+                        quoted = false;
+                        continue;
+                    }
+                }
+
+                if (c == '\n') {
+                    line++;
+                }
+
+                append(field, c);
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n' || c == -1) {
+                fields.add(field.toString());
+
+                if (c == '\n') {
+                    line++;
+                }
+
+                return fields;
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c != '\r') {
+                append(field, c);
+            }
+
+            c = read();
+        }
+    }
+
+    /**
+     * @return the line the last record read starts at, counting from 1.
+     */
+    public long recordLine() {
+        return recordLine;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private int read() throws IOException {
+        return reader.read();
+    }
+
+    private static void append(StringBuilder field, int c) {
+        if (field.length() <= MAX_FIELD_LENGTH) {
+            field.append((char) c);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.francisco.deviceapi.domain;
+
+import com.francisco.deviceapi.domain.enums.DeviceState;
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * An INACTIVE {@link Device} moved to the cold {@code devices_archive} table.
+ * <p>
+ * Keeps the ID of the {@link Device}, so it can be restored into the hot table as it was.
+ */
+@Entity
+@Data
+@Table(name = "devices_archive")
+public class ArchivedDevice {
+
+    @Id
+    private Long id;
+
+    @Column(
+            nullable = false
+    )
+    private String name;
+
+    @Column(
+            nullable = false
+    )
+    private String brand;
+
+    @Column(
+            nullable = false
+    )
+    @Enumerated(EnumType.STRING)
+    private DeviceState state;
+
+    @Column(
+            nullable = false
+    )
+    private LocalDate creationTime;
+
+    @Column(
+            nullable = false
+    )
+    private Instant archivedAt;
+
+    /**
+     * @return a detached {@link Device} with the details of this {@link ArchivedDevice}.
+     */
+    public Device toDevice() {
+        Device device = new Device();
+        device.setId(id);
+        device.setName(name);
+        device.setBrand(brand);
+        device.setState(state);
+        device.setCreationTime(creationTime);
+        return device;
+    }
+}
@@ -1,10 +1,13 @@
 package com.francisco.deviceapi.domain;
 
 import com.francisco.deviceapi.domain.enums.DeviceState;
+import com.francisco.deviceapi.sharding.ShardedDeviceId;
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.UpdateTimestamp;
 import org.springframework.data.jpa.repository.Lock;
 
+import java.time.Instant;
 import java.time.LocalDate;
 
 @Entity
@@ -13,15 +16,7 @@ import java.time.LocalDate;
 public class Device {
 
     @Id
-    @GeneratedValue(
-            strategy = GenerationType.SEQUENCE,
-            generator = "device_sequence"
-    )
-    @SequenceGenerator(
-            name = "device_sequence",
-            sequenceName = "device_sequence",
-            allocationSize = 1
-    )
+    @ShardedDeviceId
     private Long id;
 
     @Column(
@@ -45,6 +40,14 @@ public class Device {
     )
     private LocalDate creationTime;
 
+    private Instant leaseExpiresAt;
+
+    @UpdateTimestamp
+    @Column(
+            nullable = false
+    )
+    private Instant updatedAt;
+
     public Device() {
 
     }
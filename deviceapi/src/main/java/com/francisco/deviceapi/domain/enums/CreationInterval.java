@@ -0,0 +1,28 @@
+package com.francisco.deviceapi.domain.enums;
+
+import com.francisco.deviceapi.domain.Device;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+
+/**
+ * The width of the buckets of the {@link Device} creation histogram.
+ */
+public enum CreationInterval {
+    DAY,
+    WEEK,
+    MONTH;
+
+    /**
+     * @param date a creation date.
+     * @return the first day of the bucket of the date. Weeks start on Monday.
+     */
+    public LocalDate bucketStart(LocalDate date) {
+        return switch (this) {
+            case DAY -> date;
+            case WEEK -> date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MONTH -> date.withDayOfMonth(1);
+        };
+    }
+}
@@ -0,0 +1,25 @@
+package com.francisco.deviceapi.domain.enums;
+
+import com.francisco.deviceapi.domain.Device;
+
+/**
+ * The change made to a {@link Device} by an operation of a batch.
+ */
+public enum DeviceOperationType {
+    /**
+     * Creates a {@link Device} from its Name, Brand, State and creation time.
+     */
+    CREATE,
+    /**
+     * Fully updates the {@link Device} with the ID, from its Name, Brand and State.
+     */
+    UPDATE,
+    /**
+     * Partially updates the {@link Device} with the ID, from the Name, Brand and State that are present.
+     */
+    PATCH,
+    /**
+     * Deletes the {@link Device} with the ID.
+     */
+    DELETE
+}
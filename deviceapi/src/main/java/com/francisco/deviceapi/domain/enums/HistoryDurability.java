@@ -0,0 +1,21 @@
+package com.francisco.deviceapi.domain.enums;
+
+import com.francisco.deviceapi.domain.Device;
+
+/**
+ * What the {@link Device} State history writer does when its buffer overflows or the application shuts down.
+ */
+public enum HistoryDurability {
+    /**
+     * Transitions that don't fit in the buffer, and batches that fail to be written, are dropped and counted.
+     * Requests never wait for the history.
+     */
+    BEST_EFFORT,
+    /**
+     * A buffer found full is handed to a dedicated overflow writer, and the request only parks until its transition
+     * fits, up to {@code device.history.overflow-timeout-ms} before dropping it. It parks after its transaction has
+     * committed, but while it still holds the write lock of the {@link Device}. Failed batches are retried, and
+     * transitions that can't be written on shutdown are logged so they can be replayed.
+     */
+    DURABLE
+}
@@ -0,0 +1,3 @@
+package com.francisco.deviceapi.dto;
+
+public record DeviceCountDTO(long count) {}
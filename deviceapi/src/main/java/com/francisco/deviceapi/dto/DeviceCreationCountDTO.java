@@ -0,0 +1,15 @@
+package com.francisco.deviceapi.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.LocalDate;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record DeviceCreationCountDTO(LocalDate start,
+                                     String brand,
+                                     Long count) {
+
+    public DeviceCreationCountDTO(LocalDate start, Long count) {
+        this(start, null, count);
+    }
+}
@@ -0,0 +1,29 @@
+package com.francisco.deviceapi.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record DeviceImportEventDTO(String event,
+                                   Long line,
+                                   Long rows,
+                                   Long imported,
+                                   Long duplicates,
+                                   Long rejected,
+                                   String errorMessage) {
+
+    public static DeviceImportEventDTO progress(long rows, long rejected) {
+        return new DeviceImportEventDTO("progress", null, rows, null, null, rejected, null);
+    }
+
+    public static DeviceImportEventDTO error(long line, String errorMessage) {
+        return new DeviceImportEventDTO("error", line, null, null, null, null, errorMessage);
+    }
+
+    public static DeviceImportEventDTO summary(long rows, long imported, long duplicates, long rejected) {
+        return new DeviceImportEventDTO("summary", null, rows, imported, duplicates, rejected, null);
+    }
+
+    public static DeviceImportEventDTO failed(String errorMessage) {
+        return new DeviceImportEventDTO("failed", null, null, null, null, null, errorMessage);
+    }
+}
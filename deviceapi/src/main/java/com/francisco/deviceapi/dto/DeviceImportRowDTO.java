@@ -0,0 +1,11 @@
+package com.francisco.deviceapi.dto;
+
+import com.francisco.deviceapi.domain.enums.DeviceState;
+
+import java.time.LocalDate;
+
+public record DeviceImportRowDTO(long line,
+                                 String name,
+                                 String brand,
+                                 DeviceState state,
+                                 LocalDate creationTime) {}
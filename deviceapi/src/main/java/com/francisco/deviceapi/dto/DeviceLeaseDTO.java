@@ -0,0 +1,6 @@
+package com.francisco.deviceapi.dto;
+
+import java.time.Instant;
+
+public record DeviceLeaseDTO(Long id,
+                             Instant leaseExpiresAt) {}
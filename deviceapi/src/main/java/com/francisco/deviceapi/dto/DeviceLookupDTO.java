@@ -0,0 +1,6 @@
+package com.francisco.deviceapi.dto;
+
+import java.util.List;
+
+public record DeviceLookupDTO(List<DeviceDTO> devices,
+                              List<Long> missingIds) {}
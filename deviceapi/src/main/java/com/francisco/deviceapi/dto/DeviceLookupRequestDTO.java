@@ -0,0 +1,11 @@
+package com.francisco.deviceapi.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record DeviceLookupRequestDTO(@NotEmpty @Size(max = 10000) List<@NotNull Long> ids) {}
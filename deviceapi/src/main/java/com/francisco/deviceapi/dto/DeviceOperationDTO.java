@@ -0,0 +1,16 @@
+package com.francisco.deviceapi.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.francisco.deviceapi.domain.enums.DeviceOperationType;
+import com.francisco.deviceapi.domain.enums.DeviceState;
+import jakarta.validation.constraints.NotNull;
+
+import java.time.LocalDate;
+
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record DeviceOperationDTO(@NotNull DeviceOperationType op,
+                                 Long id,
+                                 String name,
+                                 String brand,
+                                 DeviceState state,
+                                 LocalDate creationTime) {}
@@ -0,0 +1,12 @@
+package com.francisco.deviceapi.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.francisco.deviceapi.domain.enums.DeviceOperationType;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record DeviceOperationResultDTO(int index,
+                                       DeviceOperationType op,
+                                       Long id,
+                                       int status,
+                                       DeviceDTO device,
+                                       String errorMessage) {}
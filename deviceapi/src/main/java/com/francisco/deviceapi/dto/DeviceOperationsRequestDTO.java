@@ -0,0 +1,14 @@
+package com.francisco.deviceapi.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record DeviceOperationsRequestDTO(@NotEmpty @Size(max = 1000) List<@NotNull @Valid DeviceOperationDTO> operations,
+                                         @Min(1) Integer chunkSize) {}
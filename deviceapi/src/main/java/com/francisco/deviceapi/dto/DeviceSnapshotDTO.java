@@ -0,0 +1,14 @@
+package com.francisco.deviceapi.dto;
+
+import com.francisco.deviceapi.domain.enums.DeviceState;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+public record DeviceSnapshotDTO(Long id,
+                                String name,
+                                String brand,
+                                DeviceState state,
+                                LocalDate creationTime,
+                                Instant leaseExpiresAt,
+                                Instant updatedAt) {}
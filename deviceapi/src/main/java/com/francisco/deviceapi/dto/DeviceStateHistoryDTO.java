@@ -0,0 +1,9 @@
+package com.francisco.deviceapi.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record DeviceStateHistoryDTO(List<DeviceStateTransitionDTO> transitions,
+                                    Long nextBeforeId) {}
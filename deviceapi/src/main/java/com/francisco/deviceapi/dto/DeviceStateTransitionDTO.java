@@ -0,0 +1,18 @@
+package com.francisco.deviceapi.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.francisco.deviceapi.domain.enums.DeviceState;
+
+import java.time.Instant;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record DeviceStateTransitionDTO(Long id,
+                                       Long deviceId,
+                                       DeviceState oldState,
+                                       DeviceState newState,
+                                       Instant changedAt) {
+
+    public DeviceStateTransitionDTO(Long deviceId, DeviceState oldState, DeviceState newState, Instant changedAt) {
+        this(null, deviceId, oldState, newState, changedAt);
+    }
+}
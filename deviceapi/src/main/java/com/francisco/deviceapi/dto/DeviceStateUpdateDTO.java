@@ -0,0 +1,14 @@
+package com.francisco.deviceapi.dto;
+
+import com.francisco.deviceapi.domain.enums.DeviceState;
+
+import java.time.Instant;
+
+/**
+ * A State staged for a {@link com.francisco.deviceapi.domain.Device}, to be written only if the row was not
+ * changed since it was read at {@code expectedUpdatedAt}.
+ */
+public record DeviceStateUpdateDTO(Long id,
+                                   DeviceState state,
+                                   Instant expectedUpdatedAt) {
+}
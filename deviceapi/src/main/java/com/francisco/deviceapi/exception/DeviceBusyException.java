@@ -0,0 +1,8 @@
+package com.francisco.deviceapi.exception;
+
+public class DeviceBusyException extends RuntimeException {
+
+    public DeviceBusyException(String message) {
+        super(message);
+    }
+}
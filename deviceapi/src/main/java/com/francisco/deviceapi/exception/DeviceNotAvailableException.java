@@ -0,0 +1,8 @@
+package com.francisco.deviceapi.exception;
+
+public class DeviceNotAvailableException extends RuntimeException {
+
+    public DeviceNotAvailableException(String message) {
+        super(message);
+    }
+}
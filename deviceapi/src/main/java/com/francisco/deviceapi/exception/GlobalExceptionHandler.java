@@ -2,6 +2,8 @@ package com.francisco.deviceapi.exception;
 
 import com.francisco.deviceapi.dto.CustomErrorMessageDTO;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.QueryTimeoutException;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -38,6 +40,28 @@ public class GlobalExceptionHandler {
         return new CustomErrorMessageDTO(e.getMessage());
     }
 
+    @ExceptionHandler(DeviceNotAvailableException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    @ResponseBody
+    public CustomErrorMessageDTO handleDeviceNotAvailableException(DeviceNotAvailableException e) {
+        return new CustomErrorMessageDTO(e.getMessage());
+    }
+
+    @ExceptionHandler(DeviceBusyException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    @ResponseBody
+    public CustomErrorMessageDTO handleDeviceBusyException(DeviceBusyException e) {
+        return new CustomErrorMessageDTO(e.getMessage());
+    }
+
+    @ExceptionHandler({DeadlineExceededException.class, QueryTimeoutException.class,
+            CannotAcquireLockException.class})
+    @ResponseStatus(HttpStatus.GATEWAY_TIMEOUT)
+    @ResponseBody
+    public CustomErrorMessageDTO handleDeadlineExceededException(RuntimeException e) {
+        return new CustomErrorMessageDTO("Request deadline exceeded!");
+    }
+
     @ExceptionHandler(NotFoundException.class)
     @ResponseStatus(HttpStatus.NOT_FOUND)
     @ResponseBody
@@ -59,6 +83,20 @@ public class GlobalExceptionHandler {
         return new CustomErrorMessageDTO(e.getMessage());
     }
 
+    @ExceptionHandler(InvalidOperationException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    @ResponseBody
+    public CustomErrorMessageDTO handleInvalidOperationException(InvalidOperationException e) {
+        return new CustomErrorMessageDTO(e.getMessage());
+    }
+
+    @ExceptionHandler(InvalidDateRangeException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    @ResponseBody
+    public CustomErrorMessageDTO handleInvalidDateRangeException(InvalidDateRangeException e) {
+        return new CustomErrorMessageDTO(e.getMessage());
+    }
+
     @ExceptionHandler(HandlerMethodValidationException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     @ResponseBody
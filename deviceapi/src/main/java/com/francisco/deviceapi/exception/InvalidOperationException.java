@@ -0,0 +1,8 @@
+package com.francisco.deviceapi.exception;
+
+public class InvalidOperationException extends RuntimeException {
+
+    public InvalidOperationException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,126 @@
+package com.francisco.deviceapi.grpc;
+
+import io.grpc.Server;
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The gRPC server of the {@link DeviceGrpcService}, listening on {@code device.grpc.port} beside the HTTP server.
+ * <p>
+ * Every client multiplexes its calls over a single HTTP/2 connection, of up to
+ * {@code device.grpc.max-concurrent-calls-per-connection} calls at a time, each with a flow control window of
+ * {@code device.grpc.flow-control-window-bytes}. Calls run on a pool of {@code device.grpc.threads}, since
+ * {@link com.francisco.deviceapi.service.DeviceService} blocks on the database.
+ * <p>
+ * The server starts after every other bean and is stopped first, letting in-flight calls finish for up to
+ * {@code device.grpc.shutdown-grace-ms}.
+ */
+@Component
+@Slf4j
+public class DeviceGrpcServer implements SmartLifecycle {
+
+    private final DeviceGrpcService deviceGrpcService;
+
+    private final boolean enabled;
+
+    private final int port;
+
+    private final int threads;
+
+    private final int maxConcurrentCallsPerConnection;
+
+    private final int flowControlWindowBytes;
+
+    private final long shutdownGraceMillis;
+
+    private ExecutorService executor;
+
+    private Server server;
+
+    public DeviceGrpcServer(DeviceGrpcService deviceGrpcService,
+                            @Value("${device.grpc.enabled:true}") boolean enabled,
+                            @Value("${device.grpc.port:9090}") int port,
+                            @Value("${device.grpc.threads:64}") int threads,
+                            @Value("${device.grpc.max-concurrent-calls-per-connection:100}")
+                            int maxConcurrentCallsPerConnection,
+                            @Value("${device.grpc.flow-control-window-bytes:1048576}") int flowControlWindowBytes,
+                            @Value("${device.grpc.shutdown-grace-ms:10000}") long shutdownGraceMillis) {
+        this.deviceGrpcService = deviceGrpcService;
+        this.enabled = enabled;
+        this.port = port;
+        this.threads = threads;
+        this.maxConcurrentCallsPerConnection = maxConcurrentCallsPerConnection;
+        this.flowControlWindowBytes = flowControlWindowBytes;
+        this.shutdownGraceMillis = shutdownGraceMillis;
+    }
+
+    @Override
+    public synchronized void start() {
+        if (!enabled || server != null) {
+            return;
+        }
+
+        executor = Executors.newFixedThreadPool(threads, new CustomizableThreadFactory("grpc-"));
+        server = NettyServerBuilder.forPort(port)
+                .addService(deviceGrpcService)
+                .executor(executor)
+                .maxConcurrentCallsPerConnection(maxConcurrentCallsPerConnection)
+                .flowControlWindow(flowControlWindowBytes)
+                .build();
+
+        try {
+            server.start();
+        } catch (IOException e) {
+            executor.shutdownNow();
+            server = null;
+            throw new UncheckedIOException("Failed to start the gRPC server on port " + port, e);
+        }
+
+        log.info("gRPC server started on port {}", server.getPort());
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (server == null) {
+            return;
+        }
+
+        server.shutdown();
+
+        try {
+            if (!server.awaitTermination(shutdownGraceMillis, TimeUnit.MILLISECONDS)) {
+                log.warn("gRPC calls still running after {} ms, cancelling them", shutdownGraceMillis);
+                server.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            server.shutdownNow();
+        } finally {
+            executor.shutdownNow();
+            server = null;
+        }
+    }
+
+    @Override
+    public synchronized boolean isRunning() {
+        return server != null;
+    }
+
+    /**
+     * @return the port the server listens on, which is random if {@code device.grpc.port} is 0, or -1 if it's not
+     * running.
+     */
+    public synchronized int getPort() {
+        return server != null ? server.getPort() : -1;
+    }
+}
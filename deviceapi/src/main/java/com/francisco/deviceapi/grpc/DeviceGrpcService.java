@@ -0,0 +1,382 @@
+package com.francisco.deviceapi.grpc;
+
+import com.francisco.deviceapi.concurrency.RequestDeadline;
+import com.francisco.deviceapi.domain.Device;
+import com.francisco.deviceapi.domain.enums.DeviceState;
+import com.francisco.deviceapi.dto.CreateDeviceRequestDTO;
+import com.francisco.deviceapi.dto.DeviceDTO;
+import com.francisco.deviceapi.dto.PatchDeviceRequestDTO;
+import com.francisco.deviceapi.exception.*;
+import com.francisco.deviceapi.grpc.v1.BulkCreateDevicesResponse;
+import com.francisco.deviceapi.grpc.v1.BulkCreateError;
+import com.francisco.deviceapi.grpc.v1.CreateDeviceRequest;
+import com.francisco.deviceapi.grpc.v1.DeleteDeviceRequest;
+import com.francisco.deviceapi.grpc.v1.DeviceResponse;
+import com.francisco.deviceapi.grpc.v1.DeviceServiceGrpc;
+import com.francisco.deviceapi.grpc.v1.GetDeviceRequest;
+import com.francisco.deviceapi.grpc.v1.ListDevicesRequest;
+import com.francisco.deviceapi.grpc.v1.ListDevicesResponse;
+import com.francisco.deviceapi.grpc.v1.PatchDeviceRequest;
+import com.francisco.deviceapi.grpc.v1.State;
+import com.francisco.deviceapi.grpc.v1.UpdateDeviceRequest;
+import com.francisco.deviceapi.mapper.DeviceMapper;
+import com.francisco.deviceapi.service.DeviceService;
+import com.google.protobuf.Empty;
+import io.grpc.Context;
+import io.grpc.Deadline;
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * gRPC endpoint of the {@link Device} operations, beside the REST endpoints of the {@code DeviceController}.
+ * <p>
+ * Every call is applied by {@link DeviceService}, so it follows the same rules, and its exceptions are mapped to
+ * the gRPC status closest to the HTTP status of the REST endpoint. The {@link RequestDeadline} of a call is the
+ * deadline set by the client, capped at {@code device.deadline.max-ms}, or else the default of the REST endpoint.
+ * <p>
+ * {@code ListDevices} writes the list in pages of {@code device.grpc.list-page-size} devices, since every message
+ * is flushed on its own, and only while the stream is ready, so a slow client holds back the server through HTTP/2
+ * flow control instead of having the whole list buffered for it. {@code BulkCreateDevices} requests
+ * the next device only after the previous one is created, so a fast client is held back the same way.
+ */
+@Component
+@Slf4j
+public class DeviceGrpcService extends DeviceServiceGrpc.DeviceServiceImplBase {
+
+    private final DeviceService deviceService;
+
+    private final DeviceMapper deviceMapper;
+
+    private final Validator validator;
+
+    private final long defaultTimeoutMillis;
+
+    private final long listTimeoutMillis;
+
+    private final long maxTimeoutMillis;
+
+    private final int listPageSize;
+
+    private final int maxReportedErrors;
+
+    public DeviceGrpcService(DeviceService deviceService,
+                             DeviceMapper deviceMapper,
+                             Validator validator,
+                             @Value("${device.deadline.default-ms:2000}") long defaultTimeoutMillis,
+                             @Value("${device.deadline.list-ms:5000}") long listTimeoutMillis,
+                             @Value("${device.deadline.max-ms:30000}") long maxTimeoutMillis,
+                             @Value("${device.grpc.list-page-size:100}") int listPageSize,
+                             @Value("${device.grpc.max-reported-errors:100}") int maxReportedErrors) {
+        this.deviceService = deviceService;
+        this.deviceMapper = deviceMapper;
+        this.validator = validator;
+        this.defaultTimeoutMillis = defaultTimeoutMillis;
+        this.listTimeoutMillis = listTimeoutMillis;
+        this.maxTimeoutMillis = maxTimeoutMillis;
+        this.listPageSize = listPageSize;
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    /**
+     * Calls {@link DeviceService#createDevice(Device)}.
+     */
+    @Override
+    public void createDevice(CreateDeviceRequest request, StreamObserver<DeviceResponse> responseObserver) {
+        unary(responseObserver, defaultTimeoutMillis, () -> toResponse(deviceService.createDevice(
+                deviceMapper.createDeviceRequestDTOToDevice(createRequest(request.getName(), request.getBrand(),
+                        request.getState(), request.getCreationTime())))));
+    }
+
+    /**
+     * Calls {@link DeviceService#getDevice(Long)}.
+     */
+    @Override
+    public void getDevice(GetDeviceRequest request, StreamObserver<DeviceResponse> responseObserver) {
+        unary(responseObserver, defaultTimeoutMillis, () -> toResponse(deviceService.getDevice(request.getId())));
+    }
+
+    /**
+     * Calls {@link DeviceService#updateDevice(Long, Device)}.
+     */
+    @Override
+    public void updateDevice(UpdateDeviceRequest request, StreamObserver<DeviceResponse> responseObserver) {
+        unary(responseObserver, defaultTimeoutMillis, () -> toResponse(deviceService.updateDevice(request.getId(),
+                deviceMapper.createDeviceRequestDTOToDevice(createRequest(request.getName(), request.getBrand(),
+                        request.getState(), request.getCreationTime())))));
+    }
+
+    /**
+     * Calls {@link DeviceService#patchDevice(Long, Device)}.
+     */
+    @Override
+    public void patchDevice(PatchDeviceRequest request, StreamObserver<DeviceResponse> responseObserver) {
+        unary(responseObserver, defaultTimeoutMillis, () -> toResponse(deviceService.patchDevice(request.getId(),
+                deviceMapper.patchDeviceRequestDTOToDevice(new PatchDeviceRequestDTO(
+                        request.hasName() ? request.getName() : null,
+                        request.hasBrand() ? request.getBrand() : null,
+                        toState(request.getState()))))));
+    }
+
+    /**
+     * Calls {@link DeviceService#deleteDevice(Long)}.
+     */
+    @Override
+    public void deleteDevice(DeleteDeviceRequest request, StreamObserver<Empty> responseObserver) {
+        unary(responseObserver, defaultTimeoutMillis, () -> {
+            deviceService.deleteDevice(request.getId());
+            return Empty.getDefaultInstance();
+        });
+    }
+
+    /**
+     * Calls {@link DeviceService#getDevices(String, DeviceState)} and streams the devices in pages as the client
+     * reads them.
+     */
+    @Override
+    public void listDevices(ListDevicesRequest request, StreamObserver<ListDevicesResponse> responseObserver) {
+        ServerCallStreamObserver<ListDevicesResponse> serverObserver =
+                (ServerCallStreamObserver<ListDevicesResponse>) responseObserver;
+        List<DeviceDTO> devices;
+        RequestDeadline.start(timeoutMillis(listTimeoutMillis));
+
+        try {
+            devices = deviceService.getDevices(request.hasBrand() ? request.getBrand() : null,
+                    toState(request.getState()));
+        } catch (RuntimeException e) {
+            responseObserver.onError(statusOf(e).asRuntimeException());
+            return;
+        } finally {
+            RequestDeadline.clear();
+        }
+
+        DeviceStream stream = new DeviceStream(serverObserver, devices.iterator(), listPageSize);
+        serverObserver.setOnCancelHandler(() -> log.debug("ListDevices cancelled by the client"));
+        serverObserver.setOnReadyHandler(stream);
+    }
+
+    /**
+     * Calls {@link DeviceService#createDevice(Device)} for every streamed device, with a
+     * {@code device.deadline.default-ms} deadline each if the client sets none.
+     */
+    @Override
+    public StreamObserver<CreateDeviceRequest> bulkCreateDevices(
+            StreamObserver<BulkCreateDevicesResponse> responseObserver) {
+        return new StreamObserver<>() {
+
+            private final List<BulkCreateError> errors = new ArrayList<>();
+
+            private int index;
+
+            private int created;
+
+            private int failed;
+
+            @Override
+            public void onNext(CreateDeviceRequest request) {
+                RequestDeadline.start(timeoutMillis(defaultTimeoutMillis));
+
+                try {
+                    deviceService.createDevice(deviceMapper.createDeviceRequestDTOToDevice(createRequest(
+                            request.getName(), request.getBrand(), request.getState(), request.getCreationTime())));
+                    created++;
+                } catch (RuntimeException e) {
+                    failed++;
+
+                    if (errors.size() < maxReportedErrors) {
+                        Status status = statusOf(e);
+                        errors.add(BulkCreateError.newBuilder()
+                                .setIndex(index)
+                                .setCode(status.getCode().name())
+                                .setMessage(status.getDescription())
+                                .build());
+                    }
+                } finally {
+                    RequestDeadline.clear();
+                    index++;
+                }
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                log.debug("BulkCreateDevices cancelled after {} device(s) were created", created, t);
+            }
+
+            @Override
+            public void onCompleted() {
+                responseObserver.onNext(BulkCreateDevicesResponse.newBuilder()
+                        .setCreated(created)
+                        .setFailed(failed)
+                        .addAllErrors(errors)
+                        .build());
+                responseObserver.onCompleted();
+            }
+        };
+    }
+
+    private <T> void unary(StreamObserver<T> responseObserver, long timeoutMillis, Supplier<T> call) {
+        RequestDeadline.start(timeoutMillis(timeoutMillis));
+        T response;
+
+        try {
+            response = call.get();
+        } catch (RuntimeException e) {
+            responseObserver.onError(statusOf(e).asRuntimeException());
+            return;
+        } finally {
+            RequestDeadline.clear();
+        }
+
+        responseObserver.onNext(response);
+        responseObserver.onCompleted();
+    }
+
+    private long timeoutMillis(long defaultTimeoutMillis) {
+        Deadline deadline = Context.current().getDeadline();
+
+        if (deadline == null) {
+            return defaultTimeoutMillis;
+        }
+
+        return Math.clamp(deadline.timeRemaining(TimeUnit.MILLISECONDS), 0, maxTimeoutMillis);
+    }
+
+    private CreateDeviceRequestDTO createRequest(String name, String brand, State state, String creationTime) {
+        CreateDeviceRequestDTO request = new CreateDeviceRequestDTO(name, brand, toState(state),
+                toDate(creationTime));
+        String violations = validator.validate(request).stream()
+                .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining(", "));
+
+        if (!violations.isEmpty()) {
+            throw new InvalidOperationException(violations);
+        }
+
+        return request;
+    }
+
+    private static DeviceState toState(State state) {
+        return switch (state) {
+            case STATE_UNSPECIFIED -> null;
+            case UNRECOGNIZED -> throw new InvalidStateException("Invalid state!");
+            default -> DeviceState.valueOf(state.name());
+        };
+    }
+
+    private static LocalDate toDate(String date) {
+        if (date.isEmpty()) {
+            return null;
+        }
+
+        try {
+            return LocalDate.parse(date);
+        } catch (DateTimeParseException e) {
+            throw new InvalidOperationException("creationTime must be an ISO-8601 date!");
+        }
+    }
+
+    private static DeviceResponse toResponse(Device device) {
+        return toResponse(device.getId(), device.getName(), device.getBrand(), device.getState(),
+                device.getCreationTime());
+    }
+
+    private static DeviceResponse toResponse(DeviceDTO device) {
+        return toResponse(device.id(), device.name(), device.brand(), device.state(), device.creationTime());
+    }
+
+    private static DeviceResponse toResponse(Long id, String name, String brand, DeviceState state,
+                                             LocalDate creationTime) {
+        DeviceResponse.Builder response = DeviceResponse.newBuilder()
+                .setId(id)
+                .setName(name)
+                .setBrand(brand)
+                .setState(State.valueOf(state.name()));
+
+        if (creationTime != null) {
+            response.setCreationTime(creationTime.toString());
+        }
+
+        return response.build();
+    }
+
+    private static Status statusOf(RuntimeException e) {
+        Status status = switch (e) {
+            case AlreadyExistsException ignored -> Status.ALREADY_EXISTS;
+            case DeviceInUseException ignored -> Status.FAILED_PRECONDITION;
+            case DeviceNotAvailableException ignored -> Status.FAILED_PRECONDITION;
+            case NotFoundException ignored -> Status.NOT_FOUND;
+            case InvalidOperationException ignored -> Status.INVALID_ARGUMENT;
+            case InvalidStateException ignored -> Status.INVALID_ARGUMENT;
+            case InvalidDateRangeException ignored -> Status.INVALID_ARGUMENT;
+            case DeviceBusyException ignored -> Status.UNAVAILABLE;
+            case DeadlineExceededException ignored -> Status.DEADLINE_EXCEEDED;
+            case QueryTimeoutException ignored -> Status.DEADLINE_EXCEEDED;
+            case CannotAcquireLockException ignored -> Status.DEADLINE_EXCEEDED;
+            default -> null;
+        };
+
+        if (status == null) {
+            log.error("Unexpected error in a gRPC call", e);
+            return Status.INTERNAL.withDescription("Internal error!");
+        }
+
+        return status.withDescription(status == Status.DEADLINE_EXCEEDED
+                ? "Request deadline exceeded!" : e.getMessage());
+    }
+
+    /**
+     * Writes the pages of a {@code ListDevices} call while its stream is ready, each time it becomes ready.
+     */
+    private static final class DeviceStream implements Runnable {
+
+        private final ServerCallStreamObserver<ListDevicesResponse> responseObserver;
+
+        private final Iterator<DeviceDTO> devices;
+
+        private final int pageSize;
+
+        private boolean completed;
+
+        private DeviceStream(ServerCallStreamObserver<ListDevicesResponse> responseObserver,
+                             Iterator<DeviceDTO> devices, int pageSize) {
+            this.responseObserver = responseObserver;
+            this.devices = devices;
+            this.pageSize = pageSize;
+        }
+
+        @Override
+        public void run() {
+            while (!completed && responseObserver.isReady() && !responseObserver.isCancelled()
+                    && devices.hasNext()) {
+                ListDevicesResponse.Builder page = ListDevicesResponse.newBuilder();
+
+                for (int i = 0; i < pageSize && devices.hasNext(); i++) {
+                    page.addDevices(toResponse(devices.next()));
+                }
+
+                responseObserver.onNext(page.build());
+            }
+
+            if (!completed && !devices.hasNext() && !responseObserver.isCancelled()) {
+                completed = true;
+                responseObserver.onCompleted();
+            }
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.francisco.deviceapi.jfr;
+
+import com.francisco.deviceapi.concurrency.SerializedDeviceWriteAspect;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * Emits the {@link DeviceLockWaitEvent}, {@link SlowDeviceQueryEvent} and {@link LongDeviceTransactionEvent} JFR
+ * events.
+ * <p>
+ * Events are only built when JFR records them: while no recording enables them, each call costs an
+ * {@link jdk.jfr.Event#isEnabled()} check. The parameters and row counts are only rendered for the calls over
+ * the threshold of their event. Runs right after {@link SerializedDeviceWriteAspect}, so transactions are timed
+ * without the wait for the device write lock, which is not part of them.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 2)
+public class DeviceJfrEventAspect {
+
+    private static final int MAX_PARAMETERS_LENGTH = 256;
+
+    @Around("execution(* com.francisco.deviceapi.repository.DeviceRepository.findByIdForUpdate(..))")
+    public Object lockWait(ProceedingJoinPoint joinPoint) throws Throwable {
+        DeviceLockWaitEvent event = new DeviceLockWaitEvent();
+
+        if (!event.isEnabled()) {
+            return joinPoint.proceed();
+        }
+
+        event.begin();
+        Object result = joinPoint.proceed();
+        event.end();
+
+        if (event.shouldCommit()) {
+            event.deviceId = deviceId(joinPoint);
+            event.found = result instanceof Optional<?> device && device.isPresent();
+            event.commit();
+        }
+
+        return result;
+    }
+
+    @Around("execution(* com.francisco.deviceapi.repository.DeviceRepository.*(..)) " +
+            "&& !execution(* com.francisco.deviceapi.repository.DeviceRepository.findByIdForUpdate(..))")
+    public Object slowQuery(ProceedingJoinPoint joinPoint) throws Throwable {
+        SlowDeviceQueryEvent event = new SlowDeviceQueryEvent();
+
+        if (!event.isEnabled()) {
+            return joinPoint.proceed();
+        }
+
+        event.begin();
+        Object result = joinPoint.proceed();
+        event.end();
+
+        if (event.shouldCommit()) {
+            event.query = joinPoint.getSignature().getName();
+            event.parameters = parameters(joinPoint);
+            event.deviceId = deviceId(joinPoint);
+            event.rowCount = rowCount(result);
+            event.commit();
+        }
+
+        return result;
+    }
+
+    @Around("within(com.francisco.deviceapi.service.DeviceService) " +
+            "&& @annotation(jakarta.transaction.Transactional)")
+    public Object longTransaction(ProceedingJoinPoint joinPoint) throws Throwable {
+        LongDeviceTransactionEvent event = new LongDeviceTransactionEvent();
+
+        if (!event.isEnabled()) {
+            return joinPoint.proceed();
+        }
+
+        Object result = null;
+        boolean rolledBack = true;
+        event.begin();
+
+        try {
+            result = joinPoint.proceed();
+            rolledBack = false;
+            return result;
+        } finally {
+            event.end();
+
+            if (event.shouldCommit()) {
+                event.method = joinPoint.getSignature().getName();
+                event.parameters = parameters(joinPoint);
+                event.deviceId = deviceId(joinPoint);
+                event.rowCount = rowCount(result);
+                event.rolledBack = rolledBack;
+                event.commit();
+            }
+        }
+    }
+
+    private static long deviceId(ProceedingJoinPoint joinPoint) {
+        String[] names = ((MethodSignature) joinPoint.getSignature()).getParameterNames();
+        Object[] args = joinPoint.getArgs();
+
+        for (int i = 0; i < args.length; i++) {
+            if (names != null && "id".equals(names[i]) && args[i] instanceof Long id) {
+                return id;
+            }
+        }
+
+        return 0;
+    }
+
+    private static String parameters(ProceedingJoinPoint joinPoint) {
+        String[] names = ((MethodSignature) joinPoint.getSignature()).getParameterNames();
+        Object[] args = joinPoint.getArgs();
+        StringBuilder parameters = new StringBuilder();
+
+        for (int i = 0; i < args.length && parameters.length() < MAX_PARAMETERS_LENGTH; i++) {
+            if (i > 0) {
+                parameters.append(", ");
+            }
+
+            parameters.append(names != null ? names[i] : "arg" + i).append('=');
+
+            if (args[i] instanceof Collection<?> collection) {
+                parameters.append(collection.size()).append(" value(s)");
+            } else {
+                parameters.append(args[i]);
+            }
+        }
+
+        return parameters.length() > MAX_PARAMETERS_LENGTH
+                ? parameters.substring(0, MAX_PARAMETERS_LENGTH) + "..."
+                : parameters.toString();
+    }
+
+    private static long rowCount(Object result) {
+        return switch (result) {
+            case null -> 0;
+            case Collection<?> rows -> rows.size();
+            case Optional<?> optional -> optional.map(DeviceJfrEventAspect::rowCount).orElse(0L);
+            case Integer updated -> updated;
+            case Number ignored -> -1;
+            case Boolean ignored -> -1;
+            default -> 1;
+        };
+    }
+}
@@ -0,0 +1,29 @@
+package com.francisco.deviceapi.jfr;
+
+import com.francisco.deviceapi.domain.Device;
+import com.francisco.deviceapi.repository.DeviceRepository;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * JFR event of a {@link DeviceRepository#findByIdForUpdate(Long)} call, which waits for the row lock of a
+ * {@link Device} held by another transaction.
+ */
+@Name("com.francisco.deviceapi.DeviceLockWait")
+@Label("Device Lock Wait")
+@Category({"Device API", "Database"})
+@Description("Acquisition of the row lock of a device with SELECT ... FOR UPDATE")
+@Threshold("10 ms")
+public class DeviceLockWaitEvent extends Event {
+
+    @Label("Device ID")
+    long deviceId;
+
+    @Label("Found")
+    @Description("Whether the device exists, and so was locked")
+    boolean found;
+}
@@ -0,0 +1,39 @@
+package com.francisco.deviceapi.jfr;
+
+import com.francisco.deviceapi.service.DeviceService;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * JFR event of a transactional {@link DeviceService} method longer than its threshold, from the start of its
+ * transaction to its commit or rollback.
+ */
+@Name("com.francisco.deviceapi.LongDeviceTransaction")
+@Label("Long Device Transaction")
+@Category({"Device API", "Database"})
+@Description("Transactional DeviceService call longer than the threshold")
+@Threshold("100 ms")
+public class LongDeviceTransactionEvent extends Event {
+
+    @Label("Method")
+    @Description("DeviceService method")
+    String method;
+
+    @Label("Parameters")
+    String parameters;
+
+    @Label("Device ID")
+    @Description("ID parameter of the method, or 0 if it has none")
+    long deviceId;
+
+    @Label("Row Count")
+    @Description("Rows returned or updated, or -1 if the method returns a single value")
+    long rowCount;
+
+    @Label("Rolled Back")
+    boolean rolledBack;
+}
@@ -0,0 +1,35 @@
+package com.francisco.deviceapi.jfr;
+
+import com.francisco.deviceapi.repository.DeviceRepository;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * JFR event of a {@link DeviceRepository} query slower than its threshold.
+ */
+@Name("com.francisco.deviceapi.SlowDeviceQuery")
+@Label("Slow Device Query")
+@Category({"Device API", "Database"})
+@Description("DeviceRepository call slower than the threshold")
+@Threshold("50 ms")
+public class SlowDeviceQueryEvent extends Event {
+
+    @Label("Query")
+    @Description("DeviceRepository method")
+    String query;
+
+    @Label("Parameters")
+    String parameters;
+
+    @Label("Device ID")
+    @Description("ID parameter of the query, or 0 if it has none")
+    long deviceId;
+
+    @Label("Row Count")
+    @Description("Rows returned or updated, or -1 if the query returns a single value")
+    long rowCount;
+}
@@ -0,0 +1,166 @@
+package com.francisco.deviceapi.repository;
+
+import com.francisco.deviceapi.domain.ArchivedDevice;
+import com.francisco.deviceapi.domain.Device;
+import com.francisco.deviceapi.dto.DeviceCreationCountDTO;
+import com.francisco.deviceapi.dto.DeviceDTO;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ArchivedDeviceRepository extends JpaRepository<ArchivedDevice, Long> {
+
+    /**
+     * Finds all {@link ArchivedDevice} by Brand, or all {@link ArchivedDevice} if no Brand is given.
+     *
+     * @param brand - the Brand of the {@link ArchivedDevice} to be retrieved, or null for any Brand.
+     * @return a {@link List} containing the matching {@link ArchivedDevice} as {@link DeviceDTO}.
+     */
+    @Query("SELECT new com.francisco.deviceapi.dto.DeviceDTO(" +
+            "a.id, " +
+            "a.name, " +
+            "a.brand, " +
+            "a.state, " +
+            "a.creationTime) " +
+            "FROM ArchivedDevice a " +
+            "WHERE (:brand IS NULL OR a.brand = :brand)")
+    List<DeviceDTO> findByBrandAsDTO(@Param("brand") String brand);
+
+    /**
+     * Finds all {@link ArchivedDevice} by Brand, or of any Brand if no Brand is given, created within a date range.
+     *
+     * @param brand - the Brand of the {@link ArchivedDevice} to be retrieved, or null for any Brand.
+     * @param createdFrom - the first creation date, or null for no lower bound.
+     * @param createdTo - the last creation date, or null for no upper bound.
+     * @return a {@link List} containing the matching {@link ArchivedDevice} as {@link DeviceDTO}.
+     */
+    @Query("SELECT new com.francisco.deviceapi.dto.DeviceDTO(" +
+            "a.id, " +
+            "a.name, " +
+            "a.brand, " +
+            "a.state, " +
+            "a.creationTime) " +
+            "FROM ArchivedDevice a " +
+            "WHERE (:brand IS NULL OR a.brand = :brand)" +
+            " AND (:createdFrom IS NULL OR a.creationTime >= :createdFrom)" +
+            " AND (:createdTo IS NULL OR a.creationTime <= :createdTo)")
+    List<DeviceDTO> findByBrandCreatedBetweenAsDTO(@Param("brand") String brand,
+                                                   @Param("createdFrom") LocalDate createdFrom,
+                                                   @Param("createdTo") LocalDate createdTo);
+
+    /**
+     * Counts the {@link ArchivedDevice} created on each day within a date range, by Brand or of all Brands.
+     *
+     * @param brand - the Brand of the {@link ArchivedDevice} to be counted, or null for any Brand.
+     * @param createdFrom - the first creation date, or null for no lower bound.
+     * @param createdTo - the last creation date, or null for no upper bound.
+     * @return a {@link List} containing the number of {@link ArchivedDevice} created on each day with any.
+     */
+    @Query("SELECT new com.francisco.deviceapi.dto.DeviceCreationCountDTO(a.creationTime, COUNT(a)) " +
+            "FROM ArchivedDevice a " +
+            "WHERE (:brand IS NULL OR a.brand = :brand)" +
+            " AND (:createdFrom IS NULL OR a.creationTime >= :createdFrom)" +
+            " AND (:createdTo IS NULL OR a.creationTime <= :createdTo) " +
+            "GROUP BY a.creationTime")
+    List<DeviceCreationCountDTO> countCreatedPerDay(@Param("brand") String brand,
+                                                    @Param("createdFrom") LocalDate createdFrom,
+                                                    @Param("createdTo") LocalDate createdTo);
+
+    /**
+     * Counts the {@link ArchivedDevice} created on each day within a date range, per Brand.
+     *
+     * @param brand - the Brand of the {@link ArchivedDevice} to be counted, or null for any Brand.
+     * @param createdFrom - the first creation date, or null for no lower bound.
+     * @param createdTo - the last creation date, or null for no upper bound.
+     * @return a {@link List} containing the number of {@link ArchivedDevice} of each Brand created on each day
+     * with any.
+     */
+    @Query("SELECT new com.francisco.deviceapi.dto.DeviceCreationCountDTO(a.creationTime, a.brand, COUNT(a)) " +
+            "FROM ArchivedDevice a " +
+            "WHERE (:brand IS NULL OR a.brand = :brand)" +
+            " AND (:createdFrom IS NULL OR a.creationTime >= :createdFrom)" +
+            " AND (:createdTo IS NULL OR a.creationTime <= :createdTo) " +
+            "GROUP BY a.creationTime, a.brand")
+    List<DeviceCreationCountDTO> countCreatedPerDayAndBrand(@Param("brand") String brand,
+                                                            @Param("createdFrom") LocalDate createdFrom,
+                                                            @Param("createdTo") LocalDate createdTo);
+
+    /**
+     * Finds all {@link ArchivedDevice} with a matching ID in a single query.
+     *
+     * @param ids - the IDs of the {@link ArchivedDevice} to be retrieved.
+     * @return a {@link List} containing the found {@link ArchivedDevice} as {@link DeviceDTO}, in no particular order.
+     */
+    @Query("SELECT new com.francisco.deviceapi.dto.DeviceDTO(" +
+            "a.id, " +
+            "a.name, " +
+            "a.brand, " +
+            "a.state, " +
+            "a.creationTime) " +
+            "FROM ArchivedDevice a " +
+            "WHERE a.id IN :ids")
+    List<DeviceDTO> findByIdInAsDTO(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Counts the {@link ArchivedDevice} by Brand, or all of them if no Brand is given, without loading them.
+     *
+     * @param brand - the Brand of the {@link ArchivedDevice} to be counted, or null for any Brand.
+     * @return the number of matching {@link ArchivedDevice}.
+     */
+    @Query("SELECT COUNT(a) FROM ArchivedDevice a WHERE (:brand IS NULL OR a.brand = :brand)")
+    long countByBrand(@Param("brand") String brand);
+
+    /**
+     * Checks if an {@link ArchivedDevice} exists with Brand and Name.
+     *
+     * @param name - the Name of the {@link ArchivedDevice}.
+     * @param brand - the Brand of the {@link ArchivedDevice}.
+     * @return true if it exists.
+     */
+    boolean existsByNameAndBrand(String name, String brand);
+
+    /**
+     * Copies every {@link Device} with a matching ID into the archive in a single INSERT ... SELECT.
+     * <p>
+     * The copied rows must be deleted from the hot table in the same transaction.
+     *
+     * @param ids - the IDs of the {@link Device} to be archived.
+     * @param archivedAt - the time the {@link Device} are archived at.
+     * @return the number of archived rows.
+     */
+    @Modifying
+    @Query("INSERT INTO ArchivedDevice (id, name, brand, state, creationTime, archivedAt) " +
+            "SELECT d.id, d.name, d.brand, d.state, d.creationTime, :archivedAt FROM Device d WHERE d.id IN :ids")
+    int archiveByIdIn(@Param("ids") Collection<Long> ids, @Param("archivedAt") Instant archivedAt);
+
+    /**
+     * Copies an {@link ArchivedDevice} back into the hot table, keeping its ID.
+     * <p>
+     * The {@link ArchivedDevice} must be deleted in the same transaction.
+     *
+     * @param id - the ID of the {@link ArchivedDevice}.
+     * @return the number of restored rows.
+     */
+    @Modifying
+    @Query("INSERT INTO Device (id, name, brand, state, creationTime) " +
+            "SELECT a.id, a.name, a.brand, a.state, a.creationTime FROM ArchivedDevice a WHERE a.id = :id")
+    int restoreById(@Param("id") Long id);
+
+    /**
+     * Deletes an {@link ArchivedDevice} in a single DELETE.
+     *
+     * @param id - the ID of the {@link ArchivedDevice}.
+     * @return the number of deleted rows.
+     */
+    @Modifying
+    @Query("DELETE FROM ArchivedDevice a WHERE a.id = :id")
+    int removeById(@Param("id") Long id);
+}
@@ -0,0 +1,170 @@
+package com.francisco.deviceapi.repository;
+
+import com.francisco.deviceapi.domain.Device;
+import com.francisco.deviceapi.dto.DeviceImportRowDTO;
+import lombok.RequiredArgsConstructor;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.UUID;
+
+/**
+ * Loads imported {@link Device} into the {@code devices_import_staging} table and merges them into the
+ * {@code devices} table.
+ * <p>
+ * On PostgreSQL the rows are streamed with the COPY protocol. On other databases they are inserted in JDBC
+ * batches of {@code device.import.batch-size} rows.
+ */
+@Repository
+@RequiredArgsConstructor
+public class DeviceImportRepository {
+
+    private static final String COPY_STAGING = "COPY devices_import_staging " +
+            "(import_id, line, name, brand, state, creation_time) FROM STDIN WITH (FORMAT csv)";
+
+    private static final String INSERT_STAGING = "INSERT INTO devices_import_staging " +
+            "(import_id, line, name, brand, state, creation_time) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private static final String MERGE = "INSERT INTO devices (id, name, brand, state, creation_time) " +
+            "SELECT %s, s.name, s.brand, s.state, s.creation_time " +
+            "FROM (SELECT name, brand, state, creation_time, " +
+            "ROW_NUMBER() OVER (PARTITION BY name, brand ORDER BY line) AS occurrence " +
+            "FROM devices_import_staging WHERE import_id = ?) s " +
+            "WHERE s.occurrence = 1 " +
+            "AND NOT EXISTS (SELECT 1 FROM devices d WHERE d.name = s.name AND d.brand = s.brand) " +
+            "AND NOT EXISTS (SELECT 1 FROM devices_archive a WHERE a.name = s.name AND a.brand = s.brand)";
+
+    private static final String DELETE_STAGING = "DELETE FROM devices_import_staging WHERE import_id = ?";
+
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${device.import.batch-size:1000}")
+    private int batchSize;
+
+    /**
+     * Loads rows into the staging table, consuming them as they are loaded.
+     *
+     * @param importId the ID of the import.
+     * @param rows the rows to be loaded.
+     * @return the number of loaded rows.
+     */
+    public long stage(UUID importId, Iterator<DeviceImportRowDTO> rows) {
+        return jdbcTemplate.execute((ConnectionCallback<Long>) connection -> isPostgres(connection)
+                ? copy(connection, importId, rows)
+                : insertBatches(connection, importId, rows));
+    }
+
+    /**
+     * Inserts the staged rows of an import into the {@code devices} table with a single statement.
+     * <p>
+     * Only the first row of each Name and Brand pair is inserted, and only if no {@link Device}, archived or not,
+     * with the same Name and Brand exists.
+     *
+     * @param importId the ID of the import.
+     * @return the number of inserted {@link Device}.
+     */
+    public int merge(UUID importId) {
+        return jdbcTemplate.execute((ConnectionCallback<Integer>) connection -> {
+            String nextId = isPostgres(connection) ? "nextval('device_sequence')" : "NEXT VALUE FOR device_sequence";
+
+            try (PreparedStatement statement = connection.prepareStatement(MERGE.formatted(nextId))) {
+                statement.setObject(1, importId);
+                return statement.executeUpdate();
+            }
+        });
+    }
+
+    /**
+     * Deletes the staged rows of an import.
+     *
+     * @param importId the ID of the import.
+     */
+    public void deleteStaged(UUID importId) {
+        jdbcTemplate.update(DELETE_STAGING, importId);
+    }
+
+    private static long copy(Connection connection, UUID importId, Iterator<DeviceImportRowDTO> rows)
+            throws SQLException {
+        PGConnection pgConnection = connection.unwrap(PGConnection.class);
+        long staged = 0;
+
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                new PGCopyOutputStream(pgConnection, COPY_STAGING, COPY_BUFFER_SIZE), StandardCharsets.UTF_8))) {
+            while (rows.hasNext()) {
+                DeviceImportRowDTO row = rows.next();
+                writer.write(importId.toString());
+                writer.write(',');
+                writer.write(Long.toString(row.line()));
+                writer.write(',');
+                writeQuoted(writer, row.name());
+                writer.write(',');
+                writeQuoted(writer, row.brand());
+                writer.write(',');
+                writer.write(row.state().name());
+                writer.write(',');
+                writer.write(row.creationTime().toString());
+                writer.write('\n');
+                staged++;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return staged;
+    }
+
+    private long insertBatches(Connection connection, UUID importId, Iterator<DeviceImportRowDTO> rows)
+            throws SQLException {
+        long staged = 0;
+
+        try (PreparedStatement statement = connection.prepareStatement(INSERT_STAGING)) {
+            while (rows.hasNext()) {
+                DeviceImportRowDTO row = rows.next();
+                statement.setObject(1, importId);
+                statement.setLong(2, row.line());
+                statement.setString(3, row.name());
+                statement.setString(4, row.brand());
+                statement.setString(5, row.state().name());
+                statement.setDate(6, Date.valueOf(row.creationTime()));
+                statement.addBatch();
+
+                if (++staged % batchSize == 0) {
+                    statement.executeBatch();
+                }
+            }
+
+            if (staged % batchSize != 0) {
+                statement.executeBatch();
+            }
+        }
+
+        return staged;
+    }
+
+    private static boolean isPostgres(Connection connection) throws SQLException {
+        return connection.getMetaData().getDatabaseProductName().equals("PostgreSQL");
+    }
+
+    private static void writeQuoted(Writer writer, String value) throws IOException {
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
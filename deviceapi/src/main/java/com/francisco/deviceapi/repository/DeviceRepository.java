@@ -3,21 +3,34 @@ package com.francisco.deviceapi.repository;
 import com.francisco.deviceapi.domain.Device;
 import com.francisco.deviceapi.domain.enums.DeviceState;
 import com.francisco.deviceapi.dto.DeviceDTO;
+import com.francisco.deviceapi.dto.DeviceLeaseDTO;
+import com.francisco.deviceapi.dto.DeviceSnapshotDTO;
 import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 import jakarta.transaction.Transactional;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import javax.swing.text.html.Option;
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface DeviceRepository extends JpaRepository<Device, Long> {
+public interface DeviceRepository extends JpaRepository<Device, Long>, DeviceRepositoryCustom {
+
+    /**
+     * Lock timeout that makes a pessimistic lock skip the rows that are already locked.
+     */
+    String SKIP_LOCKED = "-2";
 
     /**
      * Finds all {@link Device} by Brand.
@@ -37,12 +50,72 @@ public interface DeviceRepository extends JpaRepository<Device, Long> {
 
     /**
      * Find all {@link Device} by a Brand and/or State (if in query) or all {@link Device}.
+     * <p>
+     * Each combination of parameters has its own query, because a {@code :param IS NULL OR} condition can't use
+     * the indexes on Brand and State.
      *
      * @param brand - the Brand of the {@link Device} to be retrieved.
      * @param state - Available, In use, or Inactive.
      * @return an {@link Optional} with a {@link List} containing all {@link Device} with matching Brand and/or
      * State (if params in query) or an {@link Optional} with a {@link List} containing all devices.
      */
+    default Optional<List<DeviceDTO>> findByBrandAndState(String brand, DeviceState state) {
+        if (brand != null && state != null) {
+            return Optional.of(findByBrandAndStateAsDTO(brand, state));
+        }
+
+        if (brand != null) {
+            return Optional.of(findByBrandAsDTO(brand));
+        }
+
+        return Optional.of(state != null ? findByStateAsDTO(state) : findAllAsDTO());
+    }
+
+    @Query("SELECT new com.francisco.deviceapi.dto.DeviceDTO(" +
+            "d.id, " +
+            "d.name, " +
+            "d.brand, " +
+            "d.state, " +
+            "d.creationTime) " +
+            "FROM Device d " +
+            "WHERE d.brand = :brand AND d.state = :state")
+    List<DeviceDTO> findByBrandAndStateAsDTO(@Param("brand") String brand, @Param("state") DeviceState state);
+
+    @Query("SELECT new com.francisco.deviceapi.dto.DeviceDTO(" +
+            "d.id, " +
+            "d.name, " +
+            "d.brand, " +
+            "d.state, " +
+            "d.creationTime) " +
+            "FROM Device d " +
+            "WHERE d.brand = :brand")
+    List<DeviceDTO> findByBrandAsDTO(@Param("brand") String brand);
+
+    @Query("SELECT new com.francisco.deviceapi.dto.DeviceDTO(" +
+            "d.id, " +
+            "d.name, " +
+            "d.brand, " +
+            "d.state, " +
+            "d.creationTime) " +
+            "FROM Device d " +
+            "WHERE d.state = :state")
+    List<DeviceDTO> findByStateAsDTO(@Param("state") DeviceState state);
+
+    @Query("SELECT new com.francisco.deviceapi.dto.DeviceDTO(" +
+            "d.id, " +
+            "d.name, " +
+            "d.brand, " +
+            "d.state, " +
+            "d.creationTime) " +
+            "FROM Device d")
+    List<DeviceDTO> findAllAsDTO();
+
+    /**
+     * Finds all {@link Device} with a matching ID in a single query.
+     *
+     * @param ids - the IDs of the {@link Device} to be retrieved.
+     * @return a {@link List} containing the found {@link Device}, in no particular order.
+     */
     @Query("SELECT new com.francisco.deviceapi.dto.DeviceDTO(" +
             "d.id, " +
             "d.name, " +
@@ -50,9 +123,36 @@ public interface DeviceRepository extends JpaRepository<Device, Long> {
             "d.state, " +
             "d.creationTime) " +
             "FROM Device d " +
-            "WHERE (:brand IS NULL OR d.brand = :brand)" +
-            " AND (:state IS NULL OR d.state = :state)")
-    Optional<List<DeviceDTO>> findByBrandAndState(@Param("brand") String brand, @Param("state") DeviceState state);
+            "WHERE d.id IN :ids")
+    List<DeviceDTO> findByIdInAsDTO(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Counts the {@link Device} by a Brand and/or State (if in query) or all {@link Device}, without loading them.
+     * <p>
+     * Each combination of parameters has its own query, like {@link #findByBrandAndState(String, DeviceState)}.
+     *
+     * @param brand - the Brand of the {@link Device} to be counted.
+     * @param state - Available, In use, or Inactive.
+     * @return the number of matching {@link Device}.
+     */
+    default long countByBrandAndState(String brand, DeviceState state) {
+        if (brand != null && state != null) {
+            return countWithBrandAndState(brand, state);
+        }
+
+        if (brand != null) {
+            return countByBrand(brand);
+        }
+
+        return state != null ? countByState(state) : count();
+    }
+
+    @Query("SELECT COUNT(d) FROM Device d WHERE d.brand = :brand AND d.state = :state")
+    long countWithBrandAndState(@Param("brand") String brand, @Param("state") DeviceState state);
+
+    long countByBrand(String brand);
+
+    long countByState(DeviceState state);
 
     /**
      * Checks if a {@link Device} exists with Brand and Name.
@@ -66,4 +166,170 @@ public interface DeviceRepository extends JpaRepository<Device, Long> {
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     @Query("SELECT d FROM Device d WHERE d.id = :id")
     Optional<Device> findByIdForUpdate(@Param("id") Long id);
+
+    /**
+     * Finds and locks every {@link Device} with a matching ID in a single SELECT ... FOR UPDATE, in ascending ID
+     * order, so that concurrent callers lock shared rows in the same order and can't deadlock.
+     *
+     * @param ids - the IDs of the {@link Device} to be locked.
+     * @return a {@link List} containing the locked {@link Device}, ordered by ID.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT d FROM Device d WHERE d.id IN :ids ORDER BY d.id")
+    List<Device> findByIdInForUpdate(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Finds and locks up to a page of {@link Device} in a State, optionally by Brand, skipping the rows that are
+     * already locked by other transactions.
+     * <p>
+     * Renders SELECT ... FOR UPDATE SKIP LOCKED on PostgreSQL. Dialects without SKIP LOCKED support, like H2,
+     * fall back to a plain SELECT ... FOR UPDATE.
+     * <p>
+     * With and without a Brand are separate queries, like {@link #findByBrandAndState(String, DeviceState)}, so
+     * both can use the index on State and Brand.
+     *
+     * @param brand - the Brand of the {@link Device} to be claimed, or null for any Brand.
+     * @param state - the State of the {@link Device} to be claimed.
+     * @param pageable - the maximum number of {@link Device} to be claimed.
+     * @return a {@link List} containing the locked {@link Device}, ordered by ID.
+     */
+    default List<Device> findForClaim(String brand, DeviceState state, Pageable pageable) {
+        return brand != null ? findForClaimByBrand(brand, state, pageable) : findForClaimByState(state, pageable);
+    }
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = AvailableSettings.JAKARTA_LOCK_TIMEOUT, value = SKIP_LOCKED))
+    @Query("SELECT d FROM Device d " +
+            "WHERE d.state = :state AND d.brand = :brand " +
+            "ORDER BY d.id")
+    List<Device> findForClaimByBrand(@Param("brand") String brand,
+                                     @Param("state") DeviceState state,
+                                     Pageable pageable);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = AvailableSettings.JAKARTA_LOCK_TIMEOUT, value = SKIP_LOCKED))
+    @Query("SELECT d FROM Device d " +
+            "WHERE d.state = :state " +
+            "ORDER BY d.id")
+    List<Device> findForClaimByState(@Param("state") DeviceState state, Pageable pageable);
+
+    /**
+     * Sets the State and lease of every {@link Device} with a matching ID in a single UPDATE.
+     * <p>
+     * Clears the persistence context, so the claimed {@link Device} are detached afterwards.
+     *
+     * @param ids - the IDs of the claimed {@link Device}.
+     * @param state - the State of the claimed {@link Device}.
+     * @param leaseExpiresAt - the time the lease expires at, or null for no lease.
+     * @return the number of updated rows.
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Device d " +
+            "SET d.state = :state, d.leaseExpiresAt = :leaseExpiresAt, d.updatedAt = INSTANT " +
+            "WHERE d.id IN :ids")
+    int claimByIdIn(@Param("ids") Collection<Long> ids,
+                    @Param("state") DeviceState state,
+                    @Param("leaseExpiresAt") Instant leaseExpiresAt);
+
+    /**
+     * Finds the leases of all {@link Device} with an ID greater than the given one, ordered by ID.
+     *
+     * @param afterId - the last ID of the previous page.
+     * @param state - the State a leased {@link Device} is in.
+     * @param pageable - the size of the page.
+     * @return a {@link List} containing the ID and lease expiry of the leased {@link Device}.
+     */
+    @Query("SELECT new com.francisco.deviceapi.dto.DeviceLeaseDTO(d.id, d.leaseExpiresAt) " +
+            "FROM Device d " +
+            "WHERE d.id > :afterId AND d.state = :state AND d.leaseExpiresAt IS NOT NULL " +
+            "ORDER BY d.id")
+    List<DeviceLeaseDTO> findLeasesAfter(@Param("afterId") Long afterId,
+                                         @Param("state") DeviceState state,
+                                         Pageable pageable);
+
+    /**
+     * Moves every {@link Device} with a matching ID and an expired lease from the leased State to the released
+     * State in a single UPDATE.
+     * <p>
+     * A {@link Device} whose lease was renewed or released meanwhile is left untouched.
+     *
+     * @param ids - the IDs of the {@link Device} with an expired lease.
+     * @param leasedState - the State a leased {@link Device} is in.
+     * @param releasedState - the State a {@link Device} is reverted to.
+     * @param now - the current time.
+     * @return the number of updated rows.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Device d SET d.state = :releasedState, d.leaseExpiresAt = NULL, d.updatedAt = INSTANT " +
+            "WHERE d.id IN :ids AND d.state = :leasedState AND d.leaseExpiresAt <= :now")
+    int expireLeases(@Param("ids") Collection<Long> ids,
+                     @Param("leasedState") DeviceState leasedState,
+                     @Param("releasedState") DeviceState releasedState,
+                     @Param("now") Instant now);
+
+    /**
+     * Finds and locks the IDs of up to a page of {@link Device} in a State, skipping the rows that are already
+     * locked by other transactions.
+     *
+     * @param state - the State of the {@link Device} to be archived.
+     * @param pageable - the maximum number of {@link Device} to be archived.
+     * @return a {@link List} containing the locked {@link Device}, ordered by ID.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = AvailableSettings.JAKARTA_LOCK_TIMEOUT, value = SKIP_LOCKED))
+    @Query("SELECT d FROM Device d WHERE d.state = :state ORDER BY d.id")
+    List<Device> findForArchive(@Param("state") DeviceState state, Pageable pageable);
+
+    /**
+     * Deletes every {@link Device} with a matching ID that is still in a State in a single DELETE.
+     * <p>
+     * Clears the persistence context, so no deleted {@link Device} stays managed.
+     *
+     * @param ids - the IDs of the {@link Device} to be deleted.
+     * @param state - the State the {@link Device} must be in.
+     * @return the number of deleted rows.
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("DELETE FROM Device d WHERE d.id IN :ids AND d.state = :state")
+    int deleteByIdInAndState(@Param("ids") Collection<Long> ids, @Param("state") DeviceState state);
+
+    /**
+     * Finds a page of the {@link Device} changed since a time, with an ID greater than the given one, ordered by ID.
+     *
+     * @param since - the time of the oldest change to be retrieved.
+     * @param afterId - the last ID of the previous page.
+     * @param pageable - the size of the page.
+     * @return a {@link List} containing the changed {@link Device}.
+     */
+    @Query("SELECT new com.francisco.deviceapi.dto.DeviceSnapshotDTO(" +
+            "d.id, d.name, d.brand, d.state, d.creationTime, d.leaseExpiresAt, d.updatedAt) " +
+            "FROM Device d " +
+            "WHERE d.updatedAt >= :since AND d.id > :afterId " +
+            "ORDER BY d.id")
+    List<DeviceSnapshotDTO> findChangedSince(@Param("since") Instant since,
+                                             @Param("afterId") Long afterId,
+                                             Pageable pageable);
+
+    /**
+     * Finds all {@link Device} with a matching ID in a single query.
+     *
+     * @param ids - the IDs of the {@link Device} to be retrieved.
+     * @return a {@link List} containing the found {@link Device}, in no particular order.
+     */
+    @Query("SELECT new com.francisco.deviceapi.dto.DeviceSnapshotDTO(" +
+            "d.id, d.name, d.brand, d.state, d.creationTime, d.leaseExpiresAt, d.updatedAt) " +
+            "FROM Device d " +
+            "WHERE d.id IN :ids")
+    List<DeviceSnapshotDTO> findByIdInAsSnapshotDTO(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Finds a page of the IDs greater than the given one, ordered by ID, from the primary key index alone.
+     *
+     * @param afterId - the last ID of the previous page.
+     * @param pageable - the size of the page.
+     * @return a {@link List} containing the IDs.
+     */
+    @Query("SELECT d.id FROM Device d WHERE d.id > :afterId ORDER BY d.id")
+    List<Long> findIdsAfter(@Param("afterId") Long afterId, Pageable pageable);
 }
@@ -0,0 +1,50 @@
+package com.francisco.deviceapi.repository;
+
+import com.francisco.deviceapi.domain.Device;
+import com.francisco.deviceapi.domain.enums.DeviceState;
+import com.francisco.deviceapi.dto.DeviceCreationCountDTO;
+import com.francisco.deviceapi.dto.DeviceDTO;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * The {@link DeviceRepository} queries with optional filters, built with only the conditions of the filters given,
+ * since a {@code :param IS NULL OR} condition can't use the indexes on Brand, State and creation date.
+ */
+public interface DeviceRepositoryCustom {
+
+    /**
+     * Find all {@link Device} by a Brand and/or State (if in query) created within a date range.
+     *
+     * @param brand - the Brand of the {@link Device} to be retrieved, or null for any Brand.
+     * @param state - Available, In use, or Inactive, or null for any State.
+     * @param createdFrom - the first creation date, or null for no lower bound.
+     * @param createdTo - the last creation date, or null for no upper bound.
+     * @return a {@link List} containing the matching {@link Device}.
+     */
+    List<DeviceDTO> findByBrandAndStateCreatedBetween(String brand,
+                                                      DeviceState state,
+                                                      LocalDate createdFrom,
+                                                      LocalDate createdTo);
+
+    /**
+     * Counts the {@link Device} created on each day within a date range, by Brand (if in query) or of all Brands.
+     *
+     * @param brand - the Brand of the {@link Device} to be counted, or null for any Brand.
+     * @param createdFrom - the first creation date, or null for no lower bound.
+     * @param createdTo - the last creation date, or null for no upper bound.
+     * @return a {@link List} containing the number of {@link Device} created on each day with any.
+     */
+    List<DeviceCreationCountDTO> countCreatedPerDay(String brand, LocalDate createdFrom, LocalDate createdTo);
+
+    /**
+     * Counts the {@link Device} created on each day within a date range, per Brand.
+     *
+     * @param brand - the Brand of the {@link Device} to be counted, or null for any Brand.
+     * @param createdFrom - the first creation date, or null for no lower bound.
+     * @param createdTo - the last creation date, or null for no upper bound.
+     * @return a {@link List} containing the number of {@link Device} of each Brand created on each day with any.
+     */
+    List<DeviceCreationCountDTO> countCreatedPerDayAndBrand(String brand, LocalDate createdFrom, LocalDate createdTo);
+}
@@ -0,0 +1,98 @@
+package com.francisco.deviceapi.repository;
+
+import com.francisco.deviceapi.domain.Device;
+import com.francisco.deviceapi.domain.enums.DeviceState;
+import com.francisco.deviceapi.dto.DeviceCreationCountDTO;
+import com.francisco.deviceapi.dto.DeviceDTO;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds the queries of {@link DeviceRepositoryCustom} with the Criteria API.
+ */
+public class DeviceRepositoryCustomImpl implements DeviceRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<DeviceDTO> findByBrandAndStateCreatedBetween(String brand,
+                                                             DeviceState state,
+                                                             LocalDate createdFrom,
+                                                             LocalDate createdTo) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<DeviceDTO> query = builder.createQuery(DeviceDTO.class);
+        Root<Device> device = query.from(Device.class);
+
+        query.select(builder.construct(DeviceDTO.class, device.get("id"), device.get("name"), device.get("brand"),
+                        device.get("state"), device.get("creationTime")))
+                .where(filter(builder, device, brand, state, createdFrom, createdTo));
+
+        return entityManager.createQuery(query).getResultList();
+    }
+
+    @Override
+    public List<DeviceCreationCountDTO> countCreatedPerDay(String brand, LocalDate createdFrom, LocalDate createdTo) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<DeviceCreationCountDTO> query = builder.createQuery(DeviceCreationCountDTO.class);
+        Root<Device> device = query.from(Device.class);
+
+        query.select(builder.construct(DeviceCreationCountDTO.class, device.get("creationTime"),
+                        builder.count(device)))
+                .where(filter(builder, device, brand, null, createdFrom, createdTo))
+                .groupBy(device.get("creationTime"));
+
+        return entityManager.createQuery(query).getResultList();
+    }
+
+    @Override
+    public List<DeviceCreationCountDTO> countCreatedPerDayAndBrand(String brand,
+                                                                   LocalDate createdFrom,
+                                                                   LocalDate createdTo) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<DeviceCreationCountDTO> query = builder.createQuery(DeviceCreationCountDTO.class);
+        Root<Device> device = query.from(Device.class);
+
+        query.select(builder.construct(DeviceCreationCountDTO.class, device.get("creationTime"),
+                        device.get("brand"), builder.count(device)))
+                .where(filter(builder, device, brand, null, createdFrom, createdTo))
+                .groupBy(device.get("creationTime"), device.get("brand"));
+
+        return entityManager.createQuery(query).getResultList();
+    }
+
+    private static Predicate[] filter(CriteriaBuilder builder,
+                                      Root<Device> device,
+                                      String brand,
+                                      DeviceState state,
+                                      LocalDate createdFrom,
+                                      LocalDate createdTo) {
+        List<Predicate> predicates = new ArrayList<>(4);
+
+        if (brand != null) {
+            predicates.add(builder.equal(device.get("brand"), brand));
+        }
+
+        if (state != null) {
+            predicates.add(builder.equal(device.get("state"), state));
+        }
+
+        if (createdFrom != null) {
+            predicates.add(builder.greaterThanOrEqualTo(device.<LocalDate>get("creationTime"), createdFrom));
+        }
+
+        if (createdTo != null) {
+            predicates.add(builder.lessThanOrEqualTo(device.<LocalDate>get("creationTime"), createdTo));
+        }
+
+        return predicates.toArray(Predicate[]::new);
+    }
+}
@@ -0,0 +1,66 @@
+package com.francisco.deviceapi.repository;
+
+import com.francisco.deviceapi.domain.Device;
+import com.francisco.deviceapi.domain.enums.DeviceState;
+import com.francisco.deviceapi.dto.DeviceStateTransitionDTO;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+/**
+ * Appends {@link Device} State transitions to the {@code device_state_history} table and reads them back, newest
+ * first, with keyset pagination on the history ID.
+ */
+@Repository
+@RequiredArgsConstructor
+public class DeviceStateHistoryRepository {
+
+    private static final String INSERT = "INSERT INTO device_state_history " +
+            "(device_id, old_state, new_state, changed_at) VALUES (?, ?, ?, ?)";
+
+    private static final String FIND_BY_DEVICE_ID = "SELECT id, device_id, old_state, new_state, changed_at " +
+            "FROM device_state_history WHERE device_id = ? AND id < ? ORDER BY id DESC FETCH FIRST ? ROWS ONLY";
+
+    private static final RowMapper<DeviceStateTransitionDTO> ROW_MAPPER = (resultSet, rowNumber) ->
+            new DeviceStateTransitionDTO(
+                    resultSet.getLong("id"),
+                    resultSet.getLong("device_id"),
+                    DeviceState.valueOf(resultSet.getString("old_state")),
+                    DeviceState.valueOf(resultSet.getString("new_state")),
+                    resultSet.getObject("changed_at", OffsetDateTime.class).toInstant());
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Inserts transitions with a single JDBC batch.
+     *
+     * @param transitions the transitions to be inserted.
+     */
+    public void insertAll(List<DeviceStateTransitionDTO> transitions) {
+        jdbcTemplate.batchUpdate(INSERT, transitions, transitions.size(), (statement, transition) -> {
+            statement.setLong(1, transition.deviceId());
+            statement.setString(2, transition.oldState().name());
+            statement.setString(3, transition.newState().name());
+            statement.setObject(4, transition.changedAt().atOffset(ZoneOffset.UTC));
+        });
+    }
+
+    /**
+     * Retrieves a page of the transitions of a {@link Device}, newest first.
+     *
+     * @param deviceId the ID of the {@link Device}.
+     * @param beforeId only transitions with a lower history ID are retrieved, or null to start from the newest.
+     * @param size the maximum number of transitions.
+     * @return a {@link List} containing the transitions.
+     */
+    public List<DeviceStateTransitionDTO> findByDeviceId(Long deviceId, Long beforeId, int size) {
+        return jdbcTemplate.query(FIND_BY_DEVICE_ID, ROW_MAPPER, deviceId,
+                beforeId != null ? beforeId : Long.MAX_VALUE, size);
+    }
+}
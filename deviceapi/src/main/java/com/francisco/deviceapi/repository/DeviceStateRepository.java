@@ -0,0 +1,55 @@
+package com.francisco.deviceapi.repository;
+
+import com.francisco.deviceapi.domain.Device;
+import com.francisco.deviceapi.dto.DeviceStateUpdateDTO;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Writes the States staged by the write-behind buffer, conditionally on each {@link Device} row being unchanged
+ * since the State was staged, so a write committed meanwhile is never overwritten.
+ */
+@Repository
+@RequiredArgsConstructor
+public class DeviceStateRepository {
+
+    private static final String UPDATE_IF_UNCHANGED = "UPDATE devices " +
+            "SET state = ?, lease_expires_at = NULL, updated_at = ? WHERE id = ? AND updated_at = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Sets the State of every {@link Device} whose {@code updated_at} still matches, with a single JDBC batch.
+     * <p>
+     * Clears any lease, since the State is no longer set by a checkout.
+     *
+     * @param updates the staged States.
+     * @param updatedAt the new {@code updated_at} of the written rows.
+     * @return for each update, in order, whether its row was written.
+     */
+    public boolean[] updateStateIfUnchanged(List<DeviceStateUpdateDTO> updates, Instant updatedAt) {
+        int[][] counts = jdbcTemplate.batchUpdate(UPDATE_IF_UNCHANGED, updates, updates.size(),
+                (statement, update) -> {
+                    statement.setString(1, update.state().name());
+                    statement.setObject(2, updatedAt.atOffset(ZoneOffset.UTC));
+                    statement.setLong(3, update.id());
+                    statement.setObject(4, update.expectedUpdatedAt() != null
+                            ? update.expectedUpdatedAt().atOffset(ZoneOffset.UTC)
+                            : null);
+                });
+        boolean[] written = new boolean[updates.size()];
+        int[] batchCounts = Arrays.stream(counts).flatMapToInt(Arrays::stream).toArray();
+
+        for (int i = 0; i < written.length; i++) {
+            written[i] = batchCounts[i] > 0;
+        }
+
+        return written;
+    }
+}
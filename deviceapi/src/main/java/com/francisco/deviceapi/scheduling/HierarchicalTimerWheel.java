@@ -0,0 +1,243 @@
+package com.francisco.deviceapi.scheduling;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timer wheel keyed by an arbitrary key.
+ * <p>
+ * Arming and cancelling a timer are O(1): every timer is an intrusive node in a doubly linked slot list and is
+ * indexed by its key. The lowest level has a resolution of one tick; each higher level covers a whole rotation of
+ * the level below it, and its slots are cascaded into the lower levels as time advances. Deadlines beyond the
+ * highest level are parked in it and re-evaluated every time their slot is cascaded.
+ * <p>
+ * Timers never fire before their deadline and fire at most one tick after it.
+ *
+ * @param <K> the type of the timer keys.
+ */
+public class HierarchicalTimerWheel<K> {
+
+    private final long tickMillis;
+
+    private final int wheelSize;
+
+    private final Level[] levels;
+
+    private final Map<K, Node<K>> timers = new HashMap<>();
+
+    private final Slot<K> overdue = new Slot<>();
+
+    private long currentTime;
+
+    /**
+     * @param tickMillis the resolution of the lowest level, in milliseconds.
+     * @param wheelSize the number of slots of every level, must be a power of two.
+     * @param levelCount the number of levels.
+     * @param startTime the time the wheel starts at, in epoch milliseconds.
+     */
+    public HierarchicalTimerWheel(long tickMillis, int wheelSize, int levelCount, long startTime) {
+        if (tickMillis <= 0 || Integer.bitCount(wheelSize) != 1 || levelCount <= 0) {
+            throw new IllegalArgumentException("Invalid timer wheel configuration!");
+        }
+
+        this.tickMillis = tickMillis;
+        this.wheelSize = wheelSize;
+        this.levels = new Level[levelCount];
+        this.currentTime = startTime - Math.floorMod(startTime, tickMillis);
+
+        long levelTick = tickMillis;
+        for (int i = 0; i < levelCount; i++) {
+            levels[i] = new Level(levelTick, wheelSize);
+            levelTick = Math.multiplyExact(levelTick, wheelSize);
+        }
+    }
+
+    /**
+     * Arms a timer, replacing the timer already armed for the same key.
+     *
+     * @param key the key of the timer.
+     * @param deadline the time the timer expires at, in epoch milliseconds.
+     */
+    public synchronized void arm(K key, long deadline) {
+        cancel(key);
+
+        Node<K> node = new Node<>(key, deadline);
+        timers.put(key, node);
+        insert(node);
+    }
+
+    /**
+     * Arms a timer unless a timer is already armed for the same key.
+     *
+     * @param key the key of the timer.
+     * @param deadline the time the timer expires at, in epoch milliseconds.
+     * @return true if the timer was armed.
+     */
+    public synchronized boolean armIfAbsent(K key, long deadline) {
+        if (timers.containsKey(key)) {
+            return false;
+        }
+
+        arm(key, deadline);
+        return true;
+    }
+
+    /**
+     * Cancels the timer armed for a key, if any.
+     *
+     * @param key the key of the timer.
+     * @return true if a timer was cancelled.
+     */
+    public synchronized boolean cancel(K key) {
+        Node<K> node = timers.remove(key);
+
+        if (node == null) {
+            return false;
+        }
+
+        node.slot.unlink(node);
+        return true;
+    }
+
+    /**
+     * Advances the wheel up to a point in time and hands every expired key to a consumer.
+     *
+     * @param now the current time, in epoch milliseconds.
+     * @param expired receives the keys of the expired timers.
+     */
+    public synchronized void advance(long now, Consumer<K> expired) {
+        drain(overdue, expired);
+
+        while (currentTime + tickMillis <= now) {
+            currentTime += tickMillis;
+
+            for (int i = levels.length - 1; i > 0; i--) {
+                Level level = levels[i];
+
+                if (currentTime % level.tickMillis == 0) {
+                    Slot<K> slot = level.slotFor(currentTime);
+                    Node<K> node;
+
+                    while ((node = slot.poll()) != null) {
+                        insert(node);
+                    }
+                }
+            }
+
+            drain(levels[0].slotFor(currentTime - tickMillis), expired);
+            drain(overdue, expired);
+        }
+    }
+
+    public synchronized int size() {
+        return timers.size();
+    }
+
+    private void insert(Node<K> node) {
+        if (node.deadline < currentTime) {
+            overdue.link(node);
+            return;
+        }
+
+        for (Level level : levels) {
+            if (node.deadline < currentTime + level.tickMillis * wheelSize) {
+                level.<K>slotFor(node.deadline).link(node);
+                return;
+            }
+        }
+
+        levels[levels.length - 1].<K>slotFor(node.deadline).link(node);
+    }
+
+    private void drain(Slot<K> slot, Consumer<K> expired) {
+        Node<K> node;
+
+        while ((node = slot.poll()) != null) {
+            timers.remove(node.key);
+            expired.accept(node.key);
+        }
+    }
+
+    private static final class Level {
+
+        private final long tickMillis;
+
+        private final Slot<?>[] slots;
+
+        private Level(long tickMillis, int wheelSize) {
+            this.tickMillis = tickMillis;
+            this.slots = new Slot<?>[wheelSize];
+
+            for (int i = 0; i < wheelSize; i++) {
+                slots[i] = new Slot<>();
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private <K> Slot<K> slotFor(long time) {
+            return (Slot<K>) slots[(int) ((time / tickMillis) & (slots.length - 1))];
+        }
+    }
+
+    private static final class Slot<K> {
+
+        private Node<K> head;
+
+        private void link(Node<K> node) {
+            node.slot = this;
+            node.prev = null;
+            node.next = head;
+
+            if (head != null) {
+                head.prev = node;
+            }
+
+            head = node;
+        }
+
+        private void unlink(Node<K> node) {
+            if (node.prev != null) {
+                node.prev.next = node.next;
+            } else {
+                head = node.next;
+            }
+
+            if (node.next != null) {
+                node.next.prev = node.prev;
+            }
+
+            node.prev = null;
+            node.next = null;
+            node.slot = null;
+        }
+
+        private Node<K> poll() {
+            Node<K> node = head;
+
+            if (node != null) {
+                unlink(node);
+            }
+
+            return node;
+        }
+    }
+
+    private static final class Node<K> {
+
+        private final K key;
+
+        private final long deadline;
+
+        private Node<K> prev;
+
+        private Node<K> next;
+
+        private Slot<K> slot;
+
+        private Node(K key, long deadline) {
+            this.key = key;
+            this.deadline = deadline;
+        }
+    }
+}
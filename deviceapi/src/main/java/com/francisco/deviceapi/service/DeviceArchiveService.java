@@ -0,0 +1,210 @@
+package com.francisco.deviceapi.service;
+
+import com.francisco.deviceapi.concurrency.DeviceWriteStripes;
+import com.francisco.deviceapi.domain.ArchivedDevice;
+import com.francisco.deviceapi.domain.Device;
+import com.francisco.deviceapi.domain.enums.DeviceState;
+import com.francisco.deviceapi.dto.DeviceCreationCountDTO;
+import com.francisco.deviceapi.dto.DeviceDTO;
+import com.francisco.deviceapi.repository.ArchivedDeviceRepository;
+import com.francisco.deviceapi.repository.DeviceRepository;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Hot/cold split of the {@link Device} table.
+ * <p>
+ * INACTIVE {@link Device} are moved in batches from the hot {@code devices} table to the cold
+ * {@code devices_archive} table, so the indexes and scans of the hot table only pay for the {@link Device} that
+ * are in use. An {@link ArchivedDevice} is restored into the hot table before it's modified.
+ */
+@Service
+@RequiredArgsConstructor
+public class DeviceArchiveService {
+
+    private final DeviceRepository deviceRepository;
+
+    private final ArchivedDeviceRepository archivedDeviceRepository;
+
+    private final DeviceStateWriteBehindBuffer deviceStateWriteBehindBuffer;
+
+    private final DeviceWriteStripes deviceWriteStripes;
+
+    /**
+     * Retrieves an {@link ArchivedDevice} by ID.
+     *
+     * @param id the ID of the {@link Device}.
+     * @return an {@link Optional} with the archived {@link Device} (if present) or an empty {@link Optional}.
+     */
+    public Optional<Device> findArchived(Long id) {
+        return archivedDeviceRepository.findById(id).map(ArchivedDevice::toDevice);
+    }
+
+    /**
+     * Retrieves the {@link ArchivedDevice} by Brand, or all of them if no Brand is given.
+     *
+     * @param brand - the Brand of the {@link Device}, or null for any Brand.
+     * @return a {@link List} containing the archived {@link Device}.
+     */
+    public List<DeviceDTO> findArchived(String brand) {
+        return archivedDeviceRepository.findByBrandAsDTO(brand);
+    }
+
+    /**
+     * Retrieves the {@link ArchivedDevice} by Brand, or of any Brand if no Brand is given, created within a date
+     * range.
+     *
+     * @param brand - the Brand of the {@link Device}, or null for any Brand.
+     * @param createdFrom - the first creation date, or null for no lower bound.
+     * @param createdTo - the last creation date, or null for no upper bound.
+     * @return a {@link List} containing the archived {@link Device}.
+     */
+    public List<DeviceDTO> findArchived(String brand, LocalDate createdFrom, LocalDate createdTo) {
+        return archivedDeviceRepository.findByBrandCreatedBetweenAsDTO(brand, createdFrom, createdTo);
+    }
+
+    /**
+     * Retrieves the {@link ArchivedDevice} with a matching ID.
+     *
+     * @param ids - the IDs of the {@link Device}.
+     * @return a {@link List} containing the archived {@link Device}, in no particular order.
+     */
+    public List<DeviceDTO> findArchived(Collection<Long> ids) {
+        return archivedDeviceRepository.findByIdInAsDTO(ids);
+    }
+
+    /**
+     * Checks if an {@link ArchivedDevice} exists by ID.
+     *
+     * @param id the ID of the {@link Device}.
+     * @return true if it exists.
+     */
+    public boolean existsArchived(Long id) {
+        return archivedDeviceRepository.existsById(id);
+    }
+
+    /**
+     * Counts the {@link ArchivedDevice} by Brand, or all of them if no Brand is given.
+     *
+     * @param brand - the Brand of the {@link Device}, or null for any Brand.
+     * @return the number of archived {@link Device}.
+     */
+    public long countArchived(String brand) {
+        return archivedDeviceRepository.countByBrand(brand);
+    }
+
+    /**
+     * Counts the {@link ArchivedDevice} created on each day within a date range, by Brand or of all Brands.
+     *
+     * @param brand - the Brand of the {@link Device}, or null for any Brand.
+     * @param createdFrom - the first creation date, or null for no lower bound.
+     * @param createdTo - the last creation date, or null for no upper bound.
+     * @param perBrand - whether to count each Brand apart.
+     * @return a {@link List} containing the number of archived {@link Device} created on each day with any.
+     */
+    public List<DeviceCreationCountDTO> countArchivedPerDay(String brand, LocalDate createdFrom, LocalDate createdTo,
+                                                            boolean perBrand) {
+        return perBrand
+                ? archivedDeviceRepository.countCreatedPerDayAndBrand(brand, createdFrom, createdTo)
+                : archivedDeviceRepository.countCreatedPerDay(brand, createdFrom, createdTo);
+    }
+
+    /**
+     * Checks if an {@link ArchivedDevice} exists with Brand and Name.
+     *
+     * @param name - the Name of the {@link Device}.
+     * @param brand - the Brand of the {@link Device}.
+     * @return true if it exists.
+     */
+    public boolean existsArchived(String name, String brand) {
+        return archivedDeviceRepository.existsByNameAndBrand(name, brand);
+    }
+
+    /**
+     * Moves an {@link ArchivedDevice} back into the hot table and locks it.
+     * <p>
+     * Must be called within the transaction that modifies the {@link Device}, so a rollback keeps it archived.
+     *
+     * @param id the ID of the {@link Device}.
+     * @return an {@link Optional} with the restored and locked {@link Device} (if archived) or an empty {@link Optional}.
+     */
+    @Transactional(Transactional.TxType.MANDATORY)
+    public Optional<Device> restoreForUpdate(Long id) {
+        if (archivedDeviceRepository.restoreById(id) == 0) {
+            return Optional.empty();
+        }
+
+        archivedDeviceRepository.removeById(id);
+        return deviceRepository.findByIdForUpdate(id);
+    }
+
+    /**
+     * Deletes an {@link ArchivedDevice} by ID.
+     *
+     * @param id the ID of the {@link Device}.
+     * @return true if it was archived and deleted.
+     */
+    @Transactional
+    public boolean deleteArchived(Long id) {
+        return archivedDeviceRepository.removeById(id) > 0;
+    }
+
+    /**
+     * Moves up to a batch of INACTIVE {@link Device} to the archive.
+     * <p>
+     * Calls {@link DeviceRepository#findForArchive(DeviceState, org.springframework.data.domain.Pageable)}, which
+     * skips the rows locked by concurrent writers, then copies and deletes the locked rows with one statement each.
+     * <p>
+     * A {@link Device} whose {@link DeviceWriteStripes} stripe is held by a writer, or with a State staged in
+     * {@link DeviceStateWriteBehindBuffer}, stays in the hot table. The stripes of the archived {@link Device} are
+     * held until the transaction completes, so a state-only patch can't stage a State for a {@link Device} that is
+     * being archived.
+     *
+     * @param batchSize the maximum number of {@link Device} to be archived.
+     * @return the number of archived {@link Device}.
+     */
+    @Transactional
+    public int archiveBatch(int batchSize) {
+        List<Device> candidates = deviceRepository.findForArchive(DeviceState.INACTIVE, PageRequest.ofSize(batchSize));
+        List<Long> ids = new ArrayList<>(candidates.size());
+
+        for (Device candidate : candidates) {
+            Optional<DeviceWriteStripes.Stripe> stripe = deviceWriteStripes.tryLockNow(candidate.getId());
+
+            if (stripe.isPresent()) {
+                releaseAfterCompletion(stripe.get());
+
+                if (deviceStateWriteBehindBuffer.pendingState(candidate.getId()).isEmpty()) {
+                    ids.add(candidate.getId());
+                }
+            }
+        }
+
+        if (!ids.isEmpty()) {
+            archivedDeviceRepository.archiveByIdIn(ids, Instant.now());
+            deviceRepository.deleteByIdInAndState(ids, DeviceState.INACTIVE);
+        }
+
+        return ids.size();
+    }
+
+    private static void releaseAfterCompletion(DeviceWriteStripes.Stripe stripe) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                stripe.close();
+            }
+        });
+    }
+}
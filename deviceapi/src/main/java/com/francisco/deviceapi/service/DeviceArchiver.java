@@ -0,0 +1,61 @@
+package com.francisco.deviceapi.service;
+
+import com.francisco.deviceapi.domain.Device;
+import com.francisco.deviceapi.sharding.DeviceShardRouter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Periodically moves INACTIVE {@link Device} to the archive through {@link DeviceArchiveService}, one batch per
+ * transaction, until a batch comes back short. With sharding enabled, every shard is archived in turn.
+ */
+@Component
+@Slf4j
+public class DeviceArchiver {
+
+    private final DeviceArchiveService deviceArchiveService;
+
+    private final DeviceShardRouter deviceShardRouter;
+
+    private final boolean enabled;
+
+    private final int batchSize;
+
+    public DeviceArchiver(DeviceArchiveService deviceArchiveService,
+                          DeviceShardRouter deviceShardRouter,
+                          @Value("${device.archive.enabled:true}") boolean enabled,
+                          @Value("${device.archive.batch-size:500}") int batchSize) {
+        this.deviceArchiveService = deviceArchiveService;
+        this.deviceShardRouter = deviceShardRouter;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${device.archive.interval-ms:60000}",
+            initialDelayString = "${device.archive.interval-ms:60000}")
+    public void archive() {
+        if (enabled) {
+            deviceShardRouter.forEachShard(this::archiveShard);
+        }
+    }
+
+    private void archiveShard() {
+        int total = 0;
+        int archived;
+
+        try {
+            do {
+                archived = deviceArchiveService.archiveBatch(batchSize);
+                total += archived;
+            } while (archived == batchSize);
+        } catch (RuntimeException e) {
+            log.error("Failed to archive inactive devices, they will be retried", e);
+        }
+
+        if (total > 0) {
+            log.info("Archived {} inactive device(s)", total);
+        }
+    }
+}
@@ -0,0 +1,340 @@
+package com.francisco.deviceapi.service;
+
+import com.francisco.deviceapi.domain.Device;
+import com.francisco.deviceapi.dto.DeviceSnapshotDTO;
+import com.francisco.deviceapi.repository.DeviceRepository;
+import com.francisco.deviceapi.snapshot.DeviceSnapshotFile;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * In-memory catalog of every {@link Device}, restored from a {@link DeviceSnapshotFile} on startup.
+ * <p>
+ * The snapshot is mapped, not read, and the {@link Device} changed since it was written are loaded with a delta
+ * query on {@code updated_at} and kept in memory on top of it. Deleted {@link Device} are found by comparing the
+ * number of {@link Device} with the database, and only when they differ by a scan of the primary key. The catalog is
+ * caught up and written to a new snapshot every {@code device.snapshot.interval-ms} and on shutdown, so a restart
+ * only queries the changes made since the last snapshot.
+ * <p>
+ * Delta queries overlap the previous one by {@code device.snapshot.overlap-ms}, which covers the clock skew between
+ * nodes and the database, and transactions committed up to that long after their change.
+ */
+@Component
+@Slf4j
+public class DeviceCatalog {
+
+    private final DeviceRepository deviceRepository;
+
+    private final boolean enabled;
+
+    private final Path path;
+
+    private final Duration overlap;
+
+    private final int batchSize;
+
+    private DeviceSnapshotFile snapshot = DeviceSnapshotFile.empty();
+
+    /**
+     * The {@link Device} changed since the snapshot, or null for the deleted ones.
+     */
+    private final NavigableMap<Long, DeviceSnapshotDTO> changes = new TreeMap<>();
+
+    private Instant watermark = Instant.EPOCH;
+
+    private int size;
+
+    private boolean ready;
+
+    public DeviceCatalog(DeviceRepository deviceRepository,
+                         MeterRegistry meterRegistry,
+                         @Value("${device.snapshot.enabled:true}") boolean enabled,
+                         @Value("${device.snapshot.path:data/devices.snapshot}") Path path,
+                         @Value("${device.snapshot.overlap-ms:60000}") long overlapMillis,
+                         @Value("${device.snapshot.batch-size:1000}") int batchSize) {
+        this.deviceRepository = deviceRepository;
+        this.enabled = enabled;
+        this.path = path;
+        this.overlap = Duration.ofMillis(overlapMillis);
+        this.batchSize = batchSize;
+
+        Gauge.builder("device.catalog.size", this, DeviceCatalog::size)
+                .description("Devices in the catalog")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Maps the snapshot file, if any, and catches it up with the database.
+     * <p>
+     * Runs before the other listeners of {@link ApplicationReadyEvent}, so they can read the catalog.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public synchronized void restore() {
+        if (!enabled) {
+            return;
+        }
+
+        if (Files.exists(path)) {
+            try {
+                snapshot = DeviceSnapshotFile.open(path);
+                log.info("Mapped the snapshot of {} device(s) up to {}", snapshot.size(), snapshot.watermark());
+            } catch (IOException e) {
+                log.warn("Ignoring the device snapshot {}, the catalog is loaded from the database", path, e);
+                snapshot = DeviceSnapshotFile.empty();
+            }
+        }
+
+        changes.clear();
+        watermark = snapshot.watermark();
+        size = snapshot.size();
+        catchUp();
+        ready = true;
+    }
+
+    /**
+     * Loads the {@link Device} changed since the last catch-up, then removes the deleted ones.
+     */
+    public synchronized void catchUp() {
+        Instant since = watermark.minus(overlap);
+        Instant latest = watermark;
+        long afterId = 0L;
+        int changed = 0;
+        List<DeviceSnapshotDTO> devices;
+
+        do {
+            devices = deviceRepository.findChangedSince(since, afterId, PageRequest.ofSize(batchSize));
+
+            for (DeviceSnapshotDTO device : devices) {
+                put(device);
+                latest = device.updatedAt().isAfter(latest) ? device.updatedAt() : latest;
+                afterId = device.id();
+            }
+
+            changed += devices.size();
+        } while (devices.size() == batchSize);
+
+        watermark = latest;
+        long count = deviceRepository.countByBrandAndState(null, null);
+
+        if (count != size) {
+            reconcile();
+        }
+
+        log.debug("Caught up {} changed device(s), {} in the catalog", changed, size);
+    }
+
+    /**
+     * Catches up with the database and writes a new snapshot file.
+     */
+    @Scheduled(fixedDelayString = "${device.snapshot.interval-ms:300000}",
+            initialDelayString = "${device.snapshot.interval-ms:300000}")
+    public synchronized void writeSnapshot() {
+        if (!ready) {
+            return;
+        }
+
+        try {
+            catchUp();
+        } catch (RuntimeException e) {
+            log.warn("Failed to catch up the device catalog, writing it as of {}", watermark, e);
+        }
+
+        try {
+            DeviceSnapshotFile.write(path, watermark, this::iterator);
+            snapshot = DeviceSnapshotFile.open(path);
+            changes.clear();
+            log.info("Wrote the snapshot of {} device(s) up to {}", size, watermark);
+        } catch (IOException e) {
+            log.error("Failed to write the device snapshot {}", path, e);
+        }
+    }
+
+    /**
+     * Writes a last snapshot, so the next startup only catches up with the changes made while it's down.
+     */
+    @PreDestroy
+    public void shutdown() {
+        writeSnapshot();
+    }
+
+    /**
+     * @param id the ID of the {@link Device}.
+     * @return an {@link Optional} with the {@link Device} (if present) or an empty {@link Optional}.
+     */
+    public synchronized Optional<DeviceSnapshotDTO> get(Long id) {
+        if (changes.containsKey(id)) {
+            return Optional.ofNullable(changes.get(id));
+        }
+
+        int index = snapshot.indexOf(id);
+        return index < 0 ? Optional.empty() : Optional.of(snapshot.get(index));
+    }
+
+    /**
+     * Calls an action for every {@link Device}, ordered by ID.
+     *
+     * @param action the action.
+     */
+    public synchronized void forEach(Consumer<DeviceSnapshotDTO> action) {
+        iterator().forEachRemaining(action);
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private void put(DeviceSnapshotDTO device) {
+        if (!contains(device.id())) {
+            size++;
+        }
+
+        changes.put(device.id(), device);
+    }
+
+    private void remove(long id) {
+        if (contains(id)) {
+            size--;
+        }
+
+        changes.put(id, null);
+    }
+
+    private boolean contains(long id) {
+        if (changes.containsKey(id)) {
+            return changes.get(id) != null;
+        }
+
+        return snapshot.indexOf(id) >= 0;
+    }
+
+    /**
+     * Merges the IDs of the catalog with the ones in the database, page by page, removing the deleted
+     * {@link Device} and loading the missing ones.
+     */
+    private void reconcile() {
+        Iterator<DeviceSnapshotDTO> catalog = iterator();
+        DeviceSnapshotDTO next = catalog.hasNext() ? catalog.next() : null;
+        List<Long> deleted = new ArrayList<>();
+        List<Long> missing = new ArrayList<>();
+        long afterId = 0L;
+        List<Long> ids;
+
+        do {
+            ids = deviceRepository.findIdsAfter(afterId, PageRequest.ofSize(batchSize));
+
+            for (Long id : ids) {
+                while (next != null && next.id() < id) {
+                    deleted.add(next.id());
+                    next = catalog.hasNext() ? catalog.next() : null;
+                }
+
+                if (next != null && next.id().equals(id)) {
+                    next = catalog.hasNext() ? catalog.next() : null;
+                } else {
+                    missing.add(id);
+                }
+
+                afterId = id;
+            }
+        } while (ids.size() == batchSize);
+
+        while (next != null) {
+            deleted.add(next.id());
+            next = catalog.hasNext() ? catalog.next() : null;
+        }
+
+        deleted.forEach(this::remove);
+
+        for (int from = 0; from < missing.size(); from += batchSize) {
+            deviceRepository.findByIdInAsSnapshotDTO(missing.subList(from, Math.min(from + batchSize, missing.size())))
+                    .forEach(this::put);
+        }
+
+        log.info("Reconciled the device catalog: {} deleted, {} missing", deleted.size(), missing.size());
+    }
+
+    /**
+     * Merges the snapshot with the changes, ordered by ID.
+     */
+    private Iterator<DeviceSnapshotDTO> iterator() {
+        Iterator<Map.Entry<Long, DeviceSnapshotDTO>> changed = changes.entrySet().iterator();
+
+        return new Iterator<>() {
+
+            private int index;
+
+            private Map.Entry<Long, DeviceSnapshotDTO> change = changed.hasNext() ? changed.next() : null;
+
+            private DeviceSnapshotDTO next = advance();
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public DeviceSnapshotDTO next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+
+                DeviceSnapshotDTO device = next;
+                next = advance();
+                return device;
+            }
+
+            private DeviceSnapshotDTO advance() {
+                while (index < snapshot.size() || change != null) {
+                    long snapshotId = index < snapshot.size() ? snapshot.id(index) : Long.MAX_VALUE;
+
+                    if (change == null || snapshotId < change.getKey()) {
+                        return snapshot.get(index++);
+                    }
+
+                    if (snapshotId == change.getKey()) {
+                        index++;
+                    }
+
+                    DeviceSnapshotDTO device = change.getValue();
+                    change = changed.hasNext() ? changed.next() : null;
+
+                    if (device != null) {
+                        return device;
+                    }
+                }
+
+                return null;
+            }
+        };
+    }
+}
@@ -0,0 +1,83 @@
+package com.francisco.deviceapi.service;
+
+import com.francisco.deviceapi.domain.Device;
+import com.francisco.deviceapi.domain.enums.DeviceState;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Published when {@link Device} are created, changed or deleted, with their IDs and the Brand and State they had
+ * before and have after the change.
+ *
+ * @param ids the IDs of the changed {@link Device}.
+ * @param keys the Brand and State pairs whose {@link Device} changed.
+ */
+public record DeviceChangedEvent(List<Long> ids, List<Key> keys) {
+
+    public static DeviceChangedEvent created(Device device) {
+        return new DeviceChangedEvent(List.of(device.getId()), List.of(new Key(device.getBrand(), device.getState())));
+    }
+
+    public static DeviceChangedEvent changed(String oldBrand, DeviceState oldState, Device device) {
+        return new DeviceChangedEvent(List.of(device.getId()), List.of(new Key(oldBrand, oldState),
+                new Key(device.getBrand(), device.getState())));
+    }
+
+    public static DeviceChangedEvent deleted(Long id, String brand, DeviceState state) {
+        return new DeviceChangedEvent(List.of(id), List.of(new Key(brand, state)));
+    }
+
+    public static DeviceChangedEvent stateChanged(Collection<Device> devices, DeviceState oldState) {
+        return new DeviceChangedEvent(devices.stream().map(Device::getId).toList(), devices.stream()
+                .flatMap(device -> List.of(new Key(device.getBrand(), oldState),
+                        new Key(device.getBrand(), device.getState())).stream())
+                .distinct()
+                .toList());
+    }
+
+    /**
+     * @param ids the IDs of the changed {@link Device}.
+     * @param oldState the State before the change.
+     * @param newState the State after the change.
+     * @return an event for a change of State of {@link Device} of unknown Brands.
+     */
+    public static DeviceChangedEvent stateChanged(Collection<Long> ids, DeviceState oldState, DeviceState newState) {
+        return new DeviceChangedEvent(List.copyOf(ids), List.of(new Key(null, oldState), new Key(null, newState)));
+    }
+
+    /**
+     * @return an event for {@link Device} of unknown IDs, Brands and States created in bulk.
+     */
+    public static DeviceChangedEvent imported() {
+        return new DeviceChangedEvent(List.of(), Arrays.stream(DeviceState.values())
+                .map(state -> new Key(null, state))
+                .toList());
+    }
+
+    /**
+     * Checks if the {@link Device} matching a Brand and/or State filter are affected by the change.
+     *
+     * @param brand the Brand filter, or null for any Brand.
+     * @param state the State filter, or null for any State.
+     * @return true if any changed {@link Device} matches the filter before or after the change.
+     */
+    public boolean affects(String brand, DeviceState state) {
+        return keys.stream().anyMatch(key -> key.matches(brand, state));
+    }
+
+    /**
+     * A Brand and State pair of a changed {@link Device}.
+     *
+     * @param brand the Brand, or null if unknown.
+     * @param state the State.
+     */
+    public record Key(String brand, DeviceState state) {
+
+        private boolean matches(String brand, DeviceState state) {
+            return (brand == null || this.brand == null || brand.equals(this.brand))
+                    && (state == null || state == this.state);
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package com.francisco.deviceapi.service;
+
+import com.francisco.deviceapi.csv.CsvReader;
+import com.francisco.deviceapi.domain.Device;
+import com.francisco.deviceapi.domain.enums.DeviceState;
+import com.francisco.deviceapi.dto.DeviceImportEventDTO;
+import com.francisco.deviceapi.dto.DeviceImportRowDTO;
+import com.francisco.deviceapi.exception.InvalidOperationException;
+import com.francisco.deviceapi.exception.InvalidStateException;
+import com.francisco.deviceapi.repository.DeviceImportRepository;
+import com.francisco.deviceapi.sharding.DeviceShardRouter;
+import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Bulk import of {@link Device} from CSV files.
+ * <p>
+ * The file is parsed one record at a time while its valid rows are loaded into a staging table, so it's never held
+ * in memory. The staged rows are then merged into the {@code devices} table with a single statement, which skips the
+ * rows whose Name and Brand already exist, in the file or in the database.
+ */
+@Service
+public class DeviceImportService {
+
+    private static final int MAX_LENGTH = 255;
+
+    private final DeviceImportRepository deviceImportRepository;
+
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    private final DeviceShardRouter deviceShardRouter;
+
+    private final long progressRows;
+
+    private final long maxReportedErrors;
+
+    public DeviceImportService(DeviceImportRepository deviceImportRepository,
+                               ApplicationEventPublisher applicationEventPublisher,
+                               DeviceShardRouter deviceShardRouter,
+                               @Value("${device.import.progress-rows:10000}") long progressRows,
+                               @Value("${device.import.max-reported-errors:100}") long maxReportedErrors) {
+        this.deviceImportRepository = deviceImportRepository;
+        this.applicationEventPublisher = applicationEventPublisher;
+        this.deviceShardRouter = deviceShardRouter;
+        this.progressRows = progressRows;
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    /**
+     * Imports the {@link Device} of a CSV file.
+     * <p>
+     * The first record is a header with the {@code name}, {@code brand}, {@code state} and, optionally,
+     * {@code creationTime} columns, in any order. Creation times are ISO dates, and default to today when blank.
+     * <p>
+     * Reports every rejected row, up to {@code device.import.max-reported-errors}, and the progress every
+     * {@code device.import.progress-rows} rows, as they are read. All the {@link Device} are imported in a single
+     * transaction.
+     * <p>
+     * Throws an {@link InvalidOperationException} if sharding is enabled, since the merge takes the IDs straight
+     * from the sequence of a single database.
+     *
+     * @param csv the CSV file, in UTF-8.
+     * @param events the consumer of the progress and error events.
+     * @return the summary of the import.
+     */
+    @Transactional
+    public DeviceImportEventDTO importDevices(InputStream csv, Consumer<DeviceImportEventDTO> events) {
+        if (deviceShardRouter.isEnabled()) {
+            throw new InvalidOperationException("Importing devices is not supported with sharding!");
+        }
+
+        UUID importId = UUID.randomUUID();
+
+        try (CsvReader reader = new CsvReader(new InputStreamReader(csv, StandardCharsets.UTF_8))) {
+            Rows rows = new Rows(reader, Columns.of(reader.next()), events);
+            long staged = deviceImportRepository.stage(importId, rows);
+            int imported = deviceImportRepository.merge(importId);
+            deviceImportRepository.deleteStaged(importId);
+
+            if (imported > 0) {
+                applicationEventPublisher.publishEvent(DeviceChangedEvent.imported());
+            }
+
+            return DeviceImportEventDTO.summary(rows.read, imported, staged - imported, rows.rejected);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static DeviceImportRowDTO toRow(long line, List<String> record, Columns columns) {
+        String name = required(record, columns.name(), "name");
+        String brand = required(record, columns.brand(), "brand");
+        DeviceState state = DeviceState.fromString(required(record, columns.state(), "state"));
+        String creationTime = field(record, columns.creationTime());
+
+        try {
+            return new DeviceImportRowDTO(line, name, brand, state,
+                    creationTime.isBlank() ? LocalDate.now() : LocalDate.parse(creationTime.trim()));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid creationTime!");
+        }
+    }
+
+    private static String required(List<String> record, int column, String name) {
+        String value = field(record, column).trim();
+
+        if (value.isEmpty()) {
+            throw new IllegalArgumentException("Missing " + name + "!");
+        }
+
+        if (value.length() > MAX_LENGTH) {
+            throw new IllegalArgumentException("The " + name + " is longer than " + MAX_LENGTH + " characters!");
+        }
+
+        return value;
+    }
+
+    private static String field(List<String> record, int column) {
+        return column >= 0 && column < record.size() ? record.get(column) : "";
+    }
+
+    /**
+     * The indexes of the columns in the header, -1 for a missing optional column.
+     */
+    private record Columns(int name, int brand, int state, int creationTime) {
+
+        private static Columns of(List<String> header) {
+            if (header == null) {
+                throw new IllegalArgumentException("The CSV file is empty!");
+            }
+
+            List<String> columns = header.stream()
+                    .map(column -> column.trim().toLowerCase(Locale.ROOT).replace("_", ""))
+                    .toList();
+
+            return new Columns(requiredColumn(columns, "name"), requiredColumn(columns, "brand"),
+                    requiredColumn(columns, "state"), columns.indexOf("creationtime"));
+        }
+
+        private static int requiredColumn(List<String> columns, String name) {
+            int column = columns.indexOf(name);
+
+            if (column < 0) {
+                throw new IllegalArgumentException("Missing " + name + " column!");
+            }
+
+            return column;
+        }
+    }
+
+    /**
+     * The valid rows of the file, read as they are iterated. Rejected rows are reported and skipped.
+     */
+    private class Rows implements Iterator<DeviceImportRowDTO> {
+
+        private final CsvReader reader;
+
+        private final Columns columns;
+
+        private final Consumer<DeviceImportEventDTO> events;
+
+        private DeviceImportRowDTO next;
+
+        private long read;
+
+        private long rejected;
+
+        private Rows(CsvReader reader, Columns columns, Consumer<DeviceImportEventDTO> events) {
+            this.reader = reader;
+            this.columns = columns;
+            this.events = events;
+        }
+
+        @Override
+        public boolean hasNext() {
+            try {
+                while (next == null) {
+                    List<String> record = reader.next();
+
+                    if (record == null) {
+                        return false;
+                    }
+
+                    if (record.size() == 1 && record.get(0).isBlank()) {
+                        continue;
+                    }
+
+                    read++;
+
+                    try {
+                        next = toRow(reader.recordLine(), record, columns);
+                    } catch (IllegalArgumentException | InvalidStateException e) {
+                        if (rejected++ < maxReportedErrors) {
+                            events.accept(DeviceImportEventDTO.error(reader.recordLine(), e.getMessage()));
+                        }
+                    }
+
+                    if (read % progressRows == 0) {
+                        events.accept(DeviceImportEventDTO.progress(read, rejected));
+                    }
+                }
+
+                return true;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public DeviceImportRowDTO next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            DeviceImportRowDTO row = next;
+            next = null;
+            return row;
+        }
+    }
+}
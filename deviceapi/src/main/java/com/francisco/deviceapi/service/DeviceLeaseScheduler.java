@@ -0,0 +1,158 @@
+package com.francisco.deviceapi.service;
+
+import com.francisco.deviceapi.domain.Device;
+import com.francisco.deviceapi.domain.enums.DeviceState;
+import com.francisco.deviceapi.dto.DeviceLeaseDTO;
+import com.francisco.deviceapi.repository.DeviceRepository;
+import com.francisco.deviceapi.scheduling.HierarchicalTimerWheel;
+import com.francisco.deviceapi.sharding.DeviceShardRouter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Expires {@link Device} leases with a {@link HierarchicalTimerWheel} instead of polling the database.
+ * <p>
+ * Expired leases are reverted to AVAILABLE in batched UPDATEs, each followed by a {@link DeviceChangedEvent}.
+ * Outstanding leases are recovered from the database once the application is ready, or from the
+ * {@link DeviceCatalog} when it's enabled. With sharding enabled, the UPDATEs are batched per shard and the leases
+ * are recovered from every shard.
+ */
+@Component
+@Slf4j
+public class DeviceLeaseScheduler {
+
+    private final DeviceRepository deviceRepository;
+
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    private final DeviceCatalog deviceCatalog;
+
+    private final DeviceShardRouter deviceShardRouter;
+
+    private final HierarchicalTimerWheel<Long> timerWheel;
+
+    private final int batchSize;
+
+    public DeviceLeaseScheduler(DeviceRepository deviceRepository,
+                                ApplicationEventPublisher applicationEventPublisher,
+                                DeviceCatalog deviceCatalog,
+                                DeviceShardRouter deviceShardRouter,
+                                @Value("${device.lease.tick-ms:100}") long tickMillis,
+                                @Value("${device.lease.batch-size:500}") int batchSize) {
+        this.deviceRepository = deviceRepository;
+        this.applicationEventPublisher = applicationEventPublisher;
+        this.deviceCatalog = deviceCatalog;
+        this.deviceShardRouter = deviceShardRouter;
+        this.timerWheel = new HierarchicalTimerWheel<>(tickMillis, 256, 4, System.currentTimeMillis());
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Arms the expiry of a {@link Device} lease, replacing any lease already armed for it.
+     *
+     * @param id the ID of the leased {@link Device}.
+     * @param leaseExpiresAt the time the lease expires at.
+     */
+    public void arm(Long id, Instant leaseExpiresAt) {
+        timerWheel.arm(id, leaseExpiresAt.toEpochMilli());
+    }
+
+    /**
+     * Cancels the expiry of a {@link Device} lease, if any.
+     *
+     * @param id the ID of the {@link Device}.
+     */
+    public void cancel(Long id) {
+        timerWheel.cancel(id);
+    }
+
+    /**
+     * Advances the timer wheel and reverts the {@link Device} with an expired lease.
+     */
+    @Scheduled(fixedDelayString = "${device.lease.tick-ms:100}")
+    public void expireLeases() {
+        Instant now = Instant.now();
+        List<Long> expiredIds = new ArrayList<>();
+
+        timerWheel.advance(now.toEpochMilli(), expiredIds::add);
+        deviceShardRouter.groupByShard(expiredIds, id -> id).forEach((shard, shardIds) ->
+                deviceShardRouter.onShard(shard, () -> expireLeases(shardIds, now)));
+    }
+
+    private void expireLeases(List<Long> expiredIds, Instant now) {
+        for (int from = 0; from < expiredIds.size(); from += batchSize) {
+            List<Long> batch = expiredIds.subList(from, Math.min(from + batchSize, expiredIds.size()));
+
+            try {
+                int expired = deviceRepository.expireLeases(batch, DeviceState.IN_USE, DeviceState.AVAILABLE, now);
+                log.debug("Expired {} of {} device lease(s)", expired, batch.size());
+
+                if (expired > 0) {
+                    applicationEventPublisher.publishEvent(
+                            DeviceChangedEvent.stateChanged(batch, DeviceState.IN_USE, DeviceState.AVAILABLE));
+                }
+            } catch (RuntimeException e) {
+                log.error("Failed to expire {} device lease(s), they will be retried", batch.size(), e);
+                batch.forEach(id -> timerWheel.arm(id, now.toEpochMilli()));
+            }
+        }
+    }
+
+    /**
+     * Arms the expiry of every lease stored in the database, in pages ordered by ID, or read from the
+     * {@link DeviceCatalog}, which is restored before.
+     * <p>
+     * A lease armed meanwhile by a checkout is newer than the stored one and is kept.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverLeases() {
+        if (deviceCatalog.isEnabled()) {
+            AtomicInteger recovered = new AtomicInteger();
+            deviceCatalog.forEach(device -> {
+                if (device.state() == DeviceState.IN_USE && device.leaseExpiresAt() != null
+                        && timerWheel.armIfAbsent(device.id(), device.leaseExpiresAt().toEpochMilli())) {
+                    recovered.incrementAndGet();
+                }
+            });
+
+            log.info("Recovered {} device lease(s) from the catalog", recovered.get());
+            return;
+        }
+
+        AtomicInteger recovered = new AtomicInteger();
+        deviceShardRouter.forEachShard(() -> recovered.addAndGet(recoverShardLeases()));
+
+        log.info("Recovered {} device lease(s)", recovered.get());
+    }
+
+    private int recoverShardLeases() {
+        long afterId = 0L;
+        int recovered = 0;
+        List<DeviceLeaseDTO> leases;
+
+        do {
+            leases = deviceRepository.findLeasesAfter(afterId, DeviceState.IN_USE, PageRequest.ofSize(batchSize));
+
+            for (DeviceLeaseDTO lease : leases) {
+                if (timerWheel.armIfAbsent(lease.id(), lease.leaseExpiresAt().toEpochMilli())) {
+                    recovered++;
+                }
+
+                afterId = lease.id();
+            }
+        } while (leases.size() == batchSize);
+
+        return recovered;
+    }
+}
@@ -0,0 +1,203 @@
+package com.francisco.deviceapi.service;
+
+import com.francisco.deviceapi.domain.Device;
+import com.francisco.deviceapi.domain.enums.DeviceState;
+import com.francisco.deviceapi.dto.DeviceDTO;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Caches the {@link Device} lists by Brand and State filter.
+ * <p>
+ * A {@link DeviceChangedEvent} evicts only the lists whose filter matches a changed {@link Device}, before or after
+ * the change, once the change is committed. A list loaded while a change it depends on was evicted may be older
+ * than the change and is not cached, while changes of other Brands and States don't keep it out of the cache.
+ * Entries also expire after a time to live, which bounds the staleness of the changes made by
+ * other nodes.
+ * <p>
+ * Memory is bounded by the number of entries, evicting the least recently used, and by the size of the lists,
+ * as longer lists are not cached. Publishes the hits and misses as the {@code device.list.cache} counter and the
+ * number of entries as the {@code device.list.cache.size} gauge.
+ */
+@Component
+public class DeviceListCache {
+
+    private final boolean enabled;
+
+    private final int maxListSize;
+
+    private final long ttlNanos;
+
+    private final Map<Filter, Entry> entries;
+
+    private static final int BRAND_GENERATIONS = 4096;
+
+    private static final DeviceState[] STATES = DeviceState.values();
+
+    /**
+     * Generations of the changes per State, per State of unknown Brands, and per Brand and State, the latter
+     * hashed into a fixed number of slots so memory doesn't grow with the Brands. A list depends only on the
+     * generations its filter matches, and they only increase, so their sum changes with any of them.
+     */
+    private final AtomicLongArray stateGenerations = new AtomicLongArray(STATES.length);
+
+    private final AtomicLongArray unknownBrandGenerations = new AtomicLongArray(STATES.length);
+
+    private final AtomicLongArray brandGenerations = new AtomicLongArray(BRAND_GENERATIONS);
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    public DeviceListCache(MeterRegistry meterRegistry,
+                           @Value("${device.list-cache.enabled:true}") boolean enabled,
+                           @Value("${device.list-cache.max-entries:1000}") int maxEntries,
+                           @Value("${device.list-cache.max-list-size:10000}") int maxListSize,
+                           @Value("${device.list-cache.ttl-ms:10000}") long ttlMillis) {
+        this.enabled = enabled;
+        this.maxListSize = maxListSize;
+        this.ttlNanos = ttlMillis * 1_000_000L;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Filter, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+
+        FunctionCounter.builder("device.list.cache", hits, LongAdder::sum)
+                .description("Device list reads served from the cache")
+                .tags("outcome", "hit")
+                .register(meterRegistry);
+        FunctionCounter.builder("device.list.cache", misses, LongAdder::sum)
+                .description("Device list reads not served from the cache")
+                .tags("outcome", "miss")
+                .register(meterRegistry);
+        Gauge.builder("device.list.cache.size", this, DeviceListCache::size)
+                .description("Device lists in the cache")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @param brand the Brand filter, or null for any Brand.
+     * @param state the State filter, or null for any State.
+     * @return the cached list of the filter, or empty if it's not cached or expired.
+     */
+    public Optional<List<DeviceDTO>> get(String brand, DeviceState state) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+
+        Filter filter = new Filter(brand, state);
+        Entry entry;
+
+        synchronized (entries) {
+            entry = entries.get(filter);
+
+            if (entry != null && System.nanoTime() - entry.loadedAtNanos() > ttlNanos) {
+                entries.remove(filter);
+                entry = null;
+            }
+        }
+
+        if (entry == null) {
+            misses.increment();
+            return Optional.empty();
+        }
+
+        hits.increment();
+        return Optional.of(entry.devices());
+    }
+
+    /**
+     * Loads the list of a filter and caches it, unless a change was evicted while loading or it's too long.
+     *
+     * @param brand the Brand filter, or null for any Brand.
+     * @param state the State filter, or null for any State.
+     * @param load the load of the list.
+     * @return the loaded list.
+     */
+    public List<DeviceDTO> load(String brand, DeviceState state, Supplier<List<DeviceDTO>> load) {
+        long loadGeneration = generationOf(brand, state);
+        long loadedAtNanos = System.nanoTime();
+        List<DeviceDTO> devices = load.get();
+
+        if (enabled && devices.size() <= maxListSize) {
+            synchronized (entries) {
+                if (generationOf(brand, state) == loadGeneration) {
+                    entries.put(new Filter(brand, state), new Entry(devices, loadedAtNanos));
+                }
+            }
+        }
+
+        return devices;
+    }
+
+    /**
+     * Evicts the lists affected by a {@link DeviceChangedEvent}, once its transaction commits.
+     *
+     * @param event the {@link DeviceChangedEvent}.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDeviceChanged(DeviceChangedEvent event) {
+        synchronized (entries) {
+            event.keys().forEach(this::nextGeneration);
+            entries.keySet().removeIf(filter -> event.affects(filter.brand(), filter.state()));
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private void nextGeneration(DeviceChangedEvent.Key key) {
+        for (DeviceState state : statesOf(key.state())) {
+            stateGenerations.incrementAndGet(state.ordinal());
+
+            if (key.brand() == null) {
+                unknownBrandGenerations.incrementAndGet(state.ordinal());
+            } else {
+                brandGenerations.incrementAndGet(brandSlot(key.brand(), state));
+            }
+        }
+    }
+
+    private long generationOf(String brand, DeviceState state) {
+        long generation = 0;
+
+        for (DeviceState matchingState : statesOf(state)) {
+            generation += brand == null
+                    ? stateGenerations.get(matchingState.ordinal())
+                    : unknownBrandGenerations.get(matchingState.ordinal())
+                    + brandGenerations.get(brandSlot(brand, matchingState));
+        }
+
+        return generation;
+    }
+
+    private static DeviceState[] statesOf(DeviceState state) {
+        return state != null ? new DeviceState[]{state} : STATES;
+    }
+
+    private static int brandSlot(String brand, DeviceState state) {
+        return Math.floorMod(31 * brand.hashCode() + state.ordinal(), BRAND_GENERATIONS);
+    }
+
+    private record Filter(String brand, DeviceState state) {}
+
+    private record Entry(List<DeviceDTO> devices, long loadedAtNanos) {}
+}
@@ -0,0 +1,238 @@
+package com.francisco.deviceapi.service;
+
+import com.francisco.deviceapi.concurrency.DeviceWriteStripes;
+import com.francisco.deviceapi.domain.Device;
+import com.francisco.deviceapi.domain.enums.DeviceOperationType;
+import com.francisco.deviceapi.dto.CreateDeviceRequestDTO;
+import com.francisco.deviceapi.dto.DeviceOperationDTO;
+import com.francisco.deviceapi.dto.DeviceOperationResultDTO;
+import com.francisco.deviceapi.dto.PatchDeviceRequestDTO;
+import com.francisco.deviceapi.exception.*;
+import com.francisco.deviceapi.mapper.DeviceMapper;
+import com.francisco.deviceapi.repository.DeviceRepository;
+import com.francisco.deviceapi.sharding.DeviceShardRouter;
+import jakarta.validation.Validator;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Batches of create, update, patch and delete operations on {@link Device}.
+ * <p>
+ * Every operation is applied by {@link DeviceService}, so it follows the same rules as its single-device endpoint.
+ * The operations run in chunks, each in its own transaction: a chunk is committed only if all of its operations
+ * succeed, and chunks are independent of each other.
+ * <p>
+ * Before a chunk starts, the {@link DeviceWriteStripes} of its devices are acquired in stripe order and their rows
+ * are locked in a single SELECT ... FOR UPDATE in ID order, so concurrent batches and single-device writes always
+ * lock in the same order and can't deadlock.
+ * <p>
+ * State-only patches are saved within their chunk even with write-behind enabled, so they are rolled back with it.
+ * <p>
+ * With sharding enabled, a chunk runs on a single shard: the operations of a chunk whose devices are stored on
+ * several shards fail with BAD_REQUEST.
+ */
+@Service
+public class DeviceOperationService {
+
+    private final DeviceService deviceService;
+
+    private final DeviceRepository deviceRepository;
+
+    private final DeviceStateWriteBehindBuffer deviceStateWriteBehindBuffer;
+
+    private final DeviceWriteStripes deviceWriteStripes;
+
+    private final DeviceShardRouter deviceShardRouter;
+
+    private final DeviceMapper deviceMapper;
+
+    private final Validator validator;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public DeviceOperationService(DeviceService deviceService,
+                                  DeviceRepository deviceRepository,
+                                  DeviceStateWriteBehindBuffer deviceStateWriteBehindBuffer,
+                                  DeviceWriteStripes deviceWriteStripes,
+                                  DeviceShardRouter deviceShardRouter,
+                                  DeviceMapper deviceMapper,
+                                  Validator validator,
+                                  PlatformTransactionManager transactionManager) {
+        this.deviceService = deviceService;
+        this.deviceRepository = deviceRepository;
+        this.deviceStateWriteBehindBuffer = deviceStateWriteBehindBuffer;
+        this.deviceWriteStripes = deviceWriteStripes;
+        this.deviceShardRouter = deviceShardRouter;
+        this.deviceMapper = deviceMapper;
+        this.validator = validator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Applies a batch of operations.
+     * <p>
+     * An operation that breaks a {@link DeviceService} rule fails with the status of its single-device endpoint,
+     * and rolls back its chunk: the other operations of the chunk fail with FAILED_DEPENDENCY. Operations that
+     * are missing their ID or fields fail with BAD_REQUEST.
+     *
+     * @param operations the operations, applied in order.
+     * @param chunkSize the number of operations per transaction, or null to apply all of them in one.
+     * @return the result of each operation, in request order.
+     */
+    public List<DeviceOperationResultDTO> applyOperations(List<DeviceOperationDTO> operations, Integer chunkSize) {
+        int size = chunkSize != null ? chunkSize : operations.size();
+        DeviceOperationResultDTO[] results = new DeviceOperationResultDTO[operations.size()];
+
+        for (int from = 0; from < operations.size(); from += size) {
+            applyChunk(operations, from, Math.min(from + size, operations.size()), results);
+        }
+
+        return Arrays.asList(results);
+    }
+
+    private void applyChunk(List<DeviceOperationDTO> operations, int from, int to, DeviceOperationResultDTO[] results) {
+        List<Long> ids = operations.subList(from, to).stream()
+                .filter(operation -> operation.op() != DeviceOperationType.CREATE)
+                .map(DeviceOperationDTO::id)
+                .filter(Objects::nonNull)
+                .distinct()
+                .sorted()
+                .toList();
+
+        try {
+            deviceShardRouter.onShard(shardOf(operations.subList(from, to)),
+                    () -> lockAndApplyChunk(operations, from, to, ids, results));
+        } catch (RuntimeException e) {
+            fail(operations, results, from, to, statusOf(e), messageOf(e));
+        }
+    }
+
+    private void lockAndApplyChunk(List<DeviceOperationDTO> operations, int from, int to, List<Long> ids,
+                                   DeviceOperationResultDTO[] results) {
+        try (DeviceWriteStripes.Stripe ignored = deviceWriteStripes.lockAll(ids)) {
+            ids.forEach(deviceStateWriteBehindBuffer::awaitInFlight);
+
+            transactionTemplate.executeWithoutResult(status -> {
+                if (!ids.isEmpty()) {
+                    deviceRepository.findByIdInForUpdate(ids);
+                }
+
+                for (int i = from; i < to; i++) {
+                    try {
+                        results[i] = applyOperation(i, operations.get(i));
+                    } catch (RuntimeException e) {
+                        HttpStatus failedStatus = statusOf(e);
+                        status.setRollbackOnly();
+                        fail(operations, results, from, to, HttpStatus.FAILED_DEPENDENCY,
+                                "Rolled back because operation " + i + " failed!");
+                        results[i] = failed(i, operations.get(i), failedStatus, messageOf(e));
+                        return;
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * @return the shard the devices of a chunk are stored on, by ID or by Brand for creates, or 0 if it has none.
+     */
+    private int shardOf(List<DeviceOperationDTO> chunk) {
+        List<Integer> shards = chunk.stream()
+                .map(operation -> operation.op() == DeviceOperationType.CREATE
+                        ? (operation.brand() != null ? deviceShardRouter.shardOf(operation.brand()) : null)
+                        : (operation.id() != null ? deviceShardRouter.shardOfId(operation.id()) : null))
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+
+        if (shards.size() > 1) {
+            throw new InvalidOperationException("The devices of a chunk must be stored on the same shard!");
+        }
+
+        return shards.isEmpty() ? 0 : shards.getFirst();
+    }
+
+    private DeviceOperationResultDTO applyOperation(int index, DeviceOperationDTO operation) {
+        if (operation.op() != DeviceOperationType.CREATE && operation.id() == null) {
+            throw new InvalidOperationException("id must not be null!");
+        }
+
+        return switch (operation.op()) {
+            case CREATE -> succeeded(index, operation, HttpStatus.CREATED,
+                    deviceService.createDevice(deviceMapper.createDeviceRequestDTOToDevice(createRequest(operation))));
+            case UPDATE -> succeeded(index, operation, HttpStatus.OK, deviceService.updateDevice(operation.id(),
+                    deviceMapper.createDeviceRequestDTOToDevice(createRequest(operation))));
+            case PATCH -> succeeded(index, operation, HttpStatus.OK, deviceService.patchDevice(operation.id(),
+                    deviceMapper.patchDeviceRequestDTOToDevice(new PatchDeviceRequestDTO(operation.name(),
+                            operation.brand(), operation.state()))));
+            case DELETE -> {
+                deviceService.deleteDevice(operation.id());
+                yield new DeviceOperationResultDTO(index, operation.op(), operation.id(),
+                        HttpStatus.NO_CONTENT.value(), null, null);
+            }
+        };
+    }
+
+    private CreateDeviceRequestDTO createRequest(DeviceOperationDTO operation) {
+        CreateDeviceRequestDTO request = new CreateDeviceRequestDTO(operation.name(), operation.brand(),
+                operation.state(), operation.creationTime());
+        String violations = validator.validate(request).stream()
+                .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining(", "));
+
+        if (!violations.isEmpty()) {
+            throw new InvalidOperationException(violations);
+        }
+
+        return request;
+    }
+
+    private DeviceOperationResultDTO succeeded(int index, DeviceOperationDTO operation, HttpStatus status,
+                                               Device device) {
+        return new DeviceOperationResultDTO(index, operation.op(), device.getId(), status.value(),
+                deviceMapper.deviceToDeviceDTO(device), null);
+    }
+
+    private static DeviceOperationResultDTO failed(int index, DeviceOperationDTO operation, HttpStatus status,
+                                                   String errorMessage) {
+        return new DeviceOperationResultDTO(index, operation.op(), operation.id(), status.value(), null,
+                errorMessage);
+    }
+
+    private static void fail(List<DeviceOperationDTO> operations, DeviceOperationResultDTO[] results, int from,
+                             int to, HttpStatus status, String errorMessage) {
+        for (int i = from; i < to; i++) {
+            results[i] = failed(i, operations.get(i), status, errorMessage);
+        }
+    }
+
+    private static HttpStatus statusOf(RuntimeException e) {
+        return switch (e) {
+            case AlreadyExistsException ignored -> HttpStatus.CONFLICT;
+            case DeviceInUseException ignored -> HttpStatus.CONFLICT;
+            case DeviceNotAvailableException ignored -> HttpStatus.CONFLICT;
+            case NotFoundException ignored -> HttpStatus.NOT_FOUND;
+            case InvalidOperationException ignored -> HttpStatus.BAD_REQUEST;
+            case InvalidStateException ignored -> HttpStatus.BAD_REQUEST;
+            case DeviceBusyException ignored -> HttpStatus.SERVICE_UNAVAILABLE;
+            case DeadlineExceededException ignored -> HttpStatus.GATEWAY_TIMEOUT;
+            case QueryTimeoutException ignored -> HttpStatus.GATEWAY_TIMEOUT;
+            case CannotAcquireLockException ignored -> HttpStatus.GATEWAY_TIMEOUT;
+            default -> throw e;
+        };
+    }
+
+    private static String messageOf(RuntimeException e) {
+        return statusOf(e) == HttpStatus.GATEWAY_TIMEOUT ? "Request deadline exceeded!" : e.getMessage();
+    }
+}
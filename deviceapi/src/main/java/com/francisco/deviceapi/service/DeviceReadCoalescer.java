@@ -0,0 +1,84 @@
+package com.francisco.deviceapi.service;
+
+import com.francisco.deviceapi.concurrency.SingleFlight;
+import com.francisco.deviceapi.domain.Device;
+import com.francisco.deviceapi.domain.enums.DeviceState;
+import com.francisco.deviceapi.dto.DeviceDTO;
+import com.francisco.deviceapi.dto.DeviceSnapshotDTO;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces identical concurrent {@link Device} reads with a {@link SingleFlight} per read operation.
+ * <p>
+ * Coalesced reads share immutable results only: a {@link Device} is shared as a {@link DeviceSnapshotDTO} taken by
+ * the caller that read it, and every caller gets its own detached copy, never a managed entity.
+ * <p>
+ * Publishes the executed and coalesced reads as the {@code device.reads} counter and the share of coalesced reads
+ * as the {@code device.reads.coalescing.ratio} gauge, both tagged by operation.
+ */
+@Component
+public class DeviceReadCoalescer {
+
+    private final SingleFlight<Long, DeviceSnapshotDTO> deviceFlights = new SingleFlight<>();
+
+    private final SingleFlight<DeviceFilter, List<DeviceDTO>> deviceListFlights = new SingleFlight<>();
+
+    public DeviceReadCoalescer(MeterRegistry meterRegistry) {
+        registerMetrics(meterRegistry, "getDevice", deviceFlights);
+        registerMetrics(meterRegistry, "getDevices", deviceListFlights);
+    }
+
+    public Device getDevice(Long id, Supplier<Device> read) {
+        return toDevice(deviceFlights.execute(id, () -> toSnapshot(read.get())));
+    }
+
+    public List<DeviceDTO> getDevices(String brand, DeviceState state, Supplier<List<DeviceDTO>> read) {
+        return deviceListFlights.execute(new DeviceFilter(brand, state), read);
+    }
+
+    private static void registerMetrics(MeterRegistry meterRegistry, String operation, SingleFlight<?, ?> flights) {
+        FunctionCounter.builder("device.reads", flights, SingleFlight::executedCount)
+                .description("Device reads that executed a query")
+                .tags("operation", operation, "outcome", "executed")
+                .register(meterRegistry);
+        FunctionCounter.builder("device.reads", flights, SingleFlight::coalescedCount)
+                .description("Device reads that shared the result of an identical read in flight")
+                .tags("operation", operation, "outcome", "coalesced")
+                .register(meterRegistry);
+        Gauge.builder("device.reads.coalescing.ratio", flights, DeviceReadCoalescer::coalescingRatio)
+                .description("Share of device reads that were coalesced")
+                .tags("operation", operation)
+                .register(meterRegistry);
+    }
+
+    private static double coalescingRatio(SingleFlight<?, ?> flights) {
+        long coalesced = flights.coalescedCount();
+        long total = coalesced + flights.executedCount();
+        return total == 0 ? 0.0 : (double) coalesced / total;
+    }
+
+    private static DeviceSnapshotDTO toSnapshot(Device device) {
+        return new DeviceSnapshotDTO(device.getId(), device.getName(), device.getBrand(), device.getState(),
+                device.getCreationTime(), device.getLeaseExpiresAt(), device.getUpdatedAt());
+    }
+
+    private static Device toDevice(DeviceSnapshotDTO snapshot) {
+        Device device = new Device();
+        device.setId(snapshot.id());
+        device.setName(snapshot.name());
+        device.setBrand(snapshot.brand());
+        device.setState(snapshot.state());
+        device.setCreationTime(snapshot.creationTime());
+        device.setLeaseExpiresAt(snapshot.leaseExpiresAt());
+        device.setUpdatedAt(snapshot.updatedAt());
+        return device;
+    }
+
+    private record DeviceFilter(String brand, DeviceState state) {}
+}
@@ -1,55 +1,111 @@
 package com.francisco.deviceapi.service;
 
+import com.francisco.deviceapi.concurrency.SerializedDeviceWrite;
 import com.francisco.deviceapi.domain.Device;
+import com.francisco.deviceapi.domain.enums.CreationInterval;
 import com.francisco.deviceapi.domain.enums.DeviceState;
+import com.francisco.deviceapi.dto.DeviceCreationCountDTO;
 import com.francisco.deviceapi.dto.DeviceDTO;
+import com.francisco.deviceapi.dto.DeviceLookupDTO;
+import com.francisco.deviceapi.dto.DeviceStateHistoryDTO;
+import com.francisco.deviceapi.dto.DeviceStateTransitionDTO;
 import com.francisco.deviceapi.exception.*;
 import com.francisco.deviceapi.repository.DeviceRepository;
+import com.francisco.deviceapi.repository.DeviceStateHistoryRepository;
+import com.francisco.deviceapi.sharding.DeviceShardRouter;
+import com.francisco.deviceapi.sharding.ShardKey;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.NoTransactionException;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class DeviceService {
 
+    private static final int LOOKUP_CHUNK_SIZE = 500;
+
     private final DeviceRepository deviceRepository;
 
+    private final DeviceStateWriteBehindBuffer deviceStateWriteBehindBuffer;
+
+    private final DeviceLeaseScheduler deviceLeaseScheduler;
+
+    private final DeviceReadCoalescer deviceReadCoalescer;
+
+    private final DeviceArchiveService deviceArchiveService;
+
+    private final DeviceListCache deviceListCache;
+
+    private final DeviceStateHistoryRepository deviceStateHistoryRepository;
+
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    private final DeviceShardRouter deviceShardRouter;
+
     /**
      * Saves a new {@link Device}.
      * <p>
-     * Calls {@link DeviceRepository#save(Object)}.
+     * Calls {@link DeviceRepository#save(Object)}. A {@link Device} with the same Name and Brand must not exist in
+     * the hot table nor in the archive.
      *
      * @param device the {@link Device} to be created
      * @return the saved {@link Device}
      */
-    public Device createDevice(Device device) {
-        if (deviceRepository.existsByNameAndBrand(device.getName(), device.getBrand())) {
+    public Device createDevice(@ShardKey Device device) {
+        if (deviceRepository.existsByNameAndBrand(device.getName(), device.getBrand()) ||
+                deviceArchiveService.existsArchived(device.getName(), device.getBrand())) {
             throw new DeviceAlreadyExistsException(
                     "A Device with name " + device.getName() +
                             " and brand " + device.getBrand() + " already exists!");
         }
 
-        return deviceRepository.save(device);
+        Device savedDevice = deviceRepository.save(device);
+        applicationEventPublisher.publishEvent(DeviceChangedEvent.created(savedDevice));
+
+        return savedDevice;
     }
 
     /**
      * Retrieves a {@link Device} by ID.
      * <p>
-     * Calls {@link DeviceRepository#findById(Object)}.
+     * Calls {@link DeviceRepository#findById(Object)}, then {@link DeviceArchiveService#findArchived(Long)} if the
+     * {@link Device} is not in the hot table. Identical concurrent calls share a single query through
+     * {@link DeviceReadCoalescer}, and each gets its own detached {@link Device}.
      * <p>
      * Throws a {@link DeviceNotFoundException} if {@link Device} doesn't exist.
      * <p>
      * {@link DeviceNotFoundException} is handled in {@link GlobalExceptionHandler#handleNotFoundException(NotFoundException)}
      *
      * @param id the ID of the {@link Device} to be retrieved.
-     * @return {@link Device} if found.
+     * @return a detached {@link Device} if found, with any State staged in {@link DeviceStateWriteBehindBuffer}
+     * applied.
      */
-    public Device getDevice(Long id) {
-        return deviceRepository.findById(id).orElseThrow(DeviceNotFoundException::new);
+    public Device getDevice(@ShardKey Long id) {
+        return deviceReadCoalescer.getDevice(id, () -> deviceRepository.findById(id)
+                .map(deviceStateWriteBehindBuffer::view)
+                .or(() -> deviceArchiveService.findArchived(id))
+                .orElseThrow(DeviceNotFoundException::new));
     }
 
     /**
@@ -57,7 +113,14 @@ public class DeviceService {
      * <p>
      * Else, returns all {@link Device}.
      * <p>
-     * Calls {@link DeviceRepository#findByBrandAndState(String, DeviceState)}.
+     * Calls {@link DeviceRepository#findByBrandAndState(String, DeviceState)}, and only if INACTIVE or no State is
+     * requested, {@link DeviceArchiveService#findArchived(String)}, on the shard of the Brand, or without a Brand on
+     * every shard in parallel, concatenating their lists. The lists are cached in {@link DeviceListCache} until a
+     * {@link DeviceChangedEvent} affects them, and identical concurrent calls that miss the cache share a single
+     * query through {@link DeviceReadCoalescer}.
+     * <p>
+     * States staged in {@link DeviceStateWriteBehindBuffer} are applied, and a {@link Device} whose staged State no
+     * longer matches the State filter is left out.
      * <p>
      * Throws a {@link DeviceNotFoundException} if {@link Optional} is empty or {@link Device} {@link List} is empty.
      *
@@ -67,51 +130,251 @@ public class DeviceService {
      * State (if params in query) or a {@link List} containing all devices.
      */
     public List<DeviceDTO> getDevices(String brand, DeviceState state) {
-        List<DeviceDTO> deviceList = deviceRepository.findByBrandAndState(brand, state)
-                .orElseThrow(DeviceNotFoundException::new);
+        return deviceListCache.get(brand, state)
+                .orElseGet(() -> deviceReadCoalescer.getDevices(brand, state,
+                        () -> deviceListCache.load(brand, state, () -> findDevices(brand, state, null, null))));
+    }
 
-        if (deviceList.isEmpty()) {
+    /**
+     * Retrieves a {@link List} of {@link Device} by Brand and/or State if one is present, created within a date
+     * range.
+     * <p>
+     * Without a date range, calls {@link #getDevices(String, DeviceState)}. Else, calls
+     * {@link DeviceRepository#findByBrandAndStateCreatedBetween(String, DeviceState, LocalDate, LocalDate)}, and only
+     * if INACTIVE or no State is requested, {@link DeviceArchiveService#findArchived(String, LocalDate, LocalDate)},
+     * which use the index on the creation date. Lists filtered by date range are not cached.
+     * <p>
+     * Throws a {@link DeviceNotFoundException} if no {@link Device} matches, and an
+     * {@link InvalidDateRangeException} if the range ends before it starts.
+     *
+     * @param brand - the Brand of the {@link Device} to be retrieved.
+     * @param state - Available, In use, or Inactive.
+     * @param createdFrom - the first creation date, or null for no lower bound.
+     * @param createdTo - the last creation date, or null for no upper bound.
+     * @return a {@link List} containing all {@link Device} with matching Brand, State and creation date.
+     */
+    public List<DeviceDTO> getDevices(String brand, DeviceState state, LocalDate createdFrom, LocalDate createdTo) {
+        if (createdFrom == null && createdTo == null) {
+            return getDevices(brand, state);
+        }
+
+        checkDateRange(createdFrom, createdTo);
+        return findDevices(brand, state, createdFrom, createdTo);
+    }
+
+    /**
+     * Counts the {@link Device}, archived or not, created per day, week or month within a date range, by Brand or of
+     * all Brands.
+     * <p>
+     * Calls {@link DeviceRepository#countCreatedPerDay(String, LocalDate, LocalDate)} (or
+     * {@link DeviceRepository#countCreatedPerDayAndBrand(String, LocalDate, LocalDate)} per Brand) and
+     * {@link DeviceArchiveService#countArchivedPerDay(String, LocalDate, LocalDate, boolean)}, which group the
+     * {@link Device} by creation date in the database, on the shard of the Brand or on every shard. Only the daily
+     * counts are merged into weeks or months, and across shards.
+     * <p>
+     * Throws an {@link InvalidDateRangeException} if the range ends before it starts.
+     *
+     * @param brand - the Brand of the {@link Device} to be counted, or null for any Brand.
+     * @param createdFrom - the first creation date, or null for no lower bound.
+     * @param createdTo - the last creation date, or null for no upper bound.
+     * @param interval - the width of the buckets.
+     * @param perBrand - whether to count each Brand apart.
+     * @return a {@link List} containing the number of {@link Device} created in each bucket with any, ordered by
+     * bucket and Brand.
+     */
+    public List<DeviceCreationCountDTO> getCreationHistogram(String brand, LocalDate createdFrom, LocalDate createdTo,
+                                                             CreationInterval interval, boolean perBrand) {
+        checkDateRange(createdFrom, createdTo);
+        List<List<DeviceCreationCountDTO>> dailyCountsPerShard = deviceShardRouter.onShardsOf(brand, shard -> {
+            List<DeviceCreationCountDTO> dailyCounts = perBrand
+                    ? deviceRepository.countCreatedPerDayAndBrand(brand, createdFrom, createdTo)
+                    : deviceRepository.countCreatedPerDay(brand, createdFrom, createdTo);
+            return Stream.concat(dailyCounts.stream(),
+                            deviceArchiveService.countArchivedPerDay(brand, createdFrom, createdTo, perBrand).stream())
+                    .toList();
+        });
+        Map<CreationBucket, Long> counts = new TreeMap<>(Comparator
+                .comparing(CreationBucket::start)
+                .thenComparing(CreationBucket::brand, Comparator.nullsFirst(Comparator.naturalOrder())));
+
+        dailyCountsPerShard.stream()
+                .flatMap(List::stream)
+                .forEach(dailyCount -> counts.merge(
+                        new CreationBucket(interval.bucketStart(dailyCount.start()), dailyCount.brand()),
+                        dailyCount.count(), Long::sum));
+
+        return counts.entrySet().stream()
+                .map(entry -> new DeviceCreationCountDTO(entry.getKey().start(), entry.getKey().brand(),
+                        entry.getValue()))
+                .toList();
+    }
+
+    /**
+     * Checks if a {@link Device} exists, archived or not, without loading it.
+     * <p>
+     * Calls {@link DeviceRepository#existsById(Object)}, then {@link DeviceArchiveService#existsArchived(Long)} if
+     * the {@link Device} is not in the hot table.
+     *
+     * @param id the ID of the {@link Device}.
+     * @return true if the {@link Device} exists.
+     */
+    public boolean existsDevice(@ShardKey Long id) {
+        return deviceRepository.existsById(id) || deviceArchiveService.existsArchived(id);
+    }
+
+    /**
+     * Counts the {@link Device} by Brand and/or State if one is present, else all {@link Device}, without loading
+     * them.
+     * <p>
+     * Calls {@link DeviceRepository#countByBrandAndState(String, DeviceState)}, and only if INACTIVE or no State is
+     * requested, {@link DeviceArchiveService#countArchived(String)}, on the shard of the Brand or on every shard. States staged
+     * in {@link DeviceStateWriteBehindBuffer} are not counted until they are flushed.
+     *
+     * @param brand - the Brand of the {@link Device} to be counted.
+     * @param state - Available, In use, or Inactive.
+     * @return the number of matching {@link Device}.
+     */
+    public long countDevices(String brand, DeviceState state) {
+        return deviceShardRouter.onShardsOf(brand, shard -> {
+            long count = deviceRepository.countByBrandAndState(brand, state);
+
+            if (state == null || state == DeviceState.INACTIVE) {
+                count += deviceArchiveService.countArchived(brand);
+            }
+
+            return count;
+        }).stream().mapToLong(Long::longValue).sum();
+    }
+
+    /**
+     * Retrieves a page of the State transitions of a {@link Device}, archived, deleted or not, newest first.
+     * <p>
+     * Calls {@link DeviceStateHistoryRepository#findByDeviceId(Long, Long, int)}. Transitions are written by
+     * {@link DeviceStateHistoryWriter} in the background, so the latest ones may not be returned yet.
+     * <p>
+     * Throws a {@link DeviceNotFoundException} if the {@link Device} has no history and doesn't exist.
+     *
+     * @param id the ID of the {@link Device}.
+     * @param beforeId - only transitions with a lower history ID are retrieved, or null to start from the newest.
+     * @param size - the maximum number of transitions.
+     * @return a {@link DeviceStateHistoryDTO} with the transitions and the history ID to retrieve the next page
+     * from, if the page is full.
+     */
+    public DeviceStateHistoryDTO getStateHistory(@ShardKey Long id, Long beforeId, int size) {
+        List<DeviceStateTransitionDTO> transitions = deviceStateHistoryRepository.findByDeviceId(id, beforeId, size);
+
+        if (transitions.isEmpty() && beforeId == null && !existsDevice(id)) {
             throw new DeviceNotFoundException();
         }
 
-        return deviceList;
+        Long nextBeforeId = transitions.size() == size ? transitions.get(size - 1).id() : null;
+        return new DeviceStateHistoryDTO(transitions, nextBeforeId);
+    }
+
+    /**
+     * Retrieves the {@link Device} with the given IDs, archived or not.
+     * <p>
+     * Calls {@link DeviceRepository#findByIdInAsDTO(Collection)} in chunks of {@value #LOOKUP_CHUNK_SIZE} IDs, then
+     * {@link DeviceArchiveService#findArchived(Collection)} once for the IDs that are not in the hot table, on the
+     * shards of the IDs in parallel. States staged in {@link DeviceStateWriteBehindBuffer} are applied.
+     *
+     * @param ids - the IDs of the {@link Device} to be retrieved, duplicates are ignored.
+     * @return a {@link DeviceLookupDTO} with the found {@link Device} and the missing IDs, both in request order.
+     */
+    public DeviceLookupDTO getDevicesByIds(List<Long> ids) {
+        List<Long> distinctIds = ids.stream().distinct().toList();
+        Map<Integer, List<Long>> idsByShard = deviceShardRouter.groupByShard(distinctIds, id -> id);
+        Map<Long, DeviceDTO> devicesById = new HashMap<>();
+
+        deviceShardRouter.onShards(idsByShard.keySet(), shard -> findDevicesByIds(idsByShard.get(shard)))
+                .forEach(devices -> devices.forEach(deviceDTO -> devicesById.put(deviceDTO.id(), deviceDTO)));
+
+        return new DeviceLookupDTO(
+                distinctIds.stream().map(devicesById::get).filter(Objects::nonNull).toList(),
+                distinctIds.stream().filter(id -> !devicesById.containsKey(id)).toList());
     }
 
     /**
      * Fully updates an existing {@link Device}, except for the creation time, which can't be
      * modified after creation.
      * <p>
-     * Calls {@link DeviceRepository#save(Object)}.
+     * Calls {@link DeviceRepository#save(Object)}. A change of State is published as a
+     * {@link DeviceStateChangedEvent} for the State history.
+     * <p>
+     * Throws an {@link InvalidOperationException} if sharding is enabled and the new Brand is stored on another
+     * shard.
      *
      * @param id the ID of the {@link Device} to be updated.
      * @param device a {@link Device} containing updated details.
      * @return the updated {@link Device}
      */
     @Transactional
-    public Device updateDevice(Long id, Device device) {
-        Device persistedDevice = deviceRepository.findByIdForUpdate(id).orElseThrow(DeviceNotFoundException::new);
+    @SerializedDeviceWrite
+    public Device updateDevice(@ShardKey Long id, Device device) {
+        deviceStateWriteBehindBuffer.awaitInFlight(id);
+        Device persistedDevice = findForUpdate(id);
+        Optional<DeviceState> pendingState = deviceStateWriteBehindBuffer.pendingState(id);
+        String oldBrand = persistedDevice.getBrand();
+        DeviceState oldState = pendingState.orElse(persistedDevice.getState());
+
+        pendingState.ifPresent(state -> deviceStateWriteBehindBuffer.discardAfterCommit(id, state));
+        checkSameShard(oldBrand, device.getBrand());
 
         persistedDevice.setName(device.getName());
         persistedDevice.setBrand(device.getBrand());
         persistedDevice.setState(device.getState());
+        releaseLease(persistedDevice);
+
+        Device savedDevice = saveChanged(oldBrand, oldState, persistedDevice);
+        publishStateChange(id, oldState, savedDevice.getState());
 
-        return deviceRepository.save(persistedDevice);
+        return savedDevice;
     }
 
     /**
      * Partially updates an existing {@link Device}, except for the creation time, which can't be
      * modified after creation.
      * <p>
-     * Throws a {@link DeviceInUseException} if state is IN_USE and Brand and/or Name are to be changed.
+     * Throws a {@link DeviceInUseException} if state is IN_USE and Brand and/or Name are to be changed, and an
+     * {@link InvalidOperationException} if sharding is enabled and the new Brand is stored on another shard.
+     * <p>
+     * If write-behind is enabled, a state-only patch is staged in {@link DeviceStateWriteBehindBuffer} instead of
+     * locking and saving the {@link Device}, unless it joins a transaction started by its caller, like a chunk of
+     * {@link DeviceOperationService}: staging can't be rolled back with it, so the {@link Device} is saved.
+     * <p>
+     * A change of State is published as a {@link DeviceStateChangedEvent} for the State history.
      *
      * @param id the ID of the {@link Device} to be updated.
      * @param deviceDetails a {@link Device} containing updated details.
      * @return the updated {@link Device}
      */
     @Transactional
-    public Device patchDevice(Long id, Device deviceDetails) {
-        Device persistedDevice = deviceRepository.findByIdForUpdate(id).orElseThrow(DeviceNotFoundException::new);
+    @SerializedDeviceWrite
+    public Device patchDevice(@ShardKey Long id, Device deviceDetails) {
+        if (isStateOnlyPatch(deviceDetails) && deviceStateWriteBehindBuffer.isEnabled() && !joinedOuterTransaction()) {
+            Optional<Device> persistedDevice = deviceRepository.findById(id);
+
+            if (persistedDevice.isPresent()) {
+                DeviceState oldState = deviceStateWriteBehindBuffer.view(persistedDevice.get()).getState();
+                deviceStateWriteBehindBuffer.stage(id, deviceDetails.getState(),
+                        persistedDevice.get().getUpdatedAt());
+                deviceLeaseScheduler.cancel(id);
+
+                Device stagedDevice = deviceStateWriteBehindBuffer.view(persistedDevice.get());
+                applicationEventPublisher.publishEvent(
+                        DeviceChangedEvent.changed(stagedDevice.getBrand(), oldState, stagedDevice));
+                publishStateChange(id, oldState, stagedDevice.getState());
+                return stagedDevice;
+            }
+        }
+
+        deviceStateWriteBehindBuffer.awaitInFlight(id);
+        Device persistedDevice = findForUpdate(id);
+        Optional<DeviceState> pendingState = deviceStateWriteBehindBuffer.pendingState(id);
 
+        pendingState.ifPresent(persistedDevice::setState);
+        String oldBrand = persistedDevice.getBrand();
+        DeviceState oldState = persistedDevice.getState();
         Optional.ofNullable(deviceDetails.getState()).ifPresent(persistedDevice::setState);
 
         if (persistedDevice.getState() == DeviceState.IN_USE &&
@@ -119,16 +382,26 @@ public class DeviceService {
             throw new DeviceInUseException("Device is IN USE so its properties cannot be updated!");
         }
 
+        checkSameShard(oldBrand, deviceDetails.getBrand());
         Optional.ofNullable(deviceDetails.getName()).ifPresent(persistedDevice::setName);
         Optional.ofNullable(deviceDetails.getBrand()).ifPresent(persistedDevice::setBrand);
+        pendingState.ifPresent(state -> deviceStateWriteBehindBuffer.discardAfterCommit(id, state));
 
-        return deviceRepository.save(persistedDevice);
+        if (deviceDetails.getState() != null) {
+            releaseLease(persistedDevice);
+        }
+
+        Device savedDevice = saveChanged(oldBrand, oldState, persistedDevice);
+        publishStateChange(id, oldState, savedDevice.getState());
+
+        return savedDevice;
     }
 
     /**
      * Deletes a {@link Device} by ID.
      * <p>
-     * Calls {@link DeviceRepository#delete(Object)}.
+     * Calls {@link DeviceRepository#delete(Object)}, or {@link DeviceArchiveService#deleteArchived(Long)} if the
+     * {@link Device} is archived.
      * <p>
      * Throws a {@link DeviceNotFoundException} if device doesn't exist.
      * <p>
@@ -140,13 +413,266 @@ public class DeviceService {
      *
      * @param id the ID of the {@link Device} to be deleted.
      */
-    public void deleteDevice(Long id) {
-        Device device = deviceRepository.findById(id).orElseThrow(DeviceNotFoundException::new);
+    @SerializedDeviceWrite
+    public void deleteDevice(@ShardKey Long id) {
+        deviceStateWriteBehindBuffer.awaitInFlight(id);
+        Optional<Device> persistedDevice = deviceRepository.findById(id);
+
+        if (persistedDevice.isEmpty()) {
+            if (!deviceArchiveService.deleteArchived(id)) {
+                throw new DeviceNotFoundException();
+            }
+
+            applicationEventPublisher.publishEvent(DeviceChangedEvent.deleted(id, null, DeviceState.INACTIVE));
+            return;
+        }
+
+        Device device = persistedDevice.get();
+        DeviceState state = deviceStateWriteBehindBuffer.view(device).getState();
 
-        if (device.getState() == DeviceState.IN_USE) {
+        if (state == DeviceState.IN_USE) {
             throw new DeviceInUseException("The device is in use and cannot be deleted!");
         }
 
         deviceRepository.delete(device);
+        deviceStateWriteBehindBuffer.discard(id);
+        deviceLeaseScheduler.cancel(id);
+        applicationEventPublisher.publishEvent(DeviceChangedEvent.deleted(id, device.getBrand(), state));
     }
+
+    /**
+     * Checks out an AVAILABLE {@link Device} by setting its State to IN_USE with a lease.
+     * <p>
+     * The {@link Device} is reverted to AVAILABLE by {@link DeviceLeaseScheduler} once the lease expires, unless
+     * it's checked in or its State is changed before.
+     * <p>
+     * Throws a {@link DeviceInUseException} if the {@link Device} is already IN_USE and a
+     * {@link DeviceNotAvailableException} if it's INACTIVE.
+     *
+     * @param id the ID of the {@link Device} to be checked out.
+     * @param ttl how long the lease lasts.
+     * @return the checked out {@link Device}.
+     */
+    @Transactional
+    @SerializedDeviceWrite
+    public Device checkoutDevice(@ShardKey Long id, Duration ttl) {
+        deviceStateWriteBehindBuffer.awaitInFlight(id);
+        Device persistedDevice = findForUpdate(id);
+        Optional<DeviceState> pendingState = deviceStateWriteBehindBuffer.pendingState(id);
+
+        pendingState.ifPresent(persistedDevice::setState);
+
+        if (persistedDevice.getState() == DeviceState.IN_USE) {
+            throw new DeviceInUseException("Device is already IN USE!");
+        }
+
+        if (persistedDevice.getState() == DeviceState.INACTIVE) {
+            throw new DeviceNotAvailableException("Device is INACTIVE and cannot be checked out!");
+        }
+
+        DeviceState oldState = persistedDevice.getState();
+        persistedDevice.setState(DeviceState.IN_USE);
+        persistedDevice.setLeaseExpiresAt(Instant.now().plus(ttl));
+        pendingState.ifPresent(state -> deviceStateWriteBehindBuffer.discardAfterCommit(id, state));
+
+        Device savedDevice = saveChanged(persistedDevice.getBrand(), oldState, persistedDevice);
+        deviceLeaseScheduler.arm(id, savedDevice.getLeaseExpiresAt());
+
+        return savedDevice;
+    }
+
+    /**
+     * Checks in an IN_USE {@link Device} by setting its State to AVAILABLE and releasing its lease.
+     * <p>
+     * Throws a {@link DeviceNotAvailableException} if the {@link Device} is not IN_USE.
+     *
+     * @param id the ID of the {@link Device} to be checked in.
+     * @return the checked in {@link Device}.
+     */
+    @Transactional
+    @SerializedDeviceWrite
+    public Device checkinDevice(@ShardKey Long id) {
+        deviceStateWriteBehindBuffer.awaitInFlight(id);
+        Device persistedDevice = findForUpdate(id);
+        Optional<DeviceState> pendingState = deviceStateWriteBehindBuffer.pendingState(id);
+
+        pendingState.ifPresent(persistedDevice::setState);
+
+        if (persistedDevice.getState() != DeviceState.IN_USE) {
+            throw new DeviceNotAvailableException("Device is not IN USE and cannot be checked in!");
+        }
+
+        persistedDevice.setState(DeviceState.AVAILABLE);
+        releaseLease(persistedDevice);
+        pendingState.ifPresent(state -> deviceStateWriteBehindBuffer.discardAfterCommit(id, state));
+
+        return saveChanged(persistedDevice.getBrand(), DeviceState.IN_USE, persistedDevice);
+    }
+
+    /**
+     * Atomically claims up to a number of AVAILABLE {@link Device}, optionally by Brand, by setting their State
+     * to IN_USE, with a lease if a ttl is given.
+     * <p>
+     * Calls {@link DeviceRepository#findForClaim(String, DeviceState, Pageable)}, which skips the rows locked by
+     * concurrent claimers instead of waiting for them, and {@link DeviceRepository#claimByIdIn(Collection, DeviceState, Instant)}.
+     * <p>
+     * A {@link Device} whose State staged in {@link DeviceStateWriteBehindBuffer} is not AVAILABLE is skipped.
+     * <p>
+     * Throws a {@link DeviceNotFoundException} if no AVAILABLE {@link Device} could be claimed.
+     *
+     * @param brand - the Brand of the {@link Device} to be claimed, or null for any Brand.
+     * @param count - the maximum number of {@link Device} to be claimed.
+     * @param ttl - how long the lease lasts, or null for no lease.
+     * @return a {@link List} containing the claimed {@link Device}.
+     */
+    @Transactional
+    public List<Device> claimDevices(@ShardKey String brand, int count, Duration ttl) {
+        List<Device> claimedDevices = deviceRepository.findForClaim(brand, DeviceState.AVAILABLE, PageRequest.ofSize(count))
+                .stream()
+                .filter(device -> deviceStateWriteBehindBuffer.pendingState(device.getId())
+                        .map(state -> state == DeviceState.AVAILABLE)
+                        .orElse(true))
+                .toList();
+
+        if (claimedDevices.isEmpty()) {
+            throw new DeviceNotFoundException();
+        }
+
+        Instant leaseExpiresAt = ttl != null ? Instant.now().plus(ttl) : null;
+        List<Long> ids = claimedDevices.stream().map(Device::getId).toList();
+
+        deviceRepository.claimByIdIn(ids, DeviceState.IN_USE, leaseExpiresAt);
+
+        for (Device device : claimedDevices) {
+            device.setState(DeviceState.IN_USE);
+            device.setLeaseExpiresAt(leaseExpiresAt);
+            deviceStateWriteBehindBuffer.pendingState(device.getId())
+                    .ifPresent(state -> deviceStateWriteBehindBuffer.discardAfterCommit(device.getId(), state));
+
+            if (leaseExpiresAt != null) {
+                deviceLeaseScheduler.arm(device.getId(), leaseExpiresAt);
+            } else {
+                deviceLeaseScheduler.cancel(device.getId());
+            }
+        }
+
+        applicationEventPublisher.publishEvent(DeviceChangedEvent.stateChanged(claimedDevices, DeviceState.AVAILABLE));
+
+        return claimedDevices;
+    }
+
+    private Device findForUpdate(Long id) {
+        return deviceRepository.findByIdForUpdate(id)
+                .or(() -> deviceArchiveService.restoreForUpdate(id))
+                .orElseThrow(DeviceNotFoundException::new);
+    }
+
+    private Device saveChanged(String oldBrand, DeviceState oldState, Device device) {
+        Device savedDevice = deviceRepository.save(device);
+        applicationEventPublisher.publishEvent(DeviceChangedEvent.changed(oldBrand, oldState, savedDevice));
+
+        return savedDevice;
+    }
+
+    private void publishStateChange(Long id, DeviceState oldState, DeviceState newState) {
+        if (oldState != newState) {
+            applicationEventPublisher.publishEvent(new DeviceStateChangedEvent(id, oldState, newState, Instant.now()));
+        }
+    }
+
+    private void releaseLease(Device device) {
+        device.setLeaseExpiresAt(null);
+        deviceLeaseScheduler.cancel(device.getId());
+    }
+
+    private List<DeviceDTO> findDevices(String brand, DeviceState state, LocalDate createdFrom, LocalDate createdTo) {
+        List<DeviceDTO> deviceList = deviceShardRouter.onShardsOf(brand,
+                        shard -> findShardDevices(brand, state, createdFrom, createdTo))
+                .stream()
+                .flatMap(List::stream)
+                .toList();
+
+        if (deviceList.isEmpty()) {
+            throw new DeviceNotFoundException();
+        }
+
+        return deviceList;
+    }
+
+    private List<DeviceDTO> findShardDevices(String brand, DeviceState state, LocalDate createdFrom,
+                                             LocalDate createdTo) {
+        boolean dateRange = createdFrom != null || createdTo != null;
+        List<DeviceDTO> deviceList = dateRange
+                ? deviceRepository.findByBrandAndStateCreatedBetween(brand, state, createdFrom, createdTo)
+                : deviceRepository.findByBrandAndState(brand, state).orElseThrow(DeviceNotFoundException::new);
+
+        if (deviceStateWriteBehindBuffer.isEnabled()) {
+            deviceList = deviceList.stream()
+                    .map(this::applyPendingState)
+                    .filter(deviceDTO -> state == null || deviceDTO.state() == state)
+                    .toList();
+        }
+
+        if (state == null || state == DeviceState.INACTIVE) {
+            List<DeviceDTO> archivedList = dateRange
+                    ? deviceArchiveService.findArchived(brand, createdFrom, createdTo)
+                    : deviceArchiveService.findArchived(brand);
+            deviceList = Stream.concat(deviceList.stream(), archivedList.stream()).toList();
+        }
+
+        return deviceList;
+    }
+
+    private List<DeviceDTO> findDevicesByIds(List<Long> ids) {
+        List<DeviceDTO> devices = new ArrayList<>(ids.size());
+
+        for (int from = 0; from < ids.size(); from += LOOKUP_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + LOOKUP_CHUNK_SIZE, ids.size()));
+            deviceRepository.findByIdInAsDTO(chunk).forEach(deviceDTO -> devices.add(applyPendingState(deviceDTO)));
+        }
+
+        if (devices.size() < ids.size()) {
+            Set<Long> hotIds = devices.stream().map(DeviceDTO::id).collect(Collectors.toSet());
+            List<Long> coldIds = ids.stream().filter(id -> !hotIds.contains(id)).toList();
+            devices.addAll(deviceArchiveService.findArchived(coldIds));
+        }
+
+        return devices;
+    }
+
+    private void checkSameShard(String oldBrand, String newBrand) {
+        if (newBrand != null && deviceShardRouter.shardOf(newBrand) != deviceShardRouter.shardOf(oldBrand)) {
+            throw new InvalidOperationException("The Brand of a Device can't be changed to a Brand of another shard!");
+        }
+    }
+
+    private static void checkDateRange(LocalDate createdFrom, LocalDate createdTo) {
+        if (createdFrom != null && createdTo != null && createdTo.isBefore(createdFrom)) {
+            throw new InvalidDateRangeException("createdTo must not be before createdFrom!");
+        }
+    }
+
+    private static boolean isStateOnlyPatch(Device deviceDetails) {
+        return deviceDetails.getState() != null && deviceDetails.getName() == null && deviceDetails.getBrand() == null;
+    }
+
+    /**
+     * @return whether the current transactional method joined a transaction started by its caller.
+     */
+    private static boolean joinedOuterTransaction() {
+        try {
+            return !TransactionAspectSupport.currentTransactionStatus().isNewTransaction();
+        } catch (NoTransactionException e) {
+            return false;
+        }
+    }
+
+    private DeviceDTO applyPendingState(DeviceDTO deviceDTO) {
+        return deviceStateWriteBehindBuffer.pendingState(deviceDTO.id())
+                .map(state -> new DeviceDTO(deviceDTO.id(), deviceDTO.name(), deviceDTO.brand(), state,
+                        deviceDTO.creationTime()))
+                .orElse(deviceDTO);
+    }
+
+    private record CreationBucket(LocalDate start, String brand) {}
 }
@@ -0,0 +1,16 @@
+package com.francisco.deviceapi.service;
+
+import com.francisco.deviceapi.domain.Device;
+import com.francisco.deviceapi.domain.enums.DeviceState;
+
+import java.time.Instant;
+
+/**
+ * Published when the State of a {@link Device} is changed by an update or a patch.
+ *
+ * @param id the ID of the {@link Device}.
+ * @param oldState the State before the change.
+ * @param newState the State after the change.
+ * @param changedAt the time of the change.
+ */
+public record DeviceStateChangedEvent(Long id, DeviceState oldState, DeviceState newState, Instant changedAt) {}
@@ -0,0 +1,300 @@
+package com.francisco.deviceapi.service;
+
+import com.francisco.deviceapi.concurrency.RingBuffer;
+import com.francisco.deviceapi.domain.Device;
+import com.francisco.deviceapi.domain.enums.HistoryDurability;
+import com.francisco.deviceapi.dto.DeviceStateTransitionDTO;
+import com.francisco.deviceapi.repository.DeviceStateHistoryRepository;
+import com.francisco.deviceapi.sharding.DeviceShardRouter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Asynchronous writer of the {@link Device} State history.
+ * <p>
+ * Every committed {@link DeviceStateChangedEvent} is published to a bounded lock-free {@link RingBuffer}, so
+ * requests don't wait for the history, and a background writer inserts the buffered transitions every
+ * {@code device.history.flush-interval-ms}, in batches of up to {@code device.history.batch-size}, each in its own
+ * transaction, or with sharding enabled in one transaction per shard of the batch.
+ * <p>
+ * The {@link HistoryDurability} set in {@code device.history.durability} decides what happens to the transitions
+ * that don't fit in the buffer or can't be written, and to the ones still buffered on shutdown.
+ */
+@Component
+@Slf4j
+public class DeviceStateHistoryWriter {
+
+    private static final long OVERFLOW_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private static final int SHUTDOWN_ATTEMPTS = 3;
+
+    private final DeviceStateHistoryRepository deviceStateHistoryRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final DeviceShardRouter deviceShardRouter;
+
+    private final boolean enabled;
+
+    private final HistoryDurability durability;
+
+    private final int batchSize;
+
+    private final long overflowTimeoutNanos;
+
+    private final RingBuffer<DeviceStateTransitionDTO> buffer;
+
+    /**
+     * The last batch that failed to be written, retried before the buffer with {@link HistoryDurability#DURABLE}.
+     */
+    private final List<DeviceStateTransitionDTO> failedBatch = new ArrayList<>();
+
+    private final LongAdder written = new LongAdder();
+
+    private final LongAdder dropped = new LongAdder();
+
+    private final Object flushLock = new Object();
+
+    /**
+     * Writes the buffer as soon as it overflows with {@link HistoryDurability#DURABLE}, so the requests never write
+     * it themselves.
+     */
+    private final ExecutorService overflowWriter =
+            Executors.newSingleThreadExecutor(new CustomizableThreadFactory("history-overflow-writer-"));
+
+    private final AtomicBoolean overflowFlushRequested = new AtomicBoolean();
+
+    public DeviceStateHistoryWriter(DeviceStateHistoryRepository deviceStateHistoryRepository,
+                                    PlatformTransactionManager transactionManager,
+                                    MeterRegistry meterRegistry,
+                                    DeviceShardRouter deviceShardRouter,
+                                    @Value("${device.history.enabled:true}") boolean enabled,
+                                    @Value("${device.history.durability:BEST_EFFORT}") HistoryDurability durability,
+                                    @Value("${device.history.capacity:65536}") int capacity,
+                                    @Value("${device.history.batch-size:500}") int batchSize,
+                                    @Value("${device.history.overflow-timeout-ms:1000}") long overflowTimeoutMillis) {
+        this.deviceStateHistoryRepository = deviceStateHistoryRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.deviceShardRouter = deviceShardRouter;
+        this.enabled = enabled;
+        this.durability = durability;
+        this.batchSize = batchSize;
+        this.overflowTimeoutNanos = Duration.ofMillis(overflowTimeoutMillis).toNanos();
+        this.buffer = new RingBuffer<>(capacity);
+
+        Gauge.builder("device.history.buffered", buffer, RingBuffer::size)
+                .description("Device state transitions waiting to be written")
+                .register(meterRegistry);
+        FunctionCounter.builder("device.history.transitions", written, LongAdder::sum)
+                .description("Device state transitions by outcome")
+                .tag("outcome", "written")
+                .register(meterRegistry);
+        FunctionCounter.builder("device.history.transitions", dropped, LongAdder::sum)
+                .description("Device state transitions by outcome")
+                .tag("outcome", "dropped")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Buffers the transition of a {@link DeviceStateChangedEvent}, once its transaction commits.
+     *
+     * @param event the {@link DeviceStateChangedEvent}.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDeviceStateChanged(DeviceStateChangedEvent event) {
+        record(new DeviceStateTransitionDTO(event.id(), event.oldState(), event.newState(), event.changedAt()));
+    }
+
+    /**
+     * Buffers a transition to be written by the background writer.
+     * <p>
+     * If the buffer is full, the transition is dropped with {@link HistoryDurability#BEST_EFFORT}. With
+     * {@link HistoryDurability#DURABLE}, the buffer is written right away by a background writer, while the caller
+     * waits for the transition to fit, without any I/O, and only drops it after
+     * {@code device.history.overflow-timeout-ms}.
+     *
+     * @param transition the transition.
+     */
+    public void record(DeviceStateTransitionDTO transition) {
+        if (!enabled || buffer.offer(transition)) {
+            return;
+        }
+
+        if (durability == HistoryDurability.DURABLE) {
+            long deadline = System.nanoTime() + overflowTimeoutNanos;
+
+            do {
+                requestOverflowFlush();
+                LockSupport.parkNanos(OVERFLOW_PARK_NANOS);
+
+                if (buffer.offer(transition)) {
+                    return;
+                }
+            } while (System.nanoTime() - deadline < 0);
+
+            log.error("Device state history buffer is full, dropped transition {}", transition);
+        }
+
+        dropped.increment();
+    }
+
+    /**
+     * Writes every buffered transition in batched INSERTs.
+     */
+    @Scheduled(fixedDelayString = "${device.history.flush-interval-ms:1000}")
+    public void flush() {
+        if (enabled) {
+            synchronized (flushLock) {
+                drain();
+            }
+        }
+    }
+
+    /**
+     * Writes the buffered transitions before shutting down.
+     * <p>
+     * With {@link HistoryDurability#DURABLE}, failed batches are retried a few times, and the transitions that are
+     * still not written are logged so they can be replayed. Else, they are only counted.
+     */
+    @PreDestroy
+    public void shutdown() {
+        overflowWriter.shutdownNow();
+
+        if (!enabled) {
+            return;
+        }
+
+        synchronized (flushLock) {
+            int attempts = durability == HistoryDurability.DURABLE ? SHUTDOWN_ATTEMPTS : 1;
+
+            for (int attempt = 0; attempt < attempts && !drain(); attempt++) {
+                log.warn("Failed to write the device state history on shutdown, attempt {} of {}", attempt + 1,
+                        attempts);
+            }
+
+            List<DeviceStateTransitionDTO> lost = new ArrayList<>(failedBatch);
+            failedBatch.clear();
+            buffer.drainTo(lost, Integer.MAX_VALUE);
+
+            if (lost.isEmpty()) {
+                return;
+            }
+
+            dropped.add(lost.size());
+
+            if (durability == HistoryDurability.DURABLE) {
+                log.error("Device state transitions were not written on shutdown: {}", lost);
+            } else {
+                log.warn("Dropped {} device state transition(s) on shutdown", lost.size());
+            }
+        }
+    }
+
+    public long writtenCount() {
+        return written.sum();
+    }
+
+    public long droppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * Has the background writer write the buffer, unless it's about to already.
+     */
+    private void requestOverflowFlush() {
+        if (overflowFlushRequested.compareAndSet(false, true)) {
+            try {
+                overflowWriter.execute(() -> {
+                    overflowFlushRequested.set(false);
+                    flush();
+                });
+            } catch (RejectedExecutionException e) {
+                overflowFlushRequested.set(false);
+            }
+        }
+    }
+
+    /**
+     * Writes batches until the buffer is empty or a batch fails.
+     *
+     * @return true if every batch was written.
+     */
+    private boolean drain() {
+        while (true) {
+            List<DeviceStateTransitionDTO> batch = new ArrayList<>(failedBatch);
+            failedBatch.clear();
+            buffer.drainTo(batch, batchSize - batch.size());
+
+            if (batch.isEmpty()) {
+                return true;
+            }
+
+            if (!write(batch)) {
+                return false;
+            }
+
+            if (batch.size() < batchSize) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Writes a batch in one transaction per shard, so only the transitions of the shards that failed are retried.
+     *
+     * @return true if the whole batch was written.
+     */
+    private boolean write(List<DeviceStateTransitionDTO> batch) {
+        List<DeviceStateTransitionDTO> unwritten = new ArrayList<>();
+        RuntimeException failure = null;
+
+        for (var shardBatch : deviceShardRouter.groupByShard(batch, DeviceStateTransitionDTO::deviceId).entrySet()) {
+            try {
+                deviceShardRouter.onShard(shardBatch.getKey(), () -> transactionTemplate.executeWithoutResult(
+                        status -> deviceStateHistoryRepository.insertAll(shardBatch.getValue())));
+                written.add(shardBatch.getValue().size());
+            } catch (RuntimeException e) {
+                unwritten.addAll(shardBatch.getValue());
+                failure = e;
+            }
+        }
+
+        if (failure == null) {
+            return true;
+        }
+
+        if (durability == HistoryDurability.DURABLE) {
+            log.error("Failed to write {} device state transition(s), they will be retried", unwritten.size(),
+                    failure);
+            failedBatch.addAll(unwritten);
+        } else {
+            log.error("Failed to write {} device state transition(s), they are dropped", unwritten.size(), failure);
+            dropped.add(unwritten.size());
+        }
+
+        return false;
+    }
+}
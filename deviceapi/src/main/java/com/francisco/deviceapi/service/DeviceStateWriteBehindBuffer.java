@@ -0,0 +1,243 @@
+package com.francisco.deviceapi.service;
+
+import com.francisco.deviceapi.domain.Device;
+import com.francisco.deviceapi.domain.enums.DeviceState;
+import com.francisco.deviceapi.dto.DeviceStateUpdateDTO;
+import com.francisco.deviceapi.repository.DeviceStateRepository;
+import com.francisco.deviceapi.sharding.DeviceShardRouter;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Opt-in write-behind buffer for state-only {@link Device} patches.
+ * <p>
+ * Staged states are the authoritative view of a {@link Device} State on this node until they are flushed.
+ * Repeated transitions of the same {@link Device} collapse into the latest one, and every flush writes the
+ * net result in JDBC batches, per shard with sharding enabled.
+ * <p>
+ * Each State is written only if the {@link Device} row still has the {@code updated_at} it had when the State was
+ * staged, so a write committed meanwhile, like a PUT or a checkout, is kept and the staged State is dropped.
+ * <p>
+ * Staged states are flushed on shutdown as well. They are not persisted anywhere else: if that last flush fails,
+ * they are lost, and only logged at ERROR so they can be replayed by hand.
+ */
+@Component
+@Slf4j
+public class DeviceStateWriteBehindBuffer {
+
+    private final DeviceStateRepository deviceStateRepository;
+
+    private final DeviceShardRouter deviceShardRouter;
+
+    private final boolean enabled;
+
+    private final int batchSize;
+
+    private final Map<Long, DeviceStateUpdateDTO> pending = new ConcurrentHashMap<>();
+
+    private final Map<Long, DeviceStateUpdateDTO> inFlight = new ConcurrentHashMap<>();
+
+    private final Object flushLock = new Object();
+
+    public DeviceStateWriteBehindBuffer(DeviceStateRepository deviceStateRepository,
+                                        DeviceShardRouter deviceShardRouter,
+                                        @Value("${device.write-behind.enabled:false}") boolean enabled,
+                                        @Value("${device.write-behind.batch-size:500}") int batchSize) {
+        this.deviceStateRepository = deviceStateRepository;
+        this.deviceShardRouter = deviceShardRouter;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Stages a new State for a {@link Device}, replacing any State that is still pending.
+     *
+     * @param id the ID of the {@link Device}.
+     * @param state - Available, In use, or Inactive.
+     * @param updatedAt the {@code updated_at} of the {@link Device} row the State was staged on.
+     */
+    public void stage(Long id, DeviceState state, Instant updatedAt) {
+        pending.put(id, new DeviceStateUpdateDTO(id, state, updatedAt));
+    }
+
+    /**
+     * Retrieves the State of a {@link Device} that is staged or being flushed, if any.
+     *
+     * @param id the ID of the {@link Device}.
+     * @return an {@link Optional} with the newest State not yet persisted or an empty {@link Optional}.
+     */
+    public Optional<DeviceState> pendingState(Long id) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+
+        DeviceStateUpdateDTO update = pending.get(id);
+        return Optional.ofNullable(update != null ? update : inFlight.get(id)).map(DeviceStateUpdateDTO::state);
+    }
+
+    /**
+     * Blocks until a flush that is writing the {@link Device} finishes.
+     * <p>
+     * Must be called before the {@link Device} row is locked, otherwise the flush can't complete.
+     *
+     * @param id the ID of the {@link Device}.
+     */
+    public void awaitInFlight(Long id) {
+        if (enabled && inFlight.containsKey(id)) {
+            synchronized (flushLock) {
+                log.debug("Waited for in-flight state of device {}", id);
+            }
+        }
+    }
+
+    /**
+     * Drops a staged State once the current transaction commits, unless it was replaced meanwhile.
+     *
+     * @param id the ID of the {@link Device}.
+     * @param state the staged State that has been persisted or superseded by the caller.
+     */
+    public void discardAfterCommit(Long id, DeviceState state) {
+        if (state == null) {
+            return;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    discard(id, state);
+                }
+            });
+        } else {
+            discard(id, state);
+        }
+    }
+
+    /**
+     * Drops any staged State of a {@link Device}.
+     *
+     * @param id the ID of the {@link Device}.
+     */
+    public void discard(Long id) {
+        if (enabled) {
+            pending.remove(id);
+        }
+    }
+
+    /**
+     * Returns a detached copy of a {@link Device} with its pending State applied, if any.
+     * <p>
+     * The persisted {@link Device} is never modified, so the pending State can't be flushed by dirty checking.
+     *
+     * @param device the persisted {@link Device}.
+     * @return the {@link Device} as seen by this node.
+     */
+    public Device view(Device device) {
+        return pendingState(device.getId())
+                .map(state -> withState(device, state))
+                .orElse(device);
+    }
+
+    /**
+     * Writes every staged State in batched conditional UPDATEs.
+     * <p>
+     * A batch that fails is staged again, unless a newer State was staged meanwhile. States whose row changed since
+     * they were staged are dropped.
+     */
+    @Scheduled(fixedDelayString = "${device.write-behind.flush-interval-ms:200}")
+    public void flush() {
+        if (!enabled || pending.isEmpty()) {
+            return;
+        }
+
+        synchronized (flushLock) {
+            List<DeviceStateUpdateDTO> updates = new ArrayList<>(pending.size());
+
+            for (Map.Entry<Long, DeviceStateUpdateDTO> entry : pending.entrySet()) {
+                inFlight.put(entry.getKey(), entry.getValue());
+                pending.remove(entry.getKey(), entry.getValue());
+                updates.add(entry.getValue());
+            }
+
+            try {
+                deviceShardRouter.groupByShard(updates, DeviceStateUpdateDTO::id)
+                        .forEach((shard, shardUpdates) -> deviceShardRouter.onShard(shard, () -> {
+                            for (int from = 0; from < shardUpdates.size(); from += batchSize) {
+                                flushBatch(shardUpdates.subList(from,
+                                        Math.min(from + batchSize, shardUpdates.size())));
+                            }
+                        }));
+            } finally {
+                inFlight.clear();
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+
+        if (!pending.isEmpty()) {
+            log.error("Device states were not persisted on shutdown: {}", pending);
+        }
+    }
+
+    private void flushBatch(List<DeviceStateUpdateDTO> batch) {
+        Instant updatedAt = Instant.now().truncatedTo(ChronoUnit.MICROS);
+        boolean[] written;
+
+        try {
+            written = deviceStateRepository.updateStateIfUnchanged(batch, updatedAt);
+        } catch (RuntimeException e) {
+            log.error("Failed to flush {} device state(s), they will be retried", batch.size(), e);
+            batch.forEach(update -> pending.putIfAbsent(update.id(), update));
+            return;
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            DeviceStateUpdateDTO update = batch.get(i);
+
+            if (written[i]) {
+                // A State staged during the flush was staged on the row this flush has just replaced
+                pending.computeIfPresent(update.id(), (id, staged) ->
+                        Objects.equals(staged.expectedUpdatedAt(), update.expectedUpdatedAt())
+                                ? new DeviceStateUpdateDTO(id, staged.state(), updatedAt)
+                                : staged);
+            } else {
+                log.debug("Dropped staged state {} of device {} changed since", update.state(), update.id());
+            }
+        }
+    }
+
+    private void discard(Long id, DeviceState state) {
+        pending.computeIfPresent(id, (key, staged) -> staged.state() == state ? null : staged);
+    }
+
+    private static Device withState(Device device, DeviceState state) {
+        Device copy = new Device();
+        copy.setId(device.getId());
+        copy.setName(device.getName());
+        copy.setBrand(device.getBrand());
+        copy.setState(state);
+        copy.setCreationTime(device.getCreationTime());
+        return copy;
+    }
+}
@@ -0,0 +1,81 @@
+package com.francisco.deviceapi.sharding;
+
+/**
+ * The shard the current thread works on, when sharding is enabled.
+ * <p>
+ * The {@link ShardRoutingDataSource} hands out connections to the database of this shard, so it must be set before
+ * a transaction starts, and a thread works on a single shard at a time. Without a shard the first one is used.
+ * <p>
+ * The shard of a {@link com.francisco.deviceapi.domain.Device} is encoded in the last digits of its ID, so it can be
+ * found without knowing its Brand: the ID is the sequence value of its shard times {@value #MAX_SHARDS}, plus the
+ * shard.
+ */
+public final class DeviceShard {
+
+    public static final int MAX_SHARDS = 1000;
+
+    private static final ThreadLocal<Integer> SHARD = new ThreadLocal<>();
+
+    private DeviceShard() {
+
+    }
+
+    /**
+     * @return the shard of the current thread, or null if none is set.
+     */
+    public static Integer current() {
+        return SHARD.get();
+    }
+
+    /**
+     * Runs a task on a shard, restoring the shard the current thread had before once it returns.
+     *
+     * @param shard the shard.
+     * @param task the task.
+     * @return the result of the task.
+     */
+    public static <T, E extends Throwable> T call(int shard, Task<T, E> task) throws E {
+        Integer previousShard = SHARD.get();
+        SHARD.set(shard);
+
+        try {
+            return task.call();
+        } finally {
+            if (previousShard != null) {
+                SHARD.set(previousShard);
+            } else {
+                SHARD.remove();
+            }
+        }
+    }
+
+    public static void run(int shard, Runnable task) {
+        call(shard, () -> {
+            task.run();
+            return null;
+        });
+    }
+
+    /**
+     * @param sequenceValue the value of the ID sequence of the shard.
+     * @param shard the shard.
+     * @return the ID of a {@link com.francisco.deviceapi.domain.Device} stored on the shard.
+     */
+    public static long encodeId(long sequenceValue, int shard) {
+        return sequenceValue * MAX_SHARDS + shard;
+    }
+
+    /**
+     * @param id the ID of a {@link com.francisco.deviceapi.domain.Device} created with sharding enabled.
+     * @return the shard it is stored on.
+     */
+    public static int shardOfId(long id) {
+        return (int) Math.floorMod(id, (long) MAX_SHARDS);
+    }
+
+    @FunctionalInterface
+    public interface Task<T, E extends Throwable> {
+
+        T call() throws E;
+    }
+}
@@ -0,0 +1,96 @@
+package com.francisco.deviceapi.sharding;
+
+import com.francisco.deviceapi.domain.Device;
+import com.francisco.deviceapi.exception.InvalidOperationException;
+import com.francisco.deviceapi.exception.NotFoundException;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.lang.annotation.Annotation;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Runs the calls to methods with a {@link ShardKey} parameter on the shard of that parameter, when sharding is
+ * enabled.
+ * <p>
+ * Runs right after {@link com.francisco.deviceapi.jfr.DeviceJfrEventAspect}, so the shard is set before the
+ * transaction acquires its connection. A null Brand stands for any Brand: the call is tried on every shard, starting
+ * from a random one, until it doesn't fail with a {@link NotFoundException}.
+ * <p>
+ * Calls made while the thread already works on a shard, like the operations of a batch, stay on it: a call for
+ * another shard fails with an {@link InvalidOperationException}.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 3)
+@RequiredArgsConstructor
+public class DeviceShardAspect {
+
+    private final DeviceShardRouter deviceShardRouter;
+
+    @Around("execution(* *(.., @com.francisco.deviceapi.sharding.ShardKey (*), ..))")
+    public Object route(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (!deviceShardRouter.isEnabled()) {
+            return joinPoint.proceed();
+        }
+
+        Object key = shardKey(joinPoint);
+        Integer currentShard = DeviceShard.current();
+
+        if (key == null) {
+            return currentShard != null ? joinPoint.proceed() : onAnyShard(joinPoint);
+        }
+
+        int shard = switch (key) {
+            case Long id -> deviceShardRouter.shardOfId(id);
+            case Device device -> deviceShardRouter.shardOf(device.getBrand());
+            case String brand -> deviceShardRouter.shardOf(brand);
+            default -> throw new IllegalStateException(joinPoint.getSignature() + " has an unsupported shard key!");
+        };
+
+        if (currentShard == null) {
+            return DeviceShard.call(shard, joinPoint::proceed);
+        }
+
+        if (currentShard != shard) {
+            throw new InvalidOperationException("Devices of a transaction must be stored on the same shard!");
+        }
+
+        return joinPoint.proceed();
+    }
+
+    private Object onAnyShard(ProceedingJoinPoint joinPoint) throws Throwable {
+        int shards = deviceShardRouter.shardCount();
+        int firstShard = ThreadLocalRandom.current().nextInt(shards);
+
+        for (int i = 0; ; i++) {
+            try {
+                return DeviceShard.call((firstShard + i) % shards, joinPoint::proceed);
+            } catch (NotFoundException e) {
+                if (i == shards - 1) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private static Object shardKey(ProceedingJoinPoint joinPoint) {
+        Annotation[][] parameterAnnotations = ((MethodSignature) joinPoint.getSignature()).getMethod()
+                .getParameterAnnotations();
+
+        for (int i = 0; i < parameterAnnotations.length; i++) {
+            if (Arrays.stream(parameterAnnotations[i]).anyMatch(ShardKey.class::isInstance)) {
+                return joinPoint.getArgs()[i];
+            }
+        }
+
+        throw new IllegalStateException(joinPoint.getSignature() + " has no shard key!");
+    }
+}
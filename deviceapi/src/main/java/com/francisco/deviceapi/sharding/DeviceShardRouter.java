@@ -0,0 +1,266 @@
+package com.francisco.deviceapi.sharding;
+
+import com.francisco.deviceapi.concurrency.RequestDeadline;
+import com.francisco.deviceapi.exception.DeadlineExceededException;
+import com.francisco.deviceapi.exception.DeviceNotFoundException;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+import java.util.zip.CRC32C;
+
+/**
+ * Routes the work on {@link com.francisco.deviceapi.domain.Device} to the shards configured in
+ * {@code device.sharding.urls}, when {@code device.sharding.enabled}.
+ * <p>
+ * A {@link com.francisco.deviceapi.domain.Device} is stored on the shard of its Brand, the CRC32C of the Brand
+ * modulo the number of shards, so the {@link com.francisco.deviceapi.domain.Device} of a Brand are all on the same
+ * shard, and on the shard encoded in its ID by {@link DeviceShard}. Queries that are not restricted to a Brand fan
+ * out to every shard in parallel, on a pool of {@code device.sharding.fan-out-threads}, within the
+ * {@link RequestDeadline} of the caller.
+ * <p>
+ * With sharding disabled every method runs its work on the calling thread, without a {@link DeviceShard}.
+ * <p>
+ * The {@link ShardRoutingDataSource} of {@link DeviceShardingConfig} is conditional on the same property, but with
+ * Spring AOT its condition is evaluated at build time. Enabling sharding only at runtime would leave every shard on
+ * the single {@code spring.datasource}, so the router fails on startup instead.
+ */
+@Component
+public class DeviceShardRouter {
+
+    private final boolean enabled;
+
+    private final int shards;
+
+    private final ExecutorService executor;
+
+    public DeviceShardRouter(@Value("${device.sharding.enabled:false}") boolean enabled,
+                             @Value("${device.sharding.urls:}") List<String> urls,
+                             @Value("${device.sharding.fan-out-threads:8}") int fanOutThreads,
+                             ObjectProvider<DeviceShardingConfig> deviceShardingConfig) {
+        if (enabled && (urls.isEmpty() || urls.size() > DeviceShard.MAX_SHARDS)) {
+            throw new IllegalStateException("device.sharding.urls must list between 1 and " + DeviceShard.MAX_SHARDS
+                    + " databases!");
+        }
+
+        if (enabled && deviceShardingConfig.getIfAvailable() == null) {
+            throw new IllegalStateException("device.sharding.enabled is true but the shards have no DataSource! "
+                    + "With Spring AOT, sharding must be enabled at build time as well.");
+        }
+
+        this.enabled = enabled;
+        this.shards = enabled ? urls.size() : 1;
+        this.executor = enabled
+                ? Executors.newFixedThreadPool(fanOutThreads, new CustomizableThreadFactory("shard-fan-out-"))
+                : null;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int shardCount() {
+        return shards;
+    }
+
+    /**
+     * @param brand the Brand of a {@link com.francisco.deviceapi.domain.Device}.
+     * @return the shard the {@link com.francisco.deviceapi.domain.Device} of the Brand are stored on, or 0 if
+     * sharding is disabled.
+     */
+    public int shardOf(String brand) {
+        if (!enabled) {
+            return 0;
+        }
+
+        CRC32C crc = new CRC32C();
+        crc.update(brand.getBytes(StandardCharsets.UTF_8));
+        return (int) (crc.getValue() % shards);
+    }
+
+    /**
+     * Throws a {@link DeviceNotFoundException} if the ID encodes a shard that is not configured, since the
+     * {@link com.francisco.deviceapi.domain.Device} can't exist.
+     *
+     * @param id the ID of a {@link com.francisco.deviceapi.domain.Device}.
+     * @return the shard the {@link com.francisco.deviceapi.domain.Device} is stored on, or 0 if sharding is
+     * disabled.
+     */
+    public int shardOfId(long id) {
+        if (!enabled) {
+            return 0;
+        }
+
+        int shard = DeviceShard.shardOfId(id);
+
+        if (shard >= shards) {
+            throw new DeviceNotFoundException();
+        }
+
+        return shard;
+    }
+
+    /**
+     * Runs a task on a shard, on the calling thread.
+     *
+     * @param shard the shard.
+     * @param task the task.
+     */
+    public void onShard(int shard, Runnable task) {
+        if (enabled) {
+            DeviceShard.run(shard, task);
+        } else {
+            task.run();
+        }
+    }
+
+    /**
+     * Runs a task on every shard, one after the other, on the calling thread.
+     *
+     * @param task the task.
+     */
+    public void forEachShard(Runnable task) {
+        for (int shard = 0; shard < shards; shard++) {
+            onShard(shard, task);
+        }
+    }
+
+    /**
+     * Runs a query on the shard of a Brand, or on every shard in parallel if no Brand is given.
+     *
+     * @param brand the Brand, or null for every Brand.
+     * @param query the query, given the shard it runs on.
+     * @return the result of the query on each shard, in shard order.
+     */
+    public <T> List<T> onShardsOf(String brand, IntFunction<T> query) {
+        return brand != null
+                ? onShards(List.of(shardOf(brand)), query)
+                : onShards(IntStream.range(0, shards).boxed().toList(), query);
+    }
+
+    /**
+     * Runs a query on some shards in parallel, or on the calling thread if there is only one.
+     * <p>
+     * If the query fails on a shard, the queries still running on the others are cancelled and its exception is
+     * thrown. Throws a {@link DeadlineExceededException} if the {@link RequestDeadline} is exceeded while waiting.
+     *
+     * @param shards the shards.
+     * @param query the query, given the shard it runs on.
+     * @return the result of the query on each shard, in the order of the shards.
+     */
+    public <T> List<T> onShards(Collection<Integer> shards, IntFunction<T> query) {
+        if (!enabled || shards.size() <= 1) {
+            List<T> results = new ArrayList<>(shards.size());
+            shards.forEach(shard -> results.add(enabled ? DeviceShard.call(shard, () -> query.apply(shard))
+                    : query.apply(shard)));
+            return results;
+        }
+
+        boolean deadline = RequestDeadline.isSet();
+        long remainingMillis = RequestDeadline.remainingMillis();
+        List<Future<T>> futures = new ArrayList<>(shards.size());
+
+        for (int shard : shards) {
+            futures.add(executor.submit(() -> {
+                if (deadline) {
+                    RequestDeadline.start(remainingMillis);
+                }
+
+                try {
+                    return DeviceShard.call(shard, () -> query.apply(shard));
+                } finally {
+                    RequestDeadline.clear();
+                }
+            }));
+        }
+
+        try {
+            List<T> results = new ArrayList<>(futures.size());
+
+            for (Future<T> future : futures) {
+                results.add(await(future));
+            }
+
+            return results;
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+        }
+    }
+
+    /**
+     * Groups items by the shard of their {@link com.francisco.deviceapi.domain.Device}, leaving out the items whose
+     * ID encodes a shard that is not configured.
+     *
+     * @param items the items.
+     * @param id the ID of the {@link com.francisco.deviceapi.domain.Device} of an item.
+     * @return the items of each shard with any, in shard order and then in the order of the items.
+     */
+    public <T> Map<Integer, List<T>> groupByShard(Collection<T> items, Function<T, Long> id) {
+        if (!enabled) {
+            return items.isEmpty() ? Map.of() : Map.of(0, items instanceof List<T> list ? list : List.copyOf(items));
+        }
+
+        Map<Integer, List<T>> itemsByShard = new TreeMap<>();
+
+        for (T item : items) {
+            int shard = DeviceShard.shardOfId(id.apply(item));
+
+            if (shard < shards) {
+                itemsByShard.computeIfAbsent(shard, ignored -> new ArrayList<>()).add(item);
+            }
+        }
+
+        return Collections.unmodifiableMap(itemsByShard);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private static <T> T await(Future<T> future) {
+        try {
+            if (!RequestDeadline.isSet()) {
+                return future.get();
+            }
+
+            return future.get(RequestDeadline.remainingMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new DeadlineExceededException("Request deadline exceeded!");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DeadlineExceededException("Request deadline exceeded!");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+
+            throw new CompletionException(e.getCause());
+        }
+    }
+}
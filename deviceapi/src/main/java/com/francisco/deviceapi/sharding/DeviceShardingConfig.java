@@ -0,0 +1,73 @@
+package com.francisco.deviceapi.sharding;
+
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The databases of the shards, when {@code device.sharding.enabled}.
+ * <p>
+ * Every URL of {@code device.sharding.urls} gets its own connection pool, with the credentials and driver of
+ * {@code spring.datasource}, behind a single {@link ShardRoutingDataSource}. Flyway migrates every shard on startup.
+ * <p>
+ * The {@link com.francisco.deviceapi.service.DeviceCatalog} snapshot is not sharded, and an open session in view
+ * would keep using the connection of the first shard a request works on, so both must be disabled.
+ */
+@Configuration
+@ConditionalOnProperty(name = "device.sharding.enabled", havingValue = "true")
+public class DeviceShardingConfig {
+
+    private ShardRoutingDataSource shardRoutingDataSource;
+
+    @Bean
+    @Primary
+    public DataSource dataSource(DataSourceProperties dataSourceProperties,
+                                @Value("${device.sharding.urls}") List<String> urls,
+                                @Value("${device.snapshot.enabled:true}") boolean snapshotEnabled,
+                                @Value("${spring.jpa.open-in-view:true}") boolean openInView) {
+        if (snapshotEnabled || openInView) {
+            throw new IllegalStateException(
+                    "device.snapshot.enabled and spring.jpa.open-in-view must be false with sharding!");
+        }
+
+        List<DataSource> shards = new ArrayList<>(urls.size());
+
+        for (String url : urls) {
+            HikariDataSource shard = dataSourceProperties.initializeDataSourceBuilder()
+                    .type(HikariDataSource.class)
+                    .url(url.trim())
+                    .build();
+            shard.setPoolName("shard-" + shards.size());
+            shards.add(shard);
+        }
+
+        shardRoutingDataSource = new ShardRoutingDataSource(shards);
+        return shardRoutingDataSource;
+    }
+
+    @Bean
+    public FlywayMigrationStrategy shardedFlywayMigrationStrategy(DeviceShardRouter deviceShardRouter) {
+        return flyway -> deviceShardRouter.forEachShard(() -> flyway.migrate());
+    }
+
+    /**
+     * Closes the pools of the shards, since the {@link DataSource} bean is wrapped by
+     * {@link com.francisco.deviceapi.sql.StatementCountingDataSourcePostProcessor} and can't be closed itself.
+     */
+    @PreDestroy
+    public void closeShards() {
+        if (shardRoutingDataSource != null) {
+            shardRoutingDataSource.close();
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.francisco.deviceapi.sharding;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks the parameter that decides the shard a method works on, when sharding is enabled: the ID of a
+ * {@link com.francisco.deviceapi.domain.Device}, a {@link com.francisco.deviceapi.domain.Device} or a Brand.
+ * <p>
+ * Calls to such methods are run on that shard by {@link DeviceShardAspect}, before any transaction or database
+ * connection is acquired.
+ */
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ShardKey {
+}
@@ -0,0 +1,58 @@
+package com.francisco.deviceapi.sharding;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link DataSource} that hands out connections to the database of the {@link DeviceShard} of the current thread, or
+ * of the first shard if none is set, like Flyway and Hibernate do on startup.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+
+    private final List<DataSource> shards;
+
+    /**
+     * @param shards the {@link DataSource} of each shard, in shard order.
+     */
+    public ShardRoutingDataSource(List<DataSource> shards) {
+        this.shards = List.copyOf(shards);
+        Map<Object, Object> targetDataSources = new HashMap<>();
+
+        for (int shard = 0; shard < shards.size(); shard++) {
+            targetDataSources.put(shard, shards.get(shard));
+        }
+
+        setTargetDataSources(targetDataSources);
+        setDefaultTargetDataSource(shards.getFirst());
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return DeviceShard.current();
+    }
+
+    /**
+     * Closes the connection pool of every shard.
+     */
+    @Override
+    public void close() {
+        for (DataSource shard : shards) {
+            if (shard instanceof Closeable closeable) {
+                try {
+                    closeable.close();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.francisco.deviceapi.sharding;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks the ID of {@link com.francisco.deviceapi.domain.Device}, generated by {@link ShardedDeviceIdGenerator}.
+ */
+@IdGeneratorType(ShardedDeviceIdGenerator.class)
+@Target({ElementType.FIELD, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ShardedDeviceId {
+}
@@ -0,0 +1,42 @@
+package com.francisco.deviceapi.sharding;
+
+import org.hibernate.HibernateException;
+import org.hibernate.MappingException;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.OptimizableGenerator;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.util.Properties;
+
+/**
+ * Generates the ID of a {@link com.francisco.deviceapi.domain.Device} from {@code device_sequence}, one value at a
+ * time, and encodes the {@link DeviceShard} of the current thread in it, if any.
+ * <p>
+ * Bulk inserts that would take the IDs straight from the sequence are not supported, since they couldn't encode
+ * the shard.
+ */
+public class ShardedDeviceIdGenerator extends SequenceStyleGenerator {
+
+    @Override
+    public void configure(Type type, Properties parameters, ServiceRegistry serviceRegistry) throws MappingException {
+        parameters.setProperty(SEQUENCE_PARAM, "device_sequence");
+        parameters.setProperty(OptimizableGenerator.INITIAL_PARAM, "1");
+        parameters.setProperty(OptimizableGenerator.INCREMENT_PARAM, "1");
+        super.configure(type, parameters, serviceRegistry);
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object object) throws HibernateException {
+        Long id = (Long) super.generate(session, object);
+        Integer shard = DeviceShard.current();
+
+        return shard != null ? DeviceShard.encodeId(id, shard) : id;
+    }
+
+    @Override
+    public boolean supportsBulkInsertionIdentifierGeneration() {
+        return false;
+    }
+}
@@ -0,0 +1,284 @@
+package com.francisco.deviceapi.snapshot;
+
+import com.francisco.deviceapi.domain.Device;
+import com.francisco.deviceapi.domain.enums.DeviceState;
+import com.francisco.deviceapi.dto.DeviceSnapshotDTO;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Memory-mapped binary snapshot of the {@link Device} catalog.
+ * <p>
+ * The file starts with a header, followed by one fixed-size record per {@link Device} ordered by ID, the names and
+ * the distinct brands. Records are read straight from the mapped file, so opening a snapshot costs the same for any
+ * number of {@link Device}, and a {@link Device} is found by a binary search over the records.
+ * <pre>
+ * header:  magic (int), version (int), watermark (long), count (int), brand count (int),
+ *          names offset (int), brands offset (int)
+ * record:  id (long), updated at (long), lease expires at (long), creation day (int), name offset (int),
+ *          brand index (int), state (byte), 3 bytes of padding
+ * names:   length (unsigned short), UTF-8 bytes
+ * brands:  length (unsigned short), UTF-8 bytes
+ * </pre>
+ * Times are microseconds since the epoch, and dates days since the epoch. A file is limited to 2GB, about 30
+ * million {@link Device}.
+ */
+public final class DeviceSnapshotFile {
+
+    private static final int MAGIC = 0x4456534E;
+
+    private static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = 32;
+
+    private static final int RECORD_SIZE = 40;
+
+    private static final long NO_TIME = Long.MIN_VALUE;
+
+    private static final DeviceState[] STATES = DeviceState.values();
+
+    private final ByteBuffer buffer;
+
+    private final Instant watermark;
+
+    private final int size;
+
+    private final int namesOffset;
+
+    private final String[] brands;
+
+    private DeviceSnapshotFile(ByteBuffer buffer, Instant watermark, int size, int namesOffset, String[] brands) {
+        this.buffer = buffer;
+        this.watermark = watermark;
+        this.size = size;
+        this.namesOffset = namesOffset;
+        this.brands = brands;
+    }
+
+    /**
+     * @return a snapshot without {@link Device}, older than any change.
+     */
+    public static DeviceSnapshotFile empty() {
+        return new DeviceSnapshotFile(ByteBuffer.allocate(0), Instant.EPOCH, 0, 0, new String[0]);
+    }
+
+    /**
+     * Maps a snapshot file, read-only.
+     *
+     * @param path the path of the file.
+     * @return the mapped snapshot.
+     * @throws IOException if the file can't be read or is not a valid snapshot.
+     */
+    public static DeviceSnapshotFile open(Path path) throws IOException {
+        MappedByteBuffer buffer;
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE || channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Invalid snapshot file " + path + "!");
+            }
+
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Invalid snapshot file " + path + "!");
+        }
+
+        Instant watermark = toInstant(buffer.getLong(8));
+        int size = buffer.getInt(16);
+        int brandCount = buffer.getInt(20);
+        int namesOffset = buffer.getInt(24);
+        int brandsOffset = buffer.getInt(28);
+
+        if (namesOffset != HEADER_SIZE + (long) size * RECORD_SIZE || brandsOffset < namesOffset
+                || brandsOffset > buffer.capacity()) {
+            throw new IOException("Invalid snapshot file " + path + "!");
+        }
+
+        String[] brands = new String[brandCount];
+        int offset = brandsOffset;
+
+        for (int i = 0; i < brandCount; i++) {
+            brands[i] = readString(buffer, offset);
+            offset += 2 + Short.toUnsignedInt(buffer.getShort(offset));
+        }
+
+        return new DeviceSnapshotFile(buffer, watermark, size, namesOffset, brands);
+    }
+
+    /**
+     * Writes a snapshot file through a memory mapping, replacing the existing one atomically once it's complete.
+     *
+     * @param path the path of the file.
+     * @param watermark the time the {@link Device} are up to date with.
+     * @param devices the {@link Device}, ordered by ID. Iterated twice.
+     * @throws IOException if the file can't be written.
+     */
+    public static void write(Path path, Instant watermark, Iterable<DeviceSnapshotDTO> devices) throws IOException {
+        int size = 0;
+        long namesSize = 0;
+        Map<String, Integer> brandIndexes = new HashMap<>();
+        List<byte[]> brands = new ArrayList<>();
+
+        for (DeviceSnapshotDTO device : devices) {
+            size++;
+            namesSize += 2 + device.name().getBytes(StandardCharsets.UTF_8).length;
+            brandIndexes.computeIfAbsent(device.brand(), brand -> {
+                brands.add(brand.getBytes(StandardCharsets.UTF_8));
+                return brands.size() - 1;
+            });
+        }
+
+        long namesOffset = HEADER_SIZE + (long) size * RECORD_SIZE;
+        long brandsOffset = namesOffset + namesSize;
+        long fileSize = brandsOffset + brands.stream().mapToLong(brand -> 2 + brand.length).sum();
+
+        if (fileSize > Integer.MAX_VALUE) {
+            throw new IOException("The snapshot of " + size + " devices is larger than 2GB!");
+        }
+
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        Path temporaryPath = path.resolveSibling(path.getFileName() + ".tmp");
+
+        try (FileChannel channel = FileChannel.open(temporaryPath, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+            buffer.putInt(MAGIC)
+                    .putInt(VERSION)
+                    .putLong(toMicros(watermark))
+                    .putInt(size)
+                    .putInt(brands.size())
+                    .putInt((int) namesOffset)
+                    .putInt((int) brandsOffset);
+
+            int recordOffset = HEADER_SIZE;
+            int nameOffset = (int) namesOffset;
+
+            for (DeviceSnapshotDTO device : devices) {
+                buffer.putLong(recordOffset, device.id())
+                        .putLong(recordOffset + 8, toMicros(device.updatedAt()))
+                        .putLong(recordOffset + 16, toMicros(device.leaseExpiresAt()))
+                        .putInt(recordOffset + 24, (int) device.creationTime().toEpochDay())
+                        .putInt(recordOffset + 28, nameOffset - (int) namesOffset)
+                        .putInt(recordOffset + 32, brandIndexes.get(device.brand()))
+                        .put(recordOffset + 36, (byte) device.state().ordinal());
+                nameOffset = writeString(buffer, nameOffset, device.name().getBytes(StandardCharsets.UTF_8));
+                recordOffset += RECORD_SIZE;
+            }
+
+            int brandOffset = (int) brandsOffset;
+
+            for (byte[] brand : brands) {
+                brandOffset = writeString(buffer, brandOffset, brand);
+            }
+
+            buffer.force();
+        }
+
+        Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @return the time the {@link Device} of the snapshot are up to date with.
+     */
+    public Instant watermark() {
+        return watermark;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param index the index of a record, from 0 to {@link #size()}.
+     * @return the ID of the {@link Device} of the record.
+     */
+    public long id(int index) {
+        return buffer.getLong(HEADER_SIZE + index * RECORD_SIZE);
+    }
+
+    /**
+     * @param index the index of a record, from 0 to {@link #size()}.
+     * @return the {@link Device} of the record.
+     */
+    public DeviceSnapshotDTO get(int index) {
+        int offset = HEADER_SIZE + index * RECORD_SIZE;
+
+        return new DeviceSnapshotDTO(
+                buffer.getLong(offset),
+                readString(buffer, namesOffset + buffer.getInt(offset + 28)),
+                brands[buffer.getInt(offset + 32)],
+                STATES[buffer.get(offset + 36)],
+                LocalDate.ofEpochDay(buffer.getInt(offset + 24)),
+                toInstant(buffer.getLong(offset + 16)),
+                toInstant(buffer.getLong(offset + 8)));
+    }
+
+    /**
+     * Finds the record of a {@link Device} with a binary search.
+     *
+     * @param id the ID of the {@link Device}.
+     * @return the index of the record, or a negative number if the {@link Device} is not in the snapshot.
+     */
+    public int indexOf(long id) {
+        int low = 0;
+        int high = size - 1;
+
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long middleId = id(middle);
+
+            if (middleId < id) {
+                low = middle + 1;
+            } else if (middleId > id) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+
+        return -1;
+    }
+
+    private static String readString(ByteBuffer buffer, int offset) {
+        byte[] bytes = new byte[Short.toUnsignedInt(buffer.getShort(offset))];
+        buffer.get(offset + 2, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int writeString(ByteBuffer buffer, int offset, byte[] bytes) {
+        buffer.putShort(offset, (short) bytes.length);
+        buffer.put(offset + 2, bytes);
+        return offset + 2 + bytes.length;
+    }
+
+    private static long toMicros(Instant instant) {
+        if (instant == null) {
+            return NO_TIME;
+        }
+
+        return Math.addExact(Math.multiplyExact(instant.getEpochSecond(), 1_000_000L), instant.getNano() / 1_000);
+    }
+
+    private static Instant toInstant(long micros) {
+        if (micros == NO_TIME) {
+            return null;
+        }
+
+        return Instant.ofEpochSecond(Math.floorDiv(micros, 1_000_000L), Math.floorMod(micros, 1_000_000L) * 1_000);
+    }
+}
@@ -0,0 +1,112 @@
+package com.francisco.deviceapi.sql;
+
+import com.francisco.deviceapi.concurrency.RequestDeadline;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * {@link DataSource} that bounds every statement by the {@link RequestDeadline} of the current thread.
+ * <p>
+ * Statements get a JDBC query timeout of the remaining time, rounded up to seconds, so the driver cancels them
+ * once the client has given up. On PostgreSQL, locking reads that wait for row locks also get the remaining time
+ * as the {@code lock_timeout} and {@code statement_timeout} of their transaction, with millisecond precision, at the
+ * cost of one extra statement. Statements are not prepared at all once the deadline is exceeded.
+ */
+public class DeadlineDataSource extends DelegatingDataSource {
+
+    private static final Pattern WAITING_LOCK = Pattern.compile("\\bfor\\s+(no\\s+key\\s+)?(update|share)\\b");
+
+    private static final Pattern NOT_WAITING_LOCK = Pattern.compile("\\b(nowait|skip\\s+locked)\\b");
+
+    private static final String SET_TIMEOUTS =
+            "select set_config('lock_timeout', ?, true), set_config('statement_timeout', ?, true)";
+
+    private volatile Boolean postgres;
+
+    public DeadlineDataSource(DataSource targetDataSource) {
+        super(targetDataSource);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return deadlineConnection(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return deadlineConnection(super.getConnection(username, password));
+    }
+
+    private Connection deadlineConnection(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    String name = method.getName();
+                    boolean preparing = name.equals("createStatement") || name.equals("prepareStatement")
+                            || name.equals("prepareCall");
+
+                    if (name.equals("equals") && method.getParameterCount() == 1) {
+                        return proxy == args[0];
+                    }
+
+                    if (preparing && RequestDeadline.isSet()) {
+                        RequestDeadline.checkNotExceeded();
+
+                        if (name.equals("prepareStatement") && waitsForLocks((String) args[0])
+                                && !connection.getAutoCommit() && isPostgres(connection)) {
+                            setTimeouts(connection, RequestDeadline.remainingMillis());
+                        }
+                    }
+
+                    Object result;
+
+                    try {
+                        result = method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+
+                    if (preparing && RequestDeadline.isSet()) {
+                        setQueryTimeout((Statement) result, RequestDeadline.remainingMillis());
+                    }
+
+                    return result;
+                });
+    }
+
+    private boolean isPostgres(Connection connection) throws SQLException {
+        if (postgres == null) {
+            postgres = connection.getMetaData().getDatabaseProductName().equals("PostgreSQL");
+        }
+
+        return postgres;
+    }
+
+    static boolean waitsForLocks(String sql) {
+        String lowerCaseSql = sql.toLowerCase(Locale.ROOT);
+        return WAITING_LOCK.matcher(lowerCaseSql).find() && !NOT_WAITING_LOCK.matcher(lowerCaseSql).find();
+    }
+
+    private static void setTimeouts(Connection connection, long remainingMillis) throws SQLException {
+        String timeout = Math.max(1, remainingMillis) + "ms";
+
+        try (PreparedStatement statement = connection.prepareStatement(SET_TIMEOUTS)) {
+            statement.setString(1, timeout);
+            statement.setString(2, timeout);
+            statement.execute();
+        }
+    }
+
+    private static void setQueryTimeout(Statement statement, long remainingMillis) throws SQLException {
+        long seconds = Math.max(1, (remainingMillis + 999) / 1000);
+        statement.setQueryTimeout((int) Math.min(seconds, Integer.MAX_VALUE));
+    }
+}
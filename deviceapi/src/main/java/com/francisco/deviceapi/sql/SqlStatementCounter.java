@@ -0,0 +1,121 @@
+package com.francisco.deviceapi.sql;
+
+/**
+ * Counts the JDBC statements and database round trips made by the current thread within a scope, and times the
+ * connection acquisitions, statement executions and lock waits.
+ * <p>
+ * Outside a scope nothing is counted.
+ */
+public final class SqlStatementCounter {
+
+    private static final ThreadLocal<Counts> COUNTS = new ThreadLocal<>();
+
+    private SqlStatementCounter() {
+
+    }
+
+    /**
+     * Starts a new scope on the current thread, replacing any scope already started.
+     */
+    public static void start() {
+        COUNTS.set(new Counts());
+    }
+
+    /**
+     * Ends the scope of the current thread.
+     *
+     * @return the counts of the ended scope, or zero counts if no scope was started.
+     */
+    public static Counts stop() {
+        Counts counts = current();
+        COUNTS.remove();
+        return counts;
+    }
+
+    /**
+     * @return the counts of the current scope so far, or zero counts if no scope was started.
+     */
+    public static Counts current() {
+        Counts counts = COUNTS.get();
+        return counts != null ? counts : new Counts();
+    }
+
+    static void statementExecuted(long elapsedNanos, boolean waitingForLocks) {
+        Counts counts = COUNTS.get();
+
+        if (counts != null) {
+            counts.statements++;
+            counts.roundTrips++;
+
+            if (waitingForLocks) {
+                counts.lockNanos += elapsedNanos;
+            } else {
+                counts.queryNanos += elapsedNanos;
+            }
+        }
+    }
+
+    static void roundTrip(long elapsedNanos) {
+        Counts counts = COUNTS.get();
+
+        if (counts != null) {
+            counts.roundTrips++;
+            counts.queryNanos += elapsedNanos;
+        }
+    }
+
+    static void connectionAcquired(long elapsedNanos) {
+        Counts counts = COUNTS.get();
+
+        if (counts != null) {
+            counts.connectionNanos += elapsedNanos;
+        }
+    }
+
+    /**
+     * JDBC statements executed and database round trips made, including commits and rollbacks, and the time spent
+     * in them.
+     * <p>
+     * Statements that wait for row locks are timed as lock time instead of query time, and only their execution
+     * is timed, not the fetching of their results.
+     */
+    public static final class Counts {
+
+        private int statements;
+
+        private int roundTrips;
+
+        private long connectionNanos;
+
+        private long queryNanos;
+
+        private long lockNanos;
+
+        public int statements() {
+            return statements;
+        }
+
+        public int roundTrips() {
+            return roundTrips;
+        }
+
+        public long connectionNanos() {
+            return connectionNanos;
+        }
+
+        public long queryNanos() {
+            return queryNanos;
+        }
+
+        public long lockNanos() {
+            return lockNanos;
+        }
+
+        /**
+         * @return the time spent acquiring connections, executing statements and waiting for locks.
+         */
+        public long totalNanos() {
+            return connectionNanos + queryNanos + lockNanos;
+        }
+    }
+}
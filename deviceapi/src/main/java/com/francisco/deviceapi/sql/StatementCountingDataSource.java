@@ -0,0 +1,110 @@
+package com.francisco.deviceapi.sql;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * {@link DataSource} that reports every connection acquisition, executed statement, commit and rollback, with the
+ * time it took, to {@link SqlStatementCounter}.
+ * <p>
+ * Counting happens at the JDBC level, so statements issued by Hibernate, Spring Data and plain JDBC are all seen.
+ * A batch counts as a single statement, and failed statements are counted as well. Locking reads that wait for
+ * row locks are told apart by their SQL, once per prepared statement.
+ */
+public class StatementCountingDataSource extends DelegatingDataSource {
+
+    public StatementCountingDataSource(DataSource targetDataSource) {
+        super(targetDataSource);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        long startNanos = System.nanoTime();
+        Connection connection = super.getConnection();
+        SqlStatementCounter.connectionAcquired(System.nanoTime() - startNanos);
+        return countingConnection(connection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        long startNanos = System.nanoTime();
+        Connection connection = super.getConnection(username, password);
+        SqlStatementCounter.connectionAcquired(System.nanoTime() - startNanos);
+        return countingConnection(connection);
+    }
+
+    private static Connection countingConnection(Connection connection) {
+        return proxy(Connection.class, (proxy, method, args) -> {
+            String name = method.getName();
+
+            if (!name.equals("commit") && !name.equals("rollback")) {
+                Object result = invoke(connection, proxy, method, args);
+
+                if (result instanceof Statement statement) {
+                    boolean waitingForLocks = name.equals("prepareStatement")
+                            && DeadlineDataSource.waitsForLocks((String) args[0]);
+                    return countingStatement(statement, waitingForLocks);
+                }
+
+                return result;
+            }
+
+            long startNanos = System.nanoTime();
+
+            try {
+                return invoke(connection, proxy, method, args);
+            } finally {
+                SqlStatementCounter.roundTrip(System.nanoTime() - startNanos);
+            }
+        });
+    }
+
+    private static Statement countingStatement(Statement statement, boolean preparedWaitingForLocks) {
+        Class<? extends Statement> type = statement instanceof CallableStatement ? CallableStatement.class
+                : statement instanceof PreparedStatement ? PreparedStatement.class
+                : Statement.class;
+
+        return proxy(type, (proxy, method, args) -> {
+            if (!method.getName().startsWith("execute")) {
+                return invoke(statement, proxy, method, args);
+            }
+
+            boolean waitingForLocks = preparedWaitingForLocks
+                    || args != null && args.length > 0 && args[0] instanceof String sql
+                    && DeadlineDataSource.waitsForLocks(sql);
+            long startNanos = System.nanoTime();
+
+            try {
+                return invoke(statement, proxy, method, args);
+            } finally {
+                SqlStatementCounter.statementExecuted(System.nanoTime() - startNanos, waitingForLocks);
+            }
+        });
+    }
+
+    private static Object invoke(Object target, Object proxy, Method method, Object[] args) throws Throwable {
+        if (method.getName().equals("equals") && method.getParameterCount() == 1) {
+            return proxy == args[0];
+        }
+
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+}
@@ -0,0 +1,23 @@
+package com.francisco.deviceapi.sql;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+/**
+ * Wraps every {@link DataSource} bean in a {@link StatementCountingDataSource} and then in a
+ * {@link DeadlineDataSource}, so the statements issued to enforce deadlines are counted as well.
+ */
+@Component
+public class StatementCountingDataSourcePostProcessor implements BeanPostProcessor {
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource && !(bean instanceof DeadlineDataSource)) {
+            return new DeadlineDataSource(new StatementCountingDataSource(dataSource));
+        }
+
+        return bean;
+    }
+}
@@ -0,0 +1,72 @@
+package com.francisco.deviceapi.web;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * Response wrapper that runs a callback once, right before the response can be committed.
+ * <p>
+ * Lets a filter add headers that are only known after the handler ran, without buffering the body. If the
+ * handler never writes a body, the filter must call {@link #beforeCommit()} itself.
+ */
+public class CommitAwareResponseWrapper extends HttpServletResponseWrapper {
+
+    private final Runnable beforeCommit;
+
+    private boolean done;
+
+    public CommitAwareResponseWrapper(HttpServletResponse response, Runnable beforeCommit) {
+        super(response);
+        this.beforeCommit = beforeCommit;
+    }
+
+    /**
+     * Runs the callback, unless it already ran or the response is already committed.
+     */
+    public void beforeCommit() {
+        if (!done && !isCommitted()) {
+            done = true;
+            beforeCommit.run();
+        }
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+        beforeCommit();
+        return super.getOutputStream();
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        beforeCommit();
+        return super.getWriter();
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+        beforeCommit();
+        super.flushBuffer();
+    }
+
+    @Override
+    public void sendError(int sc) throws IOException {
+        beforeCommit();
+        super.sendError(sc);
+    }
+
+    @Override
+    public void sendError(int sc, String msg) throws IOException {
+        beforeCommit();
+        super.sendError(sc, msg);
+    }
+
+    @Override
+    public void sendRedirect(String location) throws IOException {
+        beforeCommit();
+        super.sendRedirect(location);
+    }
+}
@@ -0,0 +1,135 @@
+package com.francisco.deviceapi.web;
+
+import com.francisco.deviceapi.concurrency.AdaptiveConcurrencyLimiter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Optional;
+
+/**
+ * Sheds the load on the device endpoints over an {@link AdaptiveConcurrencyLimiter}, with separate limits for
+ * reads and writes.
+ * <p>
+ * Requests over the limit are rejected with SERVICE_UNAVAILABLE and a {@code Retry-After} header before reaching
+ * a Tomcat queue or the connection pool. Requests that fail with a 5xx status are overload signals and shrink the
+ * limit, except SERVICE_UNAVAILABLE for a busy {@link com.francisco.deviceapi.domain.Device} and GATEWAY_TIMEOUT for
+ * an exceeded deadline: they are caused by one contended row or by the client, so they leave the limit as it is.
+ * Publishes the {@code device.concurrency.limit} and {@code device.concurrency.in.flight} gauges and the
+ * {@code device.concurrency.rejected} counter, tagged by operation.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    static final String DEVICES_PATH = "/api/v1/devices";
+
+    static final String OVERLOADED_BODY = "{\"errorMessage\":\"Service is overloaded, try again later!\"}";
+
+    private final boolean enabled;
+
+    private final String retryAfterSeconds;
+
+    private final AdaptiveConcurrencyLimiter readLimiter;
+
+    private final AdaptiveConcurrencyLimiter writeLimiter;
+
+    public ConcurrencyLimitFilter(ObjectProvider<MeterRegistry> meterRegistry,
+                                  @Value("${device.concurrency-limit.enabled:true}") boolean enabled,
+                                  @Value("${device.concurrency-limit.retry-after-seconds:1}") int retryAfterSeconds,
+                                  @Value("${device.concurrency-limit.read.initial:100}") int readInitial,
+                                  @Value("${device.concurrency-limit.read.max:400}") int readMax,
+                                  @Value("${device.concurrency-limit.write.initial:20}") int writeInitial,
+                                  @Value("${device.concurrency-limit.write.max:100}") int writeMax,
+                                  @Value("${device.concurrency-limit.min:4}") int min,
+                                  @Value("${device.concurrency-limit.tolerance:2.0}") double tolerance,
+                                  @Value("${device.concurrency-limit.window:600}") int window) {
+        this.enabled = enabled;
+        this.retryAfterSeconds = String.valueOf(retryAfterSeconds);
+        this.readLimiter = new AdaptiveConcurrencyLimiter(readInitial, min, readMax, tolerance, window);
+        this.writeLimiter = new AdaptiveConcurrencyLimiter(writeInitial, min, writeMax, tolerance, window);
+
+        meterRegistry.ifAvailable(registry -> {
+            registerMetrics(registry, "read", readLimiter);
+            registerMetrics(registry, "write", writeLimiter);
+        });
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return !enabled || !path.startsWith(DEVICES_PATH);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Optional<AdaptiveConcurrencyLimiter.Permit> permit = limiterOf(request).tryAcquire();
+
+        if (permit.isEmpty()) {
+            reject(response);
+            return;
+        }
+
+        int status = HttpStatus.INTERNAL_SERVER_ERROR.value();
+
+        try {
+            filterChain.doFilter(request, response);
+            status = response.getStatus();
+        } finally {
+            release(permit.get(), status);
+        }
+    }
+
+    private static void release(AdaptiveConcurrencyLimiter.Permit permit, int status) {
+        if (status == HttpStatus.SERVICE_UNAVAILABLE.value() || status == HttpStatus.GATEWAY_TIMEOUT.value()) {
+            permit.releaseIgnored();
+        } else if (status >= HttpStatus.INTERNAL_SERVER_ERROR.value()) {
+            permit.releaseDropped();
+        } else {
+            permit.release();
+        }
+    }
+
+    private AdaptiveConcurrencyLimiter limiterOf(HttpServletRequest request) {
+        String method = request.getMethod();
+        return HttpMethod.GET.matches(method) || HttpMethod.HEAD.matches(method) ? readLimiter : writeLimiter;
+    }
+
+    private void reject(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write(OVERLOADED_BODY);
+    }
+
+    private static void registerMetrics(MeterRegistry registry, String operation, AdaptiveConcurrencyLimiter limiter) {
+        Gauge.builder("device.concurrency.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                .description("Current concurrency limit of the device endpoints")
+                .tags("operation", operation)
+                .register(registry);
+        Gauge.builder("device.concurrency.in.flight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                .description("Device requests in flight")
+                .tags("operation", operation)
+                .register(registry);
+        FunctionCounter.builder("device.concurrency.rejected", limiter, AdaptiveConcurrencyLimiter::getRejectedCount)
+                .description("Device requests rejected over the concurrency limit")
+                .tags("operation", operation)
+                .register(registry);
+    }
+}
@@ -0,0 +1,182 @@
+package com.francisco.deviceapi.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.francisco.deviceapi.dto.DeviceDTO;
+import com.francisco.deviceapi.service.DeviceChangedEvent;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Writes {@link DeviceDTO} and collections of them as JSON from a cache of their serialized UTF-8 bytes.
+ * <p>
+ * Every {@link DeviceDTO} written is serialized once with the application {@link ObjectMapper}, and its bytes are
+ * reused while the {@link DeviceDTO} to be written is equal to the one they were serialized from, so a cached
+ * entry is never written for another version of the device. Entries are evicted by {@link DeviceChangedEvent},
+ * and an arbitrary one is dropped whenever the cache is full. Publishes the hits and misses as the
+ * {@code device.json.cache} counter.
+ * <p>
+ * Registered ahead of the Jackson converter, which still writes every other type.
+ */
+@Component
+public class DeviceJsonHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+    private final ObjectMapper objectMapper;
+
+    private final boolean enabled;
+
+    private final int maxEntries;
+
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    public DeviceJsonHttpMessageConverter(ObjectMapper objectMapper,
+                                          ObjectProvider<MeterRegistry> meterRegistry,
+                                          @Value("${device.json-cache.enabled:true}") boolean enabled,
+                                          @Value("${device.json-cache.max-entries:10000}") int maxEntries) {
+        super(MediaType.APPLICATION_JSON);
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.maxEntries = maxEntries;
+
+        meterRegistry.ifAvailable(registry -> {
+            FunctionCounter.builder("device.json.cache", hits, LongAdder::sum)
+                    .description("Devices written from their cached JSON")
+                    .tags("outcome", "hit")
+                    .register(registry);
+            FunctionCounter.builder("device.json.cache", misses, LongAdder::sum)
+                    .description("Devices serialized to JSON")
+                    .tags("outcome", "miss")
+                    .register(registry);
+        });
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return enabled && clazz == DeviceDTO.class;
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        if (enabled && type instanceof ParameterizedType parameterizedType
+                && parameterizedType.getRawType() instanceof Class<?> rawType
+                && Collection.class.isAssignableFrom(rawType)
+                && parameterizedType.getActualTypeArguments()[0] == DeviceDTO.class) {
+            return canWrite(mediaType);
+        }
+
+        return canWrite(clazz, mediaType);
+    }
+
+    /**
+     * Evicts the JSON of the {@link DeviceDTO} changed by a {@link DeviceChangedEvent}, once its transaction
+     * commits.
+     *
+     * @param event the {@link DeviceChangedEvent}.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDeviceChanged(DeviceChangedEvent event) {
+        event.ids().forEach(entries::remove);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    @Override
+    protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage) throws IOException {
+        OutputStream body = outputMessage.getBody();
+
+        if (object instanceof DeviceDTO deviceDTO) {
+            body.write(json(deviceDTO));
+            return;
+        }
+
+        body.write('[');
+        Iterator<?> devices = ((Collection<?>) object).iterator();
+
+        while (devices.hasNext()) {
+            body.write(json((DeviceDTO) devices.next()));
+
+            if (devices.hasNext()) {
+                body.write(',');
+            }
+        }
+
+        body.write(']');
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Devices are not read from cached JSON!", inputMessage);
+    }
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Devices are not read from cached JSON!", inputMessage);
+    }
+
+    private byte[] json(DeviceDTO deviceDTO) throws IOException {
+        if (deviceDTO.id() == null) {
+            return objectMapper.writeValueAsBytes(deviceDTO);
+        }
+
+        Entry entry = entries.get(deviceDTO.id());
+
+        if (entry != null && entry.deviceDTO().equals(deviceDTO)) {
+            hits.increment();
+            return entry.json();
+        }
+
+        misses.increment();
+        byte[] json = objectMapper.writeValueAsBytes(deviceDTO);
+
+        if (entries.size() >= maxEntries) {
+            evictOne();
+        }
+
+        entries.put(deviceDTO.id(), new Entry(deviceDTO, json));
+        return json;
+    }
+
+    private void evictOne() {
+        Iterator<Long> ids = entries.keySet().iterator();
+
+        if (ids.hasNext()) {
+            entries.remove(ids.next());
+        }
+    }
+
+    private record Entry(DeviceDTO deviceDTO, byte[] json) {}
+}
@@ -0,0 +1,83 @@
+package com.francisco.deviceapi.web;
+
+import com.francisco.deviceapi.concurrency.RequestDeadline;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.EmbeddedValueResolverAware;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringValueResolver;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+/**
+ * Sets the {@link RequestDeadline} of every request handled by a controller.
+ * <p>
+ * The timeout is taken from the {@value #TIMEOUT_HEADER} header, in milliseconds and capped at
+ * {@code device.deadline.max-ms}, or else from the {@link RequestTimeout} of the handler method, or else from
+ * {@code device.deadline.default-ms}. The deadline is cleared when the request thread is released by an
+ * asynchronous handler, whose work is not bound by it.
+ */
+@Component
+public class RequestDeadlineInterceptor implements AsyncHandlerInterceptor, EmbeddedValueResolverAware {
+
+    public static final String TIMEOUT_HEADER = "X-Request-Timeout";
+
+    private final long defaultTimeoutMillis;
+
+    private final long maxTimeoutMillis;
+
+    private StringValueResolver valueResolver;
+
+    public RequestDeadlineInterceptor(@Value("${device.deadline.default-ms:2000}") long defaultTimeoutMillis,
+                                      @Value("${device.deadline.max-ms:30000}") long maxTimeoutMillis) {
+        this.defaultTimeoutMillis = defaultTimeoutMillis;
+        this.maxTimeoutMillis = maxTimeoutMillis;
+    }
+
+    @Override
+    public void setEmbeddedValueResolver(StringValueResolver resolver) {
+        this.valueResolver = resolver;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (handler instanceof HandlerMethod handlerMethod) {
+            RequestDeadline.start(timeoutOf(request, handlerMethod));
+        }
+
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        RequestDeadline.clear();
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+                                               Object handler) {
+        RequestDeadline.clear();
+    }
+
+    private long timeoutOf(HttpServletRequest request, HandlerMethod handlerMethod) {
+        String header = request.getHeader(TIMEOUT_HEADER);
+
+        if (header != null) {
+            try {
+                return Math.clamp(Long.parseLong(header.trim()), 0, maxTimeoutMillis);
+            } catch (NumberFormatException e) {
+                // Falls back to the default of the handler.
+            }
+        }
+
+        RequestTimeout requestTimeout = handlerMethod.getMethodAnnotation(RequestTimeout.class);
+
+        if (requestTimeout == null) {
+            return defaultTimeoutMillis;
+        }
+
+        return Long.parseLong(valueResolver.resolveStringValue(requestTimeout.value()));
+    }
+}
@@ -0,0 +1,21 @@
+package com.francisco.deviceapi.web;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Overrides the default request timeout of a handler method, used when the client doesn't send one.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RequestTimeout {
+
+    /**
+     * @return the timeout in milliseconds, which may be a property placeholder.
+     */
+    String value();
+}
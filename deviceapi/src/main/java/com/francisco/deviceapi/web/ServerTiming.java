@@ -0,0 +1,155 @@
+package com.francisco.deviceapi.web;
+
+import com.francisco.deviceapi.controller.DeviceController;
+import com.francisco.deviceapi.mapper.DeviceMapper;
+import com.francisco.deviceapi.service.DeviceService;
+import com.francisco.deviceapi.sql.SqlStatementCounter;
+
+/**
+ * Times the phases of the request handled by the current thread within a scope.
+ * <p>
+ * The phases don't overlap: DB time is not part of the {@link DeviceService} time, so the phases of a request add
+ * up to, at most, its total time. Outside a scope nothing is timed.
+ */
+public final class ServerTiming {
+
+    private static final ThreadLocal<Timings> TIMINGS = new ThreadLocal<>();
+
+    private ServerTiming() {
+
+    }
+
+    /**
+     * Starts a new scope on the current thread, replacing any scope already started.
+     */
+    public static void start() {
+        TIMINGS.set(new Timings(System.nanoTime()));
+    }
+
+    /**
+     * Ends the scope of the current thread.
+     *
+     * @return the timings of the ended scope, or null if no scope was started.
+     */
+    public static Timings stop() {
+        Timings timings = TIMINGS.get();
+        TIMINGS.remove();
+        return timings;
+    }
+
+    /**
+     * @return the timings of the current scope so far, or null if no scope was started.
+     */
+    public static Timings current() {
+        return TIMINGS.get();
+    }
+
+    /**
+     * Marks the start of the {@link DeviceController} method, which ends the parsing of the request.
+     */
+    static void handlerStarted() {
+        Timings timings = TIMINGS.get();
+
+        if (timings != null && !timings.handlerStarted) {
+            timings.handlerStarted = true;
+            timings.handlerStartNanos = System.nanoTime();
+        }
+    }
+
+    /**
+     * Marks the end of the {@link DeviceController} method, which starts the writing of the response.
+     */
+    static void handlerEnded() {
+        Timings timings = TIMINGS.get();
+
+        if (timings != null) {
+            timings.handlerEnded = true;
+            timings.handlerEndNanos = System.nanoTime();
+        }
+    }
+
+    static void mapperCalled(long elapsedNanos) {
+        Timings timings = TIMINGS.get();
+
+        if (timings != null) {
+            timings.mapperNanos += elapsedNanos;
+        }
+    }
+
+    static void serviceCalled(long elapsedNanos, long dbNanos) {
+        Timings timings = TIMINGS.get();
+
+        if (timings != null) {
+            timings.serviceNanos += Math.max(0, elapsedNanos - dbNanos);
+        }
+    }
+
+    /**
+     * Time spent in each phase of a request.
+     * <p>
+     * The parsing covers everything from the start of the scope to the {@link DeviceController} method, mostly
+     * reading, parsing and validating the parameters and body of the request, or to now for requests rejected
+     * before reaching it. The serialization covers everything from the end of the {@link DeviceController} method,
+     * mostly writing the response body, including the ones of exception handlers. The DB phases come from the
+     * {@link SqlStatementCounter} of the request.
+     */
+    public static final class Timings {
+
+        private final long startNanos;
+
+        private boolean handlerStarted;
+
+        private long handlerStartNanos;
+
+        private boolean handlerEnded;
+
+        private long handlerEndNanos;
+
+        private long mapperNanos;
+
+        private long serviceNanos;
+
+        private Timings(long startNanos) {
+            this.startNanos = startNanos;
+        }
+
+        /**
+         * @param nowNanos the current {@link System#nanoTime()}.
+         * @return the time from the start of the scope to the {@link DeviceController} method, or to now if it was
+         * not reached.
+         */
+        public long parseNanos(long nowNanos) {
+            return (handlerStarted ? handlerStartNanos : nowNanos) - startNanos;
+        }
+
+        /**
+         * @return the time spent in {@link DeviceMapper}.
+         */
+        public long mapperNanos() {
+            return mapperNanos;
+        }
+
+        /**
+         * @return the time spent in {@link DeviceService}, without its DB time.
+         */
+        public long serviceNanos() {
+            return serviceNanos;
+        }
+
+        /**
+         * @param nowNanos the current {@link System#nanoTime()}.
+         * @return the time from the end of the {@link DeviceController} method to now, or 0 if it did not end.
+         */
+        public long serializeNanos(long nowNanos) {
+            return handlerEnded ? nowNanos - handlerEndNanos : 0;
+        }
+
+        /**
+         * @param nowNanos the current {@link System#nanoTime()}.
+         * @return the time from the start of the scope to now.
+         */
+        public long totalNanos(long nowNanos) {
+            return nowNanos - startNanos;
+        }
+    }
+}
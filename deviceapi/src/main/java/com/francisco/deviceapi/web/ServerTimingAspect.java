@@ -0,0 +1,72 @@
+package com.francisco.deviceapi.web;
+
+import com.francisco.deviceapi.controller.DeviceController;
+import com.francisco.deviceapi.mapper.DeviceMapper;
+import com.francisco.deviceapi.service.DeviceService;
+import com.francisco.deviceapi.sql.SqlStatementCounter;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reports the calls to {@link DeviceController}, {@link DeviceMapper} and {@link DeviceService} to
+ * {@link ServerTiming}.
+ * <p>
+ * Runs with the highest precedence, so {@link DeviceService} calls are timed with their lock waits, transactions
+ * and commits. Calls made outside a {@link ServerTiming} scope are not timed.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ServerTimingAspect {
+
+    @Around("within(com.francisco.deviceapi.controller.DeviceController)")
+    public Object timeHandler(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (ServerTiming.current() == null) {
+            return joinPoint.proceed();
+        }
+
+        ServerTiming.handlerStarted();
+
+        try {
+            return joinPoint.proceed();
+        } finally {
+            ServerTiming.handlerEnded();
+        }
+    }
+
+    @Around("within(com.francisco.deviceapi.mapper.DeviceMapper+)")
+    public Object timeMapper(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (ServerTiming.current() == null) {
+            return joinPoint.proceed();
+        }
+
+        long startNanos = System.nanoTime();
+
+        try {
+            return joinPoint.proceed();
+        } finally {
+            ServerTiming.mapperCalled(System.nanoTime() - startNanos);
+        }
+    }
+
+    @Around("within(com.francisco.deviceapi.service.DeviceService)")
+    public Object timeService(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (ServerTiming.current() == null) {
+            return joinPoint.proceed();
+        }
+
+        long startDbNanos = SqlStatementCounter.current().totalNanos();
+        long startNanos = System.nanoTime();
+
+        try {
+            return joinPoint.proceed();
+        } finally {
+            ServerTiming.serviceCalled(System.nanoTime() - startNanos,
+                    SqlStatementCounter.current().totalNanos() - startDbNanos);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.francisco.deviceapi.web;
+
+import com.francisco.deviceapi.sql.SqlStatementCounter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Breaks down the latency of every device request by phase with {@link ServerTiming}.
+ * <p>
+ * The breakdown is returned in the {@value #SERVER_TIMING_HEADER} header, as the {@code parse}, {@code mapper},
+ * {@code service}, {@code db-connect}, {@code db-query}, {@code db-lock} and {@code total} metrics, in milliseconds.
+ * The header is sent before the response body, so it can't include the time spent writing it: the breakdown is
+ * logged once the response is complete, with the {@code serialize} phase, at INFO for requests slower than
+ * {@code device.server-timing.log-threshold-ms} and at DEBUG for the others.
+ * <p>
+ * Runs inside {@link SqlStatementCountFilter}, whose scope gives the DB phases.
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE)
+@Slf4j
+public class ServerTimingFilter extends OncePerRequestFilter {
+
+    public static final String SERVER_TIMING_HEADER = "Server-Timing";
+
+    private final boolean enabled;
+
+    private final long logThresholdNanos;
+
+    public ServerTimingFilter(@Value("${device.server-timing.enabled:true}") boolean enabled,
+                              @Value("${device.server-timing.log-threshold-ms:500}") long logThresholdMillis) {
+        this.enabled = enabled;
+        this.logThresholdNanos = TimeUnit.MILLISECONDS.toNanos(logThresholdMillis);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return !enabled || !path.startsWith(ConcurrencyLimitFilter.DEVICES_PATH);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        ServerTiming.start();
+
+        CommitAwareResponseWrapper wrapper = new CommitAwareResponseWrapper(response, () ->
+                response.setHeader(SERVER_TIMING_HEADER, header(ServerTiming.current(),
+                        SqlStatementCounter.current(), System.nanoTime())));
+
+        try {
+            filterChain.doFilter(request, wrapper);
+            wrapper.beforeCommit();
+        } finally {
+            log(request, response, ServerTiming.stop(), SqlStatementCounter.current(), System.nanoTime());
+        }
+    }
+
+    private void log(HttpServletRequest request, HttpServletResponse response, ServerTiming.Timings timings,
+                     SqlStatementCounter.Counts counts, long nowNanos) {
+        boolean slow = timings.totalNanos(nowNanos) >= logThresholdNanos;
+
+        if (!slow && !log.isDebugEnabled()) {
+            return;
+        }
+
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        StringBuilder line = new StringBuilder(request.getMethod()).append(' ')
+                .append(pattern != null ? pattern : request.getRequestURI()).append(' ')
+                .append(response.getStatus()).append(' ');
+        appendMetrics(line, timings, counts, nowNanos, false);
+
+        if (slow) {
+            log.info("Slow request: {}", line);
+        } else {
+            log.debug("Request: {}", line);
+        }
+    }
+
+    private static String header(ServerTiming.Timings timings, SqlStatementCounter.Counts counts, long nowNanos) {
+        StringBuilder header = new StringBuilder(160);
+        appendMetrics(header, timings, counts, nowNanos, true);
+        return header.toString();
+    }
+
+    private static void appendMetrics(StringBuilder target, ServerTiming.Timings timings,
+                                      SqlStatementCounter.Counts counts, long nowNanos, boolean header) {
+        String delimiter = header ? ", " : " ";
+        appendMetric(target, "parse", timings.parseNanos(nowNanos), header);
+        appendMetric(target.append(delimiter), "mapper", timings.mapperNanos(), header);
+        appendMetric(target.append(delimiter), "service", timings.serviceNanos(), header);
+        appendMetric(target.append(delimiter), "db-connect", counts.connectionNanos(), header);
+        appendMetric(target.append(delimiter), "db-query", counts.queryNanos(), header);
+        appendMetric(target.append(delimiter), "db-lock", counts.lockNanos(), header);
+
+        if (!header) {
+            appendMetric(target.append(delimiter), "serialize", timings.serializeNanos(nowNanos), false);
+        }
+
+        appendMetric(target.append(delimiter), "total", timings.totalNanos(nowNanos), header);
+    }
+
+    private static void appendMetric(StringBuilder target, String name, long nanos, boolean header) {
+        long micros = TimeUnit.NANOSECONDS.toMicros(Math.max(0, nanos));
+        long fraction = micros % 1000;
+        target.append(name).append(header ? ";dur=" : "=").append(micros / 1000).append('.');
+
+        if (fraction < 100) {
+            target.append(fraction < 10 ? "00" : "0");
+        }
+
+        target.append(fraction);
+
+        if (!header) {
+            target.append("ms");
+        }
+    }
+}
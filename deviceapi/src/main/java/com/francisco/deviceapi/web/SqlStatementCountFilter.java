@@ -0,0 +1,82 @@
+package com.francisco.deviceapi.web;
+
+import com.francisco.deviceapi.sql.SqlStatementCounter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Counts the SQL statements and database round trips of every request.
+ * <p>
+ * The counts are returned in the {@value #STATEMENTS_HEADER} and {@value #ROUND_TRIPS_HEADER} headers and
+ * recorded in the {@code http.server.requests.sql.statements} and {@code http.server.requests.sql.round.trips}
+ * distribution summaries, tagged by method and URI template. Runs right before {@link ServerTimingFilter}, which
+ * reads the DB time of the request from the same scope.
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 1)
+public class SqlStatementCountFilter extends OncePerRequestFilter {
+
+    public static final String STATEMENTS_HEADER = "X-SQL-Statement-Count";
+
+    public static final String ROUND_TRIPS_HEADER = "X-SQL-Round-Trips";
+
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    public SqlStatementCountFilter(ObjectProvider<MeterRegistry> meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        SqlStatementCounter.start();
+
+        CommitAwareResponseWrapper wrapper = new CommitAwareResponseWrapper(response, () -> {
+            SqlStatementCounter.Counts counts = SqlStatementCounter.current();
+            response.setHeader(STATEMENTS_HEADER, String.valueOf(counts.statements()));
+            response.setHeader(ROUND_TRIPS_HEADER, String.valueOf(counts.roundTrips()));
+        });
+
+        try {
+            filterChain.doFilter(request, wrapper);
+            wrapper.beforeCommit();
+        } finally {
+            record(request, SqlStatementCounter.stop());
+        }
+    }
+
+    private void record(HttpServletRequest request, SqlStatementCounter.Counts counts) {
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+
+        if (registry == null) {
+            return;
+        }
+
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+
+        summary(registry, "http.server.requests.sql.statements", request.getMethod(), uri)
+                .record(counts.statements());
+        summary(registry, "http.server.requests.sql.round.trips", request.getMethod(), uri)
+                .record(counts.roundTrips());
+    }
+
+    private static DistributionSummary summary(MeterRegistry registry, String name, String method, String uri) {
+        return DistributionSummary.builder(name)
+                .tag("method", method)
+                .tag("uri", uri)
+                .register(registry);
+    }
+}
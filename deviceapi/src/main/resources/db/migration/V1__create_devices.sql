@@ -0,0 +1,11 @@
+CREATE SEQUENCE device_sequence START WITH 1 INCREMENT BY 1;
+
+CREATE TABLE devices (
+    id               BIGINT                      NOT NULL,
+    name             VARCHAR(255)                NOT NULL,
+    brand            VARCHAR(255)                NOT NULL,
+    state            VARCHAR(255)                NOT NULL CHECK (state IN ('AVAILABLE', 'IN_USE', 'INACTIVE')),
+    creation_time    DATE                        NOT NULL,
+    lease_expires_at TIMESTAMP(6) WITH TIME ZONE,
+    PRIMARY KEY (id)
+);
@@ -0,0 +1,12 @@
+-- Cold table for INACTIVE devices, moved out of devices in background batches.
+CREATE TABLE devices_archive (
+    id            BIGINT                      NOT NULL,
+    name          VARCHAR(255)                NOT NULL,
+    brand         VARCHAR(255)                NOT NULL,
+    state         VARCHAR(255)                NOT NULL CHECK (state = 'INACTIVE'),
+    creation_time DATE                        NOT NULL,
+    archived_at   TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE INDEX devices_archive_brand_name_idx ON devices_archive (brand, name);
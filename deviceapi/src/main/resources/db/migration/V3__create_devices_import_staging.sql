@@ -0,0 +1,11 @@
+-- Rows of CSV imports, loaded with COPY and merged into devices with one statement per import.
+CREATE TABLE devices_import_staging (
+    import_id     UUID         NOT NULL,
+    line          BIGINT       NOT NULL,
+    name          VARCHAR(255) NOT NULL,
+    brand         VARCHAR(255) NOT NULL,
+    state         VARCHAR(255) NOT NULL,
+    creation_time DATE         NOT NULL
+);
+
+CREATE INDEX devices_import_staging_import_id_idx ON devices_import_staging (import_id, name, brand, line);
@@ -0,0 +1,4 @@
+-- Last change of each device, so in-memory state restored from a snapshot can catch up with a delta query.
+ALTER TABLE devices ADD COLUMN updated_at TIMESTAMP(6) WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP NOT NULL;
+
+CREATE INDEX devices_updated_at_idx ON devices (updated_at);
@@ -0,0 +1,4 @@
+-- Range filters and per-day histograms on the creation date.
+CREATE INDEX devices_creation_time_idx ON devices (creation_time);
+
+CREATE INDEX devices_archive_creation_time_idx ON devices_archive (creation_time);
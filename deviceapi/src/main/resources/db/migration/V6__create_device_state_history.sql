@@ -0,0 +1,12 @@
+-- Append-only audit trail of device state transitions, inserted in batches by a background writer.
+-- Rows outlive the device, so there is no foreign key to devices.
+CREATE TABLE device_state_history (
+    id         BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    device_id  BIGINT                      NOT NULL,
+    old_state  VARCHAR(255)                NOT NULL,
+    new_state  VARCHAR(255)                NOT NULL,
+    changed_at TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE INDEX device_state_history_device_id_idx ON device_state_history (device_id, id);
@@ -0,0 +1,5 @@
+-- Serves the Brand filter and the Name and Brand existence check.
+CREATE INDEX devices_brand_name_idx ON devices (brand, name);
+
+-- Serves the State filter, alone or with a Brand.
+CREATE INDEX devices_state_brand_idx ON devices (state, brand);
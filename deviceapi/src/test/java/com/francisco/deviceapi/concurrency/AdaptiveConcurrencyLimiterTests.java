@@ -0,0 +1,95 @@
+package com.francisco.deviceapi.concurrency;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AdaptiveConcurrencyLimiterTests {
+
+    private static final long RTT_NANOS = 10_000_000L;
+
+    private AdaptiveConcurrencyLimiter limiter;
+
+    @BeforeEach
+    void setup() {
+        limiter = new AdaptiveConcurrencyLimiter(10, 2, 50, 2.0, 100);
+    }
+
+    @Test
+    public void whenLimitReached_thenRejectUntilPermitReleased() {
+        AdaptiveConcurrencyLimiter.Permit[] permits = new AdaptiveConcurrencyLimiter.Permit[10];
+
+        for (int i = 0; i < permits.length; i++) {
+            permits[i] = limiter.tryAcquire().orElseThrow();
+        }
+
+        assertTrue(limiter.tryAcquire().isEmpty());
+        assertEquals(1, limiter.getRejectedCount());
+
+        permits[0].release();
+        permits[0].release();
+
+        assertEquals(9, limiter.getInFlight());
+        assertTrue(limiter.tryAcquire().isPresent());
+    }
+
+    @Test
+    public void whenSaturatedWithSteadyLatency_thenGrowLimitUpToMax() {
+        for (int i = 0; i < 500; i++) {
+            limiter.onSample(RTT_NANOS, limiter.getLimit(), false);
+        }
+
+        assertEquals(50, limiter.getLimit());
+    }
+
+    @Test
+    public void whenLatencyIncreases_thenShrinkLimit() {
+        for (int i = 0; i < 20; i++) {
+            limiter.onSample(RTT_NANOS, limiter.getLimit(), false);
+        }
+        int limitBefore = limiter.getLimit();
+
+        for (int i = 0; i < 20; i++) {
+            limiter.onSample(RTT_NANOS * 10, limiter.getLimit(), false);
+        }
+
+        assertTrue(limiter.getLimit() < limitBefore / 2);
+    }
+
+    @Test
+    public void whenMostlyIdle_thenKeepLimit() {
+        for (int i = 0; i < 50; i++) {
+            limiter.onSample(RTT_NANOS, 1, false);
+        }
+        for (int i = 0; i < 50; i++) {
+            limiter.onSample(RTT_NANOS * 10, 1, false);
+        }
+
+        assertEquals(10, limiter.getLimit());
+    }
+
+    @Test
+    public void whenCallsDropped_thenBackOffDownToMin() {
+        for (int i = 0; i < 100; i++) {
+            Optional<AdaptiveConcurrencyLimiter.Permit> permit = limiter.tryAcquire();
+            permit.orElseThrow().releaseDropped();
+        }
+
+        assertEquals(2, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    public void whenCallsIgnored_thenKeepLimit() {
+        for (int i = 0; i < 100; i++) {
+            limiter.tryAcquire().orElseThrow().releaseIgnored();
+        }
+
+        assertEquals(10, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+}
@@ -0,0 +1,148 @@
+package com.francisco.deviceapi.concurrency;
+
+import com.francisco.deviceapi.exception.DeadlineExceededException;
+import com.francisco.deviceapi.exception.DeviceBusyException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DeviceWriteStripesTests {
+
+    private DeviceWriteStripes deviceWriteStripes;
+
+    @BeforeEach
+    void setup() {
+        deviceWriteStripes = new DeviceWriteStripes(16, 50);
+    }
+
+    @Test
+    public void whenDeviceLockedByOtherThread_thenThrowDeviceBusyException() throws Exception {
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try {
+            executor.submit(() -> {
+                try (DeviceWriteStripes.Stripe ignored = deviceWriteStripes.lock(1L)) {
+                    locked.countDown();
+                    release.await();
+                }
+                return null;
+            });
+            locked.await(1, TimeUnit.SECONDS);
+
+            assertThrows(DeviceBusyException.class, () -> deviceWriteStripes.lock(1L));
+            assertDoesNotThrow(() -> deviceWriteStripes.lock(2L).close());
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void whenDeadlineBeforeLockTimeout_thenThrowDeadlineExceededException() throws Exception {
+        DeviceWriteStripes stripes = new DeviceWriteStripes(16, 5000);
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try {
+            executor.submit(() -> {
+                try (DeviceWriteStripes.Stripe ignored = stripes.lock(1L)) {
+                    locked.countDown();
+                    release.await();
+                }
+                return null;
+            });
+            locked.await(1, TimeUnit.SECONDS);
+            RequestDeadline.start(50);
+
+            assertThrows(DeadlineExceededException.class, () -> stripes.lock(1L));
+        } finally {
+            RequestDeadline.clear();
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void whenLockAllReleased_thenDevicesCanBeLockedAgain() throws Exception {
+        try (DeviceWriteStripes.Stripe ignored = deviceWriteStripes.lockAll(List.of(3L, 1L, 19L))) {
+            assertDoesNotThrow(() -> deviceWriteStripes.lock(1L).close());
+        }
+
+        CompletableFuture.runAsync(() -> deviceWriteStripes.lock(19L).close()).get(1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void whenConcurrentSerializedWrites_thenWritesOfSameDeviceNeverOverlap() throws Exception {
+        Writer target = new Writer();
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(target);
+        proxyFactory.addAspect(new SerializedDeviceWriteAspect(new DeviceWriteStripes(16, 5000)));
+        Writer writer = proxyFactory.getProxy();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        try {
+            List<CompletableFuture<Void>> writes = IntStream.range(0, 200)
+                    .mapToObj(i -> CompletableFuture.runAsync(() -> writer.write(7L), executor))
+                    .toList();
+            CompletableFuture.allOf(writes.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(1, target.maxConcurrentWriters.get());
+    }
+
+    @Test
+    public void whenTryLockNowDeviceLockedByOtherThread_thenReturnEmptyWithoutWaiting() throws Exception {
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try {
+            executor.submit(() -> {
+                try (DeviceWriteStripes.Stripe ignored = deviceWriteStripes.lock(1L)) {
+                    locked.countDown();
+                    release.await();
+                }
+                return null;
+            });
+            locked.await(1, TimeUnit.SECONDS);
+
+            assertTrue(deviceWriteStripes.tryLockNow(1L).isEmpty());
+            deviceWriteStripes.tryLockNow(2L).orElseThrow().close();
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+
+    static class Writer {
+
+        private final AtomicInteger writers = new AtomicInteger();
+
+        private final AtomicInteger maxConcurrentWriters = new AtomicInteger();
+
+        @SerializedDeviceWrite
+        public void write(Long id) {
+            maxConcurrentWriters.accumulateAndGet(writers.incrementAndGet(), Math::max);
+            Thread.onSpinWait();
+            writers.decrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.francisco.deviceapi.concurrency;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RingBufferTests {
+
+    @Test
+    public void whenBufferFull_thenRejectUntilDrained() {
+        RingBuffer<Integer> ringBuffer = new RingBuffer<>(3);
+        List<Integer> drained = new ArrayList<>();
+
+        assertEquals(4, ringBuffer.capacity());
+        IntStream.range(0, 4).forEach(i -> assertTrue(ringBuffer.offer(i)));
+        assertFalse(ringBuffer.offer(4));
+
+        assertEquals(3, ringBuffer.drainTo(drained, 3));
+        assertTrue(ringBuffer.offer(4));
+        assertEquals(2, ringBuffer.drainTo(drained, 10));
+
+        assertEquals(List.of(0, 1, 2, 3, 4), drained);
+        assertEquals(0, ringBuffer.size());
+    }
+
+    @Test
+    public void whenConcurrentProducers_thenDrainEveryElementOnce() {
+        RingBuffer<Integer> ringBuffer = new RingBuffer<>(256);
+        Set<Integer> drained = new HashSet<>();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try {
+            CompletableFuture<?>[] producers = IntStream.range(0, 4)
+                    .mapToObj(producer -> CompletableFuture.runAsync(() -> {
+                        for (int i = producer * 2_500; i < (producer + 1) * 2_500; i++) {
+                            while (!ringBuffer.offer(i)) {
+                                Thread.onSpinWait();
+                            }
+                        }
+                    }, executor))
+                    .toArray(CompletableFuture[]::new);
+            CompletableFuture<Void> produced = CompletableFuture.allOf(producers);
+
+            while (!produced.isDone() || ringBuffer.size() > 0) {
+                ringBuffer.drainTo(drained, 64);
+            }
+
+            produced.join();
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(10_000, drained.size());
+    }
+}
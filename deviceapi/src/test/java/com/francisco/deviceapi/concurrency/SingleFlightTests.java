@@ -0,0 +1,70 @@
+package com.francisco.deviceapi.concurrency;
+
+import com.francisco.deviceapi.exception.DeadlineExceededException;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class SingleFlightTests {
+
+    private final SingleFlight<Long, String> singleFlight = new SingleFlight<>();
+
+    private final CountDownLatch leaderCalled = new CountDownLatch(1);
+
+    private final CountDownLatch leaderReleased = new CountDownLatch(1);
+
+    private CompletableFuture<String> executeLeader(RuntimeException failure) {
+        return CompletableFuture.supplyAsync(() -> singleFlight.execute(1L, () -> {
+            leaderCalled.countDown();
+
+            try {
+                leaderReleased.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            throw failure;
+        }));
+    }
+
+    private CompletableFuture<String> executeFollower() throws InterruptedException {
+        leaderCalled.await();
+        CompletableFuture<String> follower = CompletableFuture.supplyAsync(
+                () -> singleFlight.execute(1L, () -> "Device 1"));
+
+        while (singleFlight.coalescedCount() == 0) {
+            Thread.onSpinWait();
+        }
+
+        return follower;
+    }
+
+    @Test
+    public void whenLeaderDeadlineExceeded_thenFollowerExecutesCall() throws Exception {
+        CompletableFuture<String> leader = executeLeader(new DeadlineExceededException("Request deadline exceeded!"));
+        CompletableFuture<String> follower = executeFollower();
+
+        leaderReleased.countDown();
+
+        assertEquals("Device 1", follower.get());
+        assertThrows(Exception.class, leader::join);
+        assertEquals(2, singleFlight.executedCount());
+    }
+
+    @Test
+    public void whenLeaderFails_thenFollowerSharesException() throws Exception {
+        IllegalStateException failure = new IllegalStateException("Database unavailable!");
+        CompletableFuture<String> leader = executeLeader(failure);
+        CompletableFuture<String> follower = executeFollower();
+
+        leaderReleased.countDown();
+
+        assertEquals(failure, assertThrows(Exception.class, follower::join).getCause());
+        assertEquals(failure, assertThrows(Exception.class, leader::join).getCause());
+        assertEquals(1, singleFlight.executedCount());
+    }
+}
@@ -0,0 +1,249 @@
+package com.francisco.deviceapi.controller;
+
+import com.francisco.deviceapi.domain.Device;
+import com.francisco.deviceapi.domain.enums.DeviceState;
+import com.francisco.deviceapi.dto.DeviceStateTransitionDTO;
+import com.francisco.deviceapi.repository.DeviceRepository;
+import com.francisco.deviceapi.repository.DeviceStateHistoryRepository;
+import com.francisco.deviceapi.web.RequestDeadlineInterceptor;
+import com.francisco.deviceapi.web.ServerTimingFilter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Instant;
+import java.util.List;
+
+import static com.francisco.deviceapi.sql.SqlStatementCountMatchers.roundTrips;
+import static com.francisco.deviceapi.sql.SqlStatementCountMatchers.statements;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.hamcrest.Matchers.matchesPattern;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * SQL statement budget of every {@link DeviceController} endpoint.
+ * <p>
+ * A change that adds statements or round trips to an endpoint must update its budget here.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public class DeviceControllerStatementCountTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private DeviceRepository deviceRepository;
+
+    @Autowired
+    private DeviceStateHistoryRepository deviceStateHistoryRepository;
+
+    private Device device;
+
+    @BeforeEach
+    public void setUp() {
+        deviceRepository.deleteAll();
+        device = deviceRepository.save(Device.builder()
+                .setName("Device 1")
+                .setBrand("Brand 1")
+                .setState(DeviceState.AVAILABLE)
+                .build());
+    }
+
+    @Test
+    public void whenCreateDevice_thenHotAndArchiveExistsChecksSequenceFetchAndInsert() throws Exception {
+        mockMvc.perform(post("/api/v1/devices")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Device 2\",\"brand\":\"Brand 1\",\"state\":\"AVAILABLE\",\"creationTime\":\"2025-01-01\"}"))
+                .andExpect(status().isCreated())
+                .andExpect(statements(4))
+                .andExpect(roundTrips(5));
+    }
+
+    @Test
+    public void whenCreateDeviceThatAlreadyExists_thenOnlyExistsCheck() throws Exception {
+        mockMvc.perform(post("/api/v1/devices")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Device 1\",\"brand\":\"Brand 1\",\"state\":\"AVAILABLE\",\"creationTime\":\"2025-01-01\"}"))
+                .andExpect(status().isConflict())
+                .andExpect(statements(1))
+                .andExpect(roundTrips(1));
+    }
+
+    @Test
+    public void whenGetDevice_thenSingleSelect() throws Exception {
+        mockMvc.perform(get("/api/v1/devices/{id}", device.getId()))
+                .andExpect(status().isOk())
+                .andExpect(statements(1))
+                .andExpect(roundTrips(2));
+    }
+
+    @Test
+    public void whenGetDevice_thenServerTimingBreaksDownPhases() throws Exception {
+        mockMvc.perform(get("/api/v1/devices/{id}", device.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().string(ServerTimingFilter.SERVER_TIMING_HEADER, matchesPattern(
+                        "parse;dur=\\d+\\.\\d{3}, mapper;dur=\\d+\\.\\d{3}, service;dur=\\d+\\.\\d{3}, " +
+                                "db-connect;dur=\\d+\\.\\d{3}, db-query;dur=\\d+\\.\\d{3}, " +
+                                "db-lock;dur=0\\.000, total;dur=\\d+\\.\\d{3}")));
+    }
+
+    @Test
+    public void whenCheckoutDevice_thenServerTimingIncludesLockingRead() throws Exception {
+        mockMvc.perform(post("/api/v1/devices/{id}/checkout", device.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().string(ServerTimingFilter.SERVER_TIMING_HEADER,
+                        matchesPattern(".*db-lock;dur=(?!0\\.000)\\d+\\.\\d{3}.*")));
+    }
+
+    @Test
+    public void whenRequestDeadlineExceeded_thenOnlyRollback() throws Exception {
+        mockMvc.perform(get("/api/v1/devices/{id}", device.getId())
+                        .header(RequestDeadlineInterceptor.TIMEOUT_HEADER, "0"))
+                .andExpect(status().isGatewayTimeout())
+                .andExpect(statements(0))
+                .andExpect(roundTrips(1));
+    }
+
+    @Test
+    public void whenGetDevicesWithoutState_thenHotAndArchiveSelects() throws Exception {
+        mockMvc.perform(get("/api/v1/devices").param("brand", "Brand 1"))
+                .andExpect(status().isOk())
+                .andExpect(statements(2))
+                .andExpect(roundTrips(2));
+    }
+
+    @Test
+    public void whenGetAvailableDevices_thenHotSelectOnly() throws Exception {
+        mockMvc.perform(get("/api/v1/devices").param("state", "AVAILABLE"))
+                .andExpect(status().isOk())
+                .andExpect(statements(1))
+                .andExpect(roundTrips(1));
+    }
+
+    @Test
+    public void whenGetDevicesCreatedInRange_thenUncachedHotAndArchiveSelects() throws Exception {
+        mockMvc.perform(get("/api/v1/devices").param("createdFrom", device.getCreationTime().toString()))
+                .andExpect(status().isOk())
+                .andExpect(statements(2))
+                .andExpect(roundTrips(2));
+    }
+
+    @Test
+    public void whenGetCreationHistogram_thenHotAndArchiveGroupedSelects() throws Exception {
+        mockMvc.perform(get("/api/v1/devices/histogram").param("interval", "MONTH").param("perBrand", "true"))
+                .andExpect(status().isOk())
+                .andExpect(statements(2))
+                .andExpect(roundTrips(2));
+    }
+
+    @Test
+    public void whenGetDevicesByIds_thenSingleSelect() throws Exception {
+        mockMvc.perform(get("/api/v1/devices").param("ids", String.valueOf(device.getId())))
+                .andExpect(status().isOk())
+                .andExpect(statements(1))
+                .andExpect(roundTrips(1));
+    }
+
+    @Test
+    public void whenGetDevicesByIdsWithMissingId_thenHotAndArchiveSelects() throws Exception {
+        mockMvc.perform(get("/api/v1/devices").param("ids", device.getId() + ",0"))
+                .andExpect(status().isOk())
+                .andExpect(statements(2))
+                .andExpect(roundTrips(2));
+    }
+
+    @Test
+    public void whenHeadDevice_thenSingleExistsQuery() throws Exception {
+        mockMvc.perform(head("/api/v1/devices/{id}", device.getId()))
+                .andExpect(status().isOk())
+                .andExpect(statements(1));
+    }
+
+    @Test
+    public void whenCountDevices_thenHotAndArchiveCounts() throws Exception {
+        mockMvc.perform(get("/api/v1/devices/count").param("brand", "Brand 1"))
+                .andExpect(status().isOk())
+                .andExpect(statements(2))
+                .andExpect(roundTrips(2));
+    }
+
+    @Test
+    public void whenGetStateHistory_thenSingleSelect() throws Exception {
+        deviceStateHistoryRepository.insertAll(List.of(new DeviceStateTransitionDTO(device.getId(),
+                DeviceState.AVAILABLE, DeviceState.IN_USE, Instant.now())));
+
+        mockMvc.perform(get("/api/v1/devices/{id}/history", device.getId()))
+                .andExpect(status().isOk())
+                .andExpect(statements(1))
+                .andExpect(roundTrips(1));
+    }
+
+    @Test
+    public void whenUpdateDevice_thenLockedSelectAndUpdate() throws Exception {
+        mockMvc.perform(put("/api/v1/devices/{id}", device.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Device 3\",\"brand\":\"Brand 1\",\"state\":\"AVAILABLE\",\"creationTime\":\"2025-01-01\"}"))
+                .andExpect(status().isOk())
+                .andExpect(statements(2))
+                .andExpect(roundTrips(3));
+    }
+
+    @Test
+    public void whenPatchDevice_thenLockedSelectAndUpdate() throws Exception {
+        mockMvc.perform(patch("/api/v1/devices/{id}", device.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"state\":\"INACTIVE\"}"))
+                .andExpect(status().isOk())
+                .andExpect(statements(2))
+                .andExpect(roundTrips(3));
+    }
+
+    @Test
+    public void whenCheckoutAndCheckinDevice_thenLockedSelectAndUpdateEach() throws Exception {
+        mockMvc.perform(post("/api/v1/devices/{id}/checkout", device.getId()))
+                .andExpect(status().isOk())
+                .andExpect(statements(2))
+                .andExpect(roundTrips(3));
+
+        mockMvc.perform(post("/api/v1/devices/{id}/checkin", device.getId()))
+                .andExpect(status().isOk())
+                .andExpect(statements(2))
+                .andExpect(roundTrips(3));
+    }
+
+    @Test
+    public void whenClaimDevices_thenSkipLockedSelectAndSingleUpdate() throws Exception {
+        mockMvc.perform(post("/api/v1/devices/claim").param("brand", "Brand 1"))
+                .andExpect(status().isOk())
+                .andExpect(statements(2))
+                .andExpect(roundTrips(3));
+    }
+
+    @Test
+    public void whenApplyOperations_thenBatchLockPerOperationLockAndDeleteInOneTransaction() throws Exception {
+        mockMvc.perform(post("/api/v1/devices/operations")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"operations\": [" +
+                                "{\"op\": \"PATCH\", \"id\": " + device.getId() + ", \"name\": \"Device 2\"}, " +
+                                "{\"op\": \"DELETE\", \"id\": " + device.getId() + "}]}"))
+                .andExpect(status().isOk())
+                .andExpect(statements(3))
+                .andExpect(roundTrips(4));
+    }
+
+    @Test
+    public void whenDeleteDevice_thenSelectAndDelete() throws Exception {
+        mockMvc.perform(delete("/api/v1/devices/{id}", device.getId()))
+                .andExpect(status().isNoContent())
+                .andExpect(statements(2))
+                .andExpect(roundTrips(4));
+    }
+}
@@ -2,26 +2,46 @@ package com.francisco.deviceapi.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.francisco.deviceapi.domain.Device;
+import com.francisco.deviceapi.domain.enums.CreationInterval;
+import com.francisco.deviceapi.domain.enums.DeviceOperationType;
 import com.francisco.deviceapi.domain.enums.DeviceState;
 import com.francisco.deviceapi.dto.CreateDeviceRequestDTO;
+import com.francisco.deviceapi.dto.DeviceCreationCountDTO;
 import com.francisco.deviceapi.dto.DeviceDTO;
+import com.francisco.deviceapi.dto.DeviceImportEventDTO;
+import com.francisco.deviceapi.dto.DeviceLookupDTO;
+import com.francisco.deviceapi.dto.DeviceOperationDTO;
+import com.francisco.deviceapi.dto.DeviceOperationResultDTO;
+import com.francisco.deviceapi.dto.DeviceStateHistoryDTO;
+import com.francisco.deviceapi.dto.DeviceStateTransitionDTO;
 import com.francisco.deviceapi.dto.PatchDeviceRequestDTO;
 import com.francisco.deviceapi.exception.DeviceAlreadyExistsException;
 import com.francisco.deviceapi.exception.DeviceInUseException;
+import com.francisco.deviceapi.exception.DeviceNotAvailableException;
 import com.francisco.deviceapi.exception.DeviceNotFoundException;
+import com.francisco.deviceapi.exception.InvalidDateRangeException;
 import com.francisco.deviceapi.mapper.DeviceMapper;
+import com.francisco.deviceapi.service.DeviceImportService;
+import com.francisco.deviceapi.service.DeviceOperationService;
 import com.francisco.deviceapi.service.DeviceService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.dao.QueryTimeoutException;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.json.JsonCompareMode;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.result.MockMvcResultHandlers;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.function.Consumer;
 
 import static org.mockito.ArgumentMatchers.*;
 
@@ -46,6 +66,12 @@ public class DeviceControllerTests {
     @MockitoBean
     private DeviceMapper deviceMapper;
 
+    @MockitoBean
+    private DeviceImportService deviceImportService;
+
+    @MockitoBean
+    private DeviceOperationService deviceOperationService;
+
     private Device device1;
 
     private Device device2;
@@ -115,6 +141,54 @@ public class DeviceControllerTests {
         verify(deviceMapper, never()).deviceToDeviceDTO(device1);
     }
 
+    @Test
+    public void whenImportDevices_thenStreamImportEvents() throws Exception {
+        when(deviceImportService.importDevices(any(), any())).thenAnswer(invocation -> {
+            Consumer<DeviceImportEventDTO> events = invocation.getArgument(1);
+            events.accept(DeviceImportEventDTO.error(3, "Invalid state!"));
+            return DeviceImportEventDTO.summary(2, 1, 0, 1);
+        });
+        MockMultipartFile file = new MockMultipartFile("file", "devices.csv", "text/csv",
+                "name,brand,state\nDevice 1,Brand 1,AVAILABLE\nDevice 2,Brand 1,BROKEN\n".getBytes());
+
+        MvcResult mvcResult = mockMvc.perform(multipart("/api/v1/devices/import").file(file))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(
+                        "{\"event\":\"error\",\"line\":3,\"errorMessage\":\"Invalid state!\"}\n" +
+                                "{\"event\":\"summary\",\"rows\":2,\"imported\":1,\"duplicates\":0," +
+                                "\"rejected\":1}\n"));
+    }
+
+    @Test
+    public void whenImportDevicesFails_thenStreamFailedEvent() throws Exception {
+        when(deviceImportService.importDevices(any(), any()))
+                .thenThrow(new IllegalArgumentException("Missing brand column!"));
+        MockMultipartFile file = new MockMultipartFile("file", "devices.csv", "text/csv",
+                "name,state\n".getBytes());
+
+        MvcResult mvcResult = mockMvc.perform(multipart("/api/v1/devices/import").file(file))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(content().string("{\"event\":\"failed\",\"errorMessage\":\"Missing brand column!\"}\n"));
+    }
+
+    @Test
+    public void whenGetDeviceTimesOut_thenReturnGatewayTimeout() throws Exception {
+        when(deviceService.getDevice(anyLong())).thenThrow(new QueryTimeoutException("canceling statement"));
+
+        mockMvc.perform(get("/api/v1/devices/{id}", 100L))
+                .andExpect(status().isGatewayTimeout())
+                .andExpect(content().string("{\"errorMessage\":\"Request deadline exceeded!\"}"));
+    }
+
     @Test
     public void whenCreateDeviceWithIncompleteDTO_thenReturnBadRequest() throws Exception {
         CreateDeviceRequestDTO incompleteRequestDTO = new CreateDeviceRequestDTO(null, "Brand 1", DeviceState.AVAILABLE, LocalDate.now());
@@ -128,6 +202,31 @@ public class DeviceControllerTests {
         verify(deviceService, never()).createDevice(any(Device.class));
     }
 
+    @Test
+    public void whenGetChangedDeviceAgain_thenReturnChangedDeviceDTO() throws Exception {
+        DeviceDTO renamedDeviceDTO = new DeviceDTO(100L, "Renamed", "Brand 1", DeviceState.AVAILABLE, LocalDate.now());
+        when(deviceService.getDevice(100L)).thenReturn(device1);
+        when(deviceMapper.deviceToDeviceDTO(device1)).thenReturn(deviceDTO1, deviceDTO1, renamedDeviceDTO);
+
+        for (DeviceDTO expectedDTO : List.of(deviceDTO1, deviceDTO1, renamedDeviceDTO)) {
+            mockMvc.perform(get("/api/v1/devices/{id}", 100L))
+                    .andExpect(status().isOk())
+                    .andExpect(content().json(objectMapper.writeValueAsString(expectedDTO),
+                            JsonCompareMode.STRICT));
+        }
+    }
+
+    @Test
+    public void whenGetDevicesList_thenReturnJsonArray() throws Exception {
+        DeviceDTO deviceDTO2 = new DeviceDTO(101L, "Device 2", "Brand 1", DeviceState.IN_USE, LocalDate.now());
+        when(deviceService.getDevices("Brand 1", null, null, null)).thenReturn(List.of(deviceDTO1, deviceDTO2));
+
+        mockMvc.perform(get("/api/v1/devices").param("brand", "Brand 1"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(content().string(objectMapper.writeValueAsString(List.of(deviceDTO1, deviceDTO2))));
+    }
+
     @Test
     public void whenGetDeviceById_thenReturnDeviceDTO() throws Exception {
         when(deviceService.getDevice(anyLong())).thenReturn(device1);
@@ -162,7 +261,7 @@ public class DeviceControllerTests {
                 new DeviceDTO(102L, "Device 1", "Brand 1", DeviceState.IN_USE, null)
         );
 
-        when(deviceService.getDevices(null, null)).thenReturn(deviceList);
+        when(deviceService.getDevices(null, null, null, null)).thenReturn(deviceList);
 
         mockMvc.perform(get("/api/v1/devices"))
                 .andExpect(status().isOk())
@@ -173,7 +272,7 @@ public class DeviceControllerTests {
                 .andExpect(jsonPath("$[1].id").value(102L))
                 .andExpect(jsonPath("$[1].state").value("IN_USE"));
 
-        verify(deviceService, times(1)).getDevices(null, null);
+        verify(deviceService, times(1)).getDevices(null, null, null, null);
     }
 
     @Test
@@ -182,7 +281,7 @@ public class DeviceControllerTests {
                 new DeviceDTO(103L, "Device 3", "Brand 3", DeviceState.AVAILABLE, null)
         );
 
-        when(deviceService.getDevices("Brand 3", null)).thenReturn(deviceList);
+        when(deviceService.getDevices("Brand 3", null, null, null)).thenReturn(deviceList);
 
         mockMvc.perform(get("/api/v1/devices")
                         .param("brand", "Brand 3"))
@@ -192,12 +291,116 @@ public class DeviceControllerTests {
                 .andExpect(jsonPath("$[0].id").value(103L))
                 .andExpect(jsonPath("$[0].name").value("Device 3"));
 
-        verify(deviceService, times(1)).getDevices("Brand 3", null);
+        verify(deviceService, times(1)).getDevices("Brand 3", null, null, null);
+    }
+
+    @Test
+    public void whenGetDevicesByIds_thenReturnDevicesAndMissingIds() throws Exception {
+        when(deviceService.getDevicesByIds(List.of(100L, 999L)))
+                .thenReturn(new DeviceLookupDTO(List.of(deviceDTO1), List.of(999L)));
+
+        mockMvc.perform(get("/api/v1/devices").param("ids", "100,999"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.devices.length()").value(1))
+                .andExpect(jsonPath("$.devices[0].id").value(100L))
+                .andExpect(jsonPath("$.missingIds[0]").value(999L));
+
+        verify(deviceService, never()).getDevices(any(), any(), any(), any());
+    }
+
+    @Test
+    public void whenLookupDevices_thenReturnDevicesAndMissingIds() throws Exception {
+        when(deviceService.getDevicesByIds(List.of(100L, 999L)))
+                .thenReturn(new DeviceLookupDTO(List.of(deviceDTO1), List.of(999L)));
+
+        mockMvc.perform(post("/api/v1/devices/lookup")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\": [100, 999]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.devices[0].name").value("Device 1"))
+                .andExpect(jsonPath("$.missingIds[0]").value(999L));
+    }
+
+    @Test
+    public void whenLookupDevicesWithoutIds_thenReturnBadRequest() throws Exception {
+        mockMvc.perform(post("/api/v1/devices/lookup")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\": []}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("{\"ids\":\"must not be empty\"}"));
+
+        verify(deviceService, never()).getDevicesByIds(any());
+    }
+
+    @Test
+    public void whenApplyOperations_thenReturnResultPerOperation() throws Exception {
+        when(deviceOperationService.applyOperations(anyList(), eq(10))).thenReturn(List.of(
+                new DeviceOperationResultDTO(0, DeviceOperationType.PATCH, 100L, 200, deviceDTO1, null),
+                new DeviceOperationResultDTO(1, DeviceOperationType.DELETE, 101L, 409, null,
+                        "The device is in use and cannot be deleted!")));
+
+        mockMvc.perform(post("/api/v1/devices/operations")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"chunkSize\": 10, \"operations\": [" +
+                                "{\"op\": \"PATCH\", \"id\": 100, \"state\": \"IN_USE\"}, " +
+                                "{\"op\": \"DELETE\", \"id\": 101}]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value(200))
+                .andExpect(jsonPath("$[0].device.name").value("Device 1"))
+                .andExpect(jsonPath("$[1].status").value(409))
+                .andExpect(jsonPath("$[1].device").doesNotExist())
+                .andExpect(jsonPath("$[1].errorMessage").value("The device is in use and cannot be deleted!"));
+
+        verify(deviceOperationService).applyOperations(List.of(
+                new DeviceOperationDTO(DeviceOperationType.PATCH, 100L, null, null, DeviceState.IN_USE, null),
+                new DeviceOperationDTO(DeviceOperationType.DELETE, 101L, null, null, null, null)), 10);
+    }
+
+    @Test
+    public void whenApplyOperationsWithoutOperations_thenReturnBadRequest() throws Exception {
+        mockMvc.perform(post("/api/v1/devices/operations")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"operations\": []}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("{\"operations\":\"must not be empty\"}"));
+
+        verify(deviceOperationService, never()).applyOperations(any(), any());
+    }
+
+    @Test
+    public void whenHeadExistingDevice_thenReturnOkWithoutBody() throws Exception {
+        when(deviceService.existsDevice(100L)).thenReturn(true);
+
+        mockMvc.perform(head("/api/v1/devices/{id}", 100L))
+                .andExpect(status().isOk())
+                .andExpect(content().string(""));
+
+        verify(deviceService, never()).getDevice(anyLong());
+    }
+
+    @Test
+    public void whenHeadNonExistingDevice_thenReturnNotFound() throws Exception {
+        when(deviceService.existsDevice(100L)).thenReturn(false);
+
+        mockMvc.perform(head("/api/v1/devices/{id}", 100L))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void whenCountDevicesByBrand_thenReturnCountInBodyAndHeader() throws Exception {
+        when(deviceService.countDevices("Brand 1", null)).thenReturn(42L);
+
+        mockMvc.perform(get("/api/v1/devices/count").param("brand", "Brand 1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(DeviceController.TOTAL_COUNT_HEADER, "42"))
+                .andExpect(jsonPath("$.count").value(42));
+
+        verify(deviceService, never()).getDevices(any(), any(), any(), any());
     }
 
     @Test
     public void whenNoDevices_thenReturnNotFound() throws Exception {
-        when(deviceService.getDevices(any(), any())).thenThrow(new DeviceNotFoundException());
+        when(deviceService.getDevices(any(), any(), any(), any())).thenThrow(new DeviceNotFoundException());
 
         mockMvc.perform(get("/api/v1/devices")
                         .param("brand", "Brand 4"))
@@ -205,7 +408,75 @@ public class DeviceControllerTests {
                 .andDo(MockMvcResultHandlers.print())
                 .andExpect(content().string("{\"errorMessage\":\"Device not found!\"}"));
 
-        verify(deviceService, times(1)).getDevices("Brand 4", null);
+        verify(deviceService, times(1)).getDevices("Brand 4", null, null, null);
+    }
+
+    @Test
+    public void whenGetDevicesCreatedInRange_thenPassDateRange() throws Exception {
+        when(deviceService.getDevices(null, DeviceState.AVAILABLE, LocalDate.of(2025, 1, 1), LocalDate.of(2025, 1, 31)))
+                .thenReturn(List.of(deviceDTO1));
+
+        mockMvc.perform(get("/api/v1/devices")
+                        .param("state", "AVAILABLE")
+                        .param("createdFrom", "2025-01-01")
+                        .param("createdTo", "2025-01-31"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(100));
+    }
+
+    @Test
+    public void whenGetCreationHistogram_thenReturnBuckets() throws Exception {
+        when(deviceService.getCreationHistogram("Brand 1", null, LocalDate.of(2025, 3, 31), CreationInterval.WEEK,
+                true)).thenReturn(List.of(
+                new DeviceCreationCountDTO(LocalDate.of(2025, 3, 17), "Brand 1", 42L),
+                new DeviceCreationCountDTO(LocalDate.of(2025, 3, 24), "Brand 1", 7L)));
+
+        mockMvc.perform(get("/api/v1/devices/histogram")
+                        .param("brand", "Brand 1")
+                        .param("createdTo", "2025-03-31")
+                        .param("interval", "WEEK")
+                        .param("perBrand", "true"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("[{\"start\":\"2025-03-17\",\"brand\":\"Brand 1\",\"count\":42}," +
+                        "{\"start\":\"2025-03-24\",\"brand\":\"Brand 1\",\"count\":7}]", JsonCompareMode.STRICT));
+    }
+
+    @Test
+    public void whenGetCreationHistogramWithInvalidRange_thenReturnBadRequest() throws Exception {
+        when(deviceService.getCreationHistogram(any(), any(), any(), any(), anyBoolean()))
+                .thenThrow(new InvalidDateRangeException("createdTo must not be before createdFrom!"));
+
+        mockMvc.perform(get("/api/v1/devices/histogram")
+                        .param("createdFrom", "2025-03-31")
+                        .param("createdTo", "2025-03-01"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("{\"errorMessage\":\"createdTo must not be before createdFrom!\"}"));
+
+        verify(deviceService, times(1)).getCreationHistogram(null, LocalDate.of(2025, 3, 31),
+                LocalDate.of(2025, 3, 1), CreationInterval.DAY, false);
+    }
+
+    @Test
+    public void whenGetStateHistory_thenReturnPage() throws Exception {
+        when(deviceService.getStateHistory(101L, 88L, 1)).thenReturn(new DeviceStateHistoryDTO(List.of(
+                new DeviceStateTransitionDTO(87L, 101L, DeviceState.AVAILABLE, DeviceState.IN_USE,
+                        Instant.parse("2025-03-21T10:15:30.123456Z"))), 87L));
+
+        mockMvc.perform(get("/api/v1/devices/{id}/history", 101L)
+                        .param("beforeId", "88")
+                        .param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"transitions\":[{\"id\":87,\"deviceId\":101,\"oldState\":\"AVAILABLE\"," +
+                        "\"newState\":\"IN_USE\",\"changedAt\":\"2025-03-21T10:15:30.123456Z\"}],\"nextBeforeId\":87}",
+                        JsonCompareMode.STRICT));
+    }
+
+    @Test
+    public void whenGetStateHistoryWithInvalidSize_thenReturnBadRequest() throws Exception {
+        mockMvc.perform(get("/api/v1/devices/{id}/history", 101L).param("size", "0"))
+                .andExpect(status().isBadRequest());
+
+        verify(deviceService, never()).getStateHistory(anyLong(), any(), anyInt());
     }
 
     @Test
@@ -341,4 +612,67 @@ public class DeviceControllerTests {
 
         verify(deviceService, times(1)).deleteDevice(100L);
     }
+
+    @Test
+    public void whenCheckoutDevice_thenReturnLease() throws Exception {
+        Instant leaseExpiresAt = Instant.parse("2025-03-21T10:15:30Z");
+        device1.setState(DeviceState.IN_USE);
+        device1.setLeaseExpiresAt(leaseExpiresAt);
+
+        when(deviceService.checkoutDevice(100L, Duration.ofSeconds(60))).thenReturn(device1);
+
+        mockMvc.perform(post("/api/v1/devices/{id}/checkout", 100L)
+                        .param("ttlSeconds", "60"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(100L))
+                .andExpect(jsonPath("$.leaseExpiresAt").value("2025-03-21T10:15:30Z"));
+
+        verify(deviceService, times(1)).checkoutDevice(100L, Duration.ofSeconds(60));
+    }
+
+    @Test
+    public void whenCheckoutDeviceWithInvalidTtl_thenReturnBadRequest() throws Exception {
+        mockMvc.perform(post("/api/v1/devices/{id}/checkout", 100L)
+                        .param("ttlSeconds", "0"))
+                .andExpect(status().isBadRequest());
+
+        verify(deviceService, never()).checkoutDevice(anyLong(), any());
+    }
+
+    @Test
+    public void whenCheckinDeviceNotInUse_thenReturnConflict() throws Exception {
+        when(deviceService.checkinDevice(100L))
+                .thenThrow(new DeviceNotAvailableException("Device is not IN USE and cannot be checked in!"));
+
+        mockMvc.perform(post("/api/v1/devices/{id}/checkin", 100L))
+                .andExpect(status().isConflict())
+                .andExpect(content().string("{\"errorMessage\":\"Device is not IN USE and cannot be checked in!\"}"));
+    }
+
+    @Test
+    public void whenClaimDevices_thenReturnClaimedDevices() throws Exception {
+        DeviceDTO claimedDeviceDTO = new DeviceDTO(100L, "Device 1", "Brand 1", DeviceState.IN_USE, LocalDate.now());
+
+        when(deviceService.claimDevices("Brand 1", 2, null)).thenReturn(List.of(device1));
+        when(deviceMapper.deviceToDeviceDTO(device1)).thenReturn(claimedDeviceDTO);
+
+        mockMvc.perform(post("/api/v1/devices/claim")
+                        .param("brand", "Brand 1")
+                        .param("count", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(100L))
+                .andExpect(jsonPath("$[0].state").value("IN_USE"));
+
+        verify(deviceService, times(1)).claimDevices("Brand 1", 2, null);
+    }
+
+    @Test
+    public void whenClaimTooManyDevices_thenReturnBadRequest() throws Exception {
+        mockMvc.perform(post("/api/v1/devices/claim")
+                        .param("count", "1000"))
+                .andExpect(status().isBadRequest());
+
+        verify(deviceService, never()).claimDevices(any(), anyInt(), any());
+    }
 }
@@ -0,0 +1,245 @@
+package com.francisco.deviceapi.dataset;
+
+import com.francisco.deviceapi.domain.Device;
+import com.francisco.deviceapi.domain.enums.DeviceState;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Generates synthetic {@link Device} datasets straight into the {@code devices} table.
+ * <p>
+ * Brands follow a Zipf distribution, so "Brand 1" is the most common and "Brand {brands}" the rarest, and States
+ * follow a weighted mix. Creation dates are spread uniformly over the last {@code days} days. The same seed always
+ * generates the same dataset.
+ * <p>
+ * Rows are streamed with the COPY protocol on PostgreSQL and inserted in JDBC batches on other databases. The
+ * {@code device_sequence} is moved past the generated IDs and the table is analyzed afterwards, so query plans see
+ * up-to-date statistics.
+ *
+ * @param rows the number of {@link Device} to be generated.
+ * @param brands the number of distinct Brands.
+ * @param brandSkew the Zipf exponent of the Brand distribution, 0 for uniform.
+ * @param stateMix the relative weight of each State.
+ * @param days the number of days the creation dates are spread over.
+ * @param seed the seed of the random generator.
+ */
+public record DeviceDatasetGenerator(int rows,
+                                     int brands,
+                                     double brandSkew,
+                                     Map<DeviceState, Integer> stateMix,
+                                     int days,
+                                     long seed) {
+
+    private static final String INSERT = "INSERT INTO devices (id, name, brand, state, creation_time) " +
+            "VALUES (?, ?, ?, ?, ?)";
+
+    private static final String COPY = "COPY devices (id, name, brand, state, creation_time) " +
+            "FROM STDIN WITH (FORMAT csv)";
+
+    private static final int BATCH_SIZE = 5000;
+
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * @param rows the number of {@link Device} to be generated.
+     * @return a generator of 50 Brands with a skew of 1.1, mostly AVAILABLE {@link Device} and a few INACTIVE
+     * ones, created over the last 10 years.
+     */
+    public static DeviceDatasetGenerator withDefaults(int rows) {
+        return new DeviceDatasetGenerator(rows, 50, 1.1, parseStateMix("AVAILABLE=80,IN_USE=18,INACTIVE=2"), 3650,
+                42L);
+    }
+
+    /**
+     * @param stateMix the State weights, e.g. {@code AVAILABLE=80,IN_USE=18,INACTIVE=2}.
+     * @return the weight of each State, 0 for the missing ones.
+     */
+    public static Map<DeviceState, Integer> parseStateMix(String stateMix) {
+        Map<DeviceState, Integer> weights = new EnumMap<>(DeviceState.class);
+        Arrays.stream(DeviceState.values()).forEach(state -> weights.put(state, 0));
+
+        for (String entry : stateMix.split(",")) {
+            String[] pair = entry.split("=");
+            weights.put(DeviceState.valueOf(pair[0].trim().toUpperCase()), Integer.parseInt(pair[1].trim()));
+        }
+
+        return weights;
+    }
+
+    /**
+     * @param rank the rank of the Brand, from 1 (most common) to {@code brands} (rarest).
+     * @return the name of the Brand.
+     */
+    public static String brand(int rank) {
+        return "Brand " + rank;
+    }
+
+    /**
+     * Generates the dataset, after the {@link Device} already in the table.
+     *
+     * @param dataSource the {@link DataSource} of the database.
+     * @return the ID of the first generated {@link Device}.
+     * @throws SQLException if the {@link Device} can't be inserted.
+     */
+    public long generate(DataSource dataSource) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            boolean postgres = connection.getMetaData().getDatabaseProductName().equals("PostgreSQL");
+            long firstId = nextId(connection);
+            Rows generated = new Rows(firstId);
+
+            if (postgres) {
+                copy(connection, generated);
+            } else {
+                insertBatches(connection, generated);
+            }
+
+            try (Statement statement = connection.createStatement()) {
+                long nextId = firstId + rows;
+
+                if (postgres) {
+                    statement.execute("SELECT setval('device_sequence', " + nextId + ", false)");
+                    statement.execute("ANALYZE devices");
+                } else {
+                    statement.execute("ALTER SEQUENCE device_sequence RESTART WITH " + nextId);
+                    statement.execute("ANALYZE TABLE devices");
+                }
+            }
+
+            return firstId;
+        }
+    }
+
+    private static long nextId(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT COALESCE(MAX(id), 0) + 1 FROM devices")) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+
+    private void copy(Connection connection, Rows generated) throws SQLException {
+        PGConnection pgConnection = connection.unwrap(PGConnection.class);
+
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                new PGCopyOutputStream(pgConnection, COPY, COPY_BUFFER_SIZE), StandardCharsets.UTF_8))) {
+            for (int i = 0; i < rows; i++) {
+                generated.next();
+                writer.write(generated.id + "," + generated.name + "," + generated.brand + "," +
+                        generated.state.name() + "," + generated.creationTime + "\n");
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void insertBatches(Connection connection, Rows generated) throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+
+        try (PreparedStatement statement = connection.prepareStatement(INSERT)) {
+            for (int i = 1; i <= rows; i++) {
+                generated.next();
+                statement.setLong(1, generated.id);
+                statement.setString(2, generated.name);
+                statement.setString(3, generated.brand);
+                statement.setString(4, generated.state.name());
+                statement.setDate(5, Date.valueOf(generated.creationTime));
+                statement.addBatch();
+
+                if (i % BATCH_SIZE == 0 || i == rows) {
+                    statement.executeBatch();
+                    connection.commit();
+                }
+            }
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * The generated rows, one at a time.
+     */
+    private final class Rows {
+
+        private final SplittableRandom random = new SplittableRandom(seed);
+
+        private final double[] brandDistribution = cumulative(brandWeights());
+
+        private final DeviceState[] states = DeviceState.values();
+
+        private final double[] stateDistribution = cumulative(Arrays.stream(states)
+                .mapToDouble(state -> stateMix.getOrDefault(state, 0))
+                .toArray());
+
+        private final LocalDate today = LocalDate.now();
+
+        private long id;
+
+        private String name;
+
+        private String brand;
+
+        private DeviceState state;
+
+        private LocalDate creationTime;
+
+        private Rows(long firstId) {
+            this.id = firstId - 1;
+        }
+
+        private void next() {
+            id++;
+            name = "Device " + id;
+            brand = brand(pick(brandDistribution) + 1);
+            state = states[pick(stateDistribution)];
+            creationTime = today.minusDays(random.nextInt(days));
+        }
+
+        private double[] brandWeights() {
+            double[] weights = new double[brands];
+
+            for (int rank = 1; rank <= brands; rank++) {
+                weights[rank - 1] = 1 / Math.pow(rank, brandSkew);
+            }
+
+            return weights;
+        }
+
+        private int pick(double[] distribution) {
+            int index = Arrays.binarySearch(distribution, random.nextDouble());
+            return Math.min(index < 0 ? -index - 1 : index, distribution.length - 1);
+        }
+
+        private static double[] cumulative(double[] weights) {
+            double total = Arrays.stream(weights).sum();
+            double[] distribution = new double[weights.length];
+            double sum = 0;
+
+            for (int i = 0; i < weights.length; i++) {
+                sum += weights[i];
+                distribution[i] = sum / total;
+            }
+
+            return distribution;
+        }
+    }
+}
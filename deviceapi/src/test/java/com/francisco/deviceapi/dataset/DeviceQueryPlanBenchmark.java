@@ -0,0 +1,107 @@
+package com.francisco.deviceapi.dataset;
+
+import com.francisco.deviceapi.DeviceapiApplication;
+import com.francisco.deviceapi.domain.Device;
+import com.francisco.deviceapi.domain.enums.DeviceState;
+import com.francisco.deviceapi.repository.DeviceRepository;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Generates a large {@link DeviceDatasetGenerator} dataset into H2 or PostgreSQL and prints the plan and timing
+ * of every {@link DeviceQueryPlans} query, exiting with status 1 if any of them scans the whole table.
+ * <p>
+ * Not a test: run it with {@code benchmark/query-plans.sh [rows] [jdbc-url] [username] [password] [state-mix]}.
+ * The schema is migrated by Flyway, and the dataset is added to the {@link Device} already in the database.
+ */
+public class DeviceQueryPlanBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        String url = args.length > 1 ? args[1] : "jdbc:h2:mem:devicebench;DB_CLOSE_DELAY=-1";
+        String username = args.length > 2 ? args[2] : "sa";
+        String password = args.length > 3 ? args[3] : "";
+        Map<DeviceState, Integer> stateMix = DeviceDatasetGenerator.parseStateMix(
+                args.length > 4 ? args[4] : "AVAILABLE=80,IN_USE=18,INACTIVE=2");
+        DeviceDatasetGenerator generator = new DeviceDatasetGenerator(rows, 50, 1.1, stateMix, 3650,
+                System.nanoTime());
+        AtomicReference<QueryPlanCapturingDataSource> capturingDataSource = new AtomicReference<>();
+
+        boolean h2 = url.startsWith("jdbc:h2:");
+        System.setProperty("spring.devtools.restart.enabled", "false");
+
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(DeviceapiApplication.class)
+                .web(WebApplicationType.NONE)
+                .initializers(applicationContext -> applicationContext.getBeanFactory()
+                        .addBeanPostProcessor(capturingPostProcessor(capturingDataSource)))
+                .run("--spring.datasource.url=" + url,
+                        "--spring.datasource.username=" + username,
+                        "--spring.datasource.password=" + password,
+                        "--spring.datasource.driver-class-name=" + (h2 ? "org.h2.Driver" : "org.postgresql.Driver"),
+                        "--spring.jpa.database-platform=" + (h2
+                                ? "org.hibernate.dialect.H2Dialect" : "org.hibernate.dialect.PostgreSQLDialect"),
+                        "--device.snapshot.enabled=false",
+                        "--device.archive.enabled=false")) {
+            DeviceRepository deviceRepository = context.getBean(DeviceRepository.class);
+            TransactionTemplate transactionTemplate =
+                    new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+
+            long startNanos = System.nanoTime();
+            long firstId = generator.generate(capturingDataSource.get());
+            System.out.printf("Generated %d devices in %d ms%n%n", rows, (System.nanoTime() - startNanos) / 1_000_000);
+
+            Device device = rarestBrandDevice(deviceRepository, generator, firstId);
+            DeviceState rarestState = stateMix.entrySet().stream()
+                    .filter(entry -> entry.getValue() > 0)
+                    .min(Map.Entry.comparingByValue())
+                    .orElseThrow()
+                    .getKey();
+
+            List<DeviceQueryPlans.QueryPlanReport> reports = transactionTemplate.execute(status ->
+                    DeviceQueryPlans.run(deviceRepository, capturingDataSource.get(), device, rarestState));
+            System.out.println(DeviceQueryPlans.format(reports));
+
+            if (reports.stream().anyMatch(DeviceQueryPlans.QueryPlanReport::isRegression)) {
+                System.exit(1);
+            }
+        }
+    }
+
+    private static BeanPostProcessor capturingPostProcessor(AtomicReference<QueryPlanCapturingDataSource> capturing) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && capturing.get() == null) {
+                    capturing.set(new QueryPlanCapturingDataSource(dataSource));
+                    return capturing.get();
+                }
+
+                return bean;
+            }
+        };
+    }
+
+    private static Device rarestBrandDevice(DeviceRepository deviceRepository, DeviceDatasetGenerator generator,
+                                            long firstId) {
+        for (int rank = generator.brands(); rank > 0; rank--) {
+            Device device = deviceRepository.findByBrand(DeviceDatasetGenerator.brand(rank))
+                    .flatMap(devices -> devices.stream().filter(candidate -> candidate.getId() >= firstId).findFirst())
+                    .orElse(null);
+
+            if (device != null) {
+                return device;
+            }
+        }
+
+        throw new IllegalStateException("No device was generated!");
+    }
+}
@@ -0,0 +1,79 @@
+package com.francisco.deviceapi.dataset;
+
+import com.francisco.deviceapi.domain.Device;
+import com.francisco.deviceapi.domain.enums.DeviceState;
+import com.francisco.deviceapi.repository.DeviceRepository;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Query-plan regression suite: every hot-path {@link DeviceRepository} query must use an index on a skewed dataset.
+ * <p>
+ * Runs on H2 with a small dataset. {@link DeviceQueryPlanBenchmark} runs the same queries with millions of
+ * {@link Device} on H2 or PostgreSQL.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@DirtiesContext
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class DeviceQueryPlanTests {
+
+    private static final DeviceDatasetGenerator GENERATOR = DeviceDatasetGenerator.withDefaults(20_000);
+
+    @Autowired
+    private DeviceRepository deviceRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @TestConfiguration
+    static class QueryPlanConfiguration {
+
+        @Bean
+        static BeanPostProcessor queryPlanCapturingDataSourcePostProcessor() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource && !(bean instanceof QueryPlanCapturingDataSource)
+                            ? new QueryPlanCapturingDataSource(dataSource)
+                            : bean;
+                }
+            };
+        }
+    }
+
+    @BeforeAll
+    void generateDataset() throws SQLException {
+        GENERATOR.generate(dataSource);
+    }
+
+    @Test
+    public void whenRunHotPathQueries_thenOnlyUnfilteredListingScansTheTable() {
+        Device device = deviceRepository.findByBrand(DeviceDatasetGenerator.brand(GENERATOR.brands()))
+                .orElseThrow()
+                .get(0);
+
+        List<DeviceQueryPlans.QueryPlanReport> reports = DeviceQueryPlans.run(deviceRepository,
+                (QueryPlanCapturingDataSource) dataSource, device, DeviceState.INACTIVE);
+
+        assertThat(reports).allSatisfy(report -> assertThat(report.queries()).isNotEmpty());
+        assertThat(reports)
+                .as(DeviceQueryPlans.format(reports))
+                .noneMatch(DeviceQueryPlans.QueryPlanReport::isRegression);
+        assertThat(reports.get(0).isFullScan()).isTrue();
+    }
+}
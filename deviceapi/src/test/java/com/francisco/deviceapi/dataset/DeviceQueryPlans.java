@@ -0,0 +1,132 @@
+package com.francisco.deviceapi.dataset;
+
+import com.francisco.deviceapi.domain.Device;
+import com.francisco.deviceapi.domain.enums.DeviceState;
+import com.francisco.deviceapi.repository.DeviceRepository;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs every {@link DeviceRepository} query that serves a request on its hot path, with every combination of its
+ * optional parameters, and captures their plans and timings with a {@link QueryPlanCapturingDataSource}.
+ * <p>
+ * Only the unfiltered listing is expected to read the whole {@code devices} table. Any other full scan is a missing
+ * or unusable index.
+ */
+public final class DeviceQueryPlans {
+
+    private DeviceQueryPlans() {
+    }
+
+    /**
+     * Runs the queries. {@link DeviceRepository#findByIdForUpdate(Long)} and
+     * {@link DeviceRepository#findForClaim(String, DeviceState, org.springframework.data.domain.Pageable)} need a
+     * transaction.
+     *
+     * @param deviceRepository the {@link DeviceRepository}.
+     * @param dataSource the {@link QueryPlanCapturingDataSource} the repository uses.
+     * @param device an existing {@link Device}, whose Brand should be a rare one.
+     * @param state a rare State.
+     * @return the plan of each query.
+     */
+    public static List<QueryPlanReport> run(DeviceRepository deviceRepository, QueryPlanCapturingDataSource dataSource,
+                                            Device device, DeviceState state) {
+        List<QueryPlanReport> reports = new ArrayList<>();
+        String brand = device.getBrand();
+        LocalDate createdOn = device.getCreationTime();
+
+        run(reports, dataSource, "findByBrandAndState(null, null)", true,
+                () -> deviceRepository.findByBrandAndState(null, null));
+        run(reports, dataSource, "findByBrandAndState(brand, null)", false,
+                () -> deviceRepository.findByBrandAndState(brand, null));
+        run(reports, dataSource, "findByBrandAndState(null, state)", false,
+                () -> deviceRepository.findByBrandAndState(null, state));
+        run(reports, dataSource, "findByBrandAndState(brand, state)", false,
+                () -> deviceRepository.findByBrandAndState(brand, state));
+        run(reports, dataSource, "countByBrandAndState(brand, null)", false,
+                () -> deviceRepository.countByBrandAndState(brand, null));
+        run(reports, dataSource, "countByBrandAndState(null, state)", false,
+                () -> deviceRepository.countByBrandAndState(null, state));
+        run(reports, dataSource, "countByBrandAndState(brand, state)", false,
+                () -> deviceRepository.countByBrandAndState(brand, state));
+        run(reports, dataSource, "findByBrandAndStateCreatedBetween(null, null, from, to)", false,
+                () -> deviceRepository.findByBrandAndStateCreatedBetween(null, null, createdOn, createdOn));
+        run(reports, dataSource, "findByBrandAndStateCreatedBetween(brand, null, from, null)", false,
+                () -> deviceRepository.findByBrandAndStateCreatedBetween(brand, null, createdOn, null));
+        run(reports, dataSource, "findByBrandAndStateCreatedBetween(null, state, null, to)", false,
+                () -> deviceRepository.findByBrandAndStateCreatedBetween(null, state, null, createdOn));
+        run(reports, dataSource, "findByBrandAndStateCreatedBetween(brand, state, from, to)", false,
+                () -> deviceRepository.findByBrandAndStateCreatedBetween(brand, state, createdOn, createdOn));
+        run(reports, dataSource, "countCreatedPerDay(null, from, to)", false,
+                () -> deviceRepository.countCreatedPerDay(null, createdOn, createdOn));
+        run(reports, dataSource, "countCreatedPerDay(brand, null, null)", false,
+                () -> deviceRepository.countCreatedPerDay(brand, null, null));
+        run(reports, dataSource, "countCreatedPerDayAndBrand(null, from, to)", false,
+                () -> deviceRepository.countCreatedPerDayAndBrand(null, createdOn, createdOn));
+        run(reports, dataSource, "countCreatedPerDayAndBrand(brand, from, null)", false,
+                () -> deviceRepository.countCreatedPerDayAndBrand(brand, createdOn, null));
+        run(reports, dataSource, "existsByNameAndBrand(name, brand)", false,
+                () -> deviceRepository.existsByNameAndBrand(device.getName(), brand));
+        run(reports, dataSource, "findForClaim(brand, state)", false,
+                () -> deviceRepository.findForClaim(brand, state, PageRequest.ofSize(10)));
+        run(reports, dataSource, "findForClaim(null, state)", false,
+                () -> deviceRepository.findForClaim(null, state, PageRequest.ofSize(10)));
+        run(reports, dataSource, "findByIdForUpdate(id)", false,
+                () -> deviceRepository.findByIdForUpdate(device.getId()));
+
+        return reports;
+    }
+
+    /**
+     * @param reports the plans of the queries.
+     * @return a table with the timing and the scans of each query, followed by the full plans.
+     */
+    public static String format(List<QueryPlanReport> reports) {
+        StringBuilder table = new StringBuilder();
+
+        for (QueryPlanReport report : reports) {
+            table.append("%-60s %10.3f ms  %s%n".formatted(report.query(),
+                    report.elapsedNanos() / (double) TimeUnit.MILLISECONDS.toNanos(1),
+                    report.isRegression() ? "FULL SCAN" : report.isFullScan() ? "full scan (expected)" : "index"));
+        }
+
+        for (QueryPlanReport report : reports) {
+            report.queries().forEach(query -> table.append("%n%s:%n%s".formatted(report.query(), query.plan())));
+        }
+
+        return table.toString();
+    }
+
+    private static void run(List<QueryPlanReport> reports, QueryPlanCapturingDataSource dataSource, String query,
+                            boolean fullScanExpected, Runnable call) {
+        reports.add(new QueryPlanReport(query, fullScanExpected, dataSource.capture(call)));
+    }
+
+    /**
+     * The plans of the SQL queries issued by a repository call.
+     *
+     * @param query the repository call.
+     * @param fullScanExpected whether the call is expected to read the whole table.
+     * @param queries the SQL queries issued by the call.
+     */
+    public record QueryPlanReport(String query,
+                                  boolean fullScanExpected,
+                                  List<QueryPlanCapturingDataSource.CapturedQuery> queries) {
+
+        public boolean isFullScan() {
+            return queries.stream().anyMatch(QueryPlanCapturingDataSource.CapturedQuery::isFullScan);
+        }
+
+        public boolean isRegression() {
+            return isFullScan() && !fullScanExpected;
+        }
+
+        public long elapsedNanos() {
+            return queries.stream().mapToLong(QueryPlanCapturingDataSource.CapturedQuery::elapsedNanos).sum();
+        }
+    }
+}
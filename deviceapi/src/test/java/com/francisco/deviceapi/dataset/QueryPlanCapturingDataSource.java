@@ -0,0 +1,154 @@
+package com.francisco.deviceapi.dataset;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * {@link DataSource} that explains and times the queries issued by the current thread while capturing.
+ * <p>
+ * The parameters bound to a {@link PreparedStatement} are recorded, and before the statement is executed the same
+ * SQL is explained on the same connection with the same parameters, so the plan is the one of the actual query,
+ * whether it comes from Hibernate, Spring Data or plain JDBC.
+ */
+public class QueryPlanCapturingDataSource extends DelegatingDataSource {
+
+    private final ThreadLocal<List<CapturedQuery>> captured = new ThreadLocal<>();
+
+    public QueryPlanCapturingDataSource(DataSource targetDataSource) {
+        super(targetDataSource);
+    }
+
+    /**
+     * Runs an action and captures the SELECT queries it issues.
+     *
+     * @param action the action.
+     * @return the captured queries, in execution order.
+     */
+    public List<CapturedQuery> capture(Runnable action) {
+        List<CapturedQuery> queries = new ArrayList<>();
+        captured.set(queries);
+
+        try {
+            action.run();
+        } finally {
+            captured.remove();
+        }
+
+        return queries;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return capturingConnection(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return capturingConnection(super.getConnection(username, password));
+    }
+
+    private Connection capturingConnection(Connection connection) {
+        return proxy(Connection.class, (proxy, method, args) -> {
+            Object result = invoke(connection, proxy, method, args);
+
+            if (method.getName().equals("prepareStatement") && result instanceof PreparedStatement statement) {
+                return capturingStatement(connection, (String) args[0], statement);
+            }
+
+            return result;
+        });
+    }
+
+    private PreparedStatement capturingStatement(Connection connection, String sql, PreparedStatement statement) {
+        List<Parameter> parameters = new ArrayList<>();
+
+        return proxy(PreparedStatement.class, (proxy, method, args) -> {
+            String name = method.getName();
+
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                parameters.add(new Parameter(method, args));
+            } else if (name.equals("clearParameters")) {
+                parameters.clear();
+            }
+
+            List<CapturedQuery> queries = captured.get();
+
+            if (queries == null || !(name.equals("executeQuery") || name.equals("execute")) || args != null
+                    || !sql.stripLeading().toLowerCase(Locale.ROOT).startsWith("select")) {
+                return invoke(statement, proxy, method, args);
+            }
+
+            String plan = explain(connection, sql, parameters);
+            long startNanos = System.nanoTime();
+            Object result = invoke(statement, proxy, method, args);
+            queries.add(new CapturedQuery(sql, plan, System.nanoTime() - startNanos));
+
+            return result;
+        });
+    }
+
+    private static String explain(Connection connection, String sql, List<Parameter> parameters) throws Exception {
+        try (PreparedStatement explain = connection.prepareStatement("EXPLAIN " + sql)) {
+            for (Parameter parameter : parameters) {
+                parameter.method().invoke(explain, parameter.args());
+            }
+
+            StringBuilder plan = new StringBuilder();
+
+            try (ResultSet resultSet = explain.executeQuery()) {
+                while (resultSet.next()) {
+                    plan.append(resultSet.getString(1)).append('\n');
+                }
+            }
+
+            return plan.toString();
+        }
+    }
+
+    private static Object invoke(Object target, Object proxy, Method method, Object[] args) throws Throwable {
+        if (method.getName().equals("equals") && method.getParameterCount() == 1) {
+            return proxy == args[0];
+        }
+
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+
+    /**
+     * A query executed while capturing.
+     *
+     * @param sql the SQL of the query.
+     * @param plan the plan of the query, as explained by the database.
+     * @param elapsedNanos the time the query took to execute, without fetching its rows.
+     */
+    public record CapturedQuery(String sql, String plan, long elapsedNanos) {
+
+        /**
+         * @return true if the plan reads a whole table: a table scan on H2, a sequential scan on PostgreSQL.
+         */
+        public boolean isFullScan() {
+            return plan.contains(".tableScan") || plan.contains("Seq Scan");
+        }
+    }
+
+    private record Parameter(Method method, Object[] args) {}
+}
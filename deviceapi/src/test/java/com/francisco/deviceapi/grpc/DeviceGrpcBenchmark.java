@@ -0,0 +1,219 @@
+package com.francisco.deviceapi.grpc;
+
+import com.francisco.deviceapi.DeviceapiApplication;
+import com.francisco.deviceapi.grpc.v1.BulkCreateDevicesResponse;
+import com.francisco.deviceapi.grpc.v1.CreateDeviceRequest;
+import com.francisco.deviceapi.grpc.v1.DeviceServiceGrpc;
+import com.francisco.deviceapi.grpc.v1.GetDeviceRequest;
+import com.francisco.deviceapi.grpc.v1.ListDevicesRequest;
+import com.francisco.deviceapi.grpc.v1.State;
+import io.grpc.ManagedChannel;
+import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
+import io.grpc.stub.StreamObserver;
+import org.apache.coyote.AbstractProtocol;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.embedded.tomcat.TomcatWebServer;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+/**
+ * Compares the REST endpoints and the {@link DeviceGrpcService} on the same running application: creating devices
+ * one POST at a time against streaming them to {@code BulkCreateDevices}, getting a device by ID, and listing the
+ * devices of a Brand against streaming them from {@code ListDevices}.
+ * <p>
+ * Not a test: run it with {@code benchmark/grpc.sh [devices] [clients] [requests]}. Both protocols are called by
+ * the same number of concurrent clients, REST over a pool of HTTP/1.1 connections and gRPC over a single HTTP/2
+ * channel. The CPU time is the whole process's, client and server, per request, and the connections are the ones
+ * open on the server after each phase.
+ */
+public class DeviceGrpcBenchmark {
+
+    private static final int BRANDS = 10;
+
+    public static void main(String[] args) throws Exception {
+        int devices = args.length > 0 ? Integer.parseInt(args[0]) : 5_000;
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 32;
+        int requests = args.length > 2 ? Integer.parseInt(args[2]) : 20_000;
+
+        System.setProperty("spring.devtools.restart.enabled", "false");
+
+        try (var context = (ServletWebServerApplicationContext) new SpringApplicationBuilder(DeviceapiApplication.class)
+                .run("--server.port=0",
+                        "--device.grpc.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:grpcbench;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+                        "--device.concurrency-limit.enabled=false",
+                        "--device.snapshot.enabled=false",
+                        "--device.archive.enabled=false");
+             HttpClient http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+             ExecutorService executor = Executors.newFixedThreadPool(clients)) {
+            String baseUrl = "http://localhost:" + context.getWebServer().getPort() + "/api/v1/devices";
+            AbstractProtocol<?> tomcatProtocol = (AbstractProtocol<?>) ((TomcatWebServer) context.getWebServer())
+                    .getTomcat().getConnector().getProtocolHandler();
+            ManagedChannel channel = NettyChannelBuilder
+                    .forAddress("localhost", context.getBean(DeviceGrpcServer.class).getPort())
+                    .usePlaintext()
+                    .build();
+            DeviceServiceGrpc.DeviceServiceBlockingStub blockingStub = DeviceServiceGrpc.newBlockingStub(channel);
+            DeviceServiceGrpc.DeviceServiceStub asyncStub = DeviceServiceGrpc.newStub(channel);
+            Benchmark benchmark = new Benchmark(executor, clients);
+
+            System.out.printf("%d devices per protocol, %d clients, %d requests per phase%n%n", devices, clients,
+                    requests);
+            System.out.printf("%-8s %-6s %10s %10s %10s %10s %12s %12s%n", "phase", "proto", "requests", "req/s",
+                    "p50 ms", "p99 ms", "cpu us/req", "connections");
+
+            benchmark.run("create", "rest", devices, tomcatProtocol::getConnectionCount, i -> send(http,
+                    HttpRequest.newBuilder(URI.create(baseUrl))
+                            .header("Content-Type", "application/json")
+                            .POST(HttpRequest.BodyPublishers.ofString(("{\"name\": \"REST Device %d\", " +
+                                    "\"brand\": \"Brand %d\", \"state\": \"AVAILABLE\", " +
+                                    "\"creationTime\": \"2025-03-21\"}").formatted(i, i % BRANDS)))
+                            .build()));
+            benchmark.run("create", "grpc", devices, () -> 1,
+                    slice -> bulkCreate(asyncStub, slice, devices, clients));
+
+            long maxId = 2L * devices;
+            benchmark.run("get", "rest", requests, tomcatProtocol::getConnectionCount, i -> send(http,
+                    HttpRequest.newBuilder(URI.create(baseUrl + "/" + randomId(maxId))).build()));
+            benchmark.run("get", "grpc", requests, () -> 1, i -> blockingStub.getDevice(
+                    GetDeviceRequest.newBuilder().setId(randomId(maxId)).build()));
+
+            int lists = Math.max(clients, requests / 20);
+            benchmark.run("list", "rest", lists, tomcatProtocol::getConnectionCount, i -> send(http,
+                    HttpRequest.newBuilder(URI.create(baseUrl + "?brand="
+                            + URLEncoder.encode("Brand " + i % BRANDS, StandardCharsets.UTF_8))).build()));
+            benchmark.run("list", "grpc", lists, () -> 1, i -> blockingStub.listDevices(
+                    ListDevicesRequest.newBuilder().setBrand("Brand " + i % BRANDS).build())
+                    .forEachRemaining(page -> {
+                    }));
+
+            channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        }
+    }
+
+    private static void send(HttpClient http, HttpRequest request) {
+        try {
+            HttpResponse<byte[]> response = http.send(request, HttpResponse.BodyHandlers.ofByteArray());
+
+            if (response.statusCode() >= 300) {
+                throw new IllegalStateException(request.uri() + " returned " + response.statusCode());
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Streams the devices of one client's slice in a single {@code BulkCreateDevices} call.
+     */
+    private static void bulkCreate(DeviceServiceGrpc.DeviceServiceStub asyncStub, int slice, int devices,
+                                   int clients) {
+        CompletableFuture<BulkCreateDevicesResponse> response = new CompletableFuture<>();
+        StreamObserver<CreateDeviceRequest> requests = asyncStub.bulkCreateDevices(new StreamObserver<>() {
+
+            @Override
+            public void onNext(BulkCreateDevicesResponse value) {
+                response.complete(value);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                response.completeExceptionally(t);
+            }
+
+            @Override
+            public void onCompleted() {
+            }
+        });
+
+        for (int i = slice; i < devices; i += clients) {
+            requests.onNext(CreateDeviceRequest.newBuilder()
+                    .setName("gRPC Device " + i)
+                    .setBrand("Brand " + i % BRANDS)
+                    .setState(State.AVAILABLE)
+                    .setCreationTime("2025-03-21")
+                    .build());
+        }
+
+        requests.onCompleted();
+
+        if (response.join().getFailed() > 0) {
+            throw new IllegalStateException(response.join().getErrorsList().toString());
+        }
+    }
+
+    private static long randomId(long maxId) {
+        return ThreadLocalRandom.current().nextLong(1, maxId + 1);
+    }
+
+    /**
+     * Runs a phase on every client thread and prints its throughput, latencies, CPU time and connections.
+     */
+    private record Benchmark(ExecutorService executor, int clients) {
+
+        private void run(String phase, String protocol, int requests, ConnectionCount connections,
+                         IntConsumer request) throws Exception {
+            boolean bulk = phase.equals("create") && protocol.equals("grpc");
+            int calls = bulk ? clients : requests;
+            long[] latencies = new long[calls];
+            AtomicInteger next = new AtomicInteger();
+            var osBean = (com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+            long startCpuNanos = osBean.getProcessCpuTime();
+            long startNanos = System.nanoTime();
+
+            Future<?>[] futures = new Future<?>[clients];
+
+            for (int client = 0; client < clients; client++) {
+                futures[client] = executor.submit(() -> {
+                    for (int i = next.getAndIncrement(); i < calls; i = next.getAndIncrement()) {
+                        long requestStartNanos = System.nanoTime();
+                        request.accept(i);
+                        latencies[i] = System.nanoTime() - requestStartNanos;
+                    }
+                });
+            }
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+
+            long elapsedNanos = System.nanoTime() - startNanos;
+            long cpuNanos = osBean.getProcessCpuTime() - startCpuNanos;
+            Arrays.sort(latencies);
+
+            System.out.printf("%-8s %-6s %10d %10.0f %10.3f %10.3f %12.1f %12d%n", phase, protocol, requests,
+                    requests / (elapsedNanos / 1e9), percentile(latencies, 0.5), percentile(latencies, 0.99),
+                    cpuNanos / 1e3 / requests, connections.get());
+        }
+
+        private static double percentile(long[] sortedNanos, double percentile) {
+            return sortedNanos[(int) Math.min(sortedNanos.length - 1, sortedNanos.length * percentile)] / 1e6;
+        }
+    }
+
+    @FunctionalInterface
+    private interface ConnectionCount {
+
+        long get();
+    }
+}
@@ -0,0 +1,190 @@
+package com.francisco.deviceapi.grpc;
+
+import com.francisco.deviceapi.domain.Device;
+import com.francisco.deviceapi.domain.enums.DeviceState;
+import com.francisco.deviceapi.dto.DeviceDTO;
+import com.francisco.deviceapi.exception.DeviceAlreadyExistsException;
+import com.francisco.deviceapi.exception.DeviceNotFoundException;
+import com.francisco.deviceapi.grpc.v1.BulkCreateDevicesResponse;
+import com.francisco.deviceapi.grpc.v1.CreateDeviceRequest;
+import com.francisco.deviceapi.grpc.v1.DeviceResponse;
+import com.francisco.deviceapi.grpc.v1.DeviceServiceGrpc;
+import com.francisco.deviceapi.grpc.v1.GetDeviceRequest;
+import com.francisco.deviceapi.grpc.v1.ListDevicesRequest;
+import com.francisco.deviceapi.grpc.v1.ListDevicesResponse;
+import com.francisco.deviceapi.grpc.v1.State;
+import com.francisco.deviceapi.mapper.DeviceMapperImpl;
+import com.francisco.deviceapi.service.DeviceService;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class DeviceGrpcServiceTests {
+
+    private final DeviceService deviceService = mock(DeviceService.class);
+
+    private Server server;
+
+    private ManagedChannel channel;
+
+    private DeviceServiceGrpc.DeviceServiceBlockingStub blockingStub;
+
+    private DeviceServiceGrpc.DeviceServiceStub asyncStub;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        String name = InProcessServerBuilder.generateName();
+        server = InProcessServerBuilder.forName(name)
+                .addService(new DeviceGrpcService(deviceService, new DeviceMapperImpl(),
+                        Validation.buildDefaultValidatorFactory().getValidator(), 2000, 5000, 30000, 100, 1))
+                .build()
+                .start();
+        channel = InProcessChannelBuilder.forName(name).build();
+        blockingStub = DeviceServiceGrpc.newBlockingStub(channel);
+        asyncStub = DeviceServiceGrpc.newStub(channel);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void getDevice_shouldReturnDevice() {
+        when(deviceService.getDevice(1L)).thenReturn(device(1L, "Device 1"));
+
+        DeviceResponse response = blockingStub.getDevice(GetDeviceRequest.newBuilder().setId(1L).build());
+
+        assertThat(response.getId()).isEqualTo(1L);
+        assertThat(response.getName()).isEqualTo("Device 1");
+        assertThat(response.getState()).isEqualTo(State.AVAILABLE);
+        assertThat(response.getCreationTime()).isEqualTo("2025-04-01");
+    }
+
+    @Test
+    void getDevice_shouldFailWithNotFound_whenDeviceDoesNotExist() {
+        when(deviceService.getDevice(1L)).thenThrow(new DeviceNotFoundException());
+
+        StatusRuntimeException e = assertThrows(StatusRuntimeException.class,
+                () -> blockingStub.getDevice(GetDeviceRequest.newBuilder().setId(1L).build()));
+
+        assertThat(e.getStatus().getCode()).isEqualTo(Status.Code.NOT_FOUND);
+        assertThat(e.getStatus().getDescription()).isEqualTo("Device not found!");
+    }
+
+    @Test
+    void createDevice_shouldFailWithInvalidArgument_withoutCallingService_whenFieldsAreMissing() {
+        StatusRuntimeException e = assertThrows(StatusRuntimeException.class,
+                () -> blockingStub.createDevice(CreateDeviceRequest.newBuilder().setName("Device 1").build()));
+
+        assertThat(e.getStatus().getCode()).isEqualTo(Status.Code.INVALID_ARGUMENT);
+        assertThat(e.getStatus().getDescription()).isEqualTo(
+                "brand must not be blank, creationTime must not be null, state must not be null");
+        verifyNoInteractions(deviceService);
+    }
+
+    @Test
+    void listDevices_shouldStreamEveryDevice_inPages() {
+        List<DeviceDTO> devices = LongStream.rangeClosed(1, 1050)
+                .mapToObj(id -> new DeviceDTO(id, "Device " + id, "Apple", DeviceState.IN_USE,
+                        LocalDate.of(2025, 4, 1)))
+                .toList();
+        when(deviceService.getDevices("Apple", DeviceState.IN_USE)).thenReturn(devices);
+
+        Iterator<ListDevicesResponse> pages = blockingStub.listDevices(ListDevicesRequest.newBuilder()
+                .setBrand("Apple")
+                .setState(State.IN_USE)
+                .build());
+        List<Integer> pageSizes = new ArrayList<>();
+        List<Long> ids = new ArrayList<>();
+        pages.forEachRemaining(page -> {
+            pageSizes.add(page.getDevicesCount());
+            page.getDevicesList().forEach(device -> ids.add(device.getId()));
+        });
+
+        assertThat(pageSizes).hasSize(11).last().isEqualTo(50);
+        assertThat(ids).isEqualTo(devices.stream().map(DeviceDTO::id).toList());
+    }
+
+    @Test
+    void bulkCreateDevices_shouldCreateEveryDevice_andReportTheFailedOnes() throws Exception {
+        when(deviceService.createDevice(any(Device.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0))
+                .thenThrow(new DeviceAlreadyExistsException("Device already exists!"))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+        CompletableFuture<BulkCreateDevicesResponse> response = new CompletableFuture<>();
+
+        StreamObserver<CreateDeviceRequest> requests = asyncStub.bulkCreateDevices(new StreamObserver<>() {
+
+            @Override
+            public void onNext(BulkCreateDevicesResponse value) {
+                response.complete(value);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                response.completeExceptionally(t);
+            }
+
+            @Override
+            public void onCompleted() {
+            }
+        });
+        requests.onNext(createRequest("Device 1"));
+        requests.onNext(createRequest("Device 2"));
+        requests.onNext(CreateDeviceRequest.newBuilder().setName("Device 3").build());
+        requests.onNext(createRequest("Device 4"));
+        requests.onCompleted();
+
+        BulkCreateDevicesResponse result = response.get(5, TimeUnit.SECONDS);
+        assertThat(result.getCreated()).isEqualTo(2);
+        assertThat(result.getFailed()).isEqualTo(2);
+        assertThat(result.getErrorsList()).singleElement().satisfies(error -> {
+            assertThat(error.getIndex()).isEqualTo(1);
+            assertThat(error.getCode()).isEqualTo("ALREADY_EXISTS");
+            assertThat(error.getMessage()).isEqualTo("Device already exists!");
+        });
+        verify(deviceService, times(3)).createDevice(any(Device.class));
+    }
+
+    private static Device device(Long id, String name) {
+        Device device = new Device();
+        device.setId(id);
+        device.setName(name);
+        device.setBrand("Apple");
+        device.setState(DeviceState.AVAILABLE);
+        device.setCreationTime(LocalDate.of(2025, 4, 1));
+        return device;
+    }
+
+    private static CreateDeviceRequest createRequest(String name) {
+        return CreateDeviceRequest.newBuilder()
+                .setName(name)
+                .setBrand("Apple")
+                .setState(State.AVAILABLE)
+                .setCreationTime("2025-04-01")
+                .build();
+    }
+}
@@ -0,0 +1,97 @@
+package com.francisco.deviceapi.jfr;
+
+import com.francisco.deviceapi.domain.Device;
+import com.francisco.deviceapi.domain.enums.DeviceState;
+import com.francisco.deviceapi.repository.DeviceRepository;
+import com.francisco.deviceapi.service.DeviceService;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+public class DeviceJfrEventTests {
+
+    @Autowired
+    private DeviceService deviceService;
+
+    @Autowired
+    private DeviceRepository deviceRepository;
+
+    @TempDir
+    private Path tempDir;
+
+    private Device device;
+
+    @BeforeEach
+    public void setUp() {
+        deviceRepository.deleteAll();
+        device = deviceRepository.save(Device.builder()
+                .setName("Device 1")
+                .setBrand("Brand 1")
+                .setState(DeviceState.AVAILABLE)
+                .build());
+    }
+
+    @Test
+    public void whenCheckoutDevice_thenLockWaitAndTransactionEventsCarryDeviceId() throws Exception {
+        List<RecordedEvent> events = record(() -> deviceService.checkoutDevice(device.getId(), Duration.ofMinutes(1)));
+
+        RecordedEvent lockWait = single(events, "com.francisco.deviceapi.DeviceLockWait");
+        assertEquals(device.getId(), lockWait.getLong("deviceId"));
+        assertTrue(lockWait.getBoolean("found"));
+
+        RecordedEvent transaction = single(events, "com.francisco.deviceapi.LongDeviceTransaction");
+        assertEquals("checkoutDevice", transaction.getString("method"));
+        assertEquals(device.getId(), transaction.getLong("deviceId"));
+        assertEquals(1, transaction.getLong("rowCount"));
+        assertFalse(transaction.getBoolean("rolledBack"));
+    }
+
+    @Test
+    public void whenFindByBrandAndState_thenSlowQueryEventCarriesFiltersAndRowCount() throws Exception {
+        List<RecordedEvent> events = record(() -> deviceRepository.findByBrandAndState("Brand 1", null));
+
+        RecordedEvent query = single(events, "com.francisco.deviceapi.SlowDeviceQuery");
+        assertEquals("findByBrandAndState", query.getString("query"));
+        assertEquals("brand=Brand 1, state=null", query.getString("parameters"));
+        assertEquals(0, query.getLong("deviceId"));
+        assertEquals(1, query.getLong("rowCount"));
+    }
+
+    private List<RecordedEvent> record(Runnable action) throws Exception {
+        Path file = tempDir.resolve("recording.jfr");
+
+        try (Recording recording = new Recording()) {
+            recording.enable(DeviceLockWaitEvent.class).withThreshold(Duration.ZERO);
+            recording.enable(SlowDeviceQueryEvent.class).withThreshold(Duration.ZERO);
+            recording.enable(LongDeviceTransactionEvent.class).withThreshold(Duration.ZERO);
+            recording.start();
+            action.run();
+            recording.stop();
+            recording.dump(file);
+        }
+
+        return RecordingFile.readAllEvents(file);
+    }
+
+    private static RecordedEvent single(List<RecordedEvent> events, String name) {
+        List<RecordedEvent> matching = events.stream()
+                .filter(event -> event.getEventType().getName().equals(name))
+                .toList();
+        assertEquals(1, matching.size(), () -> name + " events: " + matching);
+        return matching.getFirst();
+    }
+}
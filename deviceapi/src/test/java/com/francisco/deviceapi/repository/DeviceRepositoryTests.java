@@ -2,27 +2,55 @@ package com.francisco.deviceapi.repository;
 
 import com.francisco.deviceapi.domain.Device;
 import com.francisco.deviceapi.domain.enums.DeviceState;
+import com.francisco.deviceapi.dto.DeviceCreationCountDTO;
+import com.francisco.deviceapi.dto.DeviceDTO;
+import com.francisco.deviceapi.dto.DeviceImportRowDTO;
+import com.francisco.deviceapi.dto.DeviceLeaseDTO;
+import com.francisco.deviceapi.dto.DeviceSnapshotDTO;
+import com.francisco.deviceapi.dto.DeviceStateTransitionDTO;
+import com.francisco.deviceapi.dto.DeviceStateUpdateDTO;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
 import org.springframework.test.context.ActiveProfiles;
 
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @DataJpaTest
 @ActiveProfiles("test")
+@Import({DeviceImportRepository.class, DeviceStateHistoryRepository.class, DeviceStateRepository.class})
 public class DeviceRepositoryTests {
 
     @Autowired
     private DeviceRepository deviceRepository;
 
+    @Autowired
+    private ArchivedDeviceRepository archivedDeviceRepository;
+
+    @Autowired
+    private DeviceImportRepository deviceImportRepository;
+
+    @Autowired
+    private DeviceStateHistoryRepository deviceStateHistoryRepository;
+
+    @Autowired
+    private DeviceStateRepository deviceStateRepository;
+
     @Autowired
     private TestEntityManager testEntityManager;
 
@@ -132,4 +160,206 @@ public class DeviceRepositoryTests {
 
         assertTrue(deviceOptional.isEmpty());
     }
+
+    @Test
+    public void whenExpireLeases_thenOnlyExpiredLeasesReverted() {
+        Instant now = Instant.now();
+        device3.setLeaseExpiresAt(now.minusSeconds(1));
+        Device device4 = createDevice("Device 4", "Brand 2", DeviceState.IN_USE);
+        device4.setLeaseExpiresAt(now.plusSeconds(60));
+        testEntityManager.persistAndFlush(device3);
+        testEntityManager.persistAndFlush(device4);
+
+        int expired = deviceRepository.expireLeases(List.of(device3.getId(), device4.getId()),
+                DeviceState.IN_USE, DeviceState.AVAILABLE, now);
+        testEntityManager.clear();
+
+        assertEquals(1, expired);
+        assertThat(deviceRepository.findById(device3.getId()))
+                .get()
+                .extracting(Device::getState, Device::getLeaseExpiresAt)
+                .containsExactly(DeviceState.AVAILABLE, null);
+        assertThat(deviceRepository.findById(device4.getId()))
+                .get()
+                .extracting(Device::getState)
+                .isEqualTo(DeviceState.IN_USE);
+    }
+
+    @Test
+    public void whenFindLeasesAfter_thenReturnLeasesOrderedById() {
+        Instant leaseExpiresAt = Instant.now().plusSeconds(60);
+        device3.setLeaseExpiresAt(leaseExpiresAt);
+        testEntityManager.persistAndFlush(device3);
+
+        List<DeviceLeaseDTO> leases = deviceRepository.findLeasesAfter(0L, DeviceState.IN_USE, PageRequest.ofSize(10));
+
+        assertThat(leases)
+                .extracting(DeviceLeaseDTO::id)
+                .containsExactly(device3.getId());
+    }
+
+    @Test
+    public void whenFindForClaimByBrand_thenReturnAvailableDevicesUpToPageSize() {
+        List<Device> devices = deviceRepository.findForClaim("Brand 1", DeviceState.AVAILABLE, PageRequest.ofSize(1));
+
+        assertThat(devices)
+                .extracting(Device::getName)
+                .containsExactly(device1.getName());
+    }
+
+    @Test
+    public void whenClaimByIdIn_thenSetStateAndLease() {
+        Instant leaseExpiresAt = Instant.now().plusSeconds(60);
+
+        int claimed = deviceRepository.claimByIdIn(List.of(device1.getId(), device2.getId()), DeviceState.IN_USE,
+                leaseExpiresAt);
+
+        assertEquals(2, claimed);
+        assertThat(deviceRepository.findByState(DeviceState.IN_USE).orElseThrow())
+                .extracting(Device::getName)
+                .containsExactlyInAnyOrder(device1.getName(), device2.getName(), device3.getName());
+    }
+
+    @Test
+    public void whenArchiveAndRestoreInactiveDevice_thenMoveRowBetweenTables() {
+        Device inactiveDevice = createDevice("Device 4", "Brand 1", DeviceState.INACTIVE);
+        testEntityManager.persistAndFlush(inactiveDevice);
+        List<Long> ids = deviceRepository.findForArchive(DeviceState.INACTIVE, PageRequest.ofSize(10))
+                .stream()
+                .map(Device::getId)
+                .toList();
+
+        assertEquals(1, archivedDeviceRepository.archiveByIdIn(ids, Instant.now()));
+        assertEquals(1, deviceRepository.deleteByIdInAndState(ids, DeviceState.INACTIVE));
+        assertTrue(deviceRepository.findById(inactiveDevice.getId()).isEmpty());
+        assertTrue(archivedDeviceRepository.existsByNameAndBrand("Device 4", "Brand 1"));
+        assertThat(archivedDeviceRepository.findByBrandAsDTO("Brand 1"))
+                .extracting(DeviceDTO::id)
+                .containsExactly(inactiveDevice.getId());
+
+        assertEquals(1, archivedDeviceRepository.restoreById(inactiveDevice.getId()));
+        assertEquals(1, archivedDeviceRepository.removeById(inactiveDevice.getId()));
+        assertThat(deviceRepository.findByIdForUpdate(inactiveDevice.getId()))
+                .get()
+                .extracting(Device::getName, Device::getState)
+                .containsExactly("Device 4", DeviceState.INACTIVE);
+    }
+
+    @Test
+    public void whenCountByBrandAndState_thenCountMatchingDevices() {
+        assertEquals(2L, deviceRepository.countByBrandAndState("Brand 1", null));
+        assertEquals(1L, deviceRepository.countByBrandAndState(null, DeviceState.IN_USE));
+        assertEquals(1L, deviceRepository.countByBrandAndState("Brand 2", DeviceState.IN_USE));
+        assertEquals(3L, deviceRepository.countByBrandAndState(null, null));
+    }
+
+    @Test
+    public void whenMergeStagedImport_thenInsertOnlyNewDevices() {
+        Device inactiveDevice = createDevice("Device 4", "Brand 1", DeviceState.INACTIVE);
+        testEntityManager.persistAndFlush(inactiveDevice);
+        List<Long> ids = List.of(inactiveDevice.getId());
+        archivedDeviceRepository.archiveByIdIn(ids, Instant.now());
+        deviceRepository.deleteByIdInAndState(ids, DeviceState.INACTIVE);
+
+        UUID importId = UUID.randomUUID();
+        LocalDate creationTime = LocalDate.of(2024, 1, 31);
+        List<DeviceImportRowDTO> rows = List.of(
+                new DeviceImportRowDTO(2, "Device 1", "Brand 1", DeviceState.AVAILABLE, creationTime),
+                new DeviceImportRowDTO(3, "Device 4", "Brand 1", DeviceState.AVAILABLE, creationTime),
+                new DeviceImportRowDTO(4, "Device 5", "Brand 1", DeviceState.IN_USE, creationTime),
+                new DeviceImportRowDTO(5, "Device 5", "Brand 1", DeviceState.INACTIVE, creationTime),
+                new DeviceImportRowDTO(6, "Device 1", "Brand 3", DeviceState.AVAILABLE, creationTime));
+
+        assertEquals(5, deviceImportRepository.stage(importId, rows.iterator()));
+        assertEquals(2, deviceImportRepository.merge(importId));
+        deviceImportRepository.deleteStaged(importId);
+        testEntityManager.clear();
+
+        assertThat(deviceRepository.findAll())
+                .filteredOn(device -> device.getCreationTime().equals(creationTime))
+                .extracting(Device::getName, Device::getBrand, Device::getState)
+                .containsExactlyInAnyOrder(
+                        tuple("Device 5", "Brand 1", DeviceState.IN_USE),
+                        tuple("Device 1", "Brand 3", DeviceState.AVAILABLE));
+        assertEquals(0, deviceImportRepository.merge(importId));
+    }
+
+    @Test
+    public void whenUpdateStateOfChangedRows_thenWriteOnlyUnchangedRows() {
+        testEntityManager.clear();
+        Instant updatedAt1 = deviceRepository.findById(device1.getId()).orElseThrow().getUpdatedAt();
+        Instant updatedAt2 = deviceRepository.findById(device2.getId()).orElseThrow().getUpdatedAt();
+
+        boolean[] written = deviceStateRepository.updateStateIfUnchanged(List.of(
+                        new DeviceStateUpdateDTO(device1.getId(), DeviceState.IN_USE, updatedAt1),
+                        new DeviceStateUpdateDTO(device2.getId(), DeviceState.IN_USE, updatedAt2.minusSeconds(1))),
+                Instant.now().truncatedTo(ChronoUnit.MICROS));
+        testEntityManager.clear();
+
+        assertTrue(written[0]);
+        assertFalse(written[1]);
+        assertEquals(DeviceState.IN_USE, deviceRepository.findById(device1.getId()).orElseThrow().getState());
+        assertEquals(DeviceState.AVAILABLE, deviceRepository.findById(device2.getId()).orElseThrow().getState());
+    }
+
+    @Test
+    public void whenUpdateStateInBulk_thenFindChangedSinceReturnsUpdatedDevices() {
+        Instant since = Instant.now().plusSeconds(3600);
+        assertTrue(deviceRepository.findChangedSince(since, 0L, PageRequest.ofSize(10)).isEmpty());
+
+        testEntityManager.clear();
+        Instant updatedAt = deviceRepository.findById(device3.getId()).orElseThrow().getUpdatedAt();
+        deviceStateRepository.updateStateIfUnchanged(
+                List.of(new DeviceStateUpdateDTO(device3.getId(), DeviceState.AVAILABLE, updatedAt)),
+                Instant.now().truncatedTo(ChronoUnit.MICROS));
+        testEntityManager.clear();
+
+        assertThat(deviceRepository.findChangedSince(Instant.EPOCH, 0L, PageRequest.ofSize(10)))
+                .extracting(DeviceSnapshotDTO::id)
+                .containsExactly(device1.getId(), device2.getId(), device3.getId());
+        assertThat(deviceRepository.findChangedSince(deviceRepository.findById(device3.getId()).orElseThrow()
+                .getUpdatedAt(), device1.getId(), PageRequest.ofSize(10)))
+                .extracting(DeviceSnapshotDTO::id, DeviceSnapshotDTO::state)
+                .contains(tuple(device3.getId(), DeviceState.AVAILABLE));
+        assertEquals(List.of(device2.getId(), device3.getId()),
+                deviceRepository.findIdsAfter(device1.getId(), PageRequest.ofSize(10)));
+    }
+
+    @Test
+    public void whenCountCreatedPerDay_thenGroupByCreationDate() {
+        LocalDate today = device1.getCreationTime();
+
+        assertThat(deviceRepository.countCreatedPerDay(null, today, today))
+                .containsExactly(new DeviceCreationCountDTO(today, 3L));
+        assertThat(deviceRepository.countCreatedPerDayAndBrand("Brand 1", null, null))
+                .containsExactly(new DeviceCreationCountDTO(today, "Brand 1", 2L));
+        assertTrue(deviceRepository.countCreatedPerDay(null, today.plusDays(1), null).isEmpty());
+        assertThat(deviceRepository.findByBrandAndStateCreatedBetween(null, DeviceState.IN_USE, null, today))
+                .extracting(DeviceDTO::id)
+                .containsExactly(device3.getId());
+    }
+
+    @Test
+    public void whenInsertStateTransitions_thenFindByDeviceIdNewestFirstInPages() {
+        Instant changedAt = Instant.parse("2025-03-21T10:15:30.123456Z");
+        deviceStateHistoryRepository.insertAll(List.of(
+                new DeviceStateTransitionDTO(device1.getId(), DeviceState.AVAILABLE, DeviceState.IN_USE, changedAt),
+                new DeviceStateTransitionDTO(device2.getId(), DeviceState.AVAILABLE, DeviceState.INACTIVE, changedAt),
+                new DeviceStateTransitionDTO(device1.getId(), DeviceState.IN_USE, DeviceState.AVAILABLE,
+                        changedAt.plusSeconds(60))));
+
+        List<DeviceStateTransitionDTO> firstPage = deviceStateHistoryRepository.findByDeviceId(device1.getId(), null, 1);
+        List<DeviceStateTransitionDTO> secondPage = deviceStateHistoryRepository.findByDeviceId(device1.getId(),
+                firstPage.get(0).id(), 1);
+
+        assertThat(firstPage)
+                .extracting(DeviceStateTransitionDTO::oldState, DeviceStateTransitionDTO::newState,
+                        DeviceStateTransitionDTO::changedAt)
+                .containsExactly(tuple(DeviceState.IN_USE, DeviceState.AVAILABLE, changedAt.plusSeconds(60)));
+        assertThat(secondPage)
+                .extracting(DeviceStateTransitionDTO::deviceId, DeviceStateTransitionDTO::newState,
+                        DeviceStateTransitionDTO::changedAt)
+                .containsExactly(tuple(device1.getId(), DeviceState.IN_USE, changedAt));
+        assertTrue(deviceStateHistoryRepository.findByDeviceId(device1.getId(), secondPage.get(0).id(), 1).isEmpty());
+    }
 }
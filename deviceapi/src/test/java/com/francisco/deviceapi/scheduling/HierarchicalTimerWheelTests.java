@@ -0,0 +1,111 @@
+package com.francisco.deviceapi.scheduling;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HierarchicalTimerWheelTests {
+
+    private static final long START = 1_000_000L;
+
+    private HierarchicalTimerWheel<Long> timerWheel;
+
+    private List<Long> expired;
+
+    @BeforeEach
+    void setup() {
+        timerWheel = new HierarchicalTimerWheel<>(10, 8, 3, START);
+        expired = new ArrayList<>();
+    }
+
+    @Test
+    public void whenAdvanceBeforeDeadline_thenTimerNotExpired() {
+        timerWheel.arm(1L, START + 55);
+
+        timerWheel.advance(START + 50, expired::add);
+
+        assertTrue(expired.isEmpty());
+        assertEquals(1, timerWheel.size());
+    }
+
+    @Test
+    public void whenAdvancePastDeadline_thenTimerExpiredWithinOneTick() {
+        timerWheel.arm(1L, START + 55);
+
+        timerWheel.advance(START + 59, expired::add);
+        assertTrue(expired.isEmpty());
+
+        timerWheel.advance(START + 65, expired::add);
+        assertThat(expired).containsExactly(1L);
+        assertEquals(0, timerWheel.size());
+    }
+
+    @Test
+    public void whenDeadlineInHigherLevels_thenTimerCascadedAndExpiredOnTime() {
+        timerWheel.arm(1L, START + 95);
+        timerWheel.arm(2L, START + 700);
+        timerWheel.arm(3L, START + 5_000);
+
+        timerWheel.advance(START + 690, expired::add);
+        assertThat(expired).containsExactly(1L);
+
+        timerWheel.advance(START + 710, expired::add);
+        assertThat(expired).containsExactly(1L, 2L);
+
+        timerWheel.advance(START + 4_990, expired::add);
+        assertThat(expired).containsExactly(1L, 2L);
+
+        timerWheel.advance(START + 5_010, expired::add);
+        assertThat(expired).containsExactly(1L, 2L, 3L);
+    }
+
+    @Test
+    public void whenCancelTimer_thenTimerNotExpired() {
+        timerWheel.arm(1L, START + 30);
+        timerWheel.arm(2L, START + 30);
+
+        assertTrue(timerWheel.cancel(1L));
+        assertFalse(timerWheel.cancel(1L));
+
+        timerWheel.advance(START + 100, expired::add);
+        assertThat(expired).containsExactly(2L);
+    }
+
+    @Test
+    public void whenRearmTimer_thenOnlyLatestDeadlineApplies() {
+        timerWheel.arm(1L, START + 30);
+        timerWheel.arm(1L, START + 300);
+
+        timerWheel.advance(START + 100, expired::add);
+        assertTrue(expired.isEmpty());
+
+        timerWheel.advance(START + 310, expired::add);
+        assertThat(expired).containsExactly(1L);
+    }
+
+    @Test
+    public void whenArmIfAbsentWithArmedTimer_thenKeepArmedTimer() {
+        timerWheel.arm(1L, START + 300);
+
+        assertFalse(timerWheel.armIfAbsent(1L, START + 30));
+
+        timerWheel.advance(START + 100, expired::add);
+        assertTrue(expired.isEmpty());
+    }
+
+    @Test
+    public void whenArmPastDeadline_thenTimerExpiredOnNextAdvance() {
+        timerWheel.advance(START + 100, expired::add);
+        timerWheel.arm(1L, START);
+
+        timerWheel.advance(START + 100, expired::add);
+        assertThat(expired).containsExactly(1L);
+    }
+}
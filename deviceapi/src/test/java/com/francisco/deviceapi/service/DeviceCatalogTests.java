@@ -0,0 +1,104 @@
+package com.francisco.deviceapi.service;
+
+import com.francisco.deviceapi.domain.enums.DeviceState;
+import com.francisco.deviceapi.dto.DeviceSnapshotDTO;
+import com.francisco.deviceapi.repository.DeviceRepository;
+import com.francisco.deviceapi.snapshot.DeviceSnapshotFile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class DeviceCatalogTests {
+
+    private static final Instant WATERMARK = Instant.parse("2025-03-21T10:00:00Z");
+
+    @Mock
+    private DeviceRepository deviceRepository;
+
+    @TempDir
+    private Path directory;
+
+    private Path path;
+
+    private DeviceCatalog deviceCatalog;
+
+    private DeviceSnapshotDTO createDevice(long id, DeviceState state, Instant updatedAt) {
+        return new DeviceSnapshotDTO(id, "Device " + id, "Brand 1", state, LocalDate.of(2025, 1, 1), null,
+                updatedAt);
+    }
+
+    private List<Long> ids() {
+        List<Long> ids = new ArrayList<>();
+        deviceCatalog.forEach(device -> ids.add(device.id()));
+        return ids;
+    }
+
+    @BeforeEach
+    void setup() {
+        path = directory.resolve("devices.snapshot");
+        deviceCatalog = new DeviceCatalog(deviceRepository, new SimpleMeterRegistry(), true, path, 60000, 100);
+    }
+
+    @Test
+    public void whenRestoreFromSnapshot_thenCatchUpWithChangedAndDeletedDevices() throws IOException {
+        DeviceSnapshotFile.write(path, WATERMARK, List.of(
+                createDevice(1L, DeviceState.AVAILABLE, WATERMARK.minusSeconds(600)),
+                createDevice(2L, DeviceState.AVAILABLE, WATERMARK.minusSeconds(600)),
+                createDevice(3L, DeviceState.AVAILABLE, WATERMARK.minusSeconds(600))));
+        DeviceSnapshotDTO changedDevice = createDevice(2L, DeviceState.IN_USE, WATERMARK.plusSeconds(5));
+        DeviceSnapshotDTO newDevice = createDevice(4L, DeviceState.AVAILABLE, WATERMARK.plusSeconds(10));
+        when(deviceRepository.findChangedSince(eq(WATERMARK.minusSeconds(60)), eq(0L), any(Pageable.class)))
+                .thenReturn(List.of(changedDevice, newDevice));
+        when(deviceRepository.countByBrandAndState(null, null)).thenReturn(3L);
+        when(deviceRepository.findIdsAfter(eq(0L), any(Pageable.class))).thenReturn(List.of(1L, 2L, 4L));
+
+        deviceCatalog.restore();
+
+        assertEquals(List.of(1L, 2L, 4L), ids());
+        assertEquals(3, deviceCatalog.size());
+        assertThat(deviceCatalog.get(2L)).contains(changedDevice);
+        assertThat(deviceCatalog.get(3L)).isEmpty();
+        verify(deviceRepository, never()).findByIdInAsSnapshotDTO(anyCollection());
+    }
+
+    @Test
+    public void whenWriteSnapshot_thenNextRestoreOnlyQueriesLaterChanges() {
+        DeviceSnapshotDTO device = createDevice(1L, DeviceState.AVAILABLE, WATERMARK);
+        when(deviceRepository.findChangedSince(any(Instant.class), anyLong(), any(Pageable.class)))
+                .thenReturn(List.of(device))
+                .thenReturn(List.of());
+        when(deviceRepository.countByBrandAndState(null, null)).thenReturn(1L);
+
+        deviceCatalog.restore();
+        deviceCatalog.writeSnapshot();
+        DeviceCatalog restartedCatalog = new DeviceCatalog(deviceRepository, new SimpleMeterRegistry(), true, path,
+                60000, 100);
+        restartedCatalog.restore();
+
+        assertThat(restartedCatalog.get(1L)).contains(device);
+        verify(deviceRepository, times(2)).findChangedSince(eq(WATERMARK.minusSeconds(60)), eq(0L),
+                any(Pageable.class));
+        verify(deviceRepository, never()).findIdsAfter(anyLong(), any(Pageable.class));
+    }
+}
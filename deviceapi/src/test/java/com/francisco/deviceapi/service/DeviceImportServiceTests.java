@@ -0,0 +1,103 @@
+package com.francisco.deviceapi.service;
+
+import com.francisco.deviceapi.domain.enums.DeviceState;
+import com.francisco.deviceapi.dto.DeviceImportEventDTO;
+import com.francisco.deviceapi.dto.DeviceImportRowDTO;
+import com.francisco.deviceapi.repository.DeviceImportRepository;
+import com.francisco.deviceapi.sharding.DeviceShardRouter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class DeviceImportServiceTests {
+
+    @Mock
+    private DeviceImportRepository deviceImportRepository;
+
+    @Mock
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    private DeviceImportService deviceImportService;
+
+    private List<DeviceImportRowDTO> stagedRows;
+
+    private List<DeviceImportEventDTO> events;
+
+    @BeforeEach
+    void setup() {
+        deviceImportService = new DeviceImportService(deviceImportRepository, applicationEventPublisher,
+                new DeviceShardRouter(false, List.of(), 1, null), 2, 1);
+        stagedRows = new ArrayList<>();
+        events = new ArrayList<>();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void stageRows() {
+        when(deviceImportRepository.stage(any(UUID.class), any())).thenAnswer(invocation -> {
+            ((Iterator<DeviceImportRowDTO>) invocation.getArgument(1)).forEachRemaining(stagedRows::add);
+            return (long) stagedRows.size();
+        });
+    }
+
+    private DeviceImportEventDTO importDevices(String csv) {
+        return deviceImportService.importDevices(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)),
+                events::add);
+    }
+
+    @Test
+    public void whenImportDevices_thenStageValidRowsAndReportRejectedRows() {
+        stageRows();
+        when(deviceImportRepository.merge(any(UUID.class))).thenReturn(1);
+
+        DeviceImportEventDTO summary = importDevices("""
+                \uFEFFBrand,Name,State,creation_time
+                Brand 1,"Device, 1",available,2024-01-31
+                Brand 1,Device 2,broken,2024-01-31
+
+                Brand 1,,IN_USE,
+                Brand 2,"Device \"\"3\"\"",INACTIVE,
+                """);
+
+        assertThat(stagedRows)
+                .extracting(DeviceImportRowDTO::line, DeviceImportRowDTO::name, DeviceImportRowDTO::brand,
+                        DeviceImportRowDTO::state, DeviceImportRowDTO::creationTime)
+                .containsExactly(
+                        tuple(2L, "Device, 1", "Brand 1", DeviceState.AVAILABLE, LocalDate.of(2024, 1, 31)),
+                        tuple(6L, "Device \"3\"", "Brand 2", DeviceState.INACTIVE, LocalDate.now()));
+        assertThat(events).containsExactly(
+                DeviceImportEventDTO.error(3, "Invalid state!"),
+                DeviceImportEventDTO.progress(2, 1),
+                DeviceImportEventDTO.progress(4, 2));
+        assertEquals(DeviceImportEventDTO.summary(4, 1, 1, 2), summary);
+        verify(deviceImportRepository, times(1)).deleteStaged(any(UUID.class));
+        verify(applicationEventPublisher, times(1)).publishEvent(DeviceChangedEvent.imported());
+    }
+
+    @Test
+    public void whenImportDevicesWithoutRequiredColumn_thenThrowIllegalArgumentException() {
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> importDevices("name,state\nDevice 1,AVAILABLE\n"));
+
+        assertEquals("Missing brand column!", exception.getMessage());
+        verifyNoInteractions(deviceImportRepository, applicationEventPublisher);
+    }
+}
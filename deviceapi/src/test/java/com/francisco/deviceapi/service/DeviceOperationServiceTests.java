@@ -0,0 +1,165 @@
+package com.francisco.deviceapi.service;
+
+import com.francisco.deviceapi.domain.Device;
+import com.francisco.deviceapi.domain.enums.DeviceOperationType;
+import com.francisco.deviceapi.domain.enums.DeviceState;
+import com.francisco.deviceapi.dto.DeviceOperationDTO;
+import com.francisco.deviceapi.dto.DeviceOperationResultDTO;
+import com.francisco.deviceapi.repository.DeviceRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+public class DeviceOperationServiceTests {
+
+    @Autowired
+    private DeviceOperationService deviceOperationService;
+
+    @Autowired
+    private DeviceRepository deviceRepository;
+
+    private Device device1;
+
+    private Device device2;
+
+    @BeforeEach
+    void setup() {
+        deviceRepository.deleteAll();
+        device1 = deviceRepository.save(Device.builder()
+                .setName("Device 1")
+                .setBrand("Brand 1")
+                .setState(DeviceState.AVAILABLE)
+                .build());
+        device2 = deviceRepository.save(Device.builder()
+                .setName("Device 2")
+                .setBrand("Brand 1")
+                .setState(DeviceState.AVAILABLE)
+                .build());
+    }
+
+    @Test
+    void whenEveryOperationSucceeds_thenCommitAndReturnEachResult() {
+        List<DeviceOperationResultDTO> results = deviceOperationService.applyOperations(List.of(
+                new DeviceOperationDTO(DeviceOperationType.CREATE, null, "Device 3", "Brand 2",
+                        DeviceState.AVAILABLE, LocalDate.of(2025, 1, 1)),
+                new DeviceOperationDTO(DeviceOperationType.UPDATE, device2.getId(), "Device 2", "Brand 2",
+                        DeviceState.INACTIVE, LocalDate.of(2025, 1, 1)),
+                new DeviceOperationDTO(DeviceOperationType.PATCH, device1.getId(), null, null, DeviceState.IN_USE,
+                        null),
+                new DeviceOperationDTO(DeviceOperationType.DELETE, device2.getId(), null, null, null, null)), null);
+
+        assertThat(results)
+                .extracting(DeviceOperationResultDTO::index, DeviceOperationResultDTO::status,
+                        DeviceOperationResultDTO::errorMessage)
+                .containsExactly(tuple(0, 201, null), tuple(1, 200, null), tuple(2, 200, null),
+                        tuple(3, 204, null));
+        assertEquals("Device 3", results.getFirst().device().name());
+        assertEquals(DeviceState.IN_USE, deviceRepository.findById(device1.getId()).orElseThrow().getState());
+        assertFalse(deviceRepository.existsById(device2.getId()));
+        assertThat(deviceRepository.existsByNameAndBrand("Device 3", "Brand 2")).isTrue();
+    }
+
+    @Test
+    void whenOperationFails_thenRollBackItsChunkOnly() {
+        List<DeviceOperationResultDTO> results = deviceOperationService.applyOperations(List.of(
+                new DeviceOperationDTO(DeviceOperationType.PATCH, device1.getId(), null, null, DeviceState.IN_USE,
+                        null),
+                new DeviceOperationDTO(DeviceOperationType.DELETE, device1.getId(), null, null, null, null),
+                new DeviceOperationDTO(DeviceOperationType.PATCH, device2.getId(), null, null, DeviceState.INACTIVE,
+                        null)), 2);
+
+        assertThat(results)
+                .extracting(DeviceOperationResultDTO::status, DeviceOperationResultDTO::errorMessage)
+                .containsExactly(tuple(424, "Rolled back because operation 1 failed!"),
+                        tuple(409, "The device is in use and cannot be deleted!"),
+                        tuple(200, null));
+        assertEquals(DeviceState.AVAILABLE, deviceRepository.findById(device1.getId()).orElseThrow().getState());
+        assertEquals(DeviceState.INACTIVE, deviceRepository.findById(device2.getId()).orElseThrow().getState());
+    }
+
+    @Test
+    void whenOperationIsIncomplete_thenBadRequest() {
+        List<DeviceOperationResultDTO> results = deviceOperationService.applyOperations(List.of(
+                new DeviceOperationDTO(DeviceOperationType.PATCH, null, "Device 4", null, null, null),
+                new DeviceOperationDTO(DeviceOperationType.CREATE, null, "", "Brand 1", null,
+                        LocalDate.of(2025, 1, 1))), 1);
+
+        assertThat(results)
+                .extracting(DeviceOperationResultDTO::status, DeviceOperationResultDTO::errorMessage)
+                .containsExactly(tuple(400, "id must not be null!"),
+                        tuple(400, "name must not be blank, state must not be null"));
+    }
+
+    @Test
+    void whenConcurrentBatchesChangeTheSameDevicesInOppositeOrder_thenNeitherDeadlocks() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try {
+            List<Future<List<DeviceOperationResultDTO>>> batches = new ArrayList<>();
+
+            for (int i = 0; i < 20; i++) {
+                batches.add(executor.submit(() -> deviceOperationService.applyOperations(List.of(
+                        patchState(device1, DeviceState.INACTIVE), patchState(device2, DeviceState.INACTIVE)), null)));
+                batches.add(executor.submit(() -> deviceOperationService.applyOperations(List.of(
+                        patchState(device2, DeviceState.AVAILABLE), patchState(device1, DeviceState.AVAILABLE)), null)));
+            }
+
+            for (Future<List<DeviceOperationResultDTO>> batch : batches) {
+                assertThat(batch.get()).extracting(DeviceOperationResultDTO::status).containsOnly(200);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Nested
+    @TestPropertySource(properties = "device.write-behind.enabled=true")
+    class WithWriteBehind {
+
+        @Autowired
+        private DeviceOperationService writeBehindOperationService;
+
+        @Autowired
+        private DeviceStateWriteBehindBuffer deviceStateWriteBehindBuffer;
+
+        @Test
+        void whenOperationFailsAfterStateOnlyPatch_thenRollBackThePatch() {
+            List<DeviceOperationResultDTO> results = writeBehindOperationService.applyOperations(List.of(
+                    patchState(device1, DeviceState.IN_USE),
+                    new DeviceOperationDTO(DeviceOperationType.DELETE, device1.getId(), null, null, null, null)),
+                    null);
+
+            deviceStateWriteBehindBuffer.flush();
+
+            assertThat(results)
+                    .extracting(DeviceOperationResultDTO::status, DeviceOperationResultDTO::errorMessage)
+                    .containsExactly(tuple(424, "Rolled back because operation 1 failed!"),
+                            tuple(409, "The device is in use and cannot be deleted!"));
+            assertTrue(deviceStateWriteBehindBuffer.pendingState(device1.getId()).isEmpty());
+            assertEquals(DeviceState.AVAILABLE, deviceRepository.findById(device1.getId()).orElseThrow().getState());
+        }
+    }
+
+    private static DeviceOperationDTO patchState(Device device, DeviceState state) {
+        return new DeviceOperationDTO(DeviceOperationType.PATCH, device.getId(), null, null, state, null);
+    }
+}
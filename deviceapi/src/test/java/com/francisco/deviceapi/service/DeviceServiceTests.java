@@ -1,23 +1,44 @@
 package com.francisco.deviceapi.service;
 
 import com.francisco.deviceapi.domain.Device;
+import com.francisco.deviceapi.domain.enums.CreationInterval;
 import com.francisco.deviceapi.domain.enums.DeviceState;
+import com.francisco.deviceapi.dto.DeviceCreationCountDTO;
 import com.francisco.deviceapi.dto.DeviceDTO;
+import com.francisco.deviceapi.dto.DeviceLookupDTO;
+import com.francisco.deviceapi.dto.DeviceStateHistoryDTO;
+import com.francisco.deviceapi.dto.DeviceStateTransitionDTO;
+import com.francisco.deviceapi.dto.DeviceStateUpdateDTO;
 import com.francisco.deviceapi.exception.DeviceAlreadyExistsException;
 import com.francisco.deviceapi.exception.DeviceInUseException;
+import com.francisco.deviceapi.exception.DeviceNotAvailableException;
 import com.francisco.deviceapi.exception.DeviceNotFoundException;
+import com.francisco.deviceapi.exception.InvalidDateRangeException;
 import com.francisco.deviceapi.repository.DeviceRepository;
+import com.francisco.deviceapi.repository.DeviceStateHistoryRepository;
+import com.francisco.deviceapi.repository.DeviceStateRepository;
+import com.francisco.deviceapi.sharding.DeviceShardRouter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Pageable;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.tuple;
@@ -32,6 +53,36 @@ public class DeviceServiceTests {
     @Mock
     private DeviceRepository deviceRepository;
 
+    @Mock
+    private DeviceStateRepository deviceStateRepository;
+
+    @Spy
+    private DeviceStateWriteBehindBuffer deviceStateWriteBehindBuffer =
+            new DeviceStateWriteBehindBuffer(null, new DeviceShardRouter(false, List.of(), 1, null), false, 500);
+
+    @Mock
+    private DeviceLeaseScheduler deviceLeaseScheduler;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private DeviceReadCoalescer deviceReadCoalescer = new DeviceReadCoalescer(meterRegistry);
+
+    @Mock
+    private DeviceArchiveService deviceArchiveService;
+
+    @Spy
+    private DeviceListCache deviceListCache = new DeviceListCache(new SimpleMeterRegistry(), true, 100, 1000, 60000);
+
+    @Mock
+    private DeviceStateHistoryRepository deviceStateHistoryRepository;
+
+    @Mock
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    @Spy
+    private DeviceShardRouter deviceShardRouter = new DeviceShardRouter(false, List.of(), 1, null);
+
     @InjectMocks
     private DeviceService deviceService;
 
@@ -53,11 +104,20 @@ public class DeviceServiceTests {
                 .build();
     }
 
+    private DeviceService createDeviceService(DeviceStateWriteBehindBuffer writeBehindBuffer) {
+        return new DeviceService(deviceRepository, writeBehindBuffer, deviceLeaseScheduler, deviceReadCoalescer,
+                deviceArchiveService, deviceListCache, deviceStateHistoryRepository, applicationEventPublisher,
+                deviceShardRouter);
+    }
+
     @BeforeEach
     void setup() {
         device1 = createDevice("Device 1", "Brand 1", DeviceState.AVAILABLE);
         device2 = createDevice("Device 2", "Brand 1", DeviceState.IN_USE);
         device3 = createDevice("Device 3", "Brand 1", DeviceState.AVAILABLE);
+        device1.setId(1L);
+        device2.setId(2L);
+        device3.setId(3L);
 
         deviceDTO1 = new DeviceDTO(1L, "Device 1",  "Brand 1", DeviceState.AVAILABLE, LocalDate.now());
         deviceDTO2 = new DeviceDTO(2L, "Device 3", "Brand 1", DeviceState.AVAILABLE, LocalDate.now());
@@ -147,6 +207,42 @@ public class DeviceServiceTests {
                 );
     }
 
+    @Test
+    public void whenPatchDeviceState_thenPublishStateChangedEvent() {
+        when(deviceRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(device1));
+        when(deviceRepository.save(any(Device.class))).thenReturn(device1);
+
+        deviceService.patchDevice(1L, Device.builder().setState(DeviceState.INACTIVE).build());
+        deviceService.patchDevice(1L, Device.builder().setName("New Name").build());
+
+        verify(applicationEventPublisher, times(1)).publishEvent(argThat((Object event) ->
+                event instanceof DeviceStateChangedEvent stateChanged && stateChanged.id().equals(1L)
+                        && stateChanged.oldState() == DeviceState.AVAILABLE
+                        && stateChanged.newState() == DeviceState.INACTIVE));
+        verify(applicationEventPublisher, times(1)).publishEvent(any(DeviceStateChangedEvent.class));
+    }
+
+    @Test
+    public void whenGetStateHistory_thenReturnPageWithNextBeforeId() {
+        List<DeviceStateTransitionDTO> transitions = List.of(
+                new DeviceStateTransitionDTO(9L, 1L, DeviceState.IN_USE, DeviceState.AVAILABLE, Instant.now()),
+                new DeviceStateTransitionDTO(4L, 1L, DeviceState.AVAILABLE, DeviceState.IN_USE, Instant.now()));
+
+        when(deviceStateHistoryRepository.findByDeviceId(1L, null, 2)).thenReturn(transitions);
+        when(deviceStateHistoryRepository.findByDeviceId(1L, 4L, 2)).thenReturn(List.of());
+
+        assertEquals(new DeviceStateHistoryDTO(transitions, 4L), deviceService.getStateHistory(1L, null, 2));
+        assertEquals(new DeviceStateHistoryDTO(List.of(), null), deviceService.getStateHistory(1L, 4L, 2));
+        verify(deviceRepository, never()).existsById(anyLong());
+    }
+
+    @Test
+    public void whenGetStateHistoryOfNonExistingDevice_thenThrowDeviceNotFoundException() {
+        when(deviceStateHistoryRepository.findByDeviceId(1L, null, 50)).thenReturn(List.of());
+
+        assertThrows(DeviceNotFoundException.class, () -> deviceService.getStateHistory(1L, null, 50));
+    }
+
     @Test
     public void whenFullyUpdateNonExistingDevice_thenThrowDeviceNotFoundException() {
         Device deviceDetails = Device.builder().setName("New Name").setBrand("Brand 1").setState(DeviceState.INACTIVE).build();
@@ -212,4 +308,435 @@ public class DeviceServiceTests {
 
         assertThrows(DeviceInUseException.class, () -> deviceService.deleteDevice(1L));
     }
+
+    @Test
+    public void whenGetArchivedDevice_thenReturnArchivedDevice() {
+        device1.setState(DeviceState.INACTIVE);
+        when(deviceRepository.findById(1L)).thenReturn(Optional.empty());
+        when(deviceArchiveService.findArchived(1L)).thenReturn(Optional.of(device1));
+
+        Device fetchedDevice = deviceService.getDevice(1L);
+
+        assertEquals(device1, fetchedDevice);
+    }
+
+    @Test
+    public void whenGetAvailableDevices_thenArchiveNotQueried() {
+        when(deviceRepository.findByBrandAndState("Brand 1", DeviceState.AVAILABLE))
+                .thenReturn(Optional.of(List.of(deviceDTO1)));
+
+        deviceService.getDevices("Brand 1", DeviceState.AVAILABLE);
+
+        verify(deviceArchiveService, never()).findArchived(anyString());
+    }
+
+    @Test
+    public void whenGetInactiveDevices_thenIncludeArchivedDevices() {
+        DeviceDTO archivedDTO = new DeviceDTO(3L, "Device 3", "Brand 1", DeviceState.INACTIVE, LocalDate.now());
+
+        when(deviceRepository.findByBrandAndState("Brand 1", DeviceState.INACTIVE))
+                .thenReturn(Optional.of(Collections.emptyList()));
+        when(deviceArchiveService.findArchived("Brand 1")).thenReturn(List.of(archivedDTO));
+
+        List<DeviceDTO> fetchedDevices = deviceService.getDevices("Brand 1", DeviceState.INACTIVE);
+
+        assertThat(fetchedDevices).containsExactly(archivedDTO);
+    }
+
+    @Test
+    public void whenGetDevicesCreatedInRange_thenQueryByRangeWithoutCache() {
+        LocalDate createdFrom = LocalDate.of(2025, 1, 1);
+        DeviceDTO archivedDTO = new DeviceDTO(3L, "Device 3", "Brand 1", DeviceState.INACTIVE, createdFrom);
+
+        when(deviceRepository.findByBrandAndStateCreatedBetween("Brand 1", null, createdFrom, null))
+                .thenReturn(List.of(deviceDTO1));
+        when(deviceArchiveService.findArchived("Brand 1", createdFrom, null)).thenReturn(List.of(archivedDTO));
+
+        deviceService.getDevices("Brand 1", null, createdFrom, null);
+        List<DeviceDTO> fetchedDevices = deviceService.getDevices("Brand 1", null, createdFrom, null);
+
+        assertThat(fetchedDevices).containsExactly(deviceDTO1, archivedDTO);
+        verify(deviceRepository, times(2)).findByBrandAndStateCreatedBetween("Brand 1", null, createdFrom, null);
+        verify(deviceRepository, never()).findByBrandAndState(any(), any());
+    }
+
+    @Test
+    public void whenGetDevicesWithInvalidRange_thenThrowInvalidDateRangeException() {
+        assertThrows(InvalidDateRangeException.class, () -> deviceService.getDevices(null, null,
+                LocalDate.of(2025, 2, 1), LocalDate.of(2025, 1, 31)));
+
+        verifyNoInteractions(deviceRepository);
+    }
+
+    @Test
+    public void whenGetWeeklyCreationHistogram_thenMergeHotAndArchivedDailyCounts() {
+        when(deviceRepository.countCreatedPerDayAndBrand(null, null, null)).thenReturn(List.of(
+                new DeviceCreationCountDTO(LocalDate.of(2025, 3, 17), "Brand 2", 1L),
+                new DeviceCreationCountDTO(LocalDate.of(2025, 3, 19), "Brand 1", 2L),
+                new DeviceCreationCountDTO(LocalDate.of(2025, 3, 24), "Brand 1", 3L)));
+        when(deviceArchiveService.countArchivedPerDay(null, null, null, true)).thenReturn(List.of(
+                new DeviceCreationCountDTO(LocalDate.of(2025, 3, 23), "Brand 1", 4L)));
+
+        List<DeviceCreationCountDTO> histogram = deviceService.getCreationHistogram(null, null, null,
+                CreationInterval.WEEK, true);
+
+        assertThat(histogram).containsExactly(
+                new DeviceCreationCountDTO(LocalDate.of(2025, 3, 17), "Brand 1", 6L),
+                new DeviceCreationCountDTO(LocalDate.of(2025, 3, 17), "Brand 2", 1L),
+                new DeviceCreationCountDTO(LocalDate.of(2025, 3, 24), "Brand 1", 3L));
+        verify(deviceRepository, never()).countCreatedPerDay(any(), any(), any());
+    }
+
+    @Test
+    public void whenGetMonthlyCreationHistogram_thenCountAllBrandsTogether() {
+        LocalDate createdFrom = LocalDate.of(2025, 1, 15);
+        when(deviceRepository.countCreatedPerDay("Brand 1", createdFrom, null)).thenReturn(List.of(
+                new DeviceCreationCountDTO(LocalDate.of(2025, 1, 31), 2L),
+                new DeviceCreationCountDTO(LocalDate.of(2025, 2, 1), 3L)));
+        when(deviceArchiveService.countArchivedPerDay("Brand 1", createdFrom, null, false)).thenReturn(List.of(
+                new DeviceCreationCountDTO(LocalDate.of(2025, 1, 20), 1L)));
+
+        List<DeviceCreationCountDTO> histogram = deviceService.getCreationHistogram("Brand 1", createdFrom, null,
+                CreationInterval.MONTH, false);
+
+        assertThat(histogram).containsExactly(
+                new DeviceCreationCountDTO(LocalDate.of(2025, 1, 1), 3L),
+                new DeviceCreationCountDTO(LocalDate.of(2025, 2, 1), 3L));
+    }
+
+    @Test
+    public void whenGetSameDevicesTwice_thenQueryOnce() {
+        when(deviceRepository.findByBrandAndState("Brand 1", DeviceState.AVAILABLE))
+                .thenReturn(Optional.of(List.of(deviceDTO1)));
+
+        deviceService.getDevices("Brand 1", DeviceState.AVAILABLE);
+        List<DeviceDTO> fetchedDevices = deviceService.getDevices("Brand 1", DeviceState.AVAILABLE);
+
+        assertThat(fetchedDevices).containsExactly(deviceDTO1);
+        verify(deviceRepository, times(1)).findByBrandAndState("Brand 1", DeviceState.AVAILABLE);
+    }
+
+    @Test
+    public void whenDeviceChanged_thenOnlyAffectedDeviceListsReloaded() {
+        DeviceDTO otherBrandDTO = new DeviceDTO(4L, "Device 4", "Brand 2", DeviceState.AVAILABLE, LocalDate.now());
+        when(deviceRepository.findByBrandAndState("Brand 1", DeviceState.AVAILABLE))
+                .thenReturn(Optional.of(List.of(deviceDTO1)));
+        when(deviceRepository.findByBrandAndState("Brand 2", DeviceState.AVAILABLE))
+                .thenReturn(Optional.of(List.of(otherBrandDTO)));
+        when(deviceRepository.findByBrandAndState("Brand 1", DeviceState.IN_USE))
+                .thenReturn(Optional.of(List.of(deviceDTO2)));
+        deviceService.getDevices("Brand 1", DeviceState.AVAILABLE);
+        deviceService.getDevices("Brand 2", DeviceState.AVAILABLE);
+        deviceService.getDevices("Brand 1", DeviceState.IN_USE);
+
+        device1.setState(DeviceState.INACTIVE);
+        deviceListCache.onDeviceChanged(DeviceChangedEvent.changed("Brand 1", DeviceState.AVAILABLE, device1));
+        deviceService.getDevices("Brand 1", DeviceState.AVAILABLE);
+        deviceService.getDevices("Brand 2", DeviceState.AVAILABLE);
+        deviceService.getDevices("Brand 1", DeviceState.IN_USE);
+
+        verify(deviceRepository, times(2)).findByBrandAndState("Brand 1", DeviceState.AVAILABLE);
+        verify(deviceRepository, times(1)).findByBrandAndState("Brand 2", DeviceState.AVAILABLE);
+        verify(deviceRepository, times(1)).findByBrandAndState("Brand 1", DeviceState.IN_USE);
+    }
+
+    @Test
+    public void whenDeviceChangedWhileLoading_thenLoadedListNotCached() {
+        deviceListCache.load("Brand 1", null, () -> {
+            deviceListCache.onDeviceChanged(DeviceChangedEvent.deleted(1L, "Brand 1", DeviceState.AVAILABLE));
+            return List.of(deviceDTO1);
+        });
+
+        assertTrue(deviceListCache.get("Brand 1", null).isEmpty());
+    }
+
+    @Test
+    public void whenUnrelatedDeviceChangedWhileLoading_thenLoadedListCached() {
+        deviceListCache.load("Brand 1", DeviceState.AVAILABLE, () -> {
+            deviceListCache.onDeviceChanged(DeviceChangedEvent.deleted(4L, "Brand 2", DeviceState.AVAILABLE));
+            deviceListCache.onDeviceChanged(DeviceChangedEvent.deleted(5L, "Brand 1", DeviceState.INACTIVE));
+            return List.of(deviceDTO1);
+        });
+        deviceListCache.load(null, DeviceState.AVAILABLE, () -> {
+            deviceListCache.onDeviceChanged(DeviceChangedEvent.stateChanged(List.of(5L), DeviceState.INACTIVE,
+                    DeviceState.IN_USE));
+            return List.of(deviceDTO1);
+        });
+        deviceListCache.load("Brand 1", null, () -> {
+            deviceListCache.onDeviceChanged(DeviceChangedEvent.stateChanged(List.of(5L), DeviceState.INACTIVE,
+                    DeviceState.IN_USE));
+            return List.of(deviceDTO1);
+        });
+
+        assertEquals(List.of(deviceDTO1), deviceListCache.get("Brand 1", DeviceState.AVAILABLE).orElseThrow());
+        assertEquals(List.of(deviceDTO1), deviceListCache.get(null, DeviceState.AVAILABLE).orElseThrow());
+        assertTrue(deviceListCache.get("Brand 1", null).isEmpty());
+    }
+
+    @Test
+    public void whenCheckinDevice_thenPublishDeviceChangedEvent() {
+        when(deviceRepository.findByIdForUpdate(2L)).thenReturn(Optional.of(device2));
+        when(deviceRepository.save(any(Device.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        deviceService.checkinDevice(2L);
+
+        verify(applicationEventPublisher, times(1)).publishEvent(new DeviceChangedEvent(List.of(2L), List.of(
+                new DeviceChangedEvent.Key("Brand 1", DeviceState.IN_USE),
+                new DeviceChangedEvent.Key("Brand 1", DeviceState.AVAILABLE))));
+    }
+
+    @Test
+    public void whenUpdateArchivedDevice_thenRestoreBeforeUpdate() {
+        Device deviceDetails = Device.builder().setName("New Name").setBrand("Brand 1").setState(DeviceState.AVAILABLE).build();
+        device1.setState(DeviceState.INACTIVE);
+
+        when(deviceRepository.findByIdForUpdate(1L)).thenReturn(Optional.empty());
+        when(deviceArchiveService.restoreForUpdate(1L)).thenReturn(Optional.of(device1));
+        when(deviceRepository.save(any(Device.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Device device = deviceService.updateDevice(1L, deviceDetails);
+
+        assertEquals(DeviceState.AVAILABLE, device.getState());
+        verify(deviceArchiveService, times(1)).restoreForUpdate(1L);
+    }
+
+    @Test
+    public void whenDeleteArchivedDevice_thenDeleteFromArchive() {
+        when(deviceRepository.findById(1L)).thenReturn(Optional.empty());
+        when(deviceArchiveService.deleteArchived(1L)).thenReturn(true);
+
+        deviceService.deleteDevice(1L);
+
+        verify(deviceRepository, never()).delete(any(Device.class));
+    }
+
+    @Test
+    public void whenGetDevicesByIds_thenReturnDevicesAndMissingIdsInRequestOrder() {
+        DeviceDTO hotDTO = new DeviceDTO(1L, "Device 1", "Brand 1", DeviceState.AVAILABLE, LocalDate.now());
+        DeviceDTO archivedDTO = new DeviceDTO(3L, "Device 3", "Brand 1", DeviceState.INACTIVE, LocalDate.now());
+
+        when(deviceRepository.findByIdInAsDTO(List.of(3L, 2L, 1L))).thenReturn(List.of(hotDTO));
+        when(deviceArchiveService.findArchived(List.of(3L, 2L))).thenReturn(List.of(archivedDTO));
+
+        DeviceLookupDTO lookup = deviceService.getDevicesByIds(List.of(3L, 2L, 1L, 3L));
+
+        assertThat(lookup.devices()).containsExactly(archivedDTO, hotDTO);
+        assertThat(lookup.missingIds()).containsExactly(2L);
+    }
+
+    @Test
+    public void whenGetDevicesByManyIds_thenQueryInChunks() {
+        List<Long> ids = LongStream.rangeClosed(1, 1200).boxed().toList();
+
+        when(deviceRepository.findByIdInAsDTO(anyList())).thenReturn(Collections.emptyList());
+
+        DeviceLookupDTO lookup = deviceService.getDevicesByIds(ids);
+
+        verify(deviceRepository, times(3)).findByIdInAsDTO(anyList());
+        verify(deviceArchiveService, times(1)).findArchived(ids);
+        assertThat(lookup.missingIds()).hasSize(1200);
+    }
+
+    @Test
+    public void whenArchivedDeviceExists_thenCheckArchiveAfterHotTable() {
+        when(deviceRepository.existsById(1L)).thenReturn(false);
+        when(deviceArchiveService.existsArchived(1L)).thenReturn(true);
+
+        assertTrue(deviceService.existsDevice(1L));
+    }
+
+    @Test
+    public void whenCountInUseDevices_thenArchiveNotCounted() {
+        when(deviceRepository.countByBrandAndState("Brand 1", DeviceState.IN_USE)).thenReturn(2L);
+
+        assertEquals(2L, deviceService.countDevices("Brand 1", DeviceState.IN_USE));
+        verify(deviceArchiveService, never()).countArchived(any());
+    }
+
+    @Test
+    public void whenCountAllDevices_thenAddArchivedCount() {
+        when(deviceRepository.countByBrandAndState(null, null)).thenReturn(2L);
+        when(deviceArchiveService.countArchived(null)).thenReturn(3L);
+
+        assertEquals(5L, deviceService.countDevices(null, null));
+    }
+
+    @Test
+    public void whenPatchDeviceStateWithWriteBehind_thenStageStateWithoutLocking() {
+        DeviceStateWriteBehindBuffer writeBehindBuffer =
+                new DeviceStateWriteBehindBuffer(deviceStateRepository, deviceShardRouter, true, 500);
+        DeviceService writeBehindDeviceService = createDeviceService(writeBehindBuffer);
+        device1.setId(1L);
+
+        when(deviceRepository.findById(1L)).thenReturn(Optional.of(device1));
+
+        Device device = writeBehindDeviceService.patchDevice(1L, Device.builder().setState(DeviceState.IN_USE).build());
+
+        assertEquals(DeviceState.IN_USE, device.getState());
+        assertEquals(DeviceState.AVAILABLE, device1.getState());
+        assertEquals(DeviceState.IN_USE, writeBehindDeviceService.getDevice(1L).getState());
+        verify(deviceRepository, never()).findByIdForUpdate(anyLong());
+        verify(deviceRepository, never()).save(any(Device.class));
+    }
+
+    @Test
+    public void whenFlushRepeatedStateTransitions_thenWriteNetStateOnce() {
+        DeviceStateWriteBehindBuffer writeBehindBuffer =
+                new DeviceStateWriteBehindBuffer(deviceStateRepository, deviceShardRouter, true, 500);
+        DeviceService writeBehindDeviceService = createDeviceService(writeBehindBuffer);
+        device1.setId(1L);
+
+        when(deviceRepository.findById(1L)).thenReturn(Optional.of(device1));
+        when(deviceStateRepository.updateStateIfUnchanged(anyList(), any(Instant.class)))
+                .thenReturn(new boolean[]{true});
+
+        writeBehindDeviceService.patchDevice(1L, Device.builder().setState(DeviceState.IN_USE).build());
+        writeBehindDeviceService.patchDevice(1L, Device.builder().setState(DeviceState.AVAILABLE).build());
+        writeBehindDeviceService.patchDevice(1L, Device.builder().setState(DeviceState.IN_USE).build());
+        writeBehindBuffer.flush();
+
+        verify(deviceStateRepository, times(1)).updateStateIfUnchanged(
+                eq(List.of(new DeviceStateUpdateDTO(1L, DeviceState.IN_USE, device1.getUpdatedAt()))),
+                any(Instant.class));
+        assertTrue(writeBehindBuffer.pendingState(1L).isEmpty());
+    }
+
+    @Test
+    public void whenDeleteDeviceWithStagedInUseState_thenThrowDeviceInUseException() {
+        DeviceStateWriteBehindBuffer writeBehindBuffer =
+                new DeviceStateWriteBehindBuffer(deviceStateRepository, deviceShardRouter, true, 500);
+        DeviceService writeBehindDeviceService = createDeviceService(writeBehindBuffer);
+        device1.setId(1L);
+
+        when(deviceRepository.findById(1L)).thenReturn(Optional.of(device1));
+
+        writeBehindDeviceService.patchDevice(1L, Device.builder().setState(DeviceState.IN_USE).build());
+
+        assertThrows(DeviceInUseException.class, () -> writeBehindDeviceService.deleteDevice(1L));
+        verify(deviceRepository, never()).delete(any(Device.class));
+    }
+
+    @Test
+    public void whenPartiallyUpdateBrandOfStagedInUseDevice_thenThrowDeviceInUseException() {
+        DeviceStateWriteBehindBuffer writeBehindBuffer =
+                new DeviceStateWriteBehindBuffer(deviceStateRepository, deviceShardRouter, true, 500);
+        DeviceService writeBehindDeviceService = createDeviceService(writeBehindBuffer);
+        device1.setId(1L);
+
+        when(deviceRepository.findById(1L)).thenReturn(Optional.of(device1));
+        when(deviceRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(device1));
+
+        writeBehindDeviceService.patchDevice(1L, Device.builder().setState(DeviceState.IN_USE).build());
+
+        assertThrows(DeviceInUseException.class,
+                () -> writeBehindDeviceService.patchDevice(1L, Device.builder().setBrand("Brand 2").build()));
+    }
+
+    @Test
+    public void whenCheckoutAvailableDevice_thenSetInUseAndArmLease() {
+        device1.setId(1L);
+
+        when(deviceRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(device1));
+        when(deviceRepository.save(any(Device.class))).thenReturn(device1);
+
+        Device device = deviceService.checkoutDevice(1L, Duration.ofMinutes(5));
+
+        assertEquals(DeviceState.IN_USE, device.getState());
+        assertNotNull(device.getLeaseExpiresAt());
+        verify(deviceLeaseScheduler, times(1)).arm(1L, device.getLeaseExpiresAt());
+    }
+
+    @Test
+    public void whenCheckoutInUseDevice_thenThrowDeviceInUseException() {
+        when(deviceRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(device2));
+
+        assertThrows(DeviceInUseException.class, () -> deviceService.checkoutDevice(1L, Duration.ofMinutes(5)));
+        verify(deviceLeaseScheduler, never()).arm(anyLong(), any());
+    }
+
+    @Test
+    public void whenCheckoutInactiveDevice_thenThrowDeviceNotAvailableException() {
+        Device inactiveDevice = createDevice("Device 4", "Brand 1", DeviceState.INACTIVE);
+
+        when(deviceRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(inactiveDevice));
+
+        assertThrows(DeviceNotAvailableException.class, () -> deviceService.checkoutDevice(1L, Duration.ofMinutes(5)));
+    }
+
+    @Test
+    public void whenCheckinInUseDevice_thenSetAvailableAndCancelLease() {
+        device2.setId(2L);
+        device2.setLeaseExpiresAt(Instant.now().plusSeconds(60));
+
+        when(deviceRepository.findByIdForUpdate(2L)).thenReturn(Optional.of(device2));
+        when(deviceRepository.save(any(Device.class))).thenReturn(device2);
+
+        Device device = deviceService.checkinDevice(2L);
+
+        assertEquals(DeviceState.AVAILABLE, device.getState());
+        assertNull(device.getLeaseExpiresAt());
+        verify(deviceLeaseScheduler, times(1)).cancel(2L);
+    }
+
+    @Test
+    public void whenCheckinAvailableDevice_thenThrowDeviceNotAvailableException() {
+        when(deviceRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(device1));
+
+        assertThrows(DeviceNotAvailableException.class, () -> deviceService.checkinDevice(1L));
+    }
+
+    @Test
+    public void whenClaimDevices_thenClaimAvailableDevicesWithLease() {
+        device1.setId(1L);
+        device3.setId(3L);
+
+        when(deviceRepository.findForClaim(eq("Brand 1"), eq(DeviceState.AVAILABLE), any(Pageable.class)))
+                .thenReturn(List.of(device1, device3));
+
+        List<Device> devices = deviceService.claimDevices("Brand 1", 2, Duration.ofMinutes(5));
+
+        assertThat(devices)
+                .extracting(Device::getState)
+                .containsExactly(DeviceState.IN_USE, DeviceState.IN_USE);
+        verify(deviceRepository, times(1)).claimByIdIn(eq(List.of(1L, 3L)), eq(DeviceState.IN_USE), any(Instant.class));
+        verify(deviceLeaseScheduler, times(2)).arm(anyLong(), any(Instant.class));
+    }
+
+    @Test
+    public void whenClaimDevicesWithNoneAvailable_thenThrowDeviceNotFoundException() {
+        when(deviceRepository.findForClaim(any(), eq(DeviceState.AVAILABLE), any(Pageable.class)))
+                .thenReturn(Collections.emptyList());
+
+        assertThrows(DeviceNotFoundException.class, () -> deviceService.claimDevices(null, 2, null));
+        verify(deviceRepository, never()).claimByIdIn(anyCollection(), any(), any());
+    }
+
+    @Test
+    public void whenConcurrentIdenticalGetDevice_thenShareSingleQuery() throws Exception {
+        CountDownLatch queryStarted = new CountDownLatch(1);
+        CountDownLatch releaseQuery = new CountDownLatch(1);
+
+        when(deviceRepository.findById(1L)).thenAnswer(invocation -> {
+            queryStarted.countDown();
+            releaseQuery.await(5, TimeUnit.SECONDS);
+            return Optional.of(device1);
+        });
+
+        CompletableFuture<Device> leader = CompletableFuture.supplyAsync(() -> deviceService.getDevice(1L));
+        queryStarted.await(5, TimeUnit.SECONDS);
+        CompletableFuture<Device> follower = CompletableFuture.supplyAsync(() -> deviceService.getDevice(1L));
+
+        while (meterRegistry.get("device.reads").tags("operation", "getDevice", "outcome", "coalesced")
+                .functionCounter().count() == 0) {
+            Thread.onSpinWait();
+        }
+        releaseQuery.countDown();
+
+        Device leaderDevice = leader.get(5, TimeUnit.SECONDS);
+        Device followerDevice = follower.get(5, TimeUnit.SECONDS);
+        assertEquals(leaderDevice, followerDevice);
+        assertNotSame(leaderDevice, followerDevice);
+        assertNotSame(device1, leaderDevice);
+        verify(deviceRepository, times(1)).findById(1L);
+    }
 }
@@ -0,0 +1,93 @@
+package com.francisco.deviceapi.service;
+
+import com.francisco.deviceapi.domain.enums.DeviceState;
+import com.francisco.deviceapi.domain.enums.HistoryDurability;
+import com.francisco.deviceapi.dto.DeviceStateTransitionDTO;
+import com.francisco.deviceapi.repository.DeviceStateHistoryRepository;
+import com.francisco.deviceapi.sharding.DeviceShardRouter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class DeviceStateHistoryWriterTests {
+
+    @Mock
+    private DeviceStateHistoryRepository deviceStateHistoryRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private DeviceStateHistoryWriter createWriter(HistoryDurability durability) {
+        return new DeviceStateHistoryWriter(deviceStateHistoryRepository, transactionManager, new SimpleMeterRegistry(),
+                new DeviceShardRouter(false, List.of(), 1, null), true, durability, 4, 3, 5000);
+    }
+
+    private static DeviceStateTransitionDTO createTransition(long deviceId) {
+        return new DeviceStateTransitionDTO(deviceId, DeviceState.AVAILABLE, DeviceState.IN_USE,
+                Instant.parse("2025-03-21T10:00:00Z"));
+    }
+
+    @Test
+    public void whenBestEffortBufferOverflows_thenDropTransitionsAndWriteTheRestInBatches() {
+        DeviceStateHistoryWriter writer = createWriter(HistoryDurability.BEST_EFFORT);
+        List<List<DeviceStateTransitionDTO>> batches = new ArrayList<>();
+        doAnswer(invocation -> batches.add(List.copyOf(invocation.getArgument(0))))
+                .when(deviceStateHistoryRepository).insertAll(anyList());
+
+        for (long id = 1; id <= 6; id++) {
+            writer.record(createTransition(id));
+        }
+
+        writer.flush();
+
+        assertEquals(List.of(
+                List.of(createTransition(1L), createTransition(2L), createTransition(3L)),
+                List.of(createTransition(4L))), batches);
+        assertEquals(4, writer.writtenCount());
+        assertEquals(2, writer.droppedCount());
+    }
+
+    @Test
+    public void whenDurableBatchFails_thenRetryItAndWriteBufferInBackgroundOnOverflow() {
+        DeviceStateHistoryWriter writer = createWriter(HistoryDurability.DURABLE);
+        List<List<DeviceStateTransitionDTO>> batches = new ArrayList<>();
+        List<Thread> writerThreads = new ArrayList<>();
+        doThrow(new DataAccessResourceFailureException("Connection refused"))
+                .doAnswer(invocation -> {
+                    writerThreads.add(Thread.currentThread());
+                    return batches.add(List.copyOf(invocation.getArgument(0)));
+                })
+                .when(deviceStateHistoryRepository).insertAll(anyList());
+
+        writer.record(createTransition(1L));
+        writer.flush();
+
+        for (long id = 2; id <= 6; id++) {
+            writer.record(createTransition(id));
+        }
+
+        writer.shutdown();
+
+        assertEquals(List.of(createTransition(1L), createTransition(2L), createTransition(3L)), batches.getFirst());
+        assertEquals(LongStream.rangeClosed(1, 6).mapToObj(DeviceStateHistoryWriterTests::createTransition).toList(),
+                batches.stream().flatMap(List::stream).toList());
+        assertEquals(6, writer.writtenCount());
+        assertEquals(0, writer.droppedCount());
+        assertNotEquals(Thread.currentThread(), writerThreads.getFirst());
+    }
+}
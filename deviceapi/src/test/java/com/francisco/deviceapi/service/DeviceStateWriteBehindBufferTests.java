@@ -0,0 +1,106 @@
+package com.francisco.deviceapi.service;
+
+import com.francisco.deviceapi.domain.Device;
+import com.francisco.deviceapi.domain.enums.DeviceState;
+import com.francisco.deviceapi.repository.DeviceRepository;
+import com.francisco.deviceapi.repository.DeviceStateRepository;
+import com.francisco.deviceapi.sharding.DeviceShardRouter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+public class DeviceStateWriteBehindBufferTests {
+
+    @Autowired
+    private DeviceService deviceService;
+
+    @Autowired
+    private DeviceRepository deviceRepository;
+
+    @Autowired
+    private DeviceStateRepository deviceStateRepository;
+
+    @Autowired
+    private DeviceShardRouter deviceShardRouter;
+
+    private DeviceStateWriteBehindBuffer writeBehindBuffer;
+
+    private Device device;
+
+    @BeforeEach
+    void setup() {
+        deviceRepository.deleteAll();
+        device = deviceRepository.save(Device.builder()
+                .setName("Device 1")
+                .setBrand("Brand 1")
+                .setState(DeviceState.AVAILABLE)
+                .build());
+        writeBehindBuffer = new DeviceStateWriteBehindBuffer(deviceStateRepository, deviceShardRouter, true, 500);
+    }
+
+    private void stageOnPersistedDevice(DeviceState state) {
+        Device persistedDevice = deviceRepository.findById(device.getId()).orElseThrow();
+        writeBehindBuffer.stage(device.getId(), state, persistedDevice.getUpdatedAt());
+    }
+
+    @Test
+    void whenFlushUnchangedDevice_thenWriteStagedState() {
+        stageOnPersistedDevice(DeviceState.IN_USE);
+
+        writeBehindBuffer.flush();
+
+        assertEquals(DeviceState.IN_USE, deviceRepository.findById(device.getId()).orElseThrow().getState());
+        assertTrue(writeBehindBuffer.pendingState(device.getId()).isEmpty());
+    }
+
+    @Test
+    void whenPutCommitsBetweenStagingAndFlush_thenKeepPutState() {
+        stageOnPersistedDevice(DeviceState.IN_USE);
+        deviceService.updateDevice(device.getId(), Device.builder()
+                .setName("Device 2")
+                .setBrand("Brand 1")
+                .setState(DeviceState.INACTIVE)
+                .build());
+
+        writeBehindBuffer.flush();
+
+        Device persistedDevice = deviceRepository.findById(device.getId()).orElseThrow();
+        assertEquals("Device 2", persistedDevice.getName());
+        assertEquals(DeviceState.INACTIVE, persistedDevice.getState());
+        assertTrue(writeBehindBuffer.pendingState(device.getId()).isEmpty());
+    }
+
+    @Test
+    void whenCheckoutCommitsBetweenStagingAndFlush_thenKeepLease() {
+        stageOnPersistedDevice(DeviceState.INACTIVE);
+        deviceService.checkoutDevice(device.getId(), Duration.ofMinutes(5));
+
+        writeBehindBuffer.flush();
+
+        Device persistedDevice = deviceRepository.findById(device.getId()).orElseThrow();
+        assertEquals(DeviceState.IN_USE, persistedDevice.getState());
+        assertNotNull(persistedDevice.getLeaseExpiresAt());
+    }
+
+    @Test
+    void whenStagedAgainAfterFlush_thenWriteNewStateOnNextFlush() {
+        stageOnPersistedDevice(DeviceState.IN_USE);
+        writeBehindBuffer.flush();
+        writeBehindBuffer.stage(device.getId(), DeviceState.AVAILABLE,
+                deviceRepository.findById(device.getId()).orElseThrow().getUpdatedAt());
+
+        writeBehindBuffer.flush();
+
+        assertEquals(DeviceState.AVAILABLE, deviceRepository.findById(device.getId()).orElseThrow().getState());
+    }
+}
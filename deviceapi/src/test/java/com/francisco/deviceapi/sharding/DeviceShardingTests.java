@@ -0,0 +1,139 @@
+package com.francisco.deviceapi.sharding;
+
+import com.francisco.deviceapi.domain.Device;
+import com.francisco.deviceapi.domain.enums.DeviceState;
+import com.francisco.deviceapi.dto.DeviceDTO;
+import com.francisco.deviceapi.dto.DeviceLookupDTO;
+import com.francisco.deviceapi.exception.DeviceNotFoundException;
+import com.francisco.deviceapi.exception.InvalidOperationException;
+import com.francisco.deviceapi.repository.DeviceRepository;
+import com.francisco.deviceapi.service.DeviceService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest(properties = {
+        "device.sharding.enabled=true",
+        "device.sharding.urls=jdbc:h2:mem:devices_shard0;DB_CLOSE_DELAY=-1,"
+                + "jdbc:h2:mem:devices_shard1;DB_CLOSE_DELAY=-1,"
+                + "jdbc:h2:mem:devices_shard2;DB_CLOSE_DELAY=-1",
+        "spring.jpa.open-in-view=false"
+})
+@ActiveProfiles("test")
+public class DeviceShardingTests {
+
+    @Autowired
+    private DeviceService deviceService;
+
+    @Autowired
+    private DeviceRepository deviceRepository;
+
+    @Autowired
+    private DeviceShardRouter deviceShardRouter;
+
+    /**
+     * A Brand stored on each shard, by shard.
+     */
+    private List<String> brands;
+
+    @BeforeEach
+    void setup() {
+        deviceShardRouter.forEachShard(deviceRepository::deleteAll);
+        brands = IntStream.range(0, deviceShardRouter.shardCount())
+                .mapToObj(shard -> IntStream.iterate(0, i -> i + 1)
+                        .mapToObj(i -> "Brand " + i)
+                        .filter(brand -> deviceShardRouter.shardOf(brand) == shard)
+                        .findFirst()
+                        .orElseThrow())
+                .toList();
+    }
+
+    @Test
+    void createDevice_shouldStoreDeviceOnShardOfItsBrand_withShardEncodedInId() {
+        for (int shard = 0; shard < brands.size(); shard++) {
+            Device device = deviceService.createDevice(createDevice("Device", brands.get(shard), DeviceState.AVAILABLE));
+
+            assertEquals(shard, DeviceShard.shardOfId(device.getId()));
+            assertThat(IntStream.range(0, brands.size())
+                    .filter(otherShard -> DeviceShard.call(otherShard, () -> deviceRepository.existsById(device.getId())))
+                    .boxed()
+                    .toList()).containsExactly(shard);
+        }
+    }
+
+    @Test
+    void getDevice_shouldFindDeviceOnShardOfItsId() {
+        Device device = deviceService.createDevice(createDevice("Device", brands.get(2), DeviceState.AVAILABLE));
+
+        assertEquals(brands.get(2), deviceService.getDevice(device.getId()).getBrand());
+        assertThrows(DeviceNotFoundException.class, () -> deviceService.getDevice(device.getId() - 1));
+    }
+
+    @Test
+    void getDevices_withoutBrand_shouldMergeDevicesOfEveryShard() {
+        List<Long> ids = brands.stream()
+                .map(brand -> deviceService.createDevice(createDevice("Device", brand, DeviceState.AVAILABLE)).getId())
+                .toList();
+
+        assertThat(deviceService.getDevices(null, null)).extracting(DeviceDTO::id)
+                .containsExactlyInAnyOrderElementsOf(ids);
+        assertThat(deviceService.getDevices(brands.get(1), null)).extracting(DeviceDTO::id)
+                .containsExactly(ids.get(1));
+        assertEquals(3, deviceService.countDevices(null, DeviceState.AVAILABLE));
+
+        DeviceLookupDTO lookup = deviceService.getDevicesByIds(List.of(ids.get(2), ids.get(0), 999_999L));
+        assertThat(lookup.devices()).extracting(DeviceDTO::id).containsExactly(ids.get(2), ids.get(0));
+        assertThat(lookup.missingIds()).containsExactly(999_999L);
+    }
+
+    @Test
+    void patchDevice_shouldRejectBrandOfAnotherShard() {
+        Device device = deviceService.createDevice(createDevice("Device", brands.get(0), DeviceState.AVAILABLE));
+
+        assertThrows(InvalidOperationException.class,
+                () -> deviceService.patchDevice(device.getId(), createDevice(null, brands.get(1), null)));
+        assertEquals(brands.get(0), deviceService.getDevice(device.getId()).getBrand());
+    }
+
+    @Test
+    void claimDevices_withoutBrand_shouldClaimFromAnyShardWithAvailableDevices() {
+        deviceService.createDevice(createDevice("Device 1", brands.get(0), DeviceState.INACTIVE));
+        Device available = deviceService.createDevice(createDevice("Device 2", brands.get(1), DeviceState.AVAILABLE));
+
+        for (int i = 0; i < 5; i++) {
+            List<Device> claimed = deviceService.claimDevices(null, 10, Duration.ofMinutes(1));
+
+            assertThat(claimed).extracting(Device::getId).containsExactly(available.getId());
+            deviceService.checkinDevice(available.getId());
+        }
+    }
+
+    @Test
+    void deviceShardRouter_shouldFailWithoutShardDataSource() {
+        ObjectProvider<DeviceShardingConfig> noShardingConfig =
+                new StaticListableBeanFactory().getBeanProvider(DeviceShardingConfig.class);
+
+        assertThrows(IllegalStateException.class,
+                () -> new DeviceShardRouter(true, List.of("jdbc:h2:mem:devices_shard0"), 1, noShardingConfig));
+    }
+
+    private static Device createDevice(String name, String brand, DeviceState state) {
+        return Device.builder()
+                .setName(name)
+                .setBrand(brand)
+                .setState(state)
+                .build();
+    }
+}
@@ -0,0 +1,55 @@
+package com.francisco.deviceapi.snapshot;
+
+import com.francisco.deviceapi.domain.enums.DeviceState;
+import com.francisco.deviceapi.dto.DeviceSnapshotDTO;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DeviceSnapshotFileTests {
+
+    private static final Instant WATERMARK = Instant.parse("2025-03-21T10:15:30.123456Z");
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    public void whenWriteAndOpenSnapshot_thenReadSameDevices() throws IOException {
+        List<DeviceSnapshotDTO> devices = List.of(
+                new DeviceSnapshotDTO(3L, "Device 3", "Brand 1", DeviceState.AVAILABLE, LocalDate.of(2024, 1, 31),
+                        null, WATERMARK.minusSeconds(60)),
+                new DeviceSnapshotDTO(7L, "Dispositivo \"ñ\"", "Brand 2", DeviceState.IN_USE,
+                        LocalDate.of(2025, 3, 21), WATERMARK.plusSeconds(600), WATERMARK),
+                new DeviceSnapshotDTO(9L, "Device 9", "Brand 1", DeviceState.INACTIVE, LocalDate.of(1999, 12, 31),
+                        null, WATERMARK.minusSeconds(1)));
+        Path path = directory.resolve("snapshots/devices.snapshot");
+
+        DeviceSnapshotFile.write(path, WATERMARK, devices);
+        DeviceSnapshotFile snapshot = DeviceSnapshotFile.open(path);
+
+        assertEquals(WATERMARK, snapshot.watermark());
+        assertEquals(3, snapshot.size());
+        assertEquals(devices, List.of(snapshot.get(0), snapshot.get(1), snapshot.get(2)));
+        assertEquals(1, snapshot.indexOf(7L));
+        assertTrue(snapshot.indexOf(8L) < 0);
+        assertTrue(Files.notExists(directory.resolve("snapshots/devices.snapshot.tmp")));
+    }
+
+    @Test
+    public void whenOpenInvalidFile_thenThrowIOException() throws IOException {
+        Path path = directory.resolve("devices.snapshot");
+        Files.write(path, new byte[64]);
+
+        assertThrows(IOException.class, () -> DeviceSnapshotFile.open(path));
+    }
+}
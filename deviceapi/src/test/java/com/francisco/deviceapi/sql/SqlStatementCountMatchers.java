@@ -0,0 +1,30 @@
+package com.francisco.deviceapi.sql;
+
+import com.francisco.deviceapi.web.SqlStatementCountFilter;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+
+/**
+ * {@link ResultMatcher}s for the SQL statement budget of a request.
+ */
+public final class SqlStatementCountMatchers {
+
+    private SqlStatementCountMatchers() {
+
+    }
+
+    /**
+     * Asserts the exact number of SQL statements executed by the request.
+     */
+    public static ResultMatcher statements(int expected) {
+        return header().string(SqlStatementCountFilter.STATEMENTS_HEADER, String.valueOf(expected));
+    }
+
+    /**
+     * Asserts the exact number of database round trips made by the request, including commits and rollbacks.
+     */
+    public static ResultMatcher roundTrips(int expected) {
+        return header().string(SqlStatementCountFilter.ROUND_TRIPS_HEADER, String.valueOf(expected));
+    }
+}
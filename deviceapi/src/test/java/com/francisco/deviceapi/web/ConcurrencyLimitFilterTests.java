@@ -0,0 +1,60 @@
+package com.francisco.deviceapi.web;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ConcurrencyLimitFilterTests {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private ConcurrencyLimitFilter filter;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory(Map.of("meterRegistry", meterRegistry));
+        filter = new ConcurrencyLimitFilter(beanFactory.getBeanProvider(MeterRegistry.class), true, 1, 100, 400, 20,
+                100, 4, 2.0, 600);
+    }
+
+    private double writeLimit() {
+        return meterRegistry.get("device.concurrency.limit").tags("operation", "write").gauge().value();
+    }
+
+    private void put(HttpStatus status) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("PUT", ConcurrencyLimitFilter.DEVICES_PATH + "/1");
+        FilterChain chain = (req, res) -> ((MockHttpServletResponse) res).setStatus(status.value());
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+    }
+
+    @Test
+    public void whenDeviceBusyOrDeadlineExceeded_thenKeepLimit() throws Exception {
+        for (int i = 0; i < 50; i++) {
+            put(HttpStatus.SERVICE_UNAVAILABLE);
+            put(HttpStatus.GATEWAY_TIMEOUT);
+        }
+
+        assertEquals(20, writeLimit());
+    }
+
+    @Test
+    public void whenServerFails_thenShrinkLimit() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            put(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+
+        assertTrue(writeLimit() < 20);
+    }
+}
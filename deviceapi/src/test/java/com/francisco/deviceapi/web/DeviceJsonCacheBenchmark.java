@@ -0,0 +1,106 @@
+package com.francisco.deviceapi.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.francisco.deviceapi.domain.enums.DeviceState;
+import com.francisco.deviceapi.dto.DeviceDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.GenericHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Type;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.LongStream;
+
+/**
+ * Compares the CPU time and allocation of writing device lists with the Jackson converter and with
+ * {@link DeviceJsonHttpMessageConverter}.
+ * <p>
+ * Not a test: run it with {@code benchmark/json-cache.sh [devices] [iterations]}.
+ */
+public class DeviceJsonCacheBenchmark {
+
+    private static final Type DEVICE_LIST = new ParameterizedTypeReference<List<DeviceDTO>>() {}.getType();
+
+    public static void main(String[] args) throws Exception {
+        int devices = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 20000;
+
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        List<DeviceDTO> deviceList = LongStream.range(0, devices)
+                .mapToObj(id -> new DeviceDTO(id, "Device " + id, "Brand " + id % 10, DeviceState.AVAILABLE,
+                        LocalDate.of(2025, 1, 1)))
+                .toList();
+
+        GenericHttpMessageConverter<Object> jackson = new MappingJackson2HttpMessageConverter(objectMapper);
+        GenericHttpMessageConverter<Object> cached = new DeviceJsonHttpMessageConverter(objectMapper,
+                new StaticListableBeanFactory().getBeanProvider(MeterRegistry.class), true, 10000);
+
+        for (int round = 0; round < 3; round++) {
+            run("jackson", jackson, deviceList, iterations, round == 2);
+            run("cached ", cached, deviceList, iterations, round == 2);
+        }
+    }
+
+    private static void run(String name, GenericHttpMessageConverter<Object> converter, List<DeviceDTO> deviceList,
+                            int iterations, boolean report) throws Exception {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+        long cpuBefore = threads.getCurrentThreadCpuTime();
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        long bytes = 0;
+
+        for (int i = 0; i < iterations; i++) {
+            CountingOutputMessage outputMessage = new CountingOutputMessage();
+            converter.write(deviceList, DEVICE_LIST, MediaType.APPLICATION_JSON, outputMessage);
+            bytes += outputMessage.count;
+        }
+
+        long cpuNanos = threads.getCurrentThreadCpuTime() - cpuBefore;
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        if (report) {
+            System.out.printf("%s: %,8d ns/op CPU  %,10d B/op allocated  %,d B/op written%n",
+                    name, cpuNanos / iterations, allocated / iterations, bytes / iterations);
+        }
+    }
+
+    /**
+     * Discards the body and counts its bytes, so the allocation measured is the serialization's own.
+     */
+    private static class CountingOutputMessage extends OutputStream implements HttpOutputMessage {
+
+        private final HttpHeaders headers = new HttpHeaders();
+
+        private long count;
+
+        @Override
+        public OutputStream getBody() {
+            return this;
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}